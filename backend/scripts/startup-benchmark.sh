@@ -0,0 +1,87 @@
+#!/usr/bin/env sh
+# Measures time-to-first-request of the backend: from launching the JVM until GET /actuator/health answers.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#   JAR           the packaged application (default: target/Tracker-0.0.1-SNAPSHOT.jar)
+#   PROFILES      Spring profiles to run with (default: test, the in-memory database, so no MySQL is needed)
+#   PORT          HTTP port used for the runs (default: 18081)
+#   CDS_ARCHIVE   class-data-sharing archive to add to the "aot+cds" mode, skipped when missing (default: app.jsa)
+#
+# Modes: "jar" runs the jar as built; "aot" adds -Dspring.aot.enabled=true and the fast-startup profile and needs a
+# jar built with mvn clean package -Pfast-startup; "aot+cds" additionally maps the CDS archive. The archive is only valid
+# for the classpath it was recorded with, so it runs from the unpacked jar as in Dockerfile.fast-startup.
+set -eu
+
+RUNS="${1:-5}"
+JAR="${JAR:-target/Tracker-0.0.1-SNAPSHOT.jar}"
+PROFILES="${PROFILES:-test}"
+PORT="${PORT:-18081}"
+CDS_ARCHIVE="${CDS_ARCHIVE:-app.jsa}"
+EXPLODED="${EXPLODED:-target/exploded}"
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Starts the application with the given JVM arguments and prints the milliseconds until the first request succeeds
+measure() {
+    start=$(now_ms)
+    java "$@" --server.port="$PORT" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null 2>&1; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "application exited before answering" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+    end=$(now_ms)
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo $(( end - start ))
+}
+
+run_mode() {
+    name="$1"
+    shift
+    total=0
+    best=""
+    i=1
+    while [ "$i" -le "$RUNS" ]; do
+        elapsed=$(measure "$@")
+        total=$(( total + elapsed ))
+        if [ -z "$best" ] || [ "$elapsed" -lt "$best" ]; then
+            best=$elapsed
+        fi
+        i=$(( i + 1 ))
+    done
+    printf '%-8s runs=%s mean=%sms best=%sms\n' "$name" "$RUNS" $(( total / RUNS )) "$best"
+}
+
+if [ ! -f "$JAR" ]; then
+    echo "No jar at $JAR; build it first with mvn package (or mvn clean package -Pfast-startup)" >&2
+    exit 1
+fi
+
+run_mode jar -Dspring.profiles.active="$PROFILES" -jar "$JAR"
+
+if ! unzip -l "$JAR" | grep -q '__ApplicationContextInitializer'; then
+    echo "aot      skipped: $JAR was not built with -Pfast-startup"
+    exit 0
+fi
+run_mode aot -Dspring.aot.enabled=true -Dspring.profiles.active="fast-startup,$PROFILES" -jar "$JAR"
+
+rm -rf "$EXPLODED"
+mkdir -p "$EXPLODED"
+(cd "$EXPLODED" && jar -xf "$OLDPWD/$JAR")
+# CDS only archives classes loaded from jars, so the application classes are repacked into one
+jar -cf "$EXPLODED/application.jar" -C "$EXPLODED/BOOT-INF/classes" .
+CLASSPATH_ARG="$EXPLODED/application.jar:$EXPLODED/BOOT-INF/lib/*"
+MAIN=BudgetTracker.Tracker.TrackerApplication
+if [ ! -f "$CDS_ARCHIVE" ]; then
+    # Record the archive with a training run that exits once the context is refreshed
+    java -XX:ArchiveClassesAtExit="$CDS_ARCHIVE" -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+        -Dspring.profiles.active="fast-startup,$PROFILES" -cp "$CLASSPATH_ARG" "$MAIN" > /dev/null 2>&1
+fi
+run_mode aot+cds -XX:SharedArchiveFile="$CDS_ARCHIVE" -Dspring.aot.enabled=true \
+    -Dspring.profiles.active="fast-startup,$PROFILES" -cp "$CLASSPATH_ARG" "$MAIN"
@@ -0,0 +1,315 @@
+package BudgetTracker.Tracker.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log written by a background thread, one JSON object per request and line, to {@code access.jsonl} in a
+ * directory. Requests hand their event to a preallocated ring buffer without locks, I/O or allocation: a request
+ * claims a slot by advancing the claimed sequence, fills in the slot's fields and publishes it by setting its
+ * sequence. The writer drains published slots in order and flushes once per batch. When the buffer is full, because
+ * the disk cannot keep up, events are dropped and counted rather than slowing requests down.
+ * <p>
+ * The file is rotated once it exceeds the configured size: {@code access.jsonl} becomes {@code access.1.jsonl}, each
+ * older file moves up by one and the oldest beyond the configured count is deleted.
+ */
+public class AccessLog {
+
+    /**
+     * User ID of requests that name no user.
+     */
+    public static final long NO_USER = -1;
+
+    static final String FILE_NAME = "access.jsonl";
+
+    private static final Logger log = LoggerFactory.getLogger(AccessLog.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private static final class Slot {
+        // Sequence of the event held, published last
+        private volatile long sequence = -1;
+        private long timestamp;
+        private String method;
+        private String path;
+        private long userId;
+        private int status;
+        private long latencyNanos;
+        private int sqlStatements;
+        private long responseBytes;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Path dir;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final StringBuilder line = new StringBuilder(256);
+    private Thread writer;
+    private volatile boolean running;
+    private Writer out;
+    private long fileBytes;
+
+    /**
+     * @param dir          The directory of the log files.
+     * @param capacity     The number of events the ring buffer holds, rounded up to a power of two.
+     * @param maxFileBytes The size above which the file is rotated.
+     * @param maxFiles     The number of rotated files kept besides the current one.
+     */
+    public AccessLog(Path dir, int capacity, long maxFileBytes, int maxFiles) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Access log capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        size = size < capacity ? size << 1 : size;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.dir = dir;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    public synchronized void start() {
+        if (writer == null) {
+            running = true;
+            writer = new Thread(this::run, "access-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Stops the writer thread once it has written every event recorded so far, and closes the file.
+     */
+    public synchronized void stop() {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    /**
+     * Hands the event of a request to the writer.
+     *
+     * @param timestamp     The time the request started, in milliseconds since the epoch.
+     * @param method        The HTTP method.
+     * @param path          The request path.
+     * @param userId        The ID of the user the request concerns, or {@link #NO_USER}.
+     * @param status        The response status.
+     * @param latencyNanos  The time taken to handle the request.
+     * @param sqlStatements The SQL statements sent, or -1 if they are not counted.
+     * @param responseBytes The response body size, or -1 if unknown.
+     * @return False if the buffer was full and the event was dropped.
+     */
+    public boolean record(long timestamp, String method, String path, long userId, int status, long latencyNanos,
+                          int sqlStatements, long responseBytes) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= slots.length) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        Slot slot = slots[(int) sequence & mask];
+        slot.timestamp = timestamp;
+        slot.method = method;
+        slot.path = path;
+        slot.userId = userId;
+        slot.status = status;
+        slot.latencyNanos = latencyNanos;
+        slot.sqlStatements = sqlStatements;
+        slot.responseBytes = responseBytes;
+        slot.sequence = sequence;
+        return true;
+    }
+
+    /**
+     * @return The number of events dropped because the buffer was full.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of events recorded and not written yet.
+     */
+    public long getPending() {
+        return Math.max(0, claimed.get() - consumed.get());
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                // Read before draining, so that events recorded before stop() are written
+                boolean stopping = !running;
+                if (drain() == 0) {
+                    if (stopping) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        } finally {
+            closeFile();
+        }
+    }
+
+    private int drain() {
+        int written = 0;
+        long sequence = consumed.get();
+        while (true) {
+            Slot slot = slots[(int) sequence & mask];
+            if (slot.sequence != sequence) {
+                break;
+            }
+            format(slot);
+            // Frees the slot
+            slot.method = null;
+            slot.path = null;
+            consumed.set(++sequence);
+            write();
+            written++;
+        }
+        if (written > 0 && out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                log.warn("Could not write the access log to {}", dir, e);
+                closeFile();
+            }
+        }
+        return written;
+    }
+
+    private void format(Slot slot) {
+        line.setLength(0);
+        line.append("{\"time\":\"").append(Instant.ofEpochMilli(slot.timestamp))
+                .append("\",\"method\":\"");
+        appendEscaped(slot.method);
+        line.append("\",\"path\":\"");
+        appendEscaped(slot.path);
+        line.append("\",\"userId\":");
+        if (slot.userId == NO_USER) {
+            line.append("null");
+        } else {
+            line.append(slot.userId);
+        }
+        line.append(",\"status\":").append(slot.status)
+                .append(",\"latencyMs\":").append(slot.latencyNanos / 1000 / 1000.0)
+                .append(",\"sqlStatements\":");
+        appendCount(slot.sqlStatements);
+        line.append(",\"responseBytes\":");
+        appendCount(slot.responseBytes);
+        line.append("}\n");
+    }
+
+    private void appendCount(long count) {
+        if (count < 0) {
+            line.append("null");
+        } else {
+            line.append(count);
+        }
+    }
+
+    private void appendEscaped(String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+    }
+
+    private void write() {
+        try {
+            if (out == null) {
+                openFile();
+            }
+            out.append(line);
+            // Paths are percent-encoded, so every character is one byte
+            fileBytes += line.length();
+            if (fileBytes > maxFileBytes) {
+                rotate();
+            }
+        } catch (IOException e) {
+            // Dropped; the next event tries to reopen the file
+            log.warn("Could not write the access log to {}", dir, e);
+            closeFile();
+        }
+    }
+
+    private void openFile() throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(FILE_NAME);
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileBytes = Files.size(file);
+    }
+
+    private void rotate() throws IOException {
+        closeFile();
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path older = rotated(i);
+            if (Files.exists(older)) {
+                Files.move(older, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Path current = dir.resolve(FILE_NAME);
+        if (maxFiles > 0) {
+            Files.move(current, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(current);
+        }
+    }
+
+    private Path rotated(int index) {
+        return dir.resolve("access." + index + ".jsonl");
+    }
+
+    private void closeFile() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.warn("Could not close the access log in {}", dir, e);
+            }
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package BudgetTracker.Tracker.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.nio.file.Path;
+
+/**
+ * Writes the {@link AccessLog} of every request, with the {@link AccessLogFilter}, and exposes the events dropped
+ * while the writer could not keep up as {@code tracker.access-log.dropped}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracker.access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public AccessLog accessLog(@Value("${tracker.access-log.dir:logs}") String dir,
+                               @Value("${tracker.access-log.capacity:8192}") int capacity,
+                               @Value("${tracker.access-log.max-file-mb:100}") long maxFileMb,
+                               @Value("${tracker.access-log.max-files:10}") int maxFiles,
+                               MeterRegistry meterRegistry) {
+        AccessLog accessLog = new AccessLog(Path.of(dir), capacity, maxFileMb * 1024 * 1024, maxFiles);
+        FunctionCounter.builder("tracker.access-log.dropped", accessLog, AccessLog::getDropped)
+                .description("Access log events dropped because the ring buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("tracker.access-log.pending", accessLog, AccessLog::getPending)
+                .description("Access log events waiting to be written")
+                .register(meterRegistry);
+        return accessLog;
+    }
+
+    @Bean
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(AccessLog accessLog,
+                                                                   @Value("${tracker.sql-stats.enabled:true}") boolean sqlStats) {
+        FilterRegistrationBean<AccessLogFilter> registration = new FilterRegistrationBean<>(new AccessLogFilter(accessLog, sqlStats));
+        // Before the rate limiter, so rejected requests are logged too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+}
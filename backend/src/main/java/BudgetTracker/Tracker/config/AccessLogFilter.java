@@ -0,0 +1,92 @@
+package BudgetTracker.Tracker.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.connector.ResponseFacade;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Records every request in the {@link AccessLog}: method, path, user, status, latency, SQL statements and response
+ * bytes. The user is taken from a {@code userId} path variable, the {@code id} of a {@code /users/{id}} path or an
+ * {@code X-User-Id} header. When SQL statements are counted, this filter binds the {@link SqlStats} of the request
+ * itself, so that the {@link SqlStatsFilter} further down the chain adds to the same stats and they are still bound
+ * when the request is recorded.
+ */
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+
+    private final AccessLog accessLog;
+    private final boolean sqlStats;
+
+    public AccessLogFilter(AccessLog accessLog, boolean sqlStats) {
+        this.accessLog = accessLog;
+        this.sqlStats = sqlStats;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        SqlStats stats = sqlStats ? SqlStats.start() : null;
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            long latency = System.nanoTime() - start;
+            if (stats != null) {
+                SqlStats.clear();
+            }
+            accessLog.record(timestamp, request.getMethod(), request.getRequestURI(), userId(request),
+                    // The container answers an exception with 500
+                    completed ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                    latency, stats == null ? -1 : stats.getStatements(), responseBytes(response));
+        }
+    }
+
+    private static long userId(HttpServletRequest request) {
+        Object attribute = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (attribute instanceof Map<?, ?> variables) {
+            Object userId = variables.get("userId");
+            if (userId == null && request.getRequestURI().startsWith("/users/")) {
+                userId = variables.get("id");
+            }
+            if (userId instanceof String value) {
+                return parse(value);
+            }
+        }
+        String header = request.getHeader(USER_ID_HEADER);
+        return header == null ? AccessLog.NO_USER : parse(header.trim());
+    }
+
+    private static long parse(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return AccessLog.NO_USER;
+        }
+    }
+
+    private static long responseBytes(HttpServletResponse response) {
+        ServletResponse unwrapped = response;
+        while (unwrapped instanceof ServletResponseWrapper wrapper) {
+            unwrapped = wrapper.getResponse();
+        }
+        if (unwrapped instanceof ResponseFacade tomcat) {
+            return tomcat.getContentWritten();
+        }
+        String length = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+        return length == null ? -1 : parse(length);
+    }
+}
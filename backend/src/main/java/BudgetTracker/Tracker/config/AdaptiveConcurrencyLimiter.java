@@ -0,0 +1,108 @@
+package BudgetTracker.Tracker.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limit on the number of requests handled at once, learned from their latency with a gradient: the limit is
+ * multiplied by the ratio of the long-term average latency to the recent latency, capped at 1, and then raised by
+ * its square root, the queue allowed for. While latency holds steady the limit grows; once requests start waiting,
+ * for instance on the connection pool, latency rises past the tolerance and the limit falls until it no longer does.
+ * Samples taken while less than half the limit is in use leave it unchanged, as they say nothing about it.
+ * <p>
+ * Reads may only use the limit short of the write reserve, so under overload they are rejected before writes.
+ * Admission is lock-free; samples are folded into the limit under the limiter's monitor.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW = 10;
+
+    private final ConcurrencyLimitProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejectedReads = new AtomicLong();
+    private final AtomicLong rejectedWrites = new AtomicLong();
+    private volatile double limit;
+    private double longRtt;
+    private double shortRtt;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * Admits a request if the limit allows it.
+     *
+     * @param write Whether the request writes, so may use the write reserve.
+     * @return The number of requests in flight including this one, or -1 if it was rejected.
+     */
+    public int tryAcquire(boolean write) {
+        double current = limit;
+        int max = Math.max(1, (int) (write ? current : current * (1 - properties.getWriteReserve())));
+        while (true) {
+            int count = inFlight.get();
+            if (count >= max) {
+                (write ? rejectedWrites : rejectedReads).incrementAndGet();
+                return -1;
+            }
+            if (inFlight.compareAndSet(count, count + 1)) {
+                return count + 1;
+            }
+        }
+    }
+
+    /**
+     * Ends a request admitted by {@link #tryAcquire(boolean)}.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Adjusts the limit to the latency of a completed request.
+     *
+     * @param latencyNanos The time the request took.
+     * @param inFlight     The number of requests in flight when it was admitted.
+     */
+    public synchronized void onSample(long latencyNanos, int inFlight) {
+        double rtt = Math.max(1, latencyNanos);
+        if (longRtt == 0) {
+            longRtt = rtt;
+            shortRtt = rtt;
+        } else {
+            longRtt += (rtt - longRtt) / properties.getLongWindow();
+            shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+        }
+        if (longRtt > 2 * shortRtt) {
+            // Latency recovered from a long rise: let the average catch up faster
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        if (inFlight < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getTolerance() * longRtt / shortRtt));
+        double next = current * gradient + Math.sqrt(current);
+        next = current * (1 - properties.getSmoothing()) + next * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), next));
+    }
+
+    /**
+     * @return The current limit.
+     */
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedReads() {
+        return rejectedReads.get();
+    }
+
+    public long getRejectedWrites() {
+        return rejectedWrites.get();
+    }
+}
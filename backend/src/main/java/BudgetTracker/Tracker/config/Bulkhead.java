@@ -0,0 +1,88 @@
+package BudgetTracker.Tracker.config;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded share of the request threads: at most a fixed number of requests run in the bulkhead at once, and others
+ * wait for a bounded time before being rejected. Each bulkhead also has its own connection pool, see
+ * {@link BulkheadRoutingDataSource}, so a full bulkhead holds neither the threads nor the connections of the others.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitMs;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrent, long maxWaitMs) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMs = maxWaitMs;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Enters the bulkhead, waiting up to the configured time for room.
+     *
+     * @return False if the bulkhead stayed full, in which case it must not be exited.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean tryEnter() throws InterruptedException {
+        boolean entered;
+        if (maxWaitMs <= 0) {
+            entered = permits.tryAcquire();
+        } else {
+            waiting.incrementAndGet();
+            try {
+                entered = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        if (!entered) {
+            rejected.incrementAndGet();
+        }
+        return entered;
+    }
+
+    /**
+     * Leaves the bulkhead after {@link #tryEnter()} succeeded.
+     */
+    public void exit() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return The number of requests running in the bulkhead.
+     */
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return The number of requests waiting to enter the bulkhead.
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * @return The number of requests rejected because the bulkhead was full.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+}
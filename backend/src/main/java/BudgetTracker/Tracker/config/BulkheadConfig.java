@@ -0,0 +1,88 @@
+package BudgetTracker.Tracker.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Partitions requests into bulkheads, so that expensive calls such as listing every expense cannot starve the
+ * interactive ones: each bulkhead bounds the requests it runs at once with a {@link Bulkhead} and has its own
+ * connection pool behind a {@link BulkheadRoutingDataSource}. The configured pool is partitioned here; with sharding,
+ * each shard's pool is partitioned by {@link ShardingConfig}. Occupancy is exposed as {@code tracker.bulkhead.*}
+ * metrics tagged with the bulkhead, next to the {@code hikaricp.*} metrics of its pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracker.bulkheads.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig {
+
+    @Bean
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(ObjectProvider<BulkheadProperties> properties,
+                                                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DataSourcePartitioner(properties, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<BulkheadFilter> bulkheadFilter(BulkheadProperties properties, MeterRegistry meterRegistry,
+                                                                 ObjectMapper objectMapper) {
+        Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+        properties.getPartitions().forEach((name, partition) -> {
+            Bulkhead bulkhead = new Bulkhead(name, partition.getMaxConcurrent(), partition.getMaxWaitMs());
+            Gauge.builder("tracker.bulkhead.active", bulkhead, Bulkhead::getActive)
+                    .description("Requests running in the bulkhead")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Gauge.builder("tracker.bulkhead.max-concurrent", bulkhead, Bulkhead::getMaxConcurrent)
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Gauge.builder("tracker.bulkhead.waiting", bulkhead, Bulkhead::getWaiting)
+                    .description("Requests waiting to enter the bulkhead")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            FunctionCounter.builder("tracker.bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+                    .description("Requests rejected because the bulkhead was full")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            bulkheads.put(name, bulkhead);
+        });
+        FilterRegistrationBean<BulkheadFilter> registration = new FilterRegistrationBean<>(
+                new BulkheadFilter(bulkheads, properties.getRoutes(), properties.getDefaultBulkhead(), objectMapper));
+        // After the rate limiter and before the concurrency limit, so a full bulkhead takes no slot of the limit
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 12);
+        return registration;
+    }
+
+    /**
+     * Replaces the configured pool with a pool per bulkhead. Ordered, so that it runs before the SQL counting
+     * wrapper, which then counts the statements of every pool.
+     */
+    private record DataSourcePartitioner(ObjectProvider<BulkheadProperties> properties,
+                                         ObjectProvider<MeterRegistry> meterRegistry) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource dataSource) {
+                return BulkheadRoutingDataSource.partition(dataSource, properties.getObject(), meterRegistry.getIfAvailable());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
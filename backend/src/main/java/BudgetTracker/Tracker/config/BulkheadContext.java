@@ -0,0 +1,65 @@
+package BudgetTracker.Tracker.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the bulkhead the current thread works in, which picks the connection pool of the
+ * {@link BulkheadRoutingDataSource}. Like a shard, it must be bound before a transaction starts. Threads without a
+ * binding use the default bulkhead.
+ */
+public final class BulkheadContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private BulkheadContext() {
+    }
+
+    /**
+     * @return The bulkhead bound to the current thread, or null if none is bound.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void set(String bulkhead) {
+        CURRENT.set(bulkhead);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Runs an action with a bulkhead bound to the current thread, restoring the previous binding afterwards.
+     *
+     * @param bulkhead The name of the bulkhead to bind.
+     * @param action   The action to run.
+     * @return The result of the action.
+     */
+    public static <T> T callIn(String bulkhead, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(bulkhead);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Runs an action with a bulkhead bound to the current thread, restoring the previous binding afterwards.
+     *
+     * @param bulkhead The name of the bulkhead to bind.
+     * @param action   The action to run.
+     */
+    public static void runIn(String bulkhead, Runnable action) {
+        callIn(bulkhead, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package BudgetTracker.Tracker.config;
+
+import BudgetTracker.Tracker.exceptions.GlobalExceptionHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs every request in its bulkhead: the first bulkhead with a route matching the request, or the default one.
+ * The bulkhead is bound with {@link BulkheadContext} for the request, so its queries use the bulkhead's pool.
+ * Requests finding their bulkhead full are answered with a 503 problem detail of code {@code bulkhead-full} and a
+ * {@code Retry-After} header.
+ */
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final RouteTable<Bulkhead> routes = new RouteTable<>();
+    private final Bulkhead defaultBulkhead;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param bulkheads       The bulkheads by name.
+     * @param routes          The {@code METHOD /path/pattern} entries routed to each bulkhead.
+     * @param defaultBulkhead The name of the bulkhead of requests no route matches.
+     * @param objectMapper    The mapper writing the problem details of rejected requests.
+     */
+    public BulkheadFilter(Map<String, Bulkhead> bulkheads, Map<String, List<String>> routes, String defaultBulkhead,
+                          ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.defaultBulkhead = bulkheads.get(defaultBulkhead);
+        if (this.defaultBulkhead == null) {
+            throw new IllegalStateException("No partition is configured for the default bulkhead " + defaultBulkhead);
+        }
+        routes.forEach((name, entries) -> {
+            Bulkhead bulkhead = bulkheads.get(name);
+            if (bulkhead == null) {
+                throw new IllegalStateException("Routes are configured for the unknown bulkhead " + name);
+            }
+            entries.forEach(entry -> this.routes.add(entry, bulkhead));
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Bulkhead bulkhead = bulkheadOf(request);
+        boolean entered;
+        try {
+            entered = bulkhead.tryEnter();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            entered = false;
+        }
+        if (!entered) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            GlobalExceptionHandler.writeProblem(response, objectMapper, HttpStatus.SERVICE_UNAVAILABLE, "bulkhead-full",
+                    "Too many " + bulkhead.getName() + " requests are running. Please retry in "
+                            + RETRY_AFTER_SECONDS + " seconds.", request);
+            return;
+        }
+        BulkheadContext.set(bulkhead.getName());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            BulkheadContext.clear();
+            bulkhead.exit();
+        }
+    }
+
+    Bulkhead bulkheadOf(HttpServletRequest request) {
+        Bulkhead bulkhead = routes.find(request);
+        return bulkhead == null ? defaultBulkhead : bulkhead;
+    }
+}
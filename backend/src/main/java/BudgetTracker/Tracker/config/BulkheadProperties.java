@@ -0,0 +1,66 @@
+package BudgetTracker.Tracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulkheads and the endpoints routed to them, bound from {@code tracker.bulkheads.*}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tracker.bulkheads")
+public class BulkheadProperties {
+    /**
+     * Whether requests are partitioned into bulkheads.
+     */
+    private boolean enabled = true;
+    /**
+     * Bulkhead of the requests no route matches.
+     */
+    private String defaultBulkhead = "interactive";
+    /**
+     * Bulkhead of background bulk work: recurring expense generation and queued expense writes.
+     */
+    private String background = "bulk";
+    private Map<String, Partition> partitions = new LinkedHashMap<>(Map.of(
+            "interactive", new Partition(200, 0, 0),
+            "bulk", new Partition(2, 2000, 3)));
+    /**
+     * Requests routed to each bulkhead other than the default one, as {@code METHOD /path/pattern} entries. The
+     * multi-gets ({@code ?ids=}) of a few expenses or budgets stay in the default bulkhead.
+     */
+    private Map<String, List<String>> routes = new LinkedHashMap<>(Map.of(
+            "bulk", List.of("GET /expenses?!ids", "GET /budgets?!ids", "DELETE /budgets", "POST /admin/shards/users/{userId}/move")));
+
+    @Getter
+    @Setter
+    public static class Partition {
+        /**
+         * Number of requests the bulkhead handles at once.
+         */
+        private int maxConcurrent;
+        /**
+         * How long a request waits for the bulkhead before being rejected; 0 rejects it at once.
+         */
+        private long maxWaitMs;
+        /**
+         * Size of the connection pool of the bulkhead; 0 keeps the size of the configured pool, which the default
+         * bulkhead uses.
+         */
+        private int poolSize;
+
+        public Partition() {
+        }
+
+        public Partition(int maxConcurrent, long maxWaitMs, int poolSize) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxWaitMs = maxWaitMs;
+            this.poolSize = poolSize;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package BudgetTracker.Tracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Data source that hands out connections of the pool of the bulkhead bound to the current thread by
+ * {@link BulkheadContext}, and of the default bulkhead's pool to threads with no or an unknown binding.
+ */
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final Map<String, HikariDataSource> pools;
+
+    private BulkheadRoutingDataSource(Map<String, HikariDataSource> pools, String defaultBulkhead) {
+        this.pools = pools;
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(pools.get(defaultBulkhead));
+        afterPropertiesSet();
+    }
+
+    /**
+     * Partitions a pool into one pool per bulkhead. The default bulkhead keeps the given pool, and every other
+     * bulkhead gets a pool with the same settings, its own size and a name suffixed with the bulkhead, so that its
+     * {@code hikaricp.*} metrics show the occupancy of the bulkhead.
+     *
+     * @param primary       The configured pool, not yet started.
+     * @param properties    The bulkheads.
+     * @param meterRegistry The registry of the pool metrics, or null for none.
+     * @return A data source routing over the pools.
+     */
+    public static BulkheadRoutingDataSource partition(HikariDataSource primary, BulkheadProperties properties,
+                                                      MeterRegistry meterRegistry) {
+        String baseName = primary.getPoolName() != null ? primary.getPoolName() : "HikariPool";
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        properties.getPartitions().forEach((name, partition) -> {
+            HikariDataSource pool;
+            if (name.equals(properties.getDefaultBulkhead())) {
+                pool = primary;
+            } else {
+                pool = new HikariDataSource();
+                primary.copyStateTo(pool);
+                pool.setPoolName(baseName + "-" + name);
+                pool.setMetricsTrackerFactory(null);
+            }
+            if (partition.getPoolSize() > 0) {
+                pool.setMaximumPoolSize(partition.getPoolSize());
+                if (pool.getMinimumIdle() > partition.getPoolSize()) {
+                    pool.setMinimumIdle(partition.getPoolSize());
+                }
+            }
+            if (meterRegistry != null && pool.getMetricsTrackerFactory() == null && pool.getMetricRegistry() == null) {
+                pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            }
+            pools.put(name, pool);
+        });
+        pools.putIfAbsent(properties.getDefaultBulkhead(), primary);
+        return new BulkheadRoutingDataSource(pools, properties.getDefaultBulkhead());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return BulkheadContext.current();
+    }
+
+    /**
+     * @param bulkhead The name of a bulkhead.
+     * @return The pool of the bulkhead, or null if it has none.
+     */
+    public HikariDataSource getPool(String bulkhead) {
+        return pools.get(bulkhead);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
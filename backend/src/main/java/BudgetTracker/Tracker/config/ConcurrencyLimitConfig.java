@@ -0,0 +1,50 @@
+package BudgetTracker.Tracker.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registers the {@link ConcurrencyLimitFilter} in front of the same endpoints as the rate limiter, and exposes the
+ * learned limit, the requests in flight and the rejected requests as {@code tracker.concurrency.*} metrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracker.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties);
+        Gauge.builder("tracker.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Number of requests that may be handled at once")
+                .register(meterRegistry);
+        Gauge.builder("tracker.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        FunctionCounter.builder("tracker.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejectedReads)
+                .tag("kind", "read")
+                .register(meterRegistry);
+        FunctionCounter.builder("tracker.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejectedWrites)
+                .tag("kind", "write")
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter,
+                                                                                 ObjectMapper objectMapper) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limiter, objectMapper));
+        registration.addUrlPatterns(RateLimitConfig.API_URL_PATTERNS);
+        // After the rate limiter, so requests it rejects take no slot
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 15);
+        return registration;
+    }
+}
@@ -0,0 +1,60 @@
+package BudgetTracker.Tracker.config;
+
+import BudgetTracker.Tracker.exceptions.GlobalExceptionHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admits requests through an {@link AdaptiveConcurrencyLimiter} and feeds it their latency. Requests over the limit
+ * are answered at once with a 503 problem detail of code {@code overloaded} and a {@code Retry-After} header instead of waiting for a database connection until
+ * they time out. Event streams are admitted like any request but, as they outlive it, give no latency sample.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, ObjectMapper objectMapper) {
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        if ("OPTIONS".equals(method)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        boolean write = !"GET".equals(method) && !"HEAD".equals(method);
+        int inFlight = limiter.tryAcquire(write);
+        if (inFlight < 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            GlobalExceptionHandler.writeProblem(response, objectMapper, HttpStatus.SERVICE_UNAVAILABLE, "overloaded",
+                    "Server is busy. Please retry in " + RETRY_AFTER_SECONDS + " seconds.", request);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean sample = false;
+        try {
+            filterChain.doFilter(request, response);
+            sample = !request.isAsyncStarted();
+        } finally {
+            limiter.release();
+            if (sample) {
+                limiter.onSample(System.nanoTime() - start, inFlight);
+            }
+        }
+    }
+}
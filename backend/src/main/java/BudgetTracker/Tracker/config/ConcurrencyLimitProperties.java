@@ -0,0 +1,43 @@
+package BudgetTracker.Tracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the adaptive concurrency limit, bound from {@code tracker.concurrency-limit.*}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tracker.concurrency-limit")
+public class ConcurrencyLimitProperties {
+    /**
+     * Whether the number of requests handled at once is limited.
+     */
+    private boolean enabled = true;
+    /**
+     * Limit before any latency has been observed.
+     */
+    private int initialLimit = 20;
+    /**
+     * Bounds of the learned limit.
+     */
+    private int minLimit = 5;
+    private int maxLimit = 200;
+    /**
+     * Share of the limit only writes may use, so that reads are shed first.
+     */
+    private double writeReserve = 0.25;
+    /**
+     * Latency, as a multiple of the long-term average, tolerated before the limit is lowered.
+     */
+    private double tolerance = 1.5;
+    /**
+     * Weight of each new limit in the limit, between 0 and 1.
+     */
+    private double smoothing = 0.2;
+    /**
+     * Number of requests the long-term average latency is taken over.
+     */
+    private int longWindow = 600;
+}
@@ -0,0 +1,22 @@
+package BudgetTracker.Tracker.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Response encodings offered besides JSON. CBOR ({@code application/cbor}) and Smile
+ * ({@code application/x-jackson-smile}) are registered by Spring MVC as soon as their Jackson modules are on the
+ * classpath; Protobuf ({@code application/x-protobuf}) is added here for the budget and expense lists.
+ * The extra converters come after JSON, so JSON stays the default when the client accepts any type.
+ */
+@Configuration
+public class ContentNegotiationConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ProtobufListHttpMessageConverter());
+    }
+}
@@ -0,0 +1,95 @@
+package BudgetTracker.Tracker.config;
+
+import BudgetTracker.Tracker.exceptions.DeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The point in time by which the request handled on the current thread must be answered, bound by the
+ * {@link DeadlineFilter}. Services {@link #check()} it between steps, and each SQL statement is given the time left as
+ * its query timeout, so that no more work is done for a client that has already given up. Threads without a binding
+ * have no deadline.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long timeoutMillis;
+    private final long expiresAt;
+
+    private Deadline(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Binds a deadline to the current thread.
+     *
+     * @param timeoutMillis The time from now the request has.
+     * @return The bound deadline.
+     */
+    public static Deadline start(long timeoutMillis) {
+        Deadline deadline = new Deadline(timeoutMillis);
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * @return The deadline bound to the current thread, or null if none is bound.
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Runs an action with a deadline bound to the current thread, restoring the previous binding afterwards. Work
+     * handed to another thread is run this way to keep the deadline of the request it serves.
+     *
+     * @param deadline The deadline to bind, or null to run without one.
+     * @param action   The action to run.
+     * @return The result of the action.
+     */
+    public static <T> T callWithin(Deadline deadline, Supplier<T> action) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @throws DeadlineExceededException If the deadline bound to the current thread has passed.
+     */
+    public static void check() {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            throw new DeadlineExceededException("The request did not complete within " + deadline.timeoutMillis + " ms.");
+        }
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * @return The time left, negative once the deadline has passed.
+     */
+    public long remainingNanos() {
+        return expiresAt - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+}
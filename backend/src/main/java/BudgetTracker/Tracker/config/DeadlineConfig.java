@@ -0,0 +1,27 @@
+package BudgetTracker.Tracker.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registers the {@link DeadlineFilter}. The deadlines reach SQL statements as query timeouts through the
+ * {@link SqlCountingDataSource}, so that part needs {@code tracker.sql-stats.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracker.deadlines.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(DeadlineProperties.class)
+public class DeadlineConfig {
+
+    @Bean
+    public FilterRegistrationBean<DeadlineFilter> deadlineFilter(DeadlineProperties properties) {
+        FilterRegistrationBean<DeadlineFilter> registration = new FilterRegistrationBean<>(
+                new DeadlineFilter(properties.getRoutes(), properties.getDefaultMs(), properties.getMaxMs()));
+        // Before the rate limiter and the bulkheads, so time spent waiting for a bulkhead counts against the deadline
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 7);
+        return registration;
+    }
+}
@@ -0,0 +1,68 @@
+package BudgetTracker.Tracker.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Binds the {@link Deadline} of every request. A client states how long it waits for the answer in an
+ * {@code X-Request-Timeout-Ms} header, capped at a maximum; requests without one get the deadline of the first route
+ * matching them, or the default deadline.
+ */
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    private final RouteTable<Long> routes = new RouteTable<>();
+    private final long defaultMillis;
+    private final long maxMillis;
+
+    /**
+     * @param routes        The {@code METHOD /path/pattern=timeoutMs} entries of endpoints with their own deadline.
+     * @param defaultMillis The deadline of requests no route matches.
+     * @param maxMillis     The longest deadline a client may ask for.
+     */
+    public DeadlineFilter(List<String> routes, long defaultMillis, long maxMillis) {
+        for (String entry : routes) {
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalStateException("Deadline route must be METHOD /path=timeoutMs: " + entry);
+            }
+            this.routes.add(entry.substring(0, separator), Long.parseLong(entry.substring(separator + 1).trim()));
+        }
+        this.defaultMillis = defaultMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Deadline.start(timeoutOf(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Deadline.clear();
+        }
+    }
+
+    long timeoutOf(HttpServletRequest request) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                long timeout = Long.parseLong(header.trim());
+                if (timeout > 0) {
+                    return Math.min(timeout, maxMillis);
+                }
+            } catch (NumberFormatException e) {
+                // Fall back to the deadline of the endpoint
+            }
+        }
+        Long timeout = routes.find(request);
+        return timeout == null ? defaultMillis : timeout;
+    }
+}
@@ -0,0 +1,34 @@
+package BudgetTracker.Tracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request deadlines, bound from {@code tracker.deadlines.*}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tracker.deadlines")
+public class DeadlineProperties {
+    /**
+     * Whether requests get a deadline.
+     */
+    private boolean enabled = true;
+    /**
+     * Deadline of the requests that neither send a timeout nor match a route.
+     */
+    private long defaultMs = 10_000;
+    /**
+     * Upper bound on the timeout a client may ask for.
+     */
+    private long maxMs = 60_000;
+    /**
+     * Deadlines of slower endpoints, as {@code METHOD /path/pattern=timeoutMs} entries.
+     */
+    private List<String> routes = new ArrayList<>(List.of(
+            "GET /expenses?!ids=30000", "GET /budgets?!ids=30000", "DELETE /budgets=30000", "POST /admin/shards/users/{userId}/move=60000"));
+}
@@ -0,0 +1,63 @@
+package BudgetTracker.Tracker.config;
+
+import io.opentelemetry.exporter.internal.otlp.traces.TraceRequestMarshaler;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Appends spans to a local file, one OTLP/JSON {@code ExportTraceServiceRequest} per line, the format of the
+ * OpenTelemetry Collector's file exporter, so traces of a local run can be inspected or replayed into a collector.
+ * A batch that cannot be written is dropped with a warning.
+ */
+public class OtlpFileSpanExporter implements SpanExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(OtlpFileSpanExporter.class);
+
+    private final Path file;
+
+    public OtlpFileSpanExporter(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        if (spans.isEmpty()) {
+            return CompletableResultCode.ofSuccess();
+        }
+        try {
+            // The marshaler may close the stream it writes to
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            TraceRequestMarshaler.create(spans).writeJsonTo(line);
+            line.write('\n');
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(file, line.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Could not write {} spans to {}", spans.size(), file, e);
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+}
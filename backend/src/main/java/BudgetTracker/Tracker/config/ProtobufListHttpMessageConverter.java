@@ -0,0 +1,152 @@
+package BudgetTracker.Tracker.config;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes lists of budgets and expenses as the {@code BudgetList} and {@code ExpenseList} messages of
+ * {@code proto/tracker.proto}. The messages are encoded directly from the entities, so no generated classes
+ * are needed; fields holding their default value are omitted as in proto3. Other types are left to the
+ * remaining converters, and nothing is read in this format.
+ */
+public class ProtobufListHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<?>> {
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public ProtobufListHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(@Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        Class<?> elementType = elementType(type);
+        return (elementType == Budget.class || elementType == Expenses.class) && canWrite(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+        // Without the element type the list cannot be told apart from other lists
+        return false;
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    protected void writeInternal(List<?> list, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody());
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (Object element : list) {
+            buffer.reset();
+            CodedOutputStream message = CodedOutputStream.newInstance(buffer);
+            if (element instanceof Budget budget) {
+                writeBudget(message, budget);
+            } else {
+                writeExpense(message, (Expenses) element);
+            }
+            message.flush();
+            // Field 1 of BudgetList and ExpenseList holds the repeated elements
+            output.writeByteArray(1, buffer.toByteArray());
+        }
+        output.flush();
+    }
+
+    @Override
+    public List<?> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected List<?> readInternal(Class<? extends List<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    private static void writeBudget(CodedOutputStream message, Budget budget) throws IOException {
+        writeInt64(message, 1, budget.getBudgetId());
+        writeString(message, 2, budget.getBudgetDescription());
+        if (budget.getBudgetAmount() != 0) {
+            message.writeInt32(3, budget.getBudgetAmount());
+        }
+        writeInt64(message, 4, budget.getUser() == null ? null : budget.getUser().getId());
+        writeInt64(message, 5, budget.getSpentAmount());
+        List<Integer> thresholds = budget.getAlertThresholds();
+        if (thresholds != null && !thresholds.isEmpty()) {
+            // Repeated scalars are packed in proto3
+            int size = 0;
+            for (int threshold : thresholds) {
+                size += CodedOutputStream.computeInt32SizeNoTag(threshold);
+            }
+            message.writeUInt32NoTag((6 << 3) | 2);
+            message.writeUInt32NoTag(size);
+            for (int threshold : thresholds) {
+                message.writeInt32NoTag(threshold);
+            }
+        }
+    }
+
+    private static void writeExpense(CodedOutputStream message, Expenses expense) throws IOException {
+        writeInt64(message, 1, expense.getExpensesId());
+        writeString(message, 2, expense.getExpensesDescription());
+        if (expense.getExpensesAmount() != 0) {
+            message.writeInt32(3, expense.getExpensesAmount());
+        }
+        writeInt64(message, 4, expense.getExpensesDate() == null ? null : expense.getExpensesDate().toEpochMilli());
+        writeInt64(message, 5, expense.getBudget() == null ? null : expense.getBudget().getBudgetId());
+        if (expense.getTags() != null) {
+            for (String tag : expense.getTags()) {
+                message.writeString(6, tag);
+            }
+        }
+    }
+
+    private static void writeInt64(CodedOutputStream message, int field, @Nullable Long value) throws IOException {
+        if (value != null && value != 0) {
+            message.writeInt64(field, value);
+        }
+    }
+
+    private static void writeString(CodedOutputStream message, int field, @Nullable String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            message.writeString(field, value);
+        }
+    }
+
+    @Nullable
+    private static Class<?> elementType(@Nullable Type type) {
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() instanceof Class<?> raw
+                && List.class.isAssignableFrom(raw) && parameterized.getActualTypeArguments()[0] instanceof Class<?> element) {
+            return element;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package BudgetTracker.Tracker.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers the {@link RateLimitFilter} in front of the budget, expense and user endpoints.
+ * The filter is registered here rather than as a component so that controller slice tests do not pick it up.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracker.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    /**
+     * The budget, expense, user, dashboard and analytics endpoints.
+     */
+    static final String[] API_URL_PATTERNS = {"/budgets", "/budgets/*", "/expenses", "/expenses/*", "/users", "/users/*", "/dashboard/*", "/analytics/*"};
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitConfig.class);
+
+    private final RateLimitProperties properties;
+    private final TokenBucketRateLimiter limiter;
+
+    public RateLimitConfig(RateLimitProperties properties) {
+        this.properties = properties;
+        this.limiter = new TokenBucketRateLimiter(properties.getStripes());
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter() {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(new RateLimitFilter(limiter, properties));
+        registration.addUrlPatterns(API_URL_PATTERNS);
+        // Right after the CORS filter, so rejected requests still carry CORS headers
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    /**
+     * Drops the buckets of clients that have been idle for longer than the configured eviction time.
+     */
+    @Scheduled(fixedDelayString = "${tracker.rate-limit.idle-eviction-ms:600000}")
+    public void evictIdleBuckets() {
+        int evicted = limiter.evictIdle(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(properties.getIdleEvictionMs()));
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets, {} left", evicted, limiter.size());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package BudgetTracker.Tracker.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the request rate of every client address and every authenticated user, with separate limits for reads and
+ * writes. The user is the principal the container authenticated; user ids named in the path or headers are chosen
+ * by the client, so keying on them would let a client spread its requests over many buckets or use up the bucket of
+ * another user. Requests without a principal are only limited by address. Requests over a limit are answered with
+ * 429 and a {@code Retry-After} header before they reach a controller or take a database connection.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final TokenBucketRateLimiter limiter;
+    private final RateLimitProperties properties;
+
+    public RateLimitFilter(TokenBucketRateLimiter limiter, RateLimitProperties properties) {
+        this.limiter = limiter;
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        if ("OPTIONS".equals(method)) {
+            // CORS preflights never reach the database
+            filterChain.doFilter(request, response);
+            return;
+        }
+        boolean write = !"GET".equals(method) && !"HEAD".equals(method);
+        long now = System.nanoTime();
+        long wait = limiter.tryAcquire((write ? "ip-w:" : "ip-r:") + clientAddress(request),
+                write ? properties.getIpWrite() : properties.getIpRead(), now);
+        Principal principal = request.getUserPrincipal();
+        if (wait == 0 && principal != null) {
+            wait = limiter.tryAcquire((write ? "user-w:" : "user-r:") + principal.getName(),
+                    write ? properties.getUserWrite() : properties.getUserRead(), now);
+        }
+        if (wait > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Too many requests. Please retry in " + retryAfter + " seconds.");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientAddress(HttpServletRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
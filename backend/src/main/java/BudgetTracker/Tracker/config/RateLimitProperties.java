@@ -0,0 +1,66 @@
+package BudgetTracker.Tracker.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Limits of the request rate filter, bound from {@code tracker.rate-limit.*}. Limits that are not positive fail
+ * the startup.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "tracker.rate-limit")
+public class RateLimitProperties {
+    /**
+     * Whether the budget, expense and user endpoints are rate limited.
+     */
+    private boolean enabled = true;
+    /**
+     * Number of independent stripes the buckets are spread over; rounded up to a power of two.
+     */
+    private int stripes = 64;
+    /**
+     * Buckets that have been full for this long are dropped.
+     */
+    private long idleEvictionMs = 600_000;
+    /**
+     * Whether the client address is taken from the first {@code X-Forwarded-For} entry, when running behind a proxy.
+     */
+    private boolean trustForwardedFor;
+    @Valid
+    private Limit userRead = new Limit(50, 100);
+    @Valid
+    private Limit userWrite = new Limit(10, 20);
+    @Valid
+    private Limit ipRead = new Limit(200, 400);
+    @Valid
+    private Limit ipWrite = new Limit(40, 80);
+
+    @Getter
+    @Setter
+    public static class Limit {
+        /**
+         * Sustained number of requests per second.
+         */
+        @Positive
+        private double perSecond;
+        /**
+         * Number of requests that may be made at once after being idle.
+         */
+        @Positive
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double perSecond, int burst) {
+            this.perSecond = perSecond;
+            this.burst = burst;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package BudgetTracker.Tracker.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Values configured per endpoint as {@code METHOD /path/pattern} entries, looked up by request. The first route
+ * added that matches a request wins. Like the {@code params} of a request mapping, an entry may be narrowed to the
+ * requests having a query parameter with {@code ?name} or lacking it with {@code ?!name}, several joined by {@code &},
+ * e.g. {@code GET /expenses?!ids} for the export of all expenses but not the multi-get of a few.
+ */
+final class RouteTable<T> {
+
+    private record Route<T>(String method, PathPattern pattern, List<String> present, List<String> absent, T value) {
+
+        boolean matches(HttpServletRequest request, PathContainer path) {
+            if (!method.equals(request.getMethod()) || !pattern.matches(path)) {
+                return false;
+            }
+            for (String name : present) {
+                if (request.getParameter(name) == null) {
+                    return false;
+                }
+            }
+            for (String name : absent) {
+                if (request.getParameter(name) != null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final List<Route<T>> routes = new ArrayList<>();
+
+    /**
+     * @param entry A {@code METHOD /path/pattern} entry, optionally followed by parameter conditions, e.g.
+     *              {@code GET /expenses/user/{userId}} or {@code GET /budgets?!ids}.
+     * @param value The value of the requests matching the entry.
+     * @throws IllegalStateException If the entry is not a method followed by a path pattern.
+     */
+    void add(String entry, T value) {
+        String[] parts = entry.trim().split("\\s+", 2);
+        if (parts.length != 2) {
+            throw new IllegalStateException("Route must be METHOD /path: " + entry);
+        }
+        String path = parts[1].trim();
+        List<String> present = new ArrayList<>();
+        List<String> absent = new ArrayList<>();
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            for (String condition : path.substring(query + 1).split("&")) {
+                String name = condition.trim();
+                if (name.startsWith("!")) {
+                    name = name.substring(1).trim();
+                    if (!name.isEmpty()) {
+                        absent.add(name);
+                        continue;
+                    }
+                } else if (!name.isEmpty()) {
+                    present.add(name);
+                    continue;
+                }
+                throw new IllegalStateException("Route parameter condition must be name or !name: " + entry);
+            }
+            path = path.substring(0, query);
+        }
+        routes.add(new Route<>(parts[0].toUpperCase(Locale.ROOT), PathPatternParser.defaultInstance.parse(path),
+                List.copyOf(present), List.copyOf(absent), value));
+    }
+
+    /**
+     * @return The value of the first route matching the request, or null if none matches.
+     */
+    T find(HttpServletRequest request) {
+        if (routes.isEmpty()) {
+            return null;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (Route<T> route : routes) {
+            if (route.matches(request, path)) {
+                return route.value();
+            }
+        }
+        return null;
+    }
+}
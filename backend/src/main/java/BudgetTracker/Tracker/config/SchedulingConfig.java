@@ -0,0 +1,12 @@
+package BudgetTracker.Tracker.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} methods, such as the heartbeat of the user event streams.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,66 @@
+package BudgetTracker.Tracker.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard the current thread reads and writes, as chosen by the {@link ShardRoutingDataSource}.
+ * A shard must be bound before a transaction starts, because the connection is taken from the shard bound
+ * at that moment and kept until the transaction ends. Threads without a binding use shard 0.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * @return The shard bound to the current thread, or 0 if none is bound.
+     */
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public static void set(int shard) {
+        CURRENT.set(shard);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Runs an action with a shard bound to the current thread, restoring the previous binding afterwards.
+     *
+     * @param shard  The shard to bind.
+     * @param action The action to run.
+     * @return The result of the action.
+     */
+    public static <T> T callOn(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Runs an action with a shard bound to the current thread, restoring the previous binding afterwards.
+     *
+     * @param shard  The shard to bind.
+     * @param action The action to run.
+     */
+    public static void runOn(int shard, Runnable action) {
+        callOn(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package BudgetTracker.Tracker.config;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.entity.RecurringExpense;
+import BudgetTracker.Tracker.service.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+import java.util.Optional;
+
+/**
+ * Binds requests creating a budget, expense or recurring expense to the shard of the user owning it, which only
+ * the request body tells.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "tracker.sharding.enabled", havingValue = "true")
+public class ShardRoutingBodyAdvice extends RequestBodyAdviceAdapter {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return targetType == Budget.class || targetType == Expenses.class || targetType == RecurringExpense.class;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        if (!isPost()) {
+            // Updates and deletes are already bound from the id in their path
+            return body;
+        }
+        Optional<Long> userId = Optional.empty();
+        if (body instanceof Budget budget && budget.getUser() != null) {
+            userId = Optional.ofNullable(budget.getUser().getId());
+        } else if (body instanceof Expenses expense && expense.getBudget() != null && expense.getBudget().getBudgetId() != null) {
+            userId = shardRouter.findOwnerOfBudget(expense.getBudget().getBudgetId());
+        } else if (body instanceof RecurringExpense recurringExpense && recurringExpense.getBudget() != null
+                && recurringExpense.getBudget().getBudgetId() != null) {
+            userId = shardRouter.findOwnerOfBudget(recurringExpense.getBudget().getBudgetId());
+        }
+        userId.ifPresent(owner -> shardRouter.bindUser(owner, true));
+        return body;
+    }
+
+    private boolean isPost() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && "POST".equals(attributes.getRequest().getMethod());
+    }
+}
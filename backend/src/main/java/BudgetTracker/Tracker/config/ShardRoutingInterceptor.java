@@ -0,0 +1,71 @@
+package BudgetTracker.Tracker.config;
+
+import BudgetTracker.Tracker.service.ShardRouter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Binds each request to the shard of the user it concerns, before any transaction is started.
+ * The user is taken from a {@code userId} path variable, or found from the budget, expense or recurring expense
+ * named by an {@code id} path variable. Requests creating entities are bound from their body by
+ * {@link ShardRoutingBodyAdvice}.
+ */
+public class ShardRoutingInterceptor implements AsyncHandlerInterceptor {
+
+    private final ShardRouter shardRouter;
+
+    public ShardRoutingInterceptor(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null) {
+            return true;
+        }
+        Optional<Long> userId = Optional.empty();
+        if (variables.containsKey("userId")) {
+            userId = parse(variables.get("userId"));
+        } else if (variables.containsKey("id")) {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            Optional<Long> id = parse(variables.get("id"));
+            if (id.isPresent()) {
+                if (path.startsWith("/budgets/")) {
+                    userId = shardRouter.findOwnerOfBudget(id.get());
+                } else if (path.startsWith("/expenses/")) {
+                    userId = shardRouter.findOwnerOfExpense(id.get());
+                } else if (path.startsWith("/recurring-expenses/")) {
+                    userId = shardRouter.findOwnerOfRecurringExpense(id.get());
+                }
+            }
+        }
+        boolean write = !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod());
+        userId.ifPresent(owner -> shardRouter.bindUser(owner, write));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ShardContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ShardContext.clear();
+    }
+
+    private Optional<Long> parse(String value) {
+        try {
+            return Optional.of(Long.valueOf(value));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
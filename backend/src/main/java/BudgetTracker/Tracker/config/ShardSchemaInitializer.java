@@ -0,0 +1,119 @@
+package BudgetTracker.Tracker.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.TargetType;
+import org.hibernate.tool.schema.internal.ExceptionHandlerLoggedImpl;
+import org.hibernate.tool.schema.spi.ContributableMatcher;
+import org.hibernate.tool.schema.spi.ExecutionOptions;
+import org.hibernate.tool.schema.spi.SchemaManagementTool;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.hibernate.tool.schema.spi.ScriptTargetOutput;
+import org.hibernate.tool.schema.spi.TargetDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prepares the schema of every shard.
+ * <p>
+ * Hibernate only updates the schema of the shard the routing data source hands out at startup, shard 0. This
+ * integrator keeps hold of the mapping metadata so the same update can be run against the other shards, and then
+ * interleaves the identity columns of all shards: shard {@code i} of {@code n} generates the ids {@code i + 1},
+ * {@code i + 1 + n}, {@code i + 1 + 2n}..., so ids stay unique across shards and rows keep their ids when a user is
+ * moved. On MySQL the interleaving is done per connection with {@code auto_increment_increment} and
+ * {@code auto_increment_offset}, see {@link ShardingConfig}.
+ */
+public class ShardSchemaInitializer implements Integrator {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    private Metadata metadata;
+    private ServiceRegistry serviceRegistry;
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.serviceRegistry = sessionFactory.getServiceRegistry();
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = null;
+        this.serviceRegistry = null;
+    }
+
+    /**
+     * Creates or updates the tables of the mapped entities on every shard but shard 0.
+     *
+     * @param dataSource The routing data source of the shards.
+     */
+    public void updateSchemas(ShardRoutingDataSource dataSource) {
+        if (metadata == null) {
+            throw new IllegalStateException("The entity manager factory has not been built yet");
+        }
+        SchemaManagementTool tool = serviceRegistry.getService(SchemaManagementTool.class);
+        Map<String, Object> settings = new HashMap<>(serviceRegistry.getService(ConfigurationService.class).getSettings());
+        ExecutionOptions options = SchemaManagementToolCoordinator.buildExecutionOptions(settings, ExceptionHandlerLoggedImpl.INSTANCE);
+        TargetDescriptor database = new TargetDescriptor() {
+            @Override
+            public EnumSet<TargetType> getTargetTypes() {
+                return EnumSet.of(TargetType.DATABASE);
+            }
+
+            @Override
+            public ScriptTargetOutput getScriptTargetOutput() {
+                return null;
+            }
+        };
+        for (int shard = 1; shard < dataSource.getShardCount(); shard++) {
+            log.info("Updating the schema of shard {}", shard);
+            // The migrator takes its connections from the routing data source, so bind the shard while it runs
+            ShardContext.runOn(shard, () -> tool.getSchemaMigrator(settings)
+                    .doMigration(metadata, options, ContributableMatcher.ALL, database));
+        }
+    }
+
+    /**
+     * Interleaves the identity columns of the mapped entities across the shards, on databases where the
+     * increment is a property of the column.
+     *
+     * @param dataSource The routing data source of the shards.
+     */
+    public void interleaveIdentities(ShardRoutingDataSource dataSource) {
+        int shardCount = dataSource.getShardCount();
+        for (int shard = 0; shard < shardCount; shard++) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource.getShard(shard));
+            String product = jdbcTemplate.execute((java.sql.Connection connection) ->
+                    JdbcUtils.commonDatabaseName(connection.getMetaData().getDatabaseProductName()));
+            if (!"H2".equals(product)) {
+                continue;
+            }
+            for (PersistentClass entity : metadata.getEntityBindings()) {
+                if (!Number.class.isAssignableFrom(entity.getIdentifierProperty().getType().getReturnedClass())) {
+                    // Keyed by name, such as the data migration records
+                    continue;
+                }
+                String table = entity.getTable().getName();
+                String column = entity.getIdentifier().getColumns().get(0).getName();
+                Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table, Long.class);
+                // First id above the current maximum that belongs to this shard
+                long offset = shard + 1;
+                long next = max + 1 + Math.floorMod(offset - (max + 1), shardCount);
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column
+                        + " RESTART WITH " + next + " SET INCREMENT BY " + shardCount);
+            }
+        }
+    }
+}
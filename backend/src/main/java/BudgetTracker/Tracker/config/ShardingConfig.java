@@ -0,0 +1,91 @@
+package BudgetTracker.Tracker.config;
+
+import BudgetTracker.Tracker.service.ShardRouter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the persistence layer across several databases, keyed by user id, when {@code tracker.sharding.enabled}
+ * is set. Replaces the auto-configured data source with a {@link ShardRoutingDataSource} over the configured shards
+ * and binds every request to the shard of the user it concerns with a {@link ShardRoutingInterceptor}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracker.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig implements WebMvcConfigurer {
+
+    // Looked up lazily: the router itself depends on the data source defined here
+    private final ObjectProvider<ShardRouter> shardRouter;
+
+    public ShardingConfig(ObjectProvider<ShardRouter> shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(ShardingProperties properties,
+                                             @Value("${tracker.sql-stats.enabled:true}") boolean sqlStats,
+                                             ObjectProvider<ObservationRegistry> observations,
+                                             ObjectProvider<BulkheadProperties> bulkheads,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        List<ShardingProperties.Shard> shards = properties.getShards();
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("tracker.sharding.enabled is set but no tracker.sharding.shards are configured");
+        }
+        List<DataSource> dataSources = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard shard = shards.get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + i);
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            if (shard.getDriverClassName() != null) {
+                dataSource.setDriverClassName(shard.getDriverClassName());
+            }
+            if (shard.getUrl().startsWith("jdbc:mysql:")) {
+                // Interleave auto-increment ids so they stay unique across shards, see ShardSchemaInitializer
+                dataSource.setConnectionInitSql("SET SESSION auto_increment_increment = " + shards.size()
+                        + ", auto_increment_offset = " + (i + 1));
+            }
+            // Each shard has a pool per bulkhead
+            BulkheadProperties bulkheadProperties = bulkheads.getIfAvailable();
+            DataSource partitioned = bulkheadProperties == null ? dataSource
+                    : BulkheadRoutingDataSource.partition(dataSource, bulkheadProperties, meterRegistry.getIfAvailable());
+            dataSources.add(sqlStats ? new SqlCountingDataSource(partitioned, () -> observations.getIfAvailable(() -> ObservationRegistry.NOOP)) : partitioned);
+        }
+        return new ShardRoutingDataSource(dataSources);
+    }
+
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer() {
+        return new ShardSchemaInitializer();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaIntegrator(ShardSchemaInitializer shardSchemaInitializer) {
+        return properties -> properties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> List.of(shardSchemaInitializer));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ShardRoutingInterceptor(shardRouter.getObject())).excludePathPatterns("/admin/**");
+    }
+}
@@ -0,0 +1,39 @@
+package BudgetTracker.Tracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the user-keyed shards, bound from {@code tracker.sharding.*}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tracker.sharding")
+public class ShardingProperties {
+    /**
+     * Whether the persistence layer is split across the configured shards.
+     */
+    private boolean enabled;
+    /**
+     * Whether the schema of the shards other than shard 0 is updated at startup, like {@code ddl-auto=update}
+     * does for shard 0.
+     */
+    private boolean updateSchema = true;
+    /**
+     * The shards; shard 0 also holds the directory mapping users to shards.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+    }
+}
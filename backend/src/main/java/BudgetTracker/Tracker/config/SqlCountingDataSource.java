@@ -0,0 +1,288 @@
+package BudgetTracker.Tracker.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Data source whose connections record every statement they execute, and every row read from the results, in the
+ * {@link SqlStats} bound to the current thread. Threads with no bound stats pay one thread-local lookup per call.
+ * <p>
+ * Statements executed within an observation, such as the span of a request, are also observed as
+ * {@value #OBSERVATION_NAME}, a child span tagged with the SQL text and the rows it read or wrote. The observation of
+ * a query ends when its result set or statement is closed, so that it covers reading the rows.
+ * <p>
+ * When a {@link Deadline} is bound, every statement gets the time left as its query timeout, rounded up to whole
+ * seconds as JDBC requires, and statements are not run at all once it has passed.
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+
+    static final String OBSERVATION_NAME = "tracker.jdbc";
+
+    private final Supplier<ObservationRegistry> observations;
+    private volatile ObservationRegistry registry;
+
+    public SqlCountingDataSource(DataSource target) {
+        this(target, () -> ObservationRegistry.NOOP);
+    }
+
+    /**
+     * @param target       The data source to wrap.
+     * @param observations Supplies the registry of the statement observations on the first connection, since the
+     *                     registry may depend on the data source.
+     */
+    public SqlCountingDataSource(DataSource target, Supplier<ObservationRegistry> observations) {
+        super(target);
+        this.observations = observations;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(), registry()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password), registry()));
+    }
+
+    private ObservationRegistry registry() {
+        ObservationRegistry resolved = registry;
+        if (resolved == null) {
+            resolved = observations.get();
+            registry = resolved;
+        }
+        return resolved;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        // Proxies are equal only to themselves
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record ConnectionHandler(Connection target, ObservationRegistry registry) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlCountingDataSource.invoke(proxy, target, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> proxy(Statement.class, new StatementHandler((Statement) result, null, (Connection) proxy, registry));
+                case "prepareStatement" -> proxy(PreparedStatement.class, new StatementHandler((Statement) result, (String) args[0], (Connection) proxy, registry));
+                case "prepareCall" -> proxy(CallableStatement.class, new StatementHandler((Statement) result, (String) args[0], (Connection) proxy, registry));
+                default -> result;
+            };
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private final Connection connection;
+        private final ObservationRegistry registry;
+        // Observation of an execute() whose result set was not requested yet
+        private Observation unread;
+        // Result set of the last execution, whose observation ends when it is closed
+        private ResultSetHandler open;
+
+        private StatementHandler(Statement target, String preparedSql, Connection connection, ObservationRegistry registry) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.connection = connection;
+            this.registry = registry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                // Callers compare it with the connection they hold, which is the proxy
+                return connection;
+            }
+            if (name.equals("close")) {
+                // Closing the statement closes its result set
+                finish();
+                return SqlCountingDataSource.invoke(proxy, target, method, args);
+            }
+            if (!name.startsWith("execute") && !name.equals("getResultSet")) {
+                return SqlCountingDataSource.invoke(proxy, target, method, args);
+            }
+            if (name.startsWith("execute")) {
+                applyDeadline();
+            }
+            SqlStats stats = SqlStats.current();
+            Observation parent = registry.getCurrentObservation();
+            if (stats == null && parent == null) {
+                return SqlCountingDataSource.invoke(proxy, target, method, args);
+            }
+            if (name.equals("getResultSet")) {
+                Observation observation = unread;
+                unread = null;
+                return wrap((ResultSet) SqlCountingDataSource.invoke(proxy, target, method, args), stats, observation);
+            }
+            finish();
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            Observation observation = parent == null ? null : start(sql);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = SqlCountingDataSource.invoke(proxy, target, method, args);
+            } catch (Throwable e) {
+                if (observation != null) {
+                    observation.error(e).stop();
+                }
+                throw e;
+            } finally {
+                if (stats != null) {
+                    stats.recordStatement(sql, System.nanoTime() - start);
+                }
+            }
+            if (result instanceof ResultSet resultSet) {
+                return wrap(resultSet, stats, observation);
+            }
+            if (observation != null) {
+                if (Boolean.TRUE.equals(result)) {
+                    unread = observation;
+                } else {
+                    observation.highCardinalityKeyValue("db.rows", String.valueOf(updateCount(result))).stop();
+                }
+            }
+            return result;
+        }
+
+        private void applyDeadline() throws SQLException {
+            Deadline deadline = Deadline.current();
+            if (deadline == null) {
+                return;
+            }
+            long remaining = deadline.remainingNanos();
+            if (remaining <= 0) {
+                throw new SQLTimeoutException("The request deadline of " + deadline.getTimeoutMillis() + " ms has passed");
+            }
+            int seconds = (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toSeconds(remaining + TimeUnit.SECONDS.toNanos(1) - 1));
+            int current = target.getQueryTimeout();
+            // Keep a shorter timeout set by the caller
+            if (current == 0 || current > seconds) {
+                target.setQueryTimeout(seconds);
+            }
+        }
+
+        private Observation start(String sql) {
+            String keyword = SqlStats.keyword(sql);
+            return Observation.createNotStarted(OBSERVATION_NAME, registry)
+                    .contextualName(keyword.isEmpty() ? "jdbc" : keyword)
+                    .lowCardinalityKeyValue("db.operation", keyword.isEmpty() ? "other" : keyword)
+                    .highCardinalityKeyValue("db.statement", sql == null ? "" : sql)
+                    .start();
+        }
+
+        private ResultSet wrap(ResultSet resultSet, SqlStats stats, Observation observation) {
+            if (resultSet == null) {
+                if (observation != null) {
+                    observation.stop();
+                }
+                return null;
+            }
+            ResultSetHandler handler = new ResultSetHandler(resultSet, stats, observation);
+            if (observation != null) {
+                open = handler;
+            }
+            return proxy(ResultSet.class, handler);
+        }
+
+        private void finish() {
+            if (unread != null) {
+                unread.stop();
+                unread = null;
+            }
+            if (open != null) {
+                open.finish();
+                open = null;
+            }
+        }
+
+        private static long updateCount(Object result) {
+            if (result instanceof Number count) {
+                return count.longValue();
+            }
+            long total = 0;
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    // Drivers may report SUCCESS_NO_INFO
+                    total += Math.max(count, 0);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    total += Math.max(count, 0);
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final SqlStats stats;
+        private Observation observation;
+        private long rows;
+
+        private ResultSetHandler(ResultSet target, SqlStats stats, Observation observation) {
+            this.target = target;
+            this.stats = stats;
+            this.observation = observation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlCountingDataSource.invoke(proxy, target, method, args);
+            String name = method.getName();
+            if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                rows++;
+                if (stats != null) {
+                    stats.recordRow();
+                }
+            } else if (name.equals("close")) {
+                finish();
+            }
+            return result;
+        }
+
+        private void finish() {
+            if (observation != null) {
+                observation.highCardinalityKeyValue("db.rows", String.valueOf(rows)).stop();
+                observation = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package BudgetTracker.Tracker.config;
+
+import java.util.Locale;
+
+/**
+ * SQL statements sent, rows fetched and time spent in JDBC by the current thread, collected by a
+ * {@link SqlCountingDataSource} while bound with {@link #start()}. A batch is one statement, as it is one round trip.
+ * Work handed to other threads is not included.
+ */
+public final class SqlStats {
+
+    private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+    private int selects;
+    private int inserts;
+    private int updates;
+    private int deletes;
+    private int others;
+    private long rows;
+    private long nanos;
+
+    /**
+     * Binds new, empty stats to the current thread, replacing any bound stats.
+     *
+     * @return The bound stats.
+     */
+    public static SqlStats start() {
+        SqlStats stats = new SqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * @return The stats bound to the current thread, or null if none are.
+     */
+    public static SqlStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Unbinds the stats of the current thread.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Counts a statement by the keyword it starts with.
+     *
+     * @param sql   The statement, or null if unknown.
+     * @param nanos The time the statement took.
+     */
+    void recordStatement(String sql, long nanos) {
+        this.nanos += nanos;
+        switch (keyword(sql)) {
+            case "select", "with" -> selects++;
+            case "insert" -> inserts++;
+            case "update" -> updates++;
+            case "delete" -> deletes++;
+            default -> others++;
+        }
+    }
+
+    /**
+     * Counts a row read from a result set.
+     */
+    void recordRow() {
+        rows++;
+    }
+
+    public int getSelects() {
+        return selects;
+    }
+
+    public int getInserts() {
+        return inserts;
+    }
+
+    public int getUpdates() {
+        return updates;
+    }
+
+    public int getDeletes() {
+        return deletes;
+    }
+
+    /**
+     * @return Statements other than selects, inserts, updates and deletes, such as DDL and calls.
+     */
+    public int getOthers() {
+        return others;
+    }
+
+    public int getStatements() {
+        return selects + inserts + updates + deletes + others;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d statements (select=%d, insert=%d, update=%d, delete=%d, other=%d), %d rows, %.1f ms",
+                getStatements(), selects, inserts, updates, deletes, others, rows, nanos / 1e6);
+    }
+
+    static String keyword(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        int start = 0;
+        int length = sql.length();
+        // Skips leading whitespace, parentheses and comments such as Hibernate's /* query name */
+        while (start < length) {
+            char c = sql.charAt(start);
+            if (Character.isWhitespace(c) || c == '(') {
+                start++;
+            } else if (sql.startsWith("/*", start)) {
+                int end = sql.indexOf("*/", start + 2);
+                start = end < 0 ? length : end + 2;
+            } else if (sql.startsWith("--", start)) {
+                int end = sql.indexOf('\n', start);
+                start = end < 0 ? length : end + 1;
+            } else {
+                break;
+            }
+        }
+        int end = start;
+        while (end < length && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        return sql.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,46 @@
+package BudgetTracker.Tracker.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Counts the SQL statements of every request: wraps the data source in a {@link SqlCountingDataSource}, which also
+ * traces them, and registers the {@link SqlStatsFilter}. With sharding, the shards are wrapped by {@link ShardingConfig} instead, since the
+ * routing data source is injected by its own type. The headers are enabled by the {@code debug} profile.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracker.sql-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatsConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlCountingDataSourcePostProcessor(ObjectProvider<ObservationRegistry> observations) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SqlCountingDataSource)
+                        && !(bean instanceof ShardRoutingDataSource)) {
+                    return new SqlCountingDataSource(dataSource, () -> observations.getIfAvailable(() -> ObservationRegistry.NOOP));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(@Value("${tracker.sql-stats.headers:false}") boolean headers,
+                                                                 @Value("${tracker.sql-stats.warn-statements:50}") int warnStatements) {
+        FilterRegistrationBean<SqlStatsFilter> registration = new FilterRegistrationBean<>(new SqlStatsFilter(headers, warnStatements));
+        // After the rate limiter, so rejected requests are not logged
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
@@ -0,0 +1,71 @@
+package BudgetTracker.Tracker.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Collects the {@link SqlStats} of every request and logs them: at debug level for every request, and as a warning
+ * for requests sending more than the configured number of statements, which usually means a query per row.
+ * When headers are enabled the stats are also returned as {@code X-SQL-*} response headers. The body is then buffered
+ * so that statements run while it is written, such as lazy loads during serialization, are included; event streams
+ * are never buffered and get no headers.
+ */
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    public static final String COUNT_HEADER = "X-SQL-Count";
+    public static final String ROWS_HEADER = "X-SQL-Rows";
+    public static final String TIME_HEADER = "X-SQL-Time-Ms";
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatsFilter.class);
+
+    private final boolean headers;
+    private final int warnStatements;
+
+    public SqlStatsFilter(boolean headers, int warnStatements) {
+        this.headers = headers;
+        this.warnStatements = warnStatements;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        boolean buffered = headers && (accept == null || !accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE));
+        ContentCachingResponseWrapper wrapper = buffered ? new ContentCachingResponseWrapper(response) : null;
+        // Stats bound by the access log are shared with it, and unbound by it
+        SqlStats bound = SqlStats.current();
+        SqlStats stats = bound != null ? bound : SqlStats.start();
+        try {
+            filterChain.doFilter(request, buffered ? wrapper : response);
+        } finally {
+            if (bound == null) {
+                SqlStats.clear();
+            }
+            if (stats.getStatements() > warnStatements) {
+                log.warn("{} {} sent {}", request.getMethod(), request.getRequestURI(), stats);
+            } else if (log.isDebugEnabled()) {
+                log.debug("{} {} sent {}", request.getMethod(), request.getRequestURI(), stats);
+            }
+            if (buffered) {
+                if (!request.isAsyncStarted()) {
+                    wrapper.setHeader(COUNT_HEADER, String.format(Locale.ROOT, "select=%d, insert=%d, update=%d, delete=%d, other=%d",
+                            stats.getSelects(), stats.getInserts(), stats.getUpdates(), stats.getDeletes(), stats.getOthers()));
+                    wrapper.setHeader(ROWS_HEADER, String.valueOf(stats.getRows()));
+                    wrapper.setHeader(TIME_HEADER, String.format(Locale.ROOT, "%.1f", stats.getNanos() / 1e6));
+                }
+                wrapper.copyBodyToResponse();
+            }
+        }
+    }
+}
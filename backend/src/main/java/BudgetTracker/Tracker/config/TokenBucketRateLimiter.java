@@ -0,0 +1,86 @@
+package BudgetTracker.Tracker.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by client, spread over independent stripes so that concurrent requests rarely touch the same
+ * map segment.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} updated by compare-and-set, without locks. It holds the time at which
+ * the bucket would be full again (the "theoretical arrival time" of the generic cell rate algorithm, an equivalent
+ * form of the token bucket): taking a token pushes it one emission interval into the future, and a request is
+ * refused when that would put it more than a full burst ahead of now.
+ */
+public class TokenBucketRateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(int stripeCount) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new ConcurrentHashMap[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Takes a token from the bucket of a key.
+     *
+     * @param key   The client the bucket belongs to.
+     * @param limit The rate and burst of the bucket.
+     * @param now   The current time, from {@link System#nanoTime()}.
+     * @return 0 if the token was taken, otherwise the nanoseconds to wait until one is available.
+     */
+    public long tryAcquire(String key, RateLimitProperties.Limit limit, long now) {
+        long interval = (long) (1_000_000_000L / limit.getPerSecond());
+        long capacity = interval * limit.getBurst();
+        ConcurrentHashMap<String, AtomicLong> stripe = stripeOf(key);
+        AtomicLong bucket = stripe.get(key);
+        if (bucket == null) {
+            bucket = stripe.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + interval;
+            if (next - now > capacity) {
+                return next - now - capacity;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops the buckets that have been full since before the given time; they would behave the same if recreated.
+     *
+     * @param idleSince Time, from {@link System#nanoTime()}, before which a full bucket counts as idle.
+     * @return The number of buckets dropped.
+     */
+    public int evictIdle(long idleSince) {
+        int evicted = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            int before = stripe.size();
+            stripe.values().removeIf(bucket -> bucket.get() - idleSince < 0);
+            evicted += before - stripe.size();
+        }
+        return evicted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> stripeOf(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+}
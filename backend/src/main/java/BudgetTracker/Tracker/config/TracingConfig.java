@@ -0,0 +1,88 @@
+package BudgetTracker.Tracker.config;
+
+import BudgetTracker.Tracker.service.ExpensesService;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+
+/**
+ * Tracing of requests down to their SQL statements. Spring Boot observes every request, as the root span of its
+ * trace; this adds a child span for each call to a public method of a {@code *Service} bean, named after the class
+ * and method, while the {@link SqlCountingDataSource} adds a span for each statement. Spans are exported over OTLP
+ * when {@code management.otlp.tracing.endpoint} is set, and appended to {@code tracker.tracing.file} when it is set.
+ */
+@Configuration
+public class TracingConfig {
+
+    static final String SERVICE_OBSERVATION_NAME = "tracker.service";
+
+    private static final String SERVICE_PACKAGE = ExpensesService.class.getPackageName();
+
+    // Infrastructure role, so it is applied by the auto-proxy creator Spring Boot registers for @Transactional
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceObservationAdvisor(ObjectProvider<ObservationRegistry> observations) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+            }
+        };
+        pointcut.setClassFilter(type -> {
+            Class<?> userClass = ClassUtils.getUserClass(type);
+            return userClass.getPackageName().equals(SERVICE_PACKAGE) && userClass.getSimpleName().endsWith("Service");
+        });
+        return new DefaultPointcutAdvisor(pointcut, new ServiceObservationInterceptor(observations));
+    }
+
+    @Bean
+    @ConditionalOnExpression("'${tracker.tracing.file:}' != ''")
+    public OtlpFileSpanExporter otlpFileSpanExporter(@Value("${tracker.tracing.file}") String file) {
+        return new OtlpFileSpanExporter(Path.of(file));
+    }
+
+    private static final class ServiceObservationInterceptor implements MethodInterceptor {
+
+        // Looked up on the first call: the registry is configured after the advisor is created
+        private final ObjectProvider<ObservationRegistry> observations;
+        private volatile ObservationRegistry registry;
+
+        private ServiceObservationInterceptor(ObjectProvider<ObservationRegistry> observations) {
+            this.observations = observations;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            ObservationRegistry resolved = registry;
+            if (resolved == null) {
+                resolved = observations.getIfAvailable(() -> ObservationRegistry.NOOP);
+                registry = resolved;
+            }
+            if (resolved.isNoop()) {
+                return invocation.proceed();
+            }
+            String name = ClassUtils.getUserClass(invocation.getMethod().getDeclaringClass()).getSimpleName()
+                    + "." + invocation.getMethod().getName();
+            return Observation.createNotStarted(SERVICE_OBSERVATION_NAME, resolved)
+                    .contextualName(name)
+                    .lowCardinalityKeyValue("method", name)
+                    .observeChecked(invocation::proceed);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package BudgetTracker.Tracker.controller;
+
+import BudgetTracker.Tracker.dto.SpendGroup;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.service.ExpenseAnalyticsService;
+import BudgetTracker.Tracker.service.ExpenseColumns;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Controller class responsible for handling HTTP requests for aggregates of a user's expenses.
+ */
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+    @Autowired
+    private ExpenseAnalyticsService expenseAnalyticsService;
+    /**
+     * Aggregates the expenses of a user by budget or by period, optionally filtered by date, budget and amount.
+     *
+     * @param userId    The ID of the user.
+     * @param groupBy   How to group the expenses: budget, day, month or year.
+     * @param from      The first day to include.
+     * @param to        The last day to include.
+     * @param budgetIds The IDs of the budgets to include; all budgets if omitted.
+     * @param minAmount The smallest amount to include.
+     * @param maxAmount The largest amount to include.
+     * @return ResponseEntity containing the count, total, min and max per group, or an error message if the input is invalid.
+     */
+    @GetMapping("/user/{userId}")
+    @Operation(summary = "Aggregate the expenses of a user", description = "Returns the count, total, min and max of the expenses matching the filters, per budget or per period", responses = {
+            @ApiResponse(responseCode = "200", description = "Expenses aggregated",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = SpendGroup.class)))),
+            @ApiResponse(responseCode = "400", description = "Bad Request")
+    })
+    public ResponseEntity<?> aggregate(@Parameter(name = "userId", description = "ID of the user whose expenses to aggregate", example = "1")
+                                       @PathVariable Long userId,
+                                       @RequestParam(defaultValue = "budget") String groupBy,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                       @RequestParam(name = "budgetId", required = false) List<Long> budgetIds,
+                                       @RequestParam(required = false) Long minAmount,
+                                       @RequestParam(required = false) Long maxAmount) {
+        ExpenseColumns.GroupBy grouping;
+        try {
+            grouping = ExpenseColumns.GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("invalid-group-by", "groupBy must be budget, day, month or year.");
+        }
+        return ResponseEntity.ok(expenseAnalyticsService.aggregate(userId, grouping, from, to, budgetIds, minAmount, maxAmount));
+    }
+}
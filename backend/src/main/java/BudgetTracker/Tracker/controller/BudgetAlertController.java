@@ -0,0 +1,61 @@
+package BudgetTracker.Tracker.controller;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.BudgetAlert;
+import BudgetTracker.Tracker.service.BudgetAlertService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+/**
+ * Controller class responsible for handling HTTP requests related to budget spending alerts.
+ */
+@RestController
+@RequestMapping("/budgets")
+public class BudgetAlertController {
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+    /**
+     * Retrieves the alerts currently raised for a budget.
+     *
+     * @param id The ID of the budget.
+     * @return ResponseEntity containing the raised alerts ordered by threshold, or an error message if the budget is not found.
+     */
+    @GetMapping("/{id}/alerts")
+    @Operation(summary = "Find alerts of a budget", description = "Provide a budget id to get the spending thresholds it has crossed", responses = {
+            @ApiResponse(responseCode = "200", description = "Alerts found",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = BudgetAlert.class)))),
+            @ApiResponse(responseCode = "404", description = "Budget not found")
+    })
+    public ResponseEntity<?> getAlerts(@Parameter(name = "id", description = "Budget id to find alerts for", example = "1")
+                                       @PathVariable Long id) {
+        List<BudgetAlert> alerts = budgetAlertService.getAlerts(id);
+        return ResponseEntity.ok(alerts);
+    }
+    /**
+     * Replaces the alert thresholds of a budget.
+     *
+     * @param id         The ID of the budget.
+     * @param thresholds The thresholds as percentages of the budget amount, for example [50, 80, 100].
+     * @return ResponseEntity containing the updated budget, or an error message if the budget is not found or the thresholds are invalid.
+     */
+    @PutMapping("/{id}/alert-thresholds")
+    @Operation(summary = "Update alert thresholds of a budget", description = "Replaces the percentages of the budget amount at which spending alerts are raised.", responses = {
+            @ApiResponse(responseCode = "200", description = "Thresholds updated successfully",
+                    content = @Content(schema = @Schema(implementation = Budget.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "404", description = "Budget not found")
+    })
+    public ResponseEntity<?> updateThresholds(@Parameter(name = "id", description = "Budget id to update thresholds for", example = "1")
+                                              @PathVariable Long id, @RequestBody List<Integer> thresholds) {
+        Budget budget = budgetAlertService.updateThresholds(id, thresholds);
+        return ResponseEntity.ok(budget);
+    }
+}
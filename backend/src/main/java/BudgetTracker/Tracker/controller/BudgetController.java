@@ -1,9 +1,14 @@
 package BudgetTracker.Tracker.controller;
 
+import BudgetTracker.Tracker.dto.BudgetForecast;
+import BudgetTracker.Tracker.dto.BudgetStats;
+import BudgetTracker.Tracker.dto.MultiGetResult;
 import BudgetTracker.Tracker.entity.Budget;
 import BudgetTracker.Tracker.entity.User;
 import BudgetTracker.Tracker.exceptions.*;
+import BudgetTracker.Tracker.service.BudgetForecastService;
 import BudgetTracker.Tracker.service.BudgetService;
+import BudgetTracker.Tracker.service.BudgetStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -12,6 +17,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,6 +30,30 @@ import java.util.List;
 public class BudgetController {
     @Autowired
     private  BudgetService budgetService;
+    @Autowired
+    private BudgetStatsService budgetStatsService;
+    @Autowired
+    private BudgetForecastService budgetForecastService;
+    /**
+     * Endpoint for retrieving several budgets by their IDs in one request.
+     *
+     * @param ids the IDs of the budgets to retrieve
+     * @return the budgets found in the order of the IDs, and the IDs no budget was found for
+     */
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get several budgets by id", description = "Provide comma separated budget ids to get the budgets in the same order, with the ids that were not found", responses = {
+            @ApiResponse(description = "Budgets found; missingIds lists the ids without a budget", responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = MultiGetResult.class))),
+            @ApiResponse(description = "No ids or too many ids", responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    public ResponseEntity<MultiGetResult<Budget>> getBudgetsByIds(@Parameter(name = "ids", description = "Budget ids, comma separated", example = "1,2,3")
+                                                                  @RequestParam List<Long> ids) {
+        if (ids.isEmpty()) {
+            throw new InvalidInputException("missing-ids", "No budget ids given.");
+        }
+        return ResponseEntity.ok(budgetService.getBudgetsByIds(ids));
+    }
     /**
      * Retrieves budgets associated with a specific user.
      *
@@ -41,6 +71,39 @@ public class BudgetController {
         List<Budget> budgets = budgetService.getBudgetsByUserId(userId);
         return new ResponseEntity<>(budgets, HttpStatus.OK);
     }
+    /**
+     * Retrieves the month-end spend forecasts of the budgets of a user.
+     *
+     * @param userId The ID of the user whose budgets are forecast.
+     * @return ResponseEntity containing the projected month-end spend and overrun probability of each budget.
+     */
+    @GetMapping("/user/{userId}/forecast")
+    @Operation(summary = "Forecast budgets by user id", description = "Provide an user id to get the projected month-end spend of the user's budgets", responses = {
+            @ApiResponse(responseCode = "200", description = "Forecasts computed",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = BudgetForecast.class))))
+    })
+    public ResponseEntity<List<BudgetForecast>> getForecastsByUserId(@Parameter(name = "userId", description = "ID of the user to forecast budgets for", example = "1")
+                                                                     @PathVariable Long userId) {
+        return ResponseEntity.ok(budgetForecastService.getForecastsByUserId(userId));
+    }
+    /**
+     * Retrieves the spend distribution of a budget: median, 90th and 99th percentile, mean and maximum expense
+     * amount per month and per year.
+     *
+     * @param id   The ID of the budget.
+     * @param year The year to report; every year when omitted.
+     * @return ResponseEntity containing the statistics of the budget, or an error message if the budget is not found.
+     */
+    @GetMapping("/{id}/stats")
+    @Operation(summary = "Get budget spend statistics", description = "Provide a budget id to get its expense size distribution per month and per year", responses = {
+            @ApiResponse(responseCode = "200", description = "Statistics computed",
+                    content = @Content(schema = @Schema(implementation = BudgetStats.class))),
+            @ApiResponse(responseCode = "404", description = "Budget not found")
+    })
+    public ResponseEntity<?> getBudgetStats(@Parameter(name = "id", description = "Budget id", example = "1") @PathVariable Long id,
+                                            @Parameter(name = "year", description = "Year to report", example = "2024") @RequestParam(required = false) Integer year) {
+        return ResponseEntity.ok(budgetStatsService.getStats(id, year));
+    }
     /**
      * Creates a new budget.
      *
@@ -56,19 +119,8 @@ public class BudgetController {
                     @ApiResponse(description = "Bad Request", responseCode = "400")
             })
     public ResponseEntity<?> createBudget (@RequestBody Budget budget) {
-        try {
-            Budget createdBudget = budgetService.createBudget(budget);
-            return new ResponseEntity<>(createdBudget, HttpStatus.CREATED);
-        } catch (DuplicateBudgetNameException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        } catch (InvalidInputException e) {
-            // Handling for invalid input exception
-            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
-        } catch (UserNotFoundException e) {
-            // Handling for invalid input exception
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Invalid input: " + e.getMessage());
-        }
-
+        Budget createdBudget = budgetService.createBudget(budget);
+        return new ResponseEntity<>(createdBudget, HttpStatus.CREATED);
     }
     /**
      * Endpoint for Updating a budget by its ID.
@@ -87,16 +139,8 @@ public class BudgetController {
     })
     public ResponseEntity<?> updateBudget(@Parameter(name="id", description = "Budget id to update budget", example="1")@PathVariable Long id,
                                           @RequestBody Budget budget) {
-        try {
-            Budget updatedBudget = budgetService.updateBudget(id, budget);
-            return new ResponseEntity<>(updatedBudget, HttpStatus.OK);
-        } catch (DuplicateBudgetNameException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        } catch (InvalidInputException e) {
-            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
-        } catch (UserNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
-        }
+        Budget updatedBudget = budgetService.updateBudget(id, budget);
+        return new ResponseEntity<>(updatedBudget, HttpStatus.OK);
     }
     /**
      * Endpoint for deleting an budget by its ID.
@@ -112,12 +156,30 @@ public class BudgetController {
             @ApiResponse(description = "Not Found", responseCode = "404")
     })
     public ResponseEntity<?> deleteBudget(@Parameter(name="id",description = "Budget id to delete budget", example="1")@PathVariable("id") long id) {
-        try {
-            budgetService.deleteBudget(id);
-            return new ResponseEntity<>("Budget deleted successfully!", HttpStatus.OK);
-        } catch (BudgetNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Invalid input: " + e.getMessage());
+        budgetService.deleteBudget(id);
+        return new ResponseEntity<>("Budget deleted successfully!", HttpStatus.OK);
+    }
+    /**
+     * Endpoint for deleting several budgets at once, together with their expenses.
+     *
+     * @param ids the IDs of the budgets to be deleted
+     * @return a ResponseEntity with a success message if the budgets are deleted successfully,
+     *         or an error message if any of the budgets is not found, in which case none is deleted
+     */
+    @DeleteMapping(params = "ids")
+    @Operation(summary = "Delete several budgets", description = "Deletes the budgets identified by their IDs, together with their expenses.", responses = {
+            @ApiResponse(description = "Budgets deleted successfully", responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(description = "Bad Request", responseCode = "400"),
+            @ApiResponse(description = "Not Found", responseCode = "404")
+    })
+    public ResponseEntity<?> deleteBudgets(@Parameter(name = "ids", description = "Budget ids to delete, comma separated", example = "1,2")
+                                           @RequestParam List<Long> ids) {
+        if (ids.isEmpty()) {
+            throw new InvalidInputException("missing-ids", "No budget ids given.");
         }
+        budgetService.deleteBudgets(ids);
+        return new ResponseEntity<>("Budgets deleted successfully!", HttpStatus.OK);
     }
 
 }
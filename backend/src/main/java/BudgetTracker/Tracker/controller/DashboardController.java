@@ -0,0 +1,43 @@
+package BudgetTracker.Tracker.controller;
+
+import BudgetTracker.Tracker.dto.Dashboard;
+import BudgetTracker.Tracker.service.DashboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+/**
+ * Controller class responsible for handling HTTP requests for the dashboard of a user.
+ */
+@RestController
+@RequestMapping("/dashboard")
+public class DashboardController {
+    @Autowired
+    private DashboardService dashboardService;
+    /**
+     * Retrieves a user together with their budgets, the expenses of a page grouped under their budget, and the totals.
+     *
+     * @param userId The ID of the user.
+     * @param page   The page of expenses to include, starting at 0, newest expenses first.
+     * @param size   The maximum number of expenses to include.
+     * @return ResponseEntity containing the dashboard, or an error message if the user is not found or the page is invalid.
+     */
+    @GetMapping("/{userId}")
+    @Operation(summary = "Load the dashboard of a user", description = "Returns the user, their budgets with their expenses and the totals in one response", responses = {
+            @ApiResponse(responseCode = "200", description = "Dashboard loaded",
+                    content = @Content(schema = @Schema(implementation = Dashboard.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "503", description = "Dashboard could not be loaded in time")
+    })
+    public ResponseEntity<?> getDashboard(@Parameter(name = "userId", description = "ID of the user to load the dashboard for", example = "1")
+                                          @PathVariable Long userId,
+                                          @RequestParam(defaultValue = "0") int page,
+                                          @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(dashboardService.getDashboard(userId, page, size));
+    }
+}
@@ -0,0 +1,51 @@
+package BudgetTracker.Tracker.controller;
+
+import BudgetTracker.Tracker.service.UserEventStreamService;
+import BudgetTracker.Tracker.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Controller class for streaming budget and expense changes to clients with Server-Sent Events.
+ */
+@RestController
+@RequestMapping("/events")
+public class EventStreamController {
+
+    @Autowired
+    private UserEventStreamService eventStreamService;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Opens a Server-Sent Events stream of the budget and expense changes of a user.
+     * Every {@code change} event carries the changed entity and the new totals of the affected budget.
+     *
+     * @param userId The ID of the user whose changes are streamed.
+     * @return ResponseEntity containing the event stream, or a not found status if the user does not exist.
+     */
+    @GetMapping(value = "/user/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream user changes", description = "Provide an user id to receive budget and expense changes as Server-Sent Events",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Event stream opened"),
+                    @ApiResponse(responseCode = "404", description = "User not found")
+            })
+    public ResponseEntity<SseEmitter> streamUserEvents(@Parameter(name = "userId", description = "Provide User Id", example = "1")
+                                                       @PathVariable Long userId) {
+        if (!userService.existsById(userId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(eventStreamService.subscribe(userId));
+    }
+}
@@ -1,7 +1,10 @@
 package BudgetTracker.Tracker.controller;
 
+import BudgetTracker.Tracker.dto.IngestionTicket;
+import BudgetTracker.Tracker.dto.MultiGetResult;
 import BudgetTracker.Tracker.entity.Expenses;
 import BudgetTracker.Tracker.exceptions.*;
+import BudgetTracker.Tracker.service.ExpenseIngestionQueue;
 import BudgetTracker.Tracker.service.ExpensesService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,10 +14,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 /**
  * Controller class for handling HTTP requests related to expenses.
  * Provides endpoints for creating, retrieving, updating, and deleting expenses,
@@ -28,12 +33,19 @@ public class ExpensesController {
      */
     @Autowired
     ExpensesService expenseService;
+    /**
+     * Write-behind queue used for expense creation when asynchronous ingestion is enabled.
+     */
+    @Autowired
+    ExpenseIngestionQueue ingestionQueue;
     /**
      * Endpoint for creating a new expense.
      *
      * @param expense The expense object to be created. Must be provided in the request body.
      * @return ResponseEntity containing the created expense if successful, or an error message with a
-     * bad request status if the expense name is duplicate or if input is invalid.
+     * bad request status if the expense name is duplicate, the budget does not exist or input is invalid.
+     * When asynchronous ingestion is enabled, the validated expense is queued and a tracking ticket is
+     * returned with an accepted status instead.
      */
     @PostMapping
     @Operation(summary = "Create a new expense",
@@ -41,21 +53,62 @@ public class ExpensesController {
             responses = {
                     @ApiResponse(responseCode = "201", description = "Expense Created successfully",
                             content = @Content(schema = @Schema(implementation = Expenses.class))),
-                    @ApiResponse(responseCode = "400", description = "Bad Request due to invalid input or duplicate expense name",
-                            content = @Content(schema = @Schema(implementation = String.class))),
-                    @ApiResponse(responseCode = "404", description = "Budget not found for the expense",
-                            content = @Content(schema = @Schema(implementation = String.class)))
+                    @ApiResponse(responseCode = "202", description = "Expense validated and queued for asynchronous creation",
+                            content = @Content(schema = @Schema(implementation = IngestionTicket.class))),
+                    @ApiResponse(responseCode = "400", description = "Bad Request due to invalid input, duplicate expense name, "
+                            + "or a budget that does not exist (code budget-not-found)",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
+                    @ApiResponse(responseCode = "503", description = "Ingestion queue is full",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
             })
     public ResponseEntity<?> createExpense(@RequestBody Expenses expense) {
         try {
+            if (ingestionQueue.isEnabled()) {
+                IngestionTicket ticket = ingestionQueue.submit(expense);
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(ticket);
+            }
             Expenses createdExpense = expenseService.createExpense(expense);
             return new ResponseEntity<>(createdExpense, HttpStatus.CREATED);
-        } catch (DuplicateExpenseNameException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        } catch (InvalidInputException | InvalidDAteException | BudgetNotFoundException e) {
-            // Handling for invalid input exception
-            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+        } catch (BudgetNotFoundException e) {
+            // The budget is part of the input here
+            throw new InvalidInputException("budget-not-found", e.getMessage());
+        }
+    }
+    /**
+     * Endpoint for retrieving the state of the asynchronous ingestion queue.
+     *
+     * @return The ingestion mode, the number of queued expenses and the queue capacity.
+     */
+    @GetMapping("/ingestion")
+    @Operation(summary = "Get ingestion queue status", description = "Get the state of the asynchronous expense ingestion queue",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Ingestion queue status")
+            })
+    public Map<String, Object> getIngestionStatus() {
+        return ingestionQueue.getStatus();
+    }
+    /**
+     * Endpoint for retrieving the status of an expense queued for asynchronous creation.
+     *
+     * @param trackingId The tracking ID returned when the expense was accepted.
+     * @return ResponseEntity containing the tracking ticket.
+     * @throws IngestionTicketNotFoundException If the ID is unknown or its status was already evicted.
+     */
+    @GetMapping("/ingestion/{trackingId}")
+    @Operation(summary = "Get queued expense status", description = "Provide the tracking id returned by an accepted expense creation",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Tracking ticket found",
+                            content = @Content(schema = @Schema(implementation = IngestionTicket.class))),
+                    @ApiResponse(responseCode = "404", description = "Unknown tracking id (code ingestion-ticket-not-found)",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+            })
+    public ResponseEntity<IngestionTicket> getIngestionTicket(@Parameter(name = "trackingId", description = "Tracking id of the queued expense")
+                                                @PathVariable String trackingId) {
+        IngestionTicket ticket = ingestionQueue.getTicket(trackingId);
+        if (ticket == null) {
+            throw new IngestionTicketNotFoundException("No queued expense with tracking ID " + trackingId);
         }
+        return ResponseEntity.ok(ticket);
     }
     /**
      * Endpoint for retrieving all expenses.
@@ -72,6 +125,27 @@ public class ExpensesController {
 
         return expenseService.getAllExpenses();
     }
+    /**
+     * Endpoint for retrieving several expenses by their IDs in one request.
+     *
+     * @param ids The IDs of the expenses to retrieve.
+     * @return The expenses found in the order of the IDs, and the IDs no expense was found for.
+     */
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get several expenses by id", description = "Provide comma separated expense ids to get the expenses in the same order, with the ids that were not found",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Expenses found; missingIds lists the ids without an expense",
+                            content = @Content(schema = @Schema(implementation = MultiGetResult.class))),
+                    @ApiResponse(responseCode = "400", description = "No ids or too many ids",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+            })
+    public MultiGetResult<Expenses> getExpensesByIds(@Parameter(name = "ids", description = "Expense ids, comma separated", example = "1,2,3")
+                                                     @RequestParam List<Long> ids) {
+        if (ids.isEmpty()) {
+            throw new InvalidInputException("missing-ids", "No expense ids given.");
+        }
+        return expenseService.getExpensesByIds(ids);
+    }
     /**
      * Endpoint for retrieving an expense by its ID.
      *
@@ -109,19 +183,16 @@ public class ExpensesController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Expense updated successfully"),
                     @ApiResponse(responseCode = "404", description = "Expense not found"),
-                    @ApiResponse(responseCode = "400", description = "Invalid input")
+                    @ApiResponse(responseCode = "400", description = "Invalid input, or a budget that does not exist (code budget-not-found)")
             })
     public ResponseEntity<?> updateExpense(@Parameter(name="id", description = "Provide Expense id to update the expense", example="1")@PathVariable Long id, @RequestBody Expenses expenseDetails) {
         try {
             Expenses updatedExpense = expenseService.updateExpense(id, expenseDetails);
             // Return the updated expense with expensesId field in the response
             return ResponseEntity.ok(updatedExpense);
-        } catch (ExpenseNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("An expense with ID = " + id + " is not found");
-        } catch (InvalidInputException | BudgetNotFoundException e) {
-            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An unexpected error occurred. Please try again later.");
+        } catch (BudgetNotFoundException e) {
+            // The budget is part of the input here
+            throw new InvalidInputException("budget-not-found", e.getMessage());
         }
     }
 
@@ -143,16 +214,8 @@ public class ExpensesController {
                     @ApiResponse(responseCode = "404", description = "Expense not found")
             })
     public ResponseEntity<?> deleteExpense(@Parameter(name="id", description = "Provide expense id to delete the expense", example = "1")@PathVariable Long id) {
-        try {
-            expenseService.deleteExpense(id);
-            return ResponseEntity.ok().body("Expense with ID " + id + " deleted successfully");
-        } catch (ExpenseNotFoundException e) {
-            String errorMessage = "Expense with ID " + id + " not found";
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorMessage);
-        } catch (Exception e) {
-            // Log the exception for debugging purposes
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while deleting the expense");
-        }
+        expenseService.deleteExpense(id);
+        return ResponseEntity.ok().body("Expense with ID " + id + " deleted successfully");
     }
 
     /**
@@ -174,4 +237,31 @@ public class ExpensesController {
         return expenseService.getExpensesByUserId(userId);
     }
 
+    /**
+     * Endpoint for retrieving the expenses of a user carrying some tags.
+     *
+     * @param userId The ID of the user whose expenses to retrieve.
+     * @param tags   The tags to look for.
+     * @param mode   "all" to return the expenses carrying every tag, "any" for those carrying at least one.
+     * @return ResponseEntity containing the matching expenses, or an error message with a bad request status if the
+     * tags or the mode are invalid.
+     */
+    @GetMapping(value = "/user/{userId}", params = "tags")
+    @Operation(summary = "Get Expenses By User and Tags",
+            description = "Provide an user Id and comma separated tags to find the user Expenses carrying all or any of the tags",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Expenses retrieved successfully. Returns an empty list if no expenses match.",
+                            content = @Content(array = @ArraySchema(schema = @Schema(implementation = Expenses.class)))),
+                    @ApiResponse(responseCode = "400", description = "Invalid tags or mode",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+            })
+    public ResponseEntity<?> getExpensesByUserIdAndTags(@Parameter(name = "userId", description = "Provide User Id", example = "1") @PathVariable Long userId,
+                                                        @Parameter(name = "tags", description = "Tags to filter on, comma separated", example = "groceries,work") @RequestParam List<String> tags,
+                                                        @Parameter(name = "mode", description = "all or any", example = "all") @RequestParam(defaultValue = "all") String mode) {
+        if (!mode.equalsIgnoreCase("all") && !mode.equalsIgnoreCase("any")) {
+            throw new InvalidInputException("invalid-tag-mode", "mode must be \"all\" or \"any\".");
+        }
+        return ResponseEntity.ok(expenseService.getExpensesByUserIdAndTags(userId, tags, mode.equalsIgnoreCase("all")));
+    }
+
 }
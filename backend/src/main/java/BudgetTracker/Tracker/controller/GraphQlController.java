@@ -0,0 +1,87 @@
+package BudgetTracker.Tracker.controller;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.entity.User;
+import BudgetTracker.Tracker.service.BudgetService;
+import BudgetTracker.Tracker.service.ExpensesService;
+import BudgetTracker.Tracker.service.ShardRouter;
+import BudgetTracker.Tracker.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+/**
+ * Controller class resolving the GraphQL queries declared in {@code graphql/schema.graphqls}.
+ * Root fields are read from the shard of the user they belong to. The nested {@code budgets} and {@code expenses}
+ * lists are resolved in batches, so a selection costs one query per level instead of one per parent.
+ */
+@Controller
+public class GraphQlController {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BudgetService budgetService;
+    @Autowired
+    private ExpensesService expensesService;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @QueryMapping
+    public User user(@Argument Long id) {
+        return shardRouter.callOnUser(id, () -> userService.getUserById(id));
+    }
+
+    @QueryMapping
+    public Budget budget(@Argument Long id) {
+        return onShardOf(shardRouter.findOwnerOfBudget(id), () -> budgetService.getBudgetById(id));
+    }
+
+    @QueryMapping
+    public List<Budget> budgetsByUser(@Argument Long userId) {
+        return shardRouter.callOnUser(userId, () -> budgetService.getBudgetsByUserId(userId));
+    }
+
+    @QueryMapping
+    public Expenses expense(@Argument Long id) {
+        return onShardOf(shardRouter.findOwnerOfExpense(id), () -> expensesService.getExpenseById(id));
+    }
+
+    @QueryMapping
+    public List<Expenses> expensesByUser(@Argument Long userId) {
+        return shardRouter.callOnUser(userId, () -> expensesService.getExpensesByUserId(userId));
+    }
+
+    /**
+     * Resolves the budgets of all users of a selection at once.
+     */
+    @BatchMapping(typeName = "User", field = "budgets")
+    public Map<User, List<Budget>> budgets(List<User> users) {
+        Map<Long, List<Budget>> budgets = budgetService.getBudgetsByUserIds(users.stream().map(User::getId).distinct().toList());
+        Map<User, List<Budget>> result = new LinkedHashMap<>();
+        users.forEach(user -> result.put(user, budgets.getOrDefault(user.getId(), List.of())));
+        return result;
+    }
+
+    /**
+     * Resolves the expenses of all budgets of a selection at once.
+     */
+    @BatchMapping(typeName = "Budget", field = "expenses")
+    public Map<Budget, List<Expenses>> expenses(List<Budget> budgets) {
+        Map<Long, List<Expenses>> expenses = expensesService.getExpensesByBudgets(budgets);
+        Map<Budget, List<Expenses>> result = new LinkedHashMap<>();
+        budgets.forEach(budget -> result.put(budget, expenses.getOrDefault(budget.getBudgetId(), List.of())));
+        return result;
+    }
+
+    private <T> T onShardOf(Optional<Long> owner, Supplier<T> query) {
+        return owner.map(userId -> shardRouter.callOnUser(userId, query)).orElseGet(query);
+    }
+}
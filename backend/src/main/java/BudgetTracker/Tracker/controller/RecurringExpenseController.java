@@ -0,0 +1,82 @@
+package BudgetTracker.Tracker.controller;
+
+import BudgetTracker.Tracker.entity.RecurringExpense;
+import BudgetTracker.Tracker.service.RecurringExpenseService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+/**
+ * Controller class for handling HTTP requests related to recurring expenses.
+ */
+@RestController
+@RequestMapping("/recurring-expenses")
+public class RecurringExpenseController {
+    @Autowired
+    private RecurringExpenseService recurringExpenseService;
+    /**
+     * Endpoint for creating a new recurring expense.
+     *
+     * @param recurringExpense The recurring expense to be created. Must be provided in the request body.
+     * @return ResponseEntity containing the created recurring expense, or an error message if the input is invalid
+     * or the budget is not found.
+     */
+    @PostMapping
+    @Operation(summary = "Create a recurring expense",
+            description = "Create a recurring expense with a description, amount, budget id and recurrence rule such as \"1 * *\" for the first of every month",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Recurring expense created successfully",
+                            content = @Content(schema = @Schema(implementation = RecurringExpense.class))),
+                    @ApiResponse(responseCode = "400", description = "Bad Request due to invalid input",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
+                    @ApiResponse(responseCode = "404", description = "Budget not found",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+            })
+    public ResponseEntity<?> createRecurringExpense(@RequestBody RecurringExpense recurringExpense) {
+        RecurringExpense created = recurringExpenseService.createRecurringExpense(recurringExpense);
+        return new ResponseEntity<>(created, HttpStatus.CREATED);
+    }
+    /**
+     * Endpoint for retrieving the recurring expenses of a user.
+     *
+     * @param userId The ID of the user.
+     * @return ResponseEntity containing the user's recurring expenses, or an error message if the user is not found.
+     */
+    @GetMapping("/user/{userId}")
+    @Operation(summary = "Get recurring expenses by user",
+            description = "Provide an user Id to find the user's recurring expenses",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Recurring expenses retrieved successfully",
+                            content = @Content(array = @ArraySchema(schema = @Schema(implementation = RecurringExpense.class)))),
+                    @ApiResponse(responseCode = "404", description = "User not found")
+            })
+    public ResponseEntity<?> getRecurringExpensesByUserId(@Parameter(name = "userId", description = "Provide User Id", example = "1")
+                                                          @PathVariable Long userId) {
+        return ResponseEntity.ok(recurringExpenseService.getRecurringExpensesByUserId(userId));
+    }
+    /**
+     * Endpoint for deleting a recurring expense. Expenses already generated from it are kept.
+     *
+     * @param id The ID of the recurring expense to be deleted.
+     * @return ResponseEntity with a success message, or an error message if the recurring expense is not found.
+     */
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete a recurring expense",
+            description = "Stops generating expenses from a recurring expense identified by its id.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Recurring expense deleted successfully"),
+                    @ApiResponse(responseCode = "404", description = "Recurring expense not found")
+            })
+    public ResponseEntity<?> deleteRecurringExpense(@Parameter(name = "id", description = "Provide recurring expense id to delete it", example = "1")
+                                                    @PathVariable Long id) {
+        recurringExpenseService.deleteRecurringExpense(id);
+        return ResponseEntity.ok().body("Recurring expense with ID " + id + " deleted successfully");
+    }
+}
@@ -0,0 +1,49 @@
+package BudgetTracker.Tracker.controller;
+
+import BudgetTracker.Tracker.service.ShardMigrationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+/**
+ * Controller class for administering the user-keyed shards.
+ */
+@RestController
+@RequestMapping("/admin/shards")
+public class ShardAdminController {
+    @Autowired
+    private ShardMigrationService shardMigrationService;
+    /**
+     * Retrieves the number of users on every shard.
+     *
+     * @return ResponseEntity containing the user count per shard, or an error message if sharding is not enabled.
+     */
+    @GetMapping
+    @Operation(summary = "Get shard usage", description = "Returns the number of users assigned to every shard", responses = {
+            @ApiResponse(responseCode = "200", description = "User counts per shard"),
+            @ApiResponse(responseCode = "400", description = "Sharding is not enabled")
+    })
+    public ResponseEntity<?> getShards() {
+        return ResponseEntity.ok(shardMigrationService.getUserCounts());
+    }
+    /**
+     * Moves all data of a user to another shard.
+     *
+     * @param userId      The ID of the user to move.
+     * @param targetShard The shard to move the user to.
+     * @return ResponseEntity with a success message, or an error message if the move is not possible.
+     */
+    @PostMapping("/users/{userId}/move")
+    @Operation(summary = "Move a user to another shard", description = "Copies the user's budgets, expenses and alerts to the target shard and removes them from the current one", responses = {
+            @ApiResponse(responseCode = "200", description = "User moved successfully"),
+            @ApiResponse(responseCode = "400", description = "Sharding is not enabled, the shard does not exist or the user is already being moved"),
+            @ApiResponse(responseCode = "404", description = "User not found")
+    })
+    public ResponseEntity<?> moveUser(@Parameter(name = "userId", description = "Id of the user to move", example = "1") @PathVariable Long userId,
+                                      @Parameter(name = "targetShard", description = "Index of the target shard", example = "1") @RequestParam int targetShard) {
+        int moved = shardMigrationService.moveUser(userId, targetShard);
+        return ResponseEntity.ok().body("User with ID " + userId + " is on shard " + targetShard + " (" + moved + " rows moved)");
+    }
+}
@@ -2,7 +2,6 @@ package BudgetTracker.Tracker.controller;
 
 import BudgetTracker.Tracker.entity.User;
 import BudgetTracker.Tracker.exceptions.DuplicateUserException;
-import BudgetTracker.Tracker.exceptions.InvalidInputException;
 import BudgetTracker.Tracker.service.UserService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -51,15 +50,9 @@ public class UserController {
         try {
             User createdUser = userService.createNewUser(user);
             return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
-        } catch (DuplicateUserException e) {
-            // Specific handling for duplicate user
-            return ResponseEntity.badRequest().body(e.getMessage());
-        } catch (InvalidInputException e) {
-            // Handling for invalid input exception
-            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
-        }catch (DataIntegrityViolationException e) {
+        } catch (DataIntegrityViolationException e) {
             // Fallback for other data integrity issues, including unique constraint violations not caught by DuplicateUserException
-            return ResponseEntity.badRequest().body("A user with the provided name or email already exists.");
+            throw new DuplicateUserException("A user with the provided name or email already exists.");
         }
     }
 
@@ -0,0 +1,28 @@
+package BudgetTracker.Tracker.dto;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A budget together with its expenses, serialized as the budget's own fields plus an {@code expenses} array.
+ */
+@Getter
+@AllArgsConstructor
+public class BudgetExpenses {
+    /**
+     * The budget.
+     */
+    @JsonUnwrapped
+    private Budget budget;
+    /**
+     * The expenses of the budget, without repeating the budget in each of them.
+     */
+    @JsonIgnoreProperties("budget")
+    private List<Expenses> expenses;
+}
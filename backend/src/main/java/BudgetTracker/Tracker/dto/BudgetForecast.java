@@ -0,0 +1,36 @@
+package BudgetTracker.Tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Projected month-end spend of a budget, from its exponentially weighted daily spend rate.
+ */
+@Getter
+@AllArgsConstructor
+public class BudgetForecast {
+    /**
+     * The ID of the budget.
+     */
+    private Long budgetId;
+    /**
+     * The amount allocated for the budget.
+     */
+    private long budgetAmount;
+    /**
+     * The running total of the amounts of the budget's expenses.
+     */
+    private long spentAmount;
+    /**
+     * The estimated spend per day.
+     */
+    private double dailySpendRate;
+    /**
+     * The spend expected by the end of the current month (UTC).
+     */
+    private long projectedSpend;
+    /**
+     * The probability, between 0 and 1, that the spend exceeds the budget amount by the end of the month.
+     */
+    private double overrunProbability;
+}
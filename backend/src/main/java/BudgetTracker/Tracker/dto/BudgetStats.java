@@ -0,0 +1,26 @@
+package BudgetTracker.Tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Spend distribution of a budget, per month and per year.
+ */
+@Getter
+@AllArgsConstructor
+public class BudgetStats {
+    /**
+     * The ID of the budget.
+     */
+    private Long budgetId;
+    /**
+     * The statistics of every month with expenses, oldest first.
+     */
+    private List<SpendStats> months;
+    /**
+     * The statistics of every year with expenses, merged from its months, oldest first.
+     */
+    private List<SpendStats> years;
+}
@@ -0,0 +1,24 @@
+package BudgetTracker.Tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Amount allocated to a budget together with the amount spent from it.
+ */
+@Getter
+@AllArgsConstructor
+public class BudgetTotal {
+    /**
+     * The ID of the budget.
+     */
+    private Long budgetId;
+    /**
+     * The amount allocated for the budget.
+     */
+    private long budgetAmount;
+    /**
+     * The running total of the amounts of the budget's expenses.
+     */
+    private long spentAmount;
+}
@@ -0,0 +1,33 @@
+package BudgetTracker.Tracker.dto;
+
+import BudgetTracker.Tracker.events.ChangeEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Payload pushed to a user's event stream for a committed budget or expense change.
+ */
+@Getter
+@AllArgsConstructor
+public class ChangeNotification {
+    /**
+     * The kind of entity that was changed.
+     */
+    private ChangeEvent.EntityType type;
+    /**
+     * The kind of change that was made.
+     */
+    private ChangeEvent.Action action;
+    /**
+     * The ID of the changed entity.
+     */
+    private Long id;
+    /**
+     * The entity after the change, or null if it was deleted.
+     */
+    private Object data;
+    /**
+     * The totals of the affected budget after the change, or null if the budget no longer exists.
+     */
+    private BudgetTotal total;
+}
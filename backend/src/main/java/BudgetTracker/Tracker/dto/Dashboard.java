@@ -0,0 +1,39 @@
+package BudgetTracker.Tracker.dto;
+
+import BudgetTracker.Tracker.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Everything the dashboard of a user shows, loaded in one request.
+ */
+@Getter
+@AllArgsConstructor
+public class Dashboard {
+    /**
+     * The user.
+     */
+    private User user;
+    /**
+     * The budgets of the user, each with its expenses from the requested page.
+     */
+    private List<BudgetExpenses> budgets;
+    /**
+     * The totals over all budgets of the user.
+     */
+    private DashboardTotals totals;
+    /**
+     * The page of expenses included, starting at 0.
+     */
+    private int page;
+    /**
+     * The maximum number of expenses per page.
+     */
+    private int size;
+    /**
+     * The number of expenses of the user across all pages.
+     */
+    private long expenseCount;
+}
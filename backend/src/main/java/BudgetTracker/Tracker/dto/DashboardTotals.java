@@ -0,0 +1,31 @@
+package BudgetTracker.Tracker.dto;
+
+import lombok.Getter;
+
+/**
+ * Amounts allocated to and spent from all budgets of a user.
+ */
+@Getter
+public class DashboardTotals {
+    /**
+     * The number of budgets of the user.
+     */
+    private long budgetCount;
+    /**
+     * The sum of the amounts allocated for the budgets.
+     */
+    private long budgetAmount;
+    /**
+     * The sum of the running totals of the budgets' expenses.
+     */
+    private long spentAmount;
+
+    /**
+     * Creates the totals from the aggregate query, whose sums are null when the user has no budget.
+     */
+    public DashboardTotals(Long budgetCount, Long budgetAmount, Long spentAmount) {
+        this.budgetCount = budgetCount == null ? 0 : budgetCount;
+        this.budgetAmount = budgetAmount == null ? 0 : budgetAmount;
+        this.spentAmount = spentAmount == null ? 0 : spentAmount;
+    }
+}
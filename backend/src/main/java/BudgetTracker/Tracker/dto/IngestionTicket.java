@@ -0,0 +1,63 @@
+package BudgetTracker.Tracker.dto;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Tracking record for an expense accepted by the write-behind ingestion queue.
+ * Returned with the 202 response and by the ingestion status endpoint.
+ */
+@Getter
+public class IngestionTicket {
+    /**
+     * Lifecycle of a queued expense.
+     */
+    public enum Status { QUEUED, PERSISTED, FAILED }
+
+    /**
+     * The identifier handed back to the client to poll the status of the expense.
+     */
+    private final String trackingId;
+    /**
+     * The time at which the expense was accepted into the queue.
+     */
+    private final Instant acceptedAt;
+    /**
+     * The current status of the queued expense.
+     */
+    private volatile Status status = Status.QUEUED;
+    /**
+     * The ID of the expense once it has been persisted.
+     */
+    private volatile Long expensesId;
+    /**
+     * The reason the expense could not be persisted, if it failed.
+     */
+    private volatile String message;
+
+    public IngestionTicket(String trackingId, Instant acceptedAt) {
+        this.trackingId = trackingId;
+        this.acceptedAt = acceptedAt;
+    }
+
+    /**
+     * Marks the expense as persisted under the given ID.
+     *
+     * @param expensesId The ID assigned to the saved expense.
+     */
+    public void markPersisted(Long expensesId) {
+        this.expensesId = expensesId;
+        this.status = Status.PERSISTED;
+    }
+
+    /**
+     * Marks the expense as failed with the given reason.
+     *
+     * @param message The reason the expense could not be persisted.
+     */
+    public void markFailed(String message) {
+        this.message = message;
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,52 @@
+package BudgetTracker.Tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The entities found for a list of requested IDs, in the order they were requested, and the IDs found nothing for.
+ *
+ * @param <T> The type of the entities.
+ */
+@Getter
+@AllArgsConstructor
+public class MultiGetResult<T> {
+    /**
+     * The entities found, in the order of their IDs in the request.
+     */
+    private List<T> items;
+    /**
+     * The requested IDs that no entity was found for, in request order.
+     */
+    private List<Long> missingIds;
+
+    /**
+     * Orders the entities found by a lookup after the requested IDs.
+     *
+     * @param ids   The requested IDs, without duplicates.
+     * @param found The entities found, in any order.
+     * @param idOf  Gives the ID of an entity.
+     * @return The entities in request order, with the IDs not found.
+     */
+    public static <T> MultiGetResult<T> inRequestOrder(List<Long> ids, List<T> found, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>(found.size() * 2);
+        found.forEach(item -> byId.put(idOf.apply(item), item));
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            T item = byId.get(id);
+            if (item != null) {
+                items.add(item);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new MultiGetResult<>(items, missingIds);
+    }
+}
@@ -0,0 +1,32 @@
+package BudgetTracker.Tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Aggregated expenses of one group of an analytics query, such as one budget or one month.
+ */
+@Getter
+@AllArgsConstructor
+public class SpendGroup {
+    /**
+     * The group: a budget ID, a day ("2024-03-10"), a month ("2024-03") or a year ("2024").
+     */
+    private String key;
+    /**
+     * The number of expenses in the group.
+     */
+    private long count;
+    /**
+     * The sum of the expense amounts.
+     */
+    private long total;
+    /**
+     * The smallest expense amount.
+     */
+    private long min;
+    /**
+     * The largest expense amount.
+     */
+    private long max;
+}
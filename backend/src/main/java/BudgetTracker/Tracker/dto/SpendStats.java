@@ -0,0 +1,41 @@
+package BudgetTracker.Tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Distribution of the expense amounts of a budget over one month or one year.
+ * Percentiles are estimated from a quantile sketch; the count, mean and maximum are exact.
+ */
+@Getter
+@AllArgsConstructor
+public class SpendStats {
+    /**
+     * The month ("2024-03") or year ("2024") covered.
+     */
+    private String period;
+    /**
+     * The number of expenses.
+     */
+    private long count;
+    /**
+     * The mean expense amount.
+     */
+    private double mean;
+    /**
+     * The estimated median expense amount.
+     */
+    private double median;
+    /**
+     * The estimated 90th percentile of the expense amounts.
+     */
+    private double p90;
+    /**
+     * The estimated 99th percentile of the expense amounts.
+     */
+    private double p99;
+    /**
+     * The largest expense amount.
+     */
+    private long max;
+}
@@ -1,12 +1,17 @@
 package BudgetTracker.Tracker.entity;
+import BudgetTracker.Tracker.dto.BudgetForecast;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 /**
  * Entity class representing a budget.
@@ -40,4 +45,61 @@ public class Budget {
     @ManyToOne
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
+    /**
+     * Running total of the amounts of the budget's expenses.
+     * Only ever changed by atomic increments from the expense write paths, never written through the entity.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ColumnDefault("0")
+    @Column(name = "spent_amount", nullable = false, insertable = false, updatable = false)
+    private long spentAmount;
+    /**
+     * Spending alert thresholds as percentages of the budget amount, or null to use the configured defaults.
+     */
+    @Convert(converter = IntegerListConverter.class)
+    @Column(name = "alert_thresholds")
+    private List<Integer> alertThresholds;
+    /**
+     * The day, in days since the epoch (UTC), whose spend is still being accumulated in {@link #spendDayAmount}.
+     * This and the following fields hold the exponentially weighted daily spend rate maintained by the expense
+     * write paths, never written through the entity.
+     */
+    @JsonIgnore
+    @Column(name = "spend_rate_day", insertable = false, updatable = false)
+    private Long spendRateDay;
+    /**
+     * The spend recorded on {@link #spendRateDay} so far.
+     */
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "spend_day_amount", nullable = false, insertable = false, updatable = false)
+    private long spendDayAmount;
+    /**
+     * Exponentially weighted mean of the daily spend over the days before {@link #spendRateDay}, or null before
+     * the first full day.
+     */
+    @JsonIgnore
+    @Column(name = "spend_rate", insertable = false, updatable = false)
+    private Double spendRate;
+    /**
+     * Exponentially weighted variance of the daily spend.
+     */
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "spend_rate_variance", nullable = false, insertable = false, updatable = false)
+    private double spendRateVariance;
+    /**
+     * The number of expense writes made to the budget. Incremented together with {@link #spentAmount}, it is the
+     * version watermark against which persisted expense snapshots are validated.
+     */
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "data_version", nullable = false, insertable = false, updatable = false)
+    private long dataVersion;
+    /**
+     * Projected month-end spend, derived from the daily spend rate when the budget is read.
+     */
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private BudgetForecast forecast;
 }
@@ -0,0 +1,63 @@
+package BudgetTracker.Tracker.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+/**
+ * Entity class representing a spending alert raised when the expenses of a budget cross one of its thresholds.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "budget_alerts", uniqueConstraints = @UniqueConstraint(columnNames = {"budget_id", "threshold_percent"}))
+public class BudgetAlert {
+    /**
+     * The unique identifier for the alert.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long alertId;
+    /**
+     * The budget whose threshold was crossed.
+     */
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "budget_id", referencedColumnName = "budgetId")
+    private Budget budget;
+    /**
+     * The crossed threshold, as a percentage of the budget amount.
+     */
+    @Column(name = "threshold_percent")
+    private int thresholdPercent;
+    /**
+     * The total spent from the budget when the threshold was crossed.
+     */
+    @Column(name = "spent_amount")
+    private long spentAmount;
+    /**
+     * The budget amount when the threshold was crossed.
+     */
+    @Column(name = "budget_amount")
+    private int budgetAmount;
+    /**
+     * The time at which the threshold was crossed.
+     */
+    @Column(name = "triggered_at")
+    private Instant triggeredAt;
+
+    /**
+     * The ID of the budget whose threshold was crossed.
+     *
+     * @return The budget ID.
+     */
+    public Long getBudgetId() {
+        return budget == null ? null : budget.getBudgetId();
+    }
+}
@@ -0,0 +1,32 @@
+package BudgetTracker.Tracker.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+/**
+ * Entity class recording a one-time data migration that has been applied to the database it is stored in.
+ * Each shard keeps its own records, since each shard's data is migrated on its own.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "data_migrations")
+public class DataMigration {
+    /**
+     * The name of the migration.
+     */
+    @Id
+    @Column(length = 100)
+    private String name;
+    /**
+     * The time at which the migration was applied.
+     */
+    @Column(name = "applied_at")
+    private Instant appliedAt;
+}
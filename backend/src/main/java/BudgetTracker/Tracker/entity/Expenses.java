@@ -5,8 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.SortNatural;
 
 import java.time.Instant;
+import java.util.SortedSet;
 /**
  * Entity class representing an expense.
  */
@@ -41,6 +44,15 @@ public class Expenses {
 
 //    @ManyToOne
 //    private Budget budget;
+    /**
+     * Lowercase labels of the expense, such as "groceries" or "reimbursable".
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "expense_tags", joinColumns = @JoinColumn(name = "expense_id"))
+    @Column(name = "tag", length = 32)
+    @SortNatural
+    @BatchSize(size = 256)
+    private SortedSet<String> tags;
     /**
      * The budget associated with the expense.
      */
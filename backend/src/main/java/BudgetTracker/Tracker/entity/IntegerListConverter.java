@@ -0,0 +1,43 @@
+package BudgetTracker.Tracker.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores a list of integers as a comma separated column value.
+ */
+@Converter
+public class IntegerListConverter implements AttributeConverter<List<Integer>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<Integer> values) {
+        if (values == null) {
+            return null;
+        }
+        StringBuilder column = new StringBuilder();
+        for (Integer value : values) {
+            if (!column.isEmpty()) {
+                column.append(',');
+            }
+            column.append(value);
+        }
+        return column.toString();
+    }
+
+    @Override
+    public List<Integer> convertToEntityAttribute(String column) {
+        if (column == null) {
+            return null;
+        }
+        List<Integer> values = new ArrayList<>();
+        for (String value : column.split(",")) {
+            if (!value.isBlank()) {
+                values.add(Integer.parseInt(value.trim()));
+            }
+        }
+        return values;
+    }
+}
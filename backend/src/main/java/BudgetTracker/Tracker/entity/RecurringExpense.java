@@ -0,0 +1,75 @@
+package BudgetTracker.Tracker.entity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+/**
+ * Entity class representing a recurring expense, such as rent or a subscription, from which
+ * expenses are generated on the dates matched by its recurrence rule.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "recurring_expenses", indexes = {
+        @Index(name = "idx_recurring_expenses_due", columnList = "next_occurrence, user_id")
+})
+public class RecurringExpense {
+    /**
+     * The unique identifier for the recurring expense.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long recurringExpenseId;
+    /**
+     * The description given to every generated expense, followed by the date of the occurrence.
+     */
+    @Column(name = "description")
+    private String description;
+    /**
+     * The amount of every generated expense.
+     */
+    @Column(name = "amount")
+    private int amount;
+    /**
+     * The day-of-month, month and day-of-week fields of a cron expression, for example {@code "1 * *"} for the
+     * first of every month or {@code "* * MON"} for every Monday. The macros {@code @daily}, {@code @weekly},
+     * {@code @monthly} and {@code @yearly} are accepted as well.
+     */
+    @Column(name = "recurrence_rule")
+    private String recurrenceRule;
+    /**
+     * The first date on which expenses are generated.
+     */
+    @Column(name = "start_date")
+    private LocalDate startDate;
+    /**
+     * The last date on which expenses are generated, or null if the expense recurs indefinitely.
+     */
+    @Column(name = "end_date")
+    private LocalDate endDate;
+    /**
+     * The date of the next occurrence that has not been generated yet, or null once the recurrence has ended.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "next_occurrence")
+    private LocalDate nextOccurrence;
+    /**
+     * The budget the generated expenses belong to.
+     */
+    @ManyToOne
+    @JoinColumn(name = "budget_id", referencedColumnName = "budgetId")
+    private Budget budget;
+    /**
+     * The ID of the user owning the budget, kept on the row so the scheduler can partition the work by user.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+}
@@ -0,0 +1,21 @@
+package BudgetTracker.Tracker.events;
+
+import BudgetTracker.Tracker.entity.BudgetAlert;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Application event published when the expenses of a budget cross one of its alert thresholds.
+ */
+@Getter
+@AllArgsConstructor
+public class BudgetAlertEvent {
+    /**
+     * The ID of the user owning the budget.
+     */
+    private final Long userId;
+    /**
+     * The alert that was raised.
+     */
+    private final BudgetAlert alert;
+}
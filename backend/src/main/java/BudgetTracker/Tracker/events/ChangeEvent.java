@@ -0,0 +1,47 @@
+package BudgetTracker.Tracker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Application event describing a committed change to a budget or an expense of a user.
+ * Published by the services and forwarded to the user's event stream once the transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class ChangeEvent {
+    /**
+     * The kind of change that was made.
+     */
+    public enum Action { CREATED, UPDATED, DELETED }
+
+    /**
+     * The kind of entity that was changed.
+     */
+    public enum EntityType { BUDGET, EXPENSE }
+
+    /**
+     * The ID of the user owning the changed entity.
+     */
+    private final Long userId;
+    /**
+     * The kind of entity that was changed.
+     */
+    private final EntityType entityType;
+    /**
+     * The kind of change that was made.
+     */
+    private final Action action;
+    /**
+     * The ID of the changed entity.
+     */
+    private final Long entityId;
+    /**
+     * The ID of the budget whose totals are affected by the change.
+     */
+    private final Long budgetId;
+    /**
+     * The entity after the change, or null if it was deleted.
+     */
+    private final Object data;
+}
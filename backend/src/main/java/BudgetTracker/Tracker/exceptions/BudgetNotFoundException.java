@@ -1,8 +1,10 @@
 package BudgetTracker.Tracker.exceptions;
 
-public class BudgetNotFoundException extends RuntimeException{
+import org.springframework.http.HttpStatus;
+
+public class BudgetNotFoundException extends DomainException {
     public BudgetNotFoundException(String message) {
-        super(message);
+        super("budget-not-found", HttpStatus.NOT_FOUND, message);
     }
 }
 
@@ -0,0 +1,12 @@
+package BudgetTracker.Tracker.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown when a request runs past its deadline, after its client has given up on it.
+ */
+public class DeadlineExceededException extends DomainException {
+    public DeadlineExceededException(String message) {
+        super("deadline-exceeded", HttpStatus.SERVICE_UNAVAILABLE, message);
+    }
+}
@@ -0,0 +1,34 @@
+package BudgetTracker.Tracker.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Base of the exceptions thrown when a request cannot be served as asked, such as invalid input or a missing entity.
+ * They are expected outcomes rather than bugs, and clients may send invalid requests in large volumes, so they do not
+ * capture a stack trace. The {@link GlobalExceptionHandler} answers them with a problem detail carrying their status
+ * and their code, which stays the same when the message is reworded.
+ */
+public abstract class DomainException extends RuntimeException {
+
+    private final String code;
+    private final HttpStatus status;
+
+    /**
+     * @param code    The stable code of the error, e.g. {@code budget-not-found}.
+     * @param status  The status of the response.
+     * @param message The detail message.
+     */
+    protected DomainException(String code, HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.code = code;
+        this.status = status;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
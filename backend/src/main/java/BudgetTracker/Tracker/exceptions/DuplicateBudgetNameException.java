@@ -1,7 +1,9 @@
 package BudgetTracker.Tracker.exceptions;
 
-public class DuplicateBudgetNameException extends RuntimeException {
+import org.springframework.http.HttpStatus;
+
+public class DuplicateBudgetNameException extends DomainException {
     public DuplicateBudgetNameException(String message) {
-        super(message);
+        super("duplicate-budget-name", HttpStatus.BAD_REQUEST, message);
     }
 }
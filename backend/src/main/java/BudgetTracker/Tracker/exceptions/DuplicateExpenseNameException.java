@@ -1,7 +1,9 @@
 package BudgetTracker.Tracker.exceptions;
 
-public class DuplicateExpenseNameException extends RuntimeException {
+import org.springframework.http.HttpStatus;
+
+public class DuplicateExpenseNameException extends DomainException {
     public DuplicateExpenseNameException(String message) {
-        super(message);
+        super("duplicate-expense-name", HttpStatus.BAD_REQUEST, message);
     }
 }
\ No newline at end of file
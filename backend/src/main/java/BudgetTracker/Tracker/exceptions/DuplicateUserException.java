@@ -1,15 +1,17 @@
 package BudgetTracker.Tracker.exceptions;
 
+import org.springframework.http.HttpStatus;
+
 /**
  * Custom exception that should be thrown when attempting to create a duplicate user.
  */
-public class DuplicateUserException extends RuntimeException {
+public class DuplicateUserException extends DomainException {
     /**
      * Constructor for CustomDuplicateUserException.
      *
      * @param message the detail message. The detail message is saved for later retrieval by the {@link #getMessage()} method.
      */
     public DuplicateUserException(String message) {
-        super(message);
+        super("duplicate-user", HttpStatus.BAD_REQUEST, message);
     }
 }
@@ -1,7 +1,9 @@
 package BudgetTracker.Tracker.exceptions;
 
-public class ExpenseNotFoundException extends RuntimeException {
+import org.springframework.http.HttpStatus;
+
+public class ExpenseNotFoundException extends DomainException {
     public ExpenseNotFoundException(String message) {
-        super(message);
+        super("expense-not-found", HttpStatus.NOT_FOUND, message);
     }
 }
@@ -1,50 +1,113 @@
 package BudgetTracker.Tracker.exceptions;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import java.io.IOException;
+import java.net.URI;
+
 /**
  * Global exception handler for the application, providing centralized exception handling across all {@code @RequestMapping} methods.
+ * Errors are answered with RFC 7807 problem details, whose {@code code} property is a stable code of the error that
+ * clients can match instead of the {@code detail} message, e.g.
+ * <pre>
+ * {"type": "urn:expenditrack:problem:invalid-budget-amount", "title": "Bad Request", "status": 400,
+ *  "detail": "Budget amount cannot be negative or zero.", "instance": "/budgets", "code": "invalid-budget-amount"}
+ * </pre>
  */
 @ControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
+    static final String TYPE_PREFIX = "urn:expenditrack:problem:";
+
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
     /**
-     * Handles CustomDuplicateUserException. This method is invoked when an exception of type CustomDuplicateUserException is thrown.
+     * Handles the exceptions of requests that cannot be served as asked, with the status and code of the exception.
      *
      * @param ex      the exception that was thrown.
-     * @param request the current web request.
-     * @return a {@link ResponseEntity} object containing the custom error message and the HTTP status code.
+     * @param request the current request.
+     * @return a {@link ResponseEntity} object containing the problem detail and the HTTP status code.
      */
-    @ExceptionHandler(DuplicateUserException.class)
-    protected ResponseEntity<Object> handleDuplicateUser(
-            DuplicateUserException ex, WebRequest request) {
-        String bodyOfResponse = "An account with these credentials already exists.";
-        return handleExceptionInternal(ex, bodyOfResponse,
-                new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
+    @ExceptionHandler(DomainException.class)
+    public ResponseEntity<ProblemDetail> handleDomainException(DomainException ex, HttpServletRequest request) {
+        return problem(ex.getStatus(), ex.getCode(), ex.getMessage(), request);
     }
 
+    @ExceptionHandler(ShardMoveInProgressException.class)
+    public ResponseEntity<ProblemDetail> handleShardMoveInProgressException(ShardMoveInProgressException ex, HttpServletRequest request) {
+        return retryAfter(handleDomainException(ex, request), 5);
+    }
 
-    @ExceptionHandler(DuplicateBudgetNameException.class)
-    public ResponseEntity<?> handleDuplicateBudgetNameException(DuplicateBudgetNameException ex) {
-        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<ProblemDetail> handleIngestionQueueFullException(IngestionQueueFullException ex, HttpServletRequest request) {
+        // Backpressure: ask the client to retry once the writer has caught up
+        return retryAfter(handleDomainException(ex, request), 1);
     }
 
-    @ExceptionHandler(UserNotFoundException.class)
-    public ResponseEntity<Object> handleUserNotFoundException(UserNotFoundException ex) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+    /**
+     * Handles statements that ran past their query timeout, such as the deadline of the request.
+     */
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<ProblemDetail> handleQueryTimeoutException(QueryTimeoutException ex, HttpServletRequest request) {
+        return problem(HttpStatus.SERVICE_UNAVAILABLE, "query-timeout", "The request took too long. Please retry.", request);
     }
 
+    /**
+     * Handles any other exception, which is a bug rather than a bad request, so it is logged with its stack trace.
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ProblemDetail> handleUnexpectedException(Exception ex, HttpServletRequest request) {
+        log.error("Request {} {} failed", request.getMethod(), request.getRequestURI(), ex);
+        return problem(HttpStatus.INTERNAL_SERVER_ERROR, "internal-error", "An unexpected error occurred. Please try again later.", request);
+    }
 
-    @ExceptionHandler(InvalidInputException.class)
-    public ResponseEntity<Object> handleInvalidInputException(InvalidInputException ex) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    /**
+     * Answers a request with a problem detail, for the filters that reject requests before they reach a controller
+     * and so this handler.
+     *
+     * @param response     the response to write.
+     * @param objectMapper the mapper of the application, which writes the properties of the problem at the top level.
+     * @param status       the status of the response.
+     * @param code         the stable code of the error.
+     * @param detail       the detail message.
+     * @param request      the rejected request.
+     */
+    public static void writeProblem(HttpServletResponse response, ObjectMapper objectMapper, HttpStatus status,
+                                    String code, String detail, HttpServletRequest request) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problemDetail(status, code, detail, request));
     }
 
-}
+    private static ResponseEntity<ProblemDetail> problem(HttpStatus status, String code, String detail, HttpServletRequest request) {
+        return ResponseEntity.status(status).body(problemDetail(status, code, detail, request));
+    }
 
+    private static ProblemDetail problemDetail(HttpStatus status, String code, String detail, HttpServletRequest request) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, detail);
+        problem.setType(URI.create(TYPE_PREFIX + code));
+        problem.setInstance(URI.create(request.getRequestURI()));
+        problem.setProperty("code", code);
+        return problem;
+    }
+
+    private static ResponseEntity<ProblemDetail> retryAfter(ResponseEntity<ProblemDetail> response, int seconds) {
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+                .body(response.getBody());
+    }
+
+}
@@ -0,0 +1,12 @@
+package BudgetTracker.Tracker.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown when the write-behind ingestion queue has no free slot for a new expense.
+ */
+public class IngestionQueueFullException extends DomainException {
+    public IngestionQueueFullException(String message) {
+        super("ingestion-queue-full", HttpStatus.SERVICE_UNAVAILABLE, message);
+    }
+}
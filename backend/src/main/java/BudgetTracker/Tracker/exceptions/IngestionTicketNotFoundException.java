@@ -0,0 +1,12 @@
+package BudgetTracker.Tracker.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown when no queued expense has the given tracking ID, or its status was already evicted.
+ */
+public class IngestionTicketNotFoundException extends DomainException {
+    public IngestionTicketNotFoundException(String message) {
+        super("ingestion-ticket-not-found", HttpStatus.NOT_FOUND, message);
+    }
+}
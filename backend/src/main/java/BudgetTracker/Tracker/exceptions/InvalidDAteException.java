@@ -1,8 +1,10 @@
 package BudgetTracker.Tracker.exceptions;
 
-public class InvalidDAteException extends RuntimeException{
+import org.springframework.http.HttpStatus;
+
+public class InvalidDAteException extends DomainException {
     public InvalidDAteException(String message) {
-        super(message);
+        super("invalid-date", HttpStatus.BAD_REQUEST, message);
     }
 }
 
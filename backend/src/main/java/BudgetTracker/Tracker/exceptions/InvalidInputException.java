@@ -1,7 +1,18 @@
 package BudgetTracker.Tracker.exceptions;
 
-public class InvalidInputException extends RuntimeException {
+import org.springframework.http.HttpStatus;
+
+public class InvalidInputException extends DomainException {
     public InvalidInputException(String message) {
-        super(message);
+        this("invalid-input", message);
+    }
+
+    /**
+     * @param code    A code naming the rule the input broke, for clients that react to it, e.g.
+     *                {@code invalid-budget-amount}.
+     * @param message The detail message.
+     */
+    public InvalidInputException(String code, String message) {
+        super(code, HttpStatus.BAD_REQUEST, message);
     }
 }
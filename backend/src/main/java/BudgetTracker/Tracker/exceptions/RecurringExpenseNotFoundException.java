@@ -0,0 +1,9 @@
+package BudgetTracker.Tracker.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public class RecurringExpenseNotFoundException extends DomainException {
+    public RecurringExpenseNotFoundException(String message) {
+        super("recurring-expense-not-found", HttpStatus.NOT_FOUND, message);
+    }
+}
@@ -0,0 +1,9 @@
+package BudgetTracker.Tracker.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public class ShardMoveInProgressException extends DomainException {
+    public ShardMoveInProgressException(String message) {
+        super("shard-move-in-progress", HttpStatus.SERVICE_UNAVAILABLE, message);
+    }
+}
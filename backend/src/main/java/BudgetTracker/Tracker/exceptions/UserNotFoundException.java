@@ -1,7 +1,9 @@
 package BudgetTracker.Tracker.exceptions;
 
-public class UserNotFoundException extends RuntimeException {
+import org.springframework.http.HttpStatus;
+
+public class UserNotFoundException extends DomainException {
     public UserNotFoundException(String message) {
-        super(message);
+        super("user-not-found", HttpStatus.NOT_FOUND, message);
     }
 }
@@ -0,0 +1,32 @@
+package BudgetTracker.Tracker.repository;
+
+import BudgetTracker.Tracker.entity.BudgetAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+/**
+ * Repository interface for managing budget alerts.
+ */
+@Repository
+public interface BudgetAlertRepository extends JpaRepository<BudgetAlert, Long> {
+
+    List<BudgetAlert> findByBudget_BudgetIdOrderByThresholdPercent(Long budgetId);
+
+    // Thresholds of a budget that already raised an alert
+    @Query("SELECT a.thresholdPercent FROM BudgetAlert a WHERE a.budget.budgetId = :budgetId")
+    List<Integer> findThresholdPercentsByBudgetId(@Param("budgetId") Long budgetId);
+
+    // Re-arms thresholds once spending falls back below them
+    @Modifying
+    @Query("DELETE FROM BudgetAlert a WHERE a.budget.budgetId = :budgetId AND a.thresholdPercent IN :thresholds")
+    int deleteByBudgetIdAndThresholdPercentIn(@Param("budgetId") Long budgetId, @Param("thresholds") Collection<Integer> thresholds);
+
+    @Modifying
+    @Query("DELETE FROM BudgetAlert a WHERE a.budget.budgetId IN :budgetIds")
+    int deleteByBudgetIdIn(@Param("budgetIds") Collection<Long> budgetIds);
+}
@@ -1,12 +1,17 @@
 package BudgetTracker.Tracker.repository;
 
+import BudgetTracker.Tracker.dto.DashboardTotals;
 import BudgetTracker.Tracker.entity.Budget;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 /**
  * Repository interface for managing budgets.
  */
@@ -15,6 +20,14 @@ public interface BudgetRepository extends JpaRepository<Budget,Long> {
 
     List<Budget> findByUserId(Long userId);
 
+    // Batch lookup for several users in one query, fetching the owners along instead of one select per owner
+    @Query("SELECT b FROM Budget b JOIN FETCH b.user u WHERE u.id IN :userIds ORDER BY b.budgetId")
+    List<Budget> findByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // Batch lookup by ID, fetching the owners along; budgets that do not exist are absent
+    @Query("SELECT b FROM Budget b JOIN FETCH b.user WHERE b.budgetId IN :budgetIds")
+    List<Budget> findByBudgetIdIn(@Param("budgetIds") Collection<Long> budgetIds);
+
     // Method to check if a budget with the specified name exists for a given user ID
     boolean existsByBudgetDescriptionAndUserId(String budgetDescription, Long budgetId);
 
@@ -22,4 +35,76 @@ public interface BudgetRepository extends JpaRepository<Budget,Long> {
     @Query("SELECT COUNT(b) > 0 FROM Budget b WHERE b.budgetDescription = :description AND b.user.id = :userId AND b.budgetId <> :excludedId")
     boolean existsByBudgetDescriptionAndUserIdExcludingId(@Param("description") String description, @Param("userId") Long userId, @Param("excludedId") Long excludedId);
 
+    // Method to find the owner of a budget without loading the budget, empty if the budget does not exist
+    @Query("SELECT b.user.id FROM Budget b WHERE b.budgetId = :budgetId")
+    Optional<Long> findUserIdByBudgetId(@Param("budgetId") Long budgetId);
+
+    // Owners of several budgets in one query; budgets that do not exist are absent
+    @Query("SELECT b.budgetId AS budgetId, b.user.id AS userId FROM Budget b WHERE b.budgetId IN :budgetIds")
+    List<BudgetOwner> findOwnersByBudgetIdIn(@Param("budgetIds") Collection<Long> budgetIds);
+
+    // Set-based delete; dependent rows must be deleted first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Budget b WHERE b.budgetId IN :budgetIds")
+    int deleteByBudgetIdIn(@Param("budgetIds") Collection<Long> budgetIds);
+
+    // Atomically adds the amount of written expenses to the running total of their budget and counts the writes
+    @Modifying
+    @Query("UPDATE Budget b SET b.spentAmount = b.spentAmount + :delta, b.dataVersion = b.dataVersion + :writes WHERE b.budgetId = :budgetId")
+    int addToSpentAmount(@Param("budgetId") Long budgetId, @Param("delta") long delta, @Param("writes") int writes);
+
+    // (budget ID, data version) pairs of a user's budgets, the watermark of the user's expense snapshot
+    @Query("SELECT b.budgetId, b.dataVersion FROM Budget b WHERE b.user.id = :userId")
+    List<Object[]> findDataVersionsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT b.spentAmount FROM Budget b WHERE b.budgetId = :budgetId")
+    long findSpentAmountByBudgetId(@Param("budgetId") Long budgetId);
+
+    // Sums the budgets of a user and their running totals in one aggregate
+    @Query("SELECT new BudgetTracker.Tracker.dto.DashboardTotals(COUNT(b), SUM(b.budgetAmount), SUM(b.spentAmount)) FROM Budget b WHERE b.user.id = :userId")
+    DashboardTotals findTotalsByUserId(@Param("userId") Long userId);
+
+    // Recomputes every running total from the expenses, for backfilling existing data
+    @Modifying
+    @Transactional
+    @Query("UPDATE Budget b SET b.spentAmount = (SELECT COALESCE(SUM(e.expensesAmount), 0) FROM Expenses e WHERE e.budget = b)")
+    int recalculateSpentAmounts();
+
+    // Adds to the spend of the day still being accumulated; updates nothing once the day has changed
+    @Modifying
+    @Query("UPDATE Budget b SET b.spendDayAmount = b.spendDayAmount + :delta WHERE b.budgetId = :budgetId AND b.spendRateDay = :day")
+    int addToSpendDayAmount(@Param("budgetId") Long budgetId, @Param("day") long day, @Param("delta") long delta);
+
+    // Locking read of the daily spend rate, so that rolling it over to a new day is not raced by another write
+    @Query(value = "SELECT spend_rate_day AS rateDay, spend_day_amount AS dayAmount, spend_rate AS rate, spend_rate_variance AS variance "
+            + "FROM budgets WHERE budget_id = :budgetId FOR UPDATE", nativeQuery = true)
+    Optional<SpendRate> findSpendRateForUpdate(@Param("budgetId") Long budgetId);
+
+    @Modifying
+    @Query("UPDATE Budget b SET b.spendRateDay = :day, b.spendDayAmount = :dayAmount, b.spendRate = :rate, b.spendRateVariance = :variance "
+            + "WHERE b.budgetId = :budgetId")
+    int updateSpendRate(@Param("budgetId") Long budgetId, @Param("day") long day, @Param("dayAmount") long dayAmount,
+                        @Param("rate") Double rate, @Param("variance") double variance);
+
+    /**
+     * A budget ID together with the ID of the user owning the budget.
+     */
+    interface BudgetOwner {
+        Long getBudgetId();
+
+        Long getUserId();
+    }
+
+    /**
+     * The exponentially weighted daily spend rate of a budget, see {@link Budget#getSpendRateDay()}.
+     */
+    interface SpendRate {
+        Long getRateDay();
+
+        Long getDayAmount();
+
+        Double getRate();
+
+        Double getVariance();
+    }
 }
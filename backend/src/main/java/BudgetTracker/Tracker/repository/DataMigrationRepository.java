@@ -0,0 +1,11 @@
+package BudgetTracker.Tracker.repository;
+
+import BudgetTracker.Tracker.entity.DataMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+/**
+ * Repository interface for the records of applied data migrations.
+ */
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {
+}
@@ -1,9 +1,15 @@
 package BudgetTracker.Tracker.repository;
 
 import BudgetTracker.Tracker.entity.Expenses;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 /**
  * Repository interface for managing expenses.
@@ -13,6 +19,42 @@ public interface ExpensesRepository extends JpaRepository<Expenses,Long> {
 
     List<Expenses> findByBudget_User_Id(Long userId); // Custom query method
 
+    Page<Expenses> findByBudget_User_Id(Long userId, Pageable pageable);
+
+    // Batch lookup for several budgets in one query, fetching the budgets and their owners along
+    @Query("SELECT e FROM Expenses e JOIN FETCH e.budget b JOIN FETCH b.user WHERE b.budgetId IN :budgetIds ORDER BY e.expensesId")
+    List<Expenses> findByBudget_BudgetIdIn(@Param("budgetIds") Collection<Long> budgetIds);
+
+    // Lookup of known expenses in one query, fetching the budgets and their owners along
+    @Query("SELECT e FROM Expenses e JOIN FETCH e.budget b JOIN FETCH b.user WHERE e.expensesId IN :ids ORDER BY e.expensesId")
+    List<Expenses> findByExpensesIdIn(@Param("ids") Collection<Long> ids);
+
+    // (expense ID, amount, date) triples of a budget's expenses, for building its spend sketches
+    @Query("SELECT e.expensesId, e.expensesAmount, e.expensesDate FROM Expenses e WHERE e.budget.budgetId = :budgetId ORDER BY e.expensesId")
+    List<Object[]> findAmountsByBudgetId(@Param("budgetId") Long budgetId);
+
+    // (expense ID, budget ID, amount, date) rows of a user's expenses, for loading the user's analytics columns
+    @Query("SELECT e.expensesId, e.budget.budgetId, e.expensesAmount, e.expensesDate FROM Expenses e WHERE e.budget.user.id = :userId")
+    List<Object[]> findColumnsByUserId(@Param("userId") Long userId);
+
+    // (expense ID, tag) pairs of a user's tagged expenses, for building the user's tag index
+    @Query("SELECT e.expensesId, t FROM Expenses e JOIN e.tags t WHERE e.budget.user.id = :userId")
+    List<Object[]> findTagsByUserId(@Param("userId") Long userId);
+
+    // (user ID, expense ID, tag) triples of every tagged expense
+    @Query("SELECT b.user.id, e.expensesId, t FROM Expenses e JOIN e.budget b JOIN e.tags t")
+    List<Object[]> findAllTags();
+
+    // Element collections are not removed by bulk deletes, so the tags of the expenses go first
+    @Modifying
+    @Query(value = "DELETE FROM expense_tags WHERE expense_id IN (SELECT expenses_id FROM expenses WHERE budget_id IN :budgetIds)", nativeQuery = true)
+    int deleteTagsByBudgetIdIn(@Param("budgetIds") Collection<Long> budgetIds);
+
+    // Set-based delete of the expenses of several budgets, without loading them
+    @Modifying
+    @Query("DELETE FROM Expenses e WHERE e.budget.budgetId IN :budgetIds")
+    int deleteByBudgetIdIn(@Param("budgetIds") Collection<Long> budgetIds);
+
     boolean existsByExpensesDescriptionAndBudget_User_Id(String description, Long userId);
 
 }
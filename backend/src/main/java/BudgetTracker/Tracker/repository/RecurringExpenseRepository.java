@@ -0,0 +1,21 @@
+package BudgetTracker.Tracker.repository;
+
+import BudgetTracker.Tracker.entity.RecurringExpense;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RecurringExpenseRepository extends JpaRepository<RecurringExpense, Long> {
+
+    List<RecurringExpense> findByUserIdOrderByRecurringExpenseId(Long userId);
+
+    @Modifying
+    @Query("DELETE FROM RecurringExpense r WHERE r.budget.budgetId IN :budgetIds")
+    int deleteByBudgetIdIn(@Param("budgetIds") Collection<Long> budgetIds);
+}
@@ -0,0 +1,255 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.BudgetAlert;
+import BudgetTracker.Tracker.entity.DataMigration;
+import BudgetTracker.Tracker.events.BudgetAlertEvent;
+import BudgetTracker.Tracker.exceptions.BudgetNotFoundException;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.repository.BudgetAlertRepository;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.DataMigrationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+/**
+ * Service class for maintaining the running spend total of budgets and raising threshold alerts.
+ * Every expense write adjusts the total by the changed amount, and only the thresholds lying between the old
+ * and the new total are examined, so alerts are evaluated in real time without re-summing the budget's expenses.
+ */
+@Service
+public class BudgetAlertService {
+
+    private static final int MAX_THRESHOLDS = 10;
+    static final String SPENT_AMOUNT_BACKFILL = "budget-spent-amounts";
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private BudgetAlertRepository budgetAlertRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private BudgetForecastService budgetForecastService;
+
+    @Value("${tracker.alerts.default-thresholds:50,80,100}")
+    private List<Integer> defaultThresholds;
+
+    @Autowired
+    private DataMigrationRepository dataMigrationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${tracker.alerts.recalculate-on-startup:false}")
+    private boolean recalculateOnStartup;
+
+    /**
+     * Recomputes the running totals of all budgets from their expenses once the application has started. This
+     * backfills the totals of budgets created before running totals existed: it runs once per shard, which records
+     * that it has in a data migration row, and on every start when {@code tracker.alerts.recalculate-on-startup} is set.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recalculateSpentAmounts() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        shardRouter.forEachShard(() -> {
+            try {
+                transaction.executeWithoutResult(status -> {
+                    if (recalculateOnStartup || !dataMigrationRepository.existsById(SPENT_AMOUNT_BACKFILL)) {
+                        budgetRepository.recalculateSpentAmounts();
+                        dataMigrationRepository.save(new DataMigration(SPENT_AMOUNT_BACKFILL, Instant.now()));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Another node starting at the same time recorded the backfill first; both computed the same totals
+            }
+        });
+    }
+
+    /**
+     * Adds the amount of a written expense to the running total of its budget and raises or re-arms the
+     * thresholds crossed by the change. Must run in the transaction of the expense write.
+     *
+     * @param budget The budget the expense belongs to.
+     * @param delta  The change in the budget's spend; negative when an expense is deleted or reduced.
+     * @return The running total of the budget after the change.
+     */
+    @Transactional
+    public long applySpendDelta(Budget budget, long delta) {
+        return applySpendDelta(budget, delta, 1);
+    }
+
+    /**
+     * Adds the amount of several expenses written to one budget to its running total, see
+     * {@link #applySpendDelta(Budget, long)}.
+     *
+     * @param budget The budget the expenses belong to.
+     * @param delta  The change in the budget's spend.
+     * @param writes The number of expenses written, added to the budget's data version.
+     * @return The running total of the budget after the change.
+     */
+    @Transactional
+    public long applySpendDelta(Budget budget, long delta, int writes) {
+        // Writes that leave the total unchanged still change the expenses, so the data version always moves
+        budgetRepository.addToSpentAmount(budget.getBudgetId(), delta, writes);
+        if (delta == 0) {
+            return budgetRepository.findSpentAmountByBudgetId(budget.getBudgetId());
+        }
+        budgetForecastService.recordSpend(budget.getBudgetId(), delta);
+        long newTotal = budgetRepository.findSpentAmountByBudgetId(budget.getBudgetId());
+        long oldTotal = newTotal - delta;
+
+        List<Integer> crossedUp = new ArrayList<>();
+        List<Integer> crossedDown = new ArrayList<>();
+        for (int threshold : thresholdsOf(budget)) {
+            boolean wasOver = isReached(oldTotal, budget.getBudgetAmount(), threshold);
+            boolean isOver = isReached(newTotal, budget.getBudgetAmount(), threshold);
+            if (!wasOver && isOver) {
+                crossedUp.add(threshold);
+            } else if (wasOver && !isOver) {
+                crossedDown.add(threshold);
+            }
+        }
+        if (!crossedDown.isEmpty()) {
+            budgetAlertRepository.deleteByBudgetIdAndThresholdPercentIn(budget.getBudgetId(), crossedDown);
+        }
+        if (!crossedUp.isEmpty()) {
+            raise(budget, crossedUp, newTotal);
+        }
+        return newTotal;
+    }
+
+    /**
+     * Re-evaluates every threshold of a budget against its current total, after the budget amount or the
+     * thresholds changed.
+     *
+     * @param budget The budget to re-evaluate.
+     */
+    @Transactional
+    public void reevaluate(Budget budget) {
+        long total = budgetRepository.findSpentAmountByBudgetId(budget.getBudgetId());
+        Set<Integer> reached = new TreeSet<>();
+        for (int threshold : thresholdsOf(budget)) {
+            if (isReached(total, budget.getBudgetAmount(), threshold)) {
+                reached.add(threshold);
+            }
+        }
+        Set<Integer> raised = new HashSet<>(budgetAlertRepository.findThresholdPercentsByBudgetId(budget.getBudgetId()));
+        Set<Integer> stale = new HashSet<>(raised);
+        stale.removeAll(reached);
+        if (!stale.isEmpty()) {
+            budgetAlertRepository.deleteByBudgetIdAndThresholdPercentIn(budget.getBudgetId(), stale);
+        }
+        reached.removeAll(raised);
+        if (!reached.isEmpty()) {
+            raise(budget, new ArrayList<>(reached), total);
+        }
+    }
+
+    /**
+     * Retrieves the alerts currently raised for a budget.
+     *
+     * @param budgetId The ID of the budget.
+     * @return The raised alerts, ordered by threshold.
+     * @throws BudgetNotFoundException If the budget with the specified ID is not found.
+     */
+    public List<BudgetAlert> getAlerts(Long budgetId) {
+        if (!budgetRepository.existsById(budgetId)) {
+            throw new BudgetNotFoundException("Budget with ID " + budgetId + " not found.");
+        }
+        return budgetAlertRepository.findByBudget_BudgetIdOrderByThresholdPercent(budgetId);
+    }
+
+    /**
+     * Replaces the alert thresholds of a budget and re-evaluates them against its current total.
+     *
+     * @param budgetId   The ID of the budget.
+     * @param thresholds The new thresholds as percentages of the budget amount, or null to use the defaults.
+     * @return The updated budget.
+     * @throws BudgetNotFoundException If the budget with the specified ID is not found.
+     * @throws InvalidInputException   If the thresholds are not valid.
+     */
+    @Transactional
+    public Budget updateThresholds(Long budgetId, List<Integer> thresholds) {
+        Budget budget = budgetRepository.findById(budgetId)
+                .orElseThrow(() -> new BudgetNotFoundException("Budget with ID " + budgetId + " not found."));
+        validateThresholds(thresholds);
+        budget.setAlertThresholds(thresholds == null ? null : new ArrayList<>(new TreeSet<>(thresholds)));
+        Budget savedBudget = budgetRepository.save(budget);
+        reevaluate(savedBudget);
+        return savedBudget;
+    }
+
+    /**
+     * Checks that alert thresholds are usable.
+     *
+     * @param thresholds The thresholds to check; null stands for the defaults.
+     * @throws InvalidInputException If a threshold is not a positive percentage or there are too many thresholds.
+     */
+    public void validateThresholds(List<Integer> thresholds) {
+        if (thresholds == null) {
+            return;
+        }
+        if (thresholds.size() > MAX_THRESHOLDS) {
+            throw new InvalidInputException("too-many-alert-thresholds", "A budget cannot have more than " + MAX_THRESHOLDS + " alert thresholds.");
+        }
+        for (Integer threshold : thresholds) {
+            if (threshold == null || threshold <= 0 || threshold > 1000) {
+                throw new InvalidInputException("invalid-alert-threshold", "Alert thresholds must be percentages between 1 and 1000.");
+            }
+        }
+    }
+
+    /**
+     * Removes the alerts of budgets that are about to be deleted.
+     *
+     * @param budgetIds The IDs of the budgets.
+     */
+    @Transactional
+    public void deleteAlerts(Collection<Long> budgetIds) {
+        budgetAlertRepository.deleteByBudgetIdIn(budgetIds);
+    }
+
+    private List<Integer> thresholdsOf(Budget budget) {
+        return budget.getAlertThresholds() == null ? defaultThresholds : budget.getAlertThresholds();
+    }
+
+    private boolean isReached(long total, int budgetAmount, int threshold) {
+        // total / budgetAmount >= threshold / 100, kept in integer arithmetic
+        return total * 100 >= (long) budgetAmount * threshold;
+    }
+
+    private void raise(Budget budget, List<Integer> thresholds, long total) {
+        Set<Integer> alreadyRaised = new HashSet<>(budgetAlertRepository.findThresholdPercentsByBudgetId(budget.getBudgetId()));
+        Long userId = budget.getUser() == null ? null : budget.getUser().getId();
+        for (int threshold : thresholds) {
+            if (alreadyRaised.contains(threshold)) {
+                continue;
+            }
+            BudgetAlert alert = budgetAlertRepository.save(
+                    new BudgetAlert(null, budget, threshold, total, budget.getBudgetAmount(), Instant.now()));
+            eventPublisher.publishEvent(new BudgetAlertEvent(userId, alert));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.dto.BudgetForecast;
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Service class for forecasting the month-end spend of budgets.
+ * <p>
+ * Every budget stores an exponentially weighted mean and variance of its daily spend, together with the spend of
+ * the current day. Each expense write adds its amount to the current day, and the first write of a new day folds the
+ * finished day and the idle days since into the mean and variance, so the state is updated in constant time and
+ * never re-read from the expenses. Forecasts are derived from that state when budgets are read.
+ */
+@Service
+public class BudgetForecastService {
+
+    // After this many idle days the weight of the older days is negligible
+    private static final int MAX_IDLE_DAYS = 366;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Value("${tracker.forecast.alpha:0.1}")
+    private double alpha;
+
+    /**
+     * Records a change in a budget's spend on the current day. Must run in the transaction of the expense write.
+     *
+     * @param budgetId The ID of the budget.
+     * @param delta    The change in the budget's spend; negative when an expense is deleted or reduced.
+     */
+    @Transactional
+    public void recordSpend(Long budgetId, long delta) {
+        recordSpend(budgetId, delta, LocalDate.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * Records a change in a budget's spend on the given day.
+     *
+     * @param budgetId The ID of the budget.
+     * @param delta    The change in the budget's spend.
+     * @param today    The day of the change.
+     */
+    @Transactional
+    public void recordSpend(Long budgetId, long delta, LocalDate today) {
+        long day = today.toEpochDay();
+        // Common case: another write of the same day
+        if (budgetRepository.addToSpendDayAmount(budgetId, day, delta) > 0) {
+            return;
+        }
+        budgetRepository.findSpendRateForUpdate(budgetId).ifPresent(stored -> {
+            SpendRate rate = new SpendRate(stored.getRateDay(), stored.getDayAmount() == null ? 0 : stored.getDayAmount(),
+                    stored.getRate(), stored.getVariance() == null ? 0 : stored.getVariance()).advanceTo(day, alpha);
+            budgetRepository.updateSpendRate(budgetId, day, rate.dayAmount() + delta, rate.rate(), rate.variance());
+        });
+    }
+
+    /**
+     * Sets the forecast of each budget, as of today.
+     *
+     * @param budgets The budgets to forecast.
+     */
+    public void attachForecasts(List<Budget> budgets) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        budgets.forEach(budget -> budget.setForecast(forecast(budget, today)));
+    }
+
+    /**
+     * Retrieves the forecasts of the budgets of a user.
+     *
+     * @param userId The ID of the user whose budgets to forecast.
+     * @return The forecast of each budget of the user.
+     */
+    public List<BudgetForecast> getForecastsByUserId(Long userId) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        return budgetRepository.findByUserId(userId).stream().map(budget -> forecast(budget, today)).toList();
+    }
+
+    /**
+     * Projects the spend of a budget at the end of the month. The remaining days are treated as independent draws
+     * from the daily spend rate, so the overrun probability comes from a normal approximation of their sum.
+     *
+     * @param budget The budget to forecast.
+     * @param today  The current day.
+     * @return The forecast of the budget.
+     */
+    public BudgetForecast forecast(Budget budget, LocalDate today) {
+        long spent = budget.getSpentAmount();
+        SpendRate rate = new SpendRate(budget.getSpendRateDay(), budget.getSpendDayAmount(), budget.getSpendRate(),
+                budget.getSpendRateVariance()).advanceTo(today.toEpochDay(), alpha);
+        // Before the first full day, today's spend so far is the only estimate
+        double mean = rate.rate() != null ? rate.rate() : Math.max(0, rate.dayAmount());
+        int daysLeft = today.lengthOfMonth() - today.getDayOfMonth();
+        double expected = Math.max(0, mean - rate.dayAmount()) + mean * daysLeft;
+        double variance = rate.variance() * (daysLeft + 1);
+        double projected = spent + expected;
+
+        double overrun;
+        if (spent > budget.getBudgetAmount()) {
+            overrun = 1;
+        } else if (variance <= 0) {
+            overrun = projected > budget.getBudgetAmount() ? 1 : 0;
+        } else {
+            overrun = 1 - normalCdf((budget.getBudgetAmount() - projected) / Math.sqrt(variance));
+        }
+        return new BudgetForecast(budget.getBudgetId(), budget.getBudgetAmount(), spent, mean, Math.round(projected), overrun);
+    }
+
+    /**
+     * Standard normal cumulative distribution, using the Abramowitz and Stegun approximation of erf (error below 1.5e-7).
+     */
+    static double normalCdf(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - (((((1.061405429 * t - 1.453152027) * t) + 1.421413741) * t - 0.284496736) * t + 0.254829592) * t * Math.exp(-x * x);
+        return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+
+    /**
+     * Daily spend rate of a budget.
+     *
+     * @param day       The day being accumulated, in days since the epoch, or null if nothing was spent yet.
+     * @param dayAmount The spend of that day so far.
+     * @param rate      The weighted mean of the daily spend before that day, or null before the first full day.
+     * @param variance  The weighted variance of the daily spend.
+     */
+    record SpendRate(Long day, long dayAmount, Double rate, double variance) {
+
+        /**
+         * Folds the finished day and the idle days after it into the rate, so that the given day is accumulated next.
+         */
+        SpendRate advanceTo(long today, double alpha) {
+            if (day == null || day >= today) {
+                return this;
+            }
+            SpendRate advanced = new SpendRate(today, 0, rate, variance).observe(dayAmount, alpha);
+            long idleDays = Math.min(today - day - 1, MAX_IDLE_DAYS);
+            for (long i = 0; i < idleDays; i++) {
+                advanced = advanced.observe(0, alpha);
+            }
+            return advanced;
+        }
+
+        private SpendRate observe(long amount, double alpha) {
+            if (rate == null) {
+                return new SpendRate(day, dayAmount, (double) amount, 0);
+            }
+            double difference = amount - rate;
+            double increment = alpha * difference;
+            return new SpendRate(day, dayAmount, rate + increment, (1 - alpha) * (variance + difference * increment));
+        }
+    }
+}
@@ -1,19 +1,40 @@
 package BudgetTracker.Tracker.service;
 
+import BudgetTracker.Tracker.config.Deadline;
+import BudgetTracker.Tracker.dto.MultiGetResult;
 import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.events.ChangeEvent;
 import BudgetTracker.Tracker.exceptions.*;
 import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import BudgetTracker.Tracker.repository.RecurringExpenseRepository;
 import BudgetTracker.Tracker.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 /**
  * Service class for handling business logic related to budgets.
+ * Requests check their {@link Deadline} between steps, so that work stops once the client has given up.
  */
 @Service
 public class BudgetService {
 
+    // Upper bound on the IDs bound into one IN list
+    private static final int ID_CHUNK_SIZE = 1000;
+    // Upper bound on the IDs of one multi-get request
+    private static final int MAX_MULTI_GET_IDS = 10_000;
+
     @Autowired
     private  BudgetRepository budgetRepository;
 
@@ -22,15 +43,85 @@ public class BudgetService {
 
     @Autowired
     private UserService userService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+
+    @Autowired
+    private RecurringExpenseRepository recurringExpenseRepository;
+
+    @Autowired
+    private ExpensesRepository expensesRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private BudgetForecastService budgetForecastService;
+    /**
+     * Retrieves a budget by its ID.
+     *
+     * @param id The ID of the budget to retrieve.
+     * @return The budget with the specified ID, or null if not found.
+     */
+    public Budget getBudgetById(Long id) {
+        return budgetRepository.findById(id).orElse(null);
+    }
+    /**
+     * Retrieves several budgets by their IDs, with one IN query per chunk of IDs on every shard, since any shard may hold them.
+     *
+     * @param ids The IDs of the budgets to retrieve; duplicates are retrieved once.
+     * @return The budgets found in the order of their IDs, and the IDs no budget was found for.
+     * @throws InvalidInputException If more IDs are given than one request may look up.
+     */
+    public MultiGetResult<Budget> getBudgetsByIds(Collection<Long> ids) {
+        List<Long> budgetIds = ids.stream().distinct().toList();
+        if (budgetIds.size() > MAX_MULTI_GET_IDS) {
+            throw new InvalidInputException("too-many-ids", "At most " + MAX_MULTI_GET_IDS + " budget ids can be requested at once.");
+        }
+        List<Budget> budgets = shardRouter.collectFromAllShards(() -> {
+            List<Budget> found = new ArrayList<>();
+            for (List<Long> chunk : chunks(budgetIds)) {
+                Deadline.check();
+                found.addAll(budgetRepository.findByBudgetIdIn(chunk));
+            }
+            return found;
+        });
+        return MultiGetResult.inRequestOrder(budgetIds, budgets, Budget::getBudgetId);
+    }
     /**
      * Retrieves budgets associated with a specific user.
      *
      * @param userId The ID of the user whose budgets to retrieve.
-     * @return List of budgets associated with the specified user.
+     * @return List of budgets associated with the specified user, each with its forecast.
      */
     public List<Budget> getBudgetsByUserId(Long userId) {
 
-        return budgetRepository.findByUserId(userId);
+        return requestCoalescer.coalesce("getBudgetsByUserId", userId, () -> {
+            List<Budget> budgets = budgetRepository.findByUserId(userId);
+            Deadline.check();
+            budgetForecastService.attachForecasts(budgets);
+            return budgets;
+        });
+    }
+    /**
+     * Retrieves the budgets of several users with one query per shard.
+     *
+     * @param userIds The IDs of the users whose budgets to retrieve.
+     * @return The budgets of the users, keyed by user ID. Users without budgets are absent.
+     */
+    public Map<Long, List<Budget>> getBudgetsByUserIds(Collection<Long> userIds) {
+        List<Budget> budgets = shardRouter.collectByUserShard(userIds, userId -> userId, budgetRepository::findByUserIdIn);
+        return budgets.stream().collect(Collectors.groupingBy(budget -> budget.getUser().getId()));
     }
     /**
      * Creates a new budget.
@@ -41,6 +132,7 @@ public class BudgetService {
      * @throws DuplicateBudgetNameException If a budget with the same name already exists for the user.
      * @throws InvalidInputException       If the budget description is not alphanumeric or if the budget amount is negative.
      */
+    @Transactional
     public Budget createBudget(Budget budget) {
 
         // Check if the user exists in the database
@@ -52,17 +144,21 @@ public class BudgetService {
         if (exists) {
             throw new DuplicateBudgetNameException("A budget with the name \"" + budget.getBudgetDescription() + "\" already exists for this user.");
         }
+        Deadline.check();
         // Validate alphanumeric name
         if (!isValidAlphanumeric(budget.getBudgetDescription())) {
-            throw new InvalidInputException("BudgetDescription must be alphanumeric");
+            throw new InvalidInputException("invalid-budget-description", "BudgetDescription must be alphanumeric");
         }
 
         // Check if budget amount is negative
         if (budget.getBudgetAmount() <= 0) {
-            throw new InvalidInputException("Budget amount cannot be negative or zero.");
+            throw new InvalidInputException("invalid-budget-amount", "Budget amount cannot be negative or zero.");
         }
+        budgetAlertService.validateThresholds(budget.getAlertThresholds());
 
-        return budgetRepository.save(budget);
+        Budget savedBudget = budgetRepository.save(budget);
+        publishChange(ChangeEvent.Action.CREATED, savedBudget.getUser().getId(), savedBudget.getBudgetId(), savedBudget);
+        return savedBudget;
     }
     /**
      * Checks if a string contains only alphanumeric characters.
@@ -84,9 +180,11 @@ public class BudgetService {
      * @throws InvalidInputException         If the provided budget details are invalid.
      * @throws DuplicateBudgetNameException  If a budget with the same description already exists for the same user.
      */
+    @Transactional
     public Budget updateBudget(Long id, Budget budgetDetails) {
         Budget budgetToUpdate = budgetRepository.findById(id)
                 .orElseThrow(() -> new BudgetNotFoundException("Budget with ID " + id + " not found"));
+        Deadline.check();
         boolean userExist = userService.existsById(budgetDetails.getUser().getId());
         if(!userExist) {
             throw new UserNotFoundException("User with ID " + budgetDetails.getUser().getId() + " not found");
@@ -99,28 +197,110 @@ public class BudgetService {
             throw new DuplicateBudgetNameException("A budget with the name \"" + budgetDetails.getBudgetDescription() + "\" already exists for this user.");
         }
         if (!isValidAlphanumeric(budgetDetails.getBudgetDescription())) {
-            throw new InvalidInputException("BudgetDescription must be alphanumeric");
+            throw new InvalidInputException("invalid-budget-description", "BudgetDescription must be alphanumeric");
         }
         if (budgetDetails.getBudgetAmount() <= 0) {
-            throw new InvalidInputException("Budget amount cannot be negative or zero.");
+            throw new InvalidInputException("invalid-budget-amount", "Budget amount cannot be negative or zero.");
         }
+        Deadline.check();
+        boolean amountChanged = budgetToUpdate.getBudgetAmount() != budgetDetails.getBudgetAmount();
         budgetToUpdate.setBudgetDescription(budgetDetails.getBudgetDescription());
         budgetToUpdate.setBudgetAmount(budgetDetails.getBudgetAmount());
         budgetToUpdate.setUser(budgetDetails.getUser());
 
-        return budgetRepository.save(budgetToUpdate);
+        Budget savedBudget = budgetRepository.save(budgetToUpdate);
+        if (amountChanged) {
+            // The same spend is now a different share of the budget
+            budgetAlertService.reevaluate(savedBudget);
+        }
+        publishChange(ChangeEvent.Action.UPDATED, budgetDetails.getUser().getId(), id, savedBudget);
+        return savedBudget;
     }
     /**
-     * Deletes an budget by its ID.
+     * Deletes an budget by its ID, together with its expenses, recurring expenses and alerts.
      *
      * @param id The ID of the budget to be deleted.
      * @throws BudgetNotFoundException If the budget with the specified ID is not found.
      */
+    @Transactional
     public void deleteBudget(Long id) {
-        if (!budgetRepository.existsById(id)) {
-            throw new BudgetNotFoundException("Budget with ID " + id + " not found.");
+        Long userId = budgetRepository.findUserIdByBudgetId(id)
+                .orElseThrow(() -> new BudgetNotFoundException("Budget with ID " + id + " not found."));
+        deleteOnCurrentShard(Map.of(id, userId));
+    }
+    /**
+     * Deletes several budgets, together with their expenses, recurring expenses and alerts.
+     * Every table is cleared with set-based deletes, so no expense is loaded. The budgets of each shard are deleted in
+     * one transaction.
+     *
+     * @param ids The IDs of the budgets to be deleted.
+     * @throws BudgetNotFoundException If any of the budgets is not found. Nothing is deleted then.
+     */
+    public void deleteBudgets(Collection<Long> ids) {
+        List<Long> budgetIds = ids.stream().distinct().toList();
+        Map<Long, Long> owners = findOwners(budgetIds);
+        List<Long> missing = budgetIds.stream().filter(id -> !owners.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new BudgetNotFoundException("Budgets with IDs " + missing + " not found.");
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        shardRouter.collectByUserShard(budgetIds, owners::get, shardBudgetIds -> {
+            Map<Long, Long> shardOwners = new LinkedHashMap<>();
+            shardBudgetIds.forEach(id -> shardOwners.put(id, owners.get(id)));
+            Deadline.check();
+            transaction.executeWithoutResult(status -> deleteOnCurrentShard(shardOwners));
+            return List.of();
+        });
+    }
+
+    private Map<Long, Long> findOwners(List<Long> budgetIds) {
+        Map<Long, Long> owners = new HashMap<>();
+        if (shardRouter.isEnabled()) {
+            // Each budget may live on another shard
+            budgetIds.forEach(id -> shardRouter.findOwnerOfBudget(id).ifPresent(userId -> owners.put(id, userId)));
+            return owners;
+        }
+        for (List<Long> chunk : chunks(budgetIds)) {
+            budgetRepository.findOwnersByBudgetIdIn(chunk).forEach(owner -> owners.put(owner.getBudgetId(), owner.getUserId()));
+        }
+        return owners;
+    }
+
+    /**
+     * Deletes budgets and their dependent rows from the shard bound to the current thread, within the current transaction.
+     *
+     * @param owners The IDs of the budgets to delete, mapped to the IDs of their owners.
+     */
+    private void deleteOnCurrentShard(Map<Long, Long> owners) {
+        for (List<Long> chunk : chunks(new ArrayList<>(owners.keySet()))) {
+            Deadline.check();
+            budgetAlertService.deleteAlerts(chunk);
+            recurringExpenseRepository.deleteByBudgetIdIn(chunk);
+            expensesRepository.deleteTagsByBudgetIdIn(chunk);
+            expensesRepository.deleteByBudgetIdIn(chunk);
+            budgetRepository.deleteByBudgetIdIn(chunk);
         }
-        budgetRepository.deleteById(id);
+        owners.forEach((budgetId, userId) -> publishChange(ChangeEvent.Action.DELETED, userId, budgetId, null));
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Publishes a budget change, delivered to the user's event stream once the transaction commits.
+     *
+     * @param action   The kind of change that was made.
+     * @param userId   The ID of the user owning the budget.
+     * @param budgetId The ID of the changed budget.
+     * @param budget   The budget after the change, or null if it was deleted.
+     */
+    private void publishChange(ChangeEvent.Action action, Long userId, Long budgetId, Budget budget) {
+        eventPublisher.publishEvent(new ChangeEvent(userId, ChangeEvent.EntityType.BUDGET, action, budgetId, budgetId, budget));
     }
 
 
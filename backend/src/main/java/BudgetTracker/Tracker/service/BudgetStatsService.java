@@ -0,0 +1,293 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.dto.BudgetStats;
+import BudgetTracker.Tracker.dto.SpendStats;
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.exceptions.BudgetNotFoundException;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import com.tdunning.math.stats.TDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class for the spend distribution statistics of budgets.
+ * <p>
+ * Every budget keeps one mergeable t-digest sketch of its expense amounts per month, so a percentile query reads a
+ * few kilobytes of state instead of sorting all of the budget's expenses. Yearly statistics are merged from the
+ * monthly sketches on demand. The sketches are built from the database on first use and then fed by the committed
+ * expense creations published by {@link ExpensesService}. A sketch cannot forget a value, so updated and deleted
+ * expenses, like expenses written without an event, make the budget's sketches be rebuilt on their next use; such
+ * writes are detected by comparing the sketched total with the budget's running spend total.
+ * <p>
+ * The sketches are bounded in memory like the analytics columns: the least recently queried budgets are evicted
+ * when the sketches of all budgets exceed the configured size, and budgets not queried for the idle time are
+ * evicted in the background.
+ */
+@Service
+public class BudgetStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(BudgetStatsService.class);
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private ExpensesRepository expensesRepository;
+
+    @Value("${tracker.stats.compression:100}")
+    private double compression;
+
+    @Value("${tracker.stats.max-memory-mb:32}")
+    private long maxMemoryMb;
+
+    @Value("${tracker.stats.idle-eviction-ms:900000}")
+    private long idleEvictionMs;
+
+    private final Map<Long, BudgetSketches> sketches = new ConcurrentHashMap<>();
+    private final AtomicLong memoryBytes = new AtomicLong();
+
+    /**
+     * Computes the spend distribution of a budget.
+     *
+     * @param budgetId The ID of the budget.
+     * @param year     The year to report, or null for every year.
+     * @return The statistics of the budget per month and per year.
+     * @throws BudgetNotFoundException If the budget with the specified ID is not found.
+     */
+    public BudgetStats getStats(Long budgetId, Integer year) {
+        Budget budget = budgetRepository.findById(budgetId)
+                .orElseThrow(() -> new BudgetNotFoundException("Budget with ID " + budgetId + " not found"));
+        BudgetSketches budgetSketches = sketches.computeIfAbsent(budgetId, id -> new BudgetSketches());
+        budgetSketches.lastAccess = System.nanoTime();
+        BudgetStats stats;
+        synchronized (budgetSketches) {
+            if (!budgetSketches.loaded || budgetSketches.total != budget.getSpentAmount()) {
+                budgetSketches.rebuild(expensesRepository.findAmountsByBudgetId(budgetId), compression);
+                account(budgetSketches);
+            }
+            List<SpendStats> months = new ArrayList<>();
+            Map<Year, List<MonthSketch>> byYear = new TreeMap<>();
+            budgetSketches.months.forEach((month, sketch) -> {
+                if (year == null || month.getYear() == year) {
+                    months.add(sketch.toStats(month.toString()));
+                    byYear.computeIfAbsent(Year.of(month.getYear()), key -> new ArrayList<>()).add(sketch);
+                }
+            });
+            List<SpendStats> years = new ArrayList<>();
+            byYear.forEach((key, monthSketches) -> years.add(MonthSketch.merge(monthSketches, compression).toStats(key.toString())));
+            stats = new BudgetStats(budgetId, months, years);
+        }
+        // Outside the budget's monitor, since evicting takes the monitors of other budgets
+        evictOverLimit(budgetId);
+        return stats;
+    }
+
+    /**
+     * @return The number of budgets whose sketches are held in memory.
+     */
+    public int getSketchedBudgetCount() {
+        return sketches.size();
+    }
+
+    /**
+     * @return The approximate heap size of the sketches of all budgets.
+     */
+    public long getMemoryBytes() {
+        return memoryBytes.get();
+    }
+
+    /**
+     * Drops the sketches of budgets that have not been queried for longer than the configured idle time.
+     */
+    @Scheduled(fixedDelayString = "${tracker.stats.idle-eviction-ms:900000}")
+    public void evictIdleBudgets() {
+        long idleSince = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+        sketches.forEach((budgetId, budgetSketches) -> {
+            if (budgetSketches.lastAccess - idleSince < 0) {
+                evict(budgetId, budgetSketches);
+            }
+        });
+    }
+
+    /**
+     * Adds a committed expense creation to the sketches of its budget. Other expense changes, and deleted budgets,
+     * drop the budget's sketches.
+     *
+     * @param event The committed change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (event.getBudgetId() == null) {
+            return;
+        }
+        if (event.getEntityType() == ChangeEvent.EntityType.BUDGET) {
+            if (event.getAction() == ChangeEvent.Action.DELETED) {
+                BudgetSketches budgetSketches = sketches.get(event.getBudgetId());
+                if (budgetSketches != null) {
+                    evict(event.getBudgetId(), budgetSketches);
+                }
+            }
+            return;
+        }
+        BudgetSketches budgetSketches = sketches.get(event.getBudgetId());
+        if (budgetSketches == null) {
+            return;
+        }
+        synchronized (budgetSketches) {
+            if (event.getAction() == ChangeEvent.Action.CREATED && event.getData() instanceof Expenses expense) {
+                budgetSketches.add(expense.getExpensesId(), expense.getExpensesAmount(), expense.getExpensesDate(), compression);
+                account(budgetSketches);
+            } else {
+                budgetSketches.loaded = false;
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently queried budgets other than the given one until the memory limit is met.
+     */
+    private void evictOverLimit(Long keptBudgetId) {
+        long limit = maxMemoryMb * 1024 * 1024;
+        while (memoryBytes.get() > limit) {
+            Map.Entry<Long, BudgetSketches> coldest = null;
+            for (Map.Entry<Long, BudgetSketches> entry : sketches.entrySet()) {
+                if (!entry.getKey().equals(keptBudgetId)
+                        && (coldest == null || entry.getValue().lastAccess - coldest.getValue().lastAccess < 0)) {
+                    coldest = entry;
+                }
+            }
+            if (coldest == null) {
+                return;
+            }
+            log.debug("Evicting spend sketches of budget {} to stay within {} MB", coldest.getKey(), maxMemoryMb);
+            evict(coldest.getKey(), coldest.getValue());
+        }
+    }
+
+    private void evict(Long budgetId, BudgetSketches budgetSketches) {
+        if (sketches.remove(budgetId, budgetSketches)) {
+            synchronized (budgetSketches) {
+                memoryBytes.addAndGet(-budgetSketches.accountedBytes);
+                budgetSketches.accountedBytes = 0;
+                budgetSketches.released = true;
+            }
+        }
+    }
+
+    /**
+     * Brings the memory count up to date with the months a budget's sketches hold. A merging t-digest allocates its
+     * centroid and buffer arrays up front, about 112 bytes per unit of compression, so its size depends on the
+     * compression only. Called with the budget's monitor held.
+     */
+    private void account(BudgetSketches budgetSketches) {
+        if (budgetSketches.released) {
+            return;
+        }
+        long bytes = BudgetSketches.OVERHEAD_BYTES + budgetSketches.months.size() * ((long) (compression * 112) + MonthSketch.OVERHEAD_BYTES);
+        memoryBytes.addAndGet(bytes - budgetSketches.accountedBytes);
+        budgetSketches.accountedBytes = bytes;
+    }
+
+    /**
+     * The monthly sketches of one budget. Guarded by its own monitor.
+     */
+    private static final class BudgetSketches {
+
+        private static final int OVERHEAD_BYTES = 128;
+
+        private final Map<YearMonth, MonthSketch> months = new TreeMap<>();
+        // Sum of the sketched amounts, undated expenses included, compared with the budget's spent amount
+        private long total;
+        // Creations of expenses up to this ID are already part of the sketches
+        private long maxExpenseId;
+        private boolean loaded;
+        // Bytes added to the memory count for these sketches; none once evicted
+        private long accountedBytes;
+        private boolean released;
+        private volatile long lastAccess = System.nanoTime();
+
+        void rebuild(List<Object[]> rows, double compression) {
+            months.clear();
+            total = 0;
+            maxExpenseId = 0;
+            for (Object[] row : rows) {
+                add((Long) row[0], (Integer) row[1], (Instant) row[2], compression);
+            }
+            loaded = true;
+        }
+
+        void add(Long expenseId, int amount, Instant date, double compression) {
+            if (expenseId != null) {
+                if (expenseId <= maxExpenseId) {
+                    return;
+                }
+                maxExpenseId = expenseId;
+            }
+            total += amount;
+            if (date != null) {
+                months.computeIfAbsent(YearMonth.from(date.atOffset(ZoneOffset.UTC)), month -> new MonthSketch(compression)).add(amount);
+            }
+        }
+    }
+
+    /**
+     * A t-digest of the expense amounts of one month, with the exact count, sum and maximum alongside.
+     */
+    private static final class MonthSketch {
+
+        // The map entry, the month key and the exact aggregates
+        private static final int OVERHEAD_BYTES = 160;
+
+        private final TDigest digest;
+        private long count;
+        private long sum;
+        private long max = Long.MIN_VALUE;
+
+        MonthSketch(double compression) {
+            digest = TDigest.createMergingDigest(compression);
+        }
+
+        void add(long amount) {
+            digest.add(amount);
+            count++;
+            sum += amount;
+            max = Math.max(max, amount);
+        }
+
+        static MonthSketch merge(List<MonthSketch> sketches, double compression) {
+            MonthSketch merged = new MonthSketch(compression);
+            for (MonthSketch sketch : sketches) {
+                merged.digest.add(sketch.digest);
+                merged.count += sketch.count;
+                merged.sum += sketch.sum;
+                merged.max = Math.max(merged.max, sketch.max);
+            }
+            return merged;
+        }
+
+        SpendStats toStats(String period) {
+            return new SpendStats(period, count, (double) sum / count,
+                    digest.quantile(0.5), digest.quantile(0.9), digest.quantile(0.99), max);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.config.BulkheadContext;
+import BudgetTracker.Tracker.config.Deadline;
+import BudgetTracker.Tracker.config.ShardContext;
+import BudgetTracker.Tracker.dto.BudgetExpenses;
+import BudgetTracker.Tracker.dto.Dashboard;
+import BudgetTracker.Tracker.dto.DashboardTotals;
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.entity.User;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.exceptions.UserNotFoundException;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import BudgetTracker.Tracker.repository.UserRepository;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Service class for loading the dashboard of a user in one call.
+ * The user, budget, expense-page and totals queries run concurrently on a bounded pool, each on the shard of the
+ * user, and the expenses are grouped under their budget on the server. When the pool and its queue are full the
+ * request thread runs the queries itself, so load beyond the pool degrades to sequential queries instead of failing.
+ * The workers run within the deadline and the bulkhead of the request, so their statements are bounded by the time
+ * the client has left and use the connection pool the request was admitted to.
+ * The queries are not one snapshot: a change committed while they run may be visible to some of them only.
+ */
+@Service
+public class DashboardService {
+
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private ExpensesRepository expensesRepository;
+    @Autowired
+    private BudgetForecastService budgetForecastService;
+
+    @Value("${tracker.dashboard.threads:8}")
+    private int threads;
+    @Value("${tracker.dashboard.queue-capacity:64}")
+    private int queueCapacity;
+    @Value("${tracker.dashboard.timeout-ms:5000}")
+    private long timeoutMs;
+    @Value("${tracker.dashboard.max-page-size:500}")
+    private int maxPageSize;
+
+    private ExecutorService executor;
+
+    /**
+     * Loads the dashboard of a user.
+     *
+     * @param userId The ID of the user.
+     * @param page   The page of expenses to include, starting at 0, newest expenses first.
+     * @param size   The maximum number of expenses to include.
+     * @return The user, their budgets with the expenses of the page grouped under them, and the totals.
+     * @throws InvalidInputException  If the page is negative or the size is outside 1 to the configured maximum.
+     * @throws UserNotFoundException  If the user does not exist.
+     * @throws QueryTimeoutException  If the queries did not finish within the configured timeout.
+     */
+    public Dashboard getDashboard(Long userId, int page, int size) {
+        if (page < 0) {
+            throw new InvalidInputException("invalid-page", "Page cannot be negative.");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new InvalidInputException("invalid-page-size", "Page size must be between 1 and " + maxPageSize + ".");
+        }
+        PageRequest pageRequest = PageRequest.of(page, size,
+                Sort.by(Sort.Order.desc("expensesDate"), Sort.Order.desc("expensesId")));
+
+        // The workers read from the shard the request was routed to, within its deadline and bulkhead
+        int shard = ShardContext.current();
+        Future<Optional<User>> user = submit(shard, () -> userRepository.findById(userId));
+        Future<List<Budget>> budgets = submit(shard, () -> budgetRepository.findByUserId(userId));
+        Future<Page<Expenses>> expenses = submit(shard, () -> expensesRepository.findByBudget_User_Id(userId, pageRequest));
+        Future<DashboardTotals> totals = submit(shard, () -> budgetRepository.findTotalsByUserId(userId));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            User foundUser = await(user, deadline)
+                    .orElseThrow(() -> new UserNotFoundException("User with ID " + userId + " not found."));
+            Page<Expenses> expensePage = await(expenses, deadline);
+            List<Budget> foundBudgets = await(budgets, deadline);
+            budgetForecastService.attachForecasts(foundBudgets);
+            return new Dashboard(foundUser, group(foundBudgets, expensePage.getContent()),
+                    await(totals, deadline), page, size, expensePage.getTotalElements());
+        } finally {
+            user.cancel(true);
+            budgets.cancel(true);
+            expenses.cancel(true);
+            totals.cancel(true);
+        }
+    }
+
+    /**
+     * Groups expenses under their budget in one pass, keeping the order of the budgets and of the expenses.
+     */
+    static List<BudgetExpenses> group(List<Budget> budgets, List<Expenses> expenses) {
+        Map<Long, List<Expenses>> expensesByBudget = new LinkedHashMap<>();
+        for (Budget budget : budgets) {
+            expensesByBudget.put(budget.getBudgetId(), new ArrayList<>());
+        }
+        for (Expenses expense : expenses) {
+            List<Expenses> budgetExpenses = expense.getBudget() == null ? null
+                    : expensesByBudget.get(expense.getBudget().getBudgetId());
+            if (budgetExpenses != null) {
+                budgetExpenses.add(expense);
+            }
+        }
+        List<BudgetExpenses> grouped = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            grouped.add(new BudgetExpenses(budget, expensesByBudget.get(budget.getBudgetId())));
+        }
+        return grouped;
+    }
+
+    private <T> Future<T> submit(int shard, Supplier<T> query) {
+        Deadline deadline = Deadline.current();
+        String bulkhead = BulkheadContext.current();
+        return executor().submit(() -> Deadline.callWithin(deadline,
+                () -> BulkheadContext.callIn(bulkhead, () -> ShardContext.callOn(shard, query))));
+    }
+
+    private static <T> T await(Future<T> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Dashboard query failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Dashboard could not be loaded in time. Please retry.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the dashboard", e);
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "dashboard-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            // Queries run within the trace of the request
+            executor = ContextExecutorService.wrap(pool, CONTEXT_SNAPSHOTS::captureAll);
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
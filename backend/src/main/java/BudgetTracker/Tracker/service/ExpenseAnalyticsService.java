@@ -0,0 +1,288 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.dto.SpendGroup;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory analytics over the expenses of active users.
+ * <p>
+ * A user's expenses are loaded once into {@link ExpenseColumns} and aggregated there with tight loops over primitive
+ * arrays, so repeated slicing by budget, period, date range and amount needs no query per slice. The columns are kept
+ * current by the committed expense changes published by {@link ExpensesService}; writes made without an event, such
+ * as generated recurring expenses, are detected by comparing the held total with the user's running spend total and
+ * reloaded. The memory held by all users is accounted for, and the least recently used users are evicted once it
+ * exceeds the configured limit or when they have been idle for too long.
+ * <p>
+ * When snapshots are enabled, the columns of each loaded user are also kept in an {@link ExpenseSnapshot} updated
+ * with every change, and the first load after a restart reads that snapshot instead of the expenses. The snapshot is
+ * only used if the data versions of the user's budgets still match the ones it has seen, so writes made while
+ * the user was evicted or the node was down cause a regular load.
+ */
+@Service
+public class ExpenseAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseAnalyticsService.class);
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    @Autowired
+    private ExpensesRepository expensesRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private ExpenseSnapshotStore expenseSnapshotStore;
+
+    @Value("${tracker.analytics.max-memory-mb:64}")
+    private long maxMemoryMb;
+
+    @Value("${tracker.analytics.idle-eviction-ms:900000}")
+    private long idleEvictionMs;
+
+    private final Map<Long, UserColumns> users = new ConcurrentHashMap<>();
+    private final AtomicLong memoryBytes = new AtomicLong();
+
+    public ExpenseAnalyticsService(MeterRegistry meterRegistry) {
+        Gauge.builder("tracker.analytics.memory", memoryBytes, AtomicLong::get).baseUnit("bytes").register(meterRegistry);
+        meterRegistry.gaugeMapSize("tracker.analytics.users", Tags.empty(), users);
+    }
+
+    /**
+     * Aggregates the expenses of a user.
+     *
+     * @param userId    The ID of the user whose expenses to aggregate.
+     * @param groupBy   How to group the expenses.
+     * @param from      The first day to include, or null.
+     * @param to        The last day to include, or null.
+     * @param budgetIds The IDs of the budgets to include, or null for all.
+     * @param minAmount The smallest amount to include, or null.
+     * @param maxAmount The largest amount to include, or null.
+     * @return The non-empty groups, ordered by key.
+     * @throws InvalidInputException If the date or amount range is empty.
+     */
+    public List<SpendGroup> aggregate(Long userId, ExpenseColumns.GroupBy groupBy, LocalDate from, LocalDate to,
+                                      Collection<Long> budgetIds, Long minAmount, Long maxAmount) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidInputException("invalid-date-range", "from must not be after to.");
+        }
+        if (minAmount != null && maxAmount != null && minAmount > maxAmount) {
+            throw new InvalidInputException("invalid-amount-range", "minAmount must not be greater than maxAmount.");
+        }
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochDay() * MILLIS_PER_DAY;
+        long toMillis = to == null ? Long.MAX_VALUE : (to.toEpochDay() + 1) * MILLIS_PER_DAY;
+        long min = minAmount == null ? Long.MIN_VALUE : minAmount;
+        long max = maxAmount == null ? Long.MAX_VALUE : maxAmount;
+        while (true) {
+            UserColumns user = users.computeIfAbsent(userId, id -> new UserColumns());
+            List<SpendGroup> groups;
+            boolean loaded = false;
+            synchronized (user) {
+                // Evicted between the lookup and the lock
+                if (users.get(userId) != user) {
+                    continue;
+                }
+                user.lastAccess = System.nanoTime();
+                long spent = budgetRepository.findTotalsByUserId(userId).getSpentAmount();
+                if (user.columns == null || user.columns.total() != spent) {
+                    load(userId, user, spent);
+                    loaded = true;
+                }
+                groups = user.columns.aggregate(groupBy, fromMillis, toMillis, budgetIds, min, max);
+            }
+            // Outside the user's monitor, since evicting takes the monitors of other users
+            if (loaded) {
+                evictOverLimit(userId);
+            }
+            return groups;
+        }
+    }
+
+    /**
+     * @return The approximate heap size of the columns of all users.
+     */
+    public long getMemoryBytes() {
+        return memoryBytes.get();
+    }
+
+    /**
+     * @return The number of users whose expenses are held in memory.
+     */
+    public int getUserCount() {
+        return users.size();
+    }
+
+    /**
+     * Applies a committed expense change to the columns of its owner, when they are held.
+     *
+     * @param event The committed change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (event.getUserId() == null) {
+            return;
+        }
+        UserColumns user = users.get(event.getUserId());
+        if (user == null) {
+            return;
+        }
+        synchronized (user) {
+            // Columns not loaded yet read the change from the database
+            if (user.columns == null) {
+                return;
+            }
+            long before = user.columns.memoryBytes();
+            if (event.getEntityType() == ChangeEvent.EntityType.BUDGET) {
+                if (event.getAction() == ChangeEvent.Action.DELETED) {
+                    user.columns.removeBudget(event.getBudgetId());
+                    snapshot(event.getUserId(), user, ExpenseSnapshot.REMOVE_BUDGET, event.getBudgetId(), event.getBudgetId(), 0, 0);
+                } else if (event.getAction() == ChangeEvent.Action.CREATED) {
+                    snapshot(event.getUserId(), user, ExpenseSnapshot.ADD_BUDGET, event.getBudgetId(), event.getBudgetId(), 0, 0);
+                }
+            } else if (event.getBudgetId() == null) {
+                return;
+            } else if (event.getAction() == ChangeEvent.Action.DELETED) {
+                user.columns.remove(event.getEntityId());
+                snapshot(event.getUserId(), user, ExpenseSnapshot.REMOVE, event.getEntityId(), event.getBudgetId(), 0, 0);
+            } else if (event.getData() instanceof Expenses expense) {
+                long date = expense.getExpensesDate() == null ? ExpenseColumns.NO_DATE : expense.getExpensesDate().toEpochMilli();
+                user.columns.put(event.getEntityId(), event.getBudgetId(), expense.getExpensesAmount(), date);
+                snapshot(event.getUserId(), user, ExpenseSnapshot.PUT, event.getEntityId(), event.getBudgetId(), expense.getExpensesAmount(), date);
+            }
+            memoryBytes.addAndGet(user.columns.memoryBytes() - before);
+        }
+    }
+
+    /**
+     * Drops the columns of users that have not been queried for longer than the configured idle time.
+     */
+    @Scheduled(fixedDelayString = "${tracker.analytics.idle-eviction-ms:900000}")
+    public void evictIdleUsers() {
+        long idleSince = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+        users.forEach((userId, user) -> {
+            if (user.lastAccess - idleSince < 0) {
+                evict(userId, user);
+            }
+        });
+    }
+
+    private void load(Long userId, UserColumns user, long spent) {
+        ExpenseColumns columns = null;
+        // The snapshot of a previous run is only worth trying before the first load
+        if (user.columns == null && expenseSnapshotStore.isEnabled()) {
+            ExpenseColumns restored = new ExpenseColumns(0);
+            ExpenseSnapshot snapshot = expenseSnapshotStore.open(userId, restored);
+            if (snapshot != null && restored.total() == spent && snapshot.versions().equals(findDataVersions(userId))) {
+                columns = restored;
+                user.snapshot = snapshot;
+            }
+        }
+        if (columns == null) {
+            // Versions read before the expenses never claim writes the expenses are missing
+            Map<Long, Long> versions = expenseSnapshotStore.isEnabled() ? findDataVersions(userId) : null;
+            List<Object[]> rows = expensesRepository.findColumnsByUserId(userId);
+            columns = new ExpenseColumns(rows.size());
+            for (Object[] row : rows) {
+                Object date = row[3];
+                columns.put((Long) row[0], (Long) row[1], ((Number) row[2]).longValue(),
+                        date == null ? ExpenseColumns.NO_DATE : ((Instant) date).toEpochMilli());
+            }
+            user.snapshot = versions == null ? null : expenseSnapshotStore.write(userId, columns, versions);
+        }
+        long before = user.columns == null ? 0 : user.columns.memoryBytes();
+        user.columns = columns;
+        memoryBytes.addAndGet(columns.memoryBytes() - before);
+    }
+
+    private Map<Long, Long> findDataVersions(Long userId) {
+        Map<Long, Long> versions = new HashMap<>();
+        for (Object[] row : budgetRepository.findDataVersionsByUserId(userId)) {
+            versions.put((Long) row[0], (Long) row[1]);
+        }
+        return versions;
+    }
+
+    /**
+     * Records a change already applied to the columns of a user in the user's snapshot, if any.
+     */
+    private void snapshot(Long userId, UserColumns user, byte op, long id, long budgetId, long amount, long date) {
+        if (user.snapshot == null) {
+            return;
+        }
+        try {
+            user.snapshot.append(op, id, budgetId, amount, date, user.columns);
+        } catch (IOException e) {
+            log.warn("Could not update the expense snapshot of user {}", userId, e);
+            user.snapshot = null;
+            expenseSnapshotStore.delete(userId);
+        }
+    }
+
+    /**
+     * Evicts the least recently queried users other than the given one until the memory limit is met.
+     */
+    private void evictOverLimit(Long keptUserId) {
+        long limit = maxMemoryMb * 1024 * 1024;
+        while (memoryBytes.get() > limit) {
+            Map.Entry<Long, UserColumns> coldest = null;
+            for (Map.Entry<Long, UserColumns> entry : users.entrySet()) {
+                if (!entry.getKey().equals(keptUserId)
+                        && (coldest == null || entry.getValue().lastAccess - coldest.getValue().lastAccess < 0)) {
+                    coldest = entry;
+                }
+            }
+            if (coldest == null) {
+                return;
+            }
+            log.debug("Evicting analytics columns of user {} to stay within {} MB", coldest.getKey(), maxMemoryMb);
+            evict(coldest.getKey(), coldest.getValue());
+        }
+    }
+
+    private void evict(Long userId, UserColumns user) {
+        if (users.remove(userId, user)) {
+            synchronized (user) {
+                if (user.columns != null) {
+                    memoryBytes.addAndGet(-user.columns.memoryBytes());
+                    user.columns = null;
+                }
+                // The file is kept for the next load
+                user.snapshot = null;
+            }
+        }
+    }
+
+    /**
+     * The columns of one user, or null until loaded, and their snapshot. Guarded by its own monitor.
+     */
+    private static final class UserColumns {
+        private ExpenseColumns columns;
+        private ExpenseSnapshot snapshot;
+        private volatile long lastAccess = System.nanoTime();
+    }
+}
@@ -0,0 +1,353 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.dto.SpendGroup;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Expenses of one user held as primitive columns, one array element per expense and no object per row.
+ * Budgets are stored as ordinals into a small table of budget IDs, so grouping by budget indexes plain arrays.
+ * Not thread-safe; {@link ExpenseAnalyticsService} guards every instance with its own monitor.
+ */
+public final class ExpenseColumns {
+
+    /**
+     * Ways of grouping the expenses of an aggregation.
+     */
+    public enum GroupBy { BUDGET, DAY, MONTH, YEAR }
+
+    /**
+     * Date of expenses that have none; such expenses never match a date range and are left out of period groups.
+     */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    // Bytes per row: ID, date and amount longs plus the budget ordinal int
+    private static final int ROW_BYTES = 8 + 8 + 8 + 4;
+    private static final int OVERHEAD_BYTES = 128;
+    // Added to period keys, which are negative before 1970, so that -1 can mark rows left out
+    private static final int KEY_OFFSET = 1 << 30;
+    // Key ranges wider than this, beyond the number of matched rows, are aggregated by sorting instead of by index
+    private static final int MAX_SPARE_GROUPS = 4096;
+
+    private long[] ids;
+    private long[] dates;
+    private long[] amounts;
+    private int[] budgetOrdinals;
+    private int size;
+    private long[] budgetIds = new long[4];
+    private int budgetCount;
+    private long total;
+
+    public ExpenseColumns(int capacity) {
+        int initial = Math.max(capacity, 16);
+        ids = new long[initial];
+        dates = new long[initial];
+        amounts = new long[initial];
+        budgetOrdinals = new int[initial];
+    }
+
+    /**
+     * Adds an expense, or replaces it if an expense with the same ID is already held.
+     *
+     * @param id       The ID of the expense.
+     * @param budgetId The ID of its budget.
+     * @param amount   The amount of the expense.
+     * @param date     The date of the expense in milliseconds since the epoch, or {@link #NO_DATE}.
+     */
+    public void put(long id, long budgetId, long amount, long date) {
+        int row = rowOf(id);
+        if (row < 0) {
+            if (size == ids.length) {
+                grow();
+            }
+            row = size++;
+            ids[row] = id;
+        } else {
+            total -= amounts[row];
+        }
+        dates[row] = date;
+        amounts[row] = amount;
+        budgetOrdinals[row] = ordinalOf(budgetId);
+        total += amount;
+    }
+
+    /**
+     * Removes an expense by moving the last row into its place.
+     *
+     * @param id The ID of the expense.
+     * @return True if the expense was held.
+     */
+    public boolean remove(long id) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return false;
+        }
+        total -= amounts[row];
+        int last = --size;
+        ids[row] = ids[last];
+        dates[row] = dates[last];
+        amounts[row] = amounts[last];
+        budgetOrdinals[row] = budgetOrdinals[last];
+        return true;
+    }
+
+    /**
+     * Removes every expense of a budget.
+     *
+     * @param budgetId The ID of the budget.
+     * @return The number of expenses removed.
+     */
+    public int removeBudget(long budgetId) {
+        int ordinal = -1;
+        for (int i = 0; i < budgetCount; i++) {
+            if (budgetIds[i] == budgetId) {
+                ordinal = i;
+            }
+        }
+        if (ordinal < 0) {
+            return 0;
+        }
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (budgetOrdinals[row] == ordinal) {
+                total -= amounts[row];
+                continue;
+            }
+            ids[kept] = ids[row];
+            dates[kept] = dates[row];
+            amounts[kept] = amounts[row];
+            budgetOrdinals[kept] = budgetOrdinals[row];
+            kept++;
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * @return The number of expenses held.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The sum of the amounts of the expenses held.
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * @return The ID of the expense in a row, for rows below {@link #size()}.
+     */
+    long idAt(int row) {
+        return ids[row];
+    }
+
+    /**
+     * @return The ID of the budget of the expense in a row.
+     */
+    long budgetIdAt(int row) {
+        return budgetIds[budgetOrdinals[row]];
+    }
+
+    /**
+     * @return The amount of the expense in a row.
+     */
+    long amountAt(int row) {
+        return amounts[row];
+    }
+
+    /**
+     * @return The date of the expense in a row, or {@link #NO_DATE}.
+     */
+    long dateAt(int row) {
+        return dates[row];
+    }
+
+    /**
+     * @return The approximate heap size of the columns, allocated capacity included.
+     */
+    public long memoryBytes() {
+        return (long) ids.length * ROW_BYTES + (long) budgetIds.length * 8 + OVERHEAD_BYTES;
+    }
+
+    /**
+     * Aggregates the expenses matching a filter, per group.
+     *
+     * @param groupBy   How to group the expenses.
+     * @param from      The first date to include, in milliseconds since the epoch, or {@link Long#MIN_VALUE}.
+     * @param to        The date to stop before, in milliseconds since the epoch, or {@link Long#MAX_VALUE}.
+     * @param budgets   The IDs of the budgets to include, or null for all.
+     * @param minAmount The smallest amount to include.
+     * @param maxAmount The largest amount to include.
+     * @return The non-empty groups, ordered by key.
+     */
+    public List<SpendGroup> aggregate(GroupBy groupBy, long from, long to, Collection<Long> budgets, long minAmount, long maxAmount) {
+        boolean[] budgetMask = new boolean[budgetCount];
+        for (int i = 0; i < budgetCount; i++) {
+            budgetMask[i] = budgets == null || budgets.contains(budgetIds[i]);
+        }
+        // Dated filters leave out undated expenses, since NO_DATE sorts before every date
+        boolean periods = groupBy != GroupBy.BUDGET;
+        long effectiveFrom = periods && from == Long.MIN_VALUE ? NO_DATE + 1 : from;
+
+        int[] keys = new int[size];
+        int minKey = Integer.MAX_VALUE;
+        int maxKey = Integer.MIN_VALUE;
+        int matched = 0;
+        for (int row = 0; row < size; row++) {
+            long date = dates[row];
+            long amount = amounts[row];
+            int ordinal = budgetOrdinals[row];
+            if (date < effectiveFrom || date >= to || amount < minAmount || amount > maxAmount || !budgetMask[ordinal]) {
+                keys[row] = -1;
+                continue;
+            }
+            int key = periods ? periodKey(groupBy, Math.floorDiv(date, MILLIS_PER_DAY)) + KEY_OFFSET : ordinal;
+            keys[row] = key;
+            minKey = Math.min(minKey, key);
+            maxKey = Math.max(maxKey, key);
+            matched++;
+        }
+        if (matched == 0) {
+            return List.of();
+        }
+
+        if ((long) maxKey - minKey > matched + MAX_SPARE_GROUPS) {
+            return aggregateSparse(groupBy, keys, matched);
+        }
+        int groups = maxKey - minKey + 1;
+        long[] count = new long[groups];
+        long[] sum = new long[groups];
+        long[] min = new long[groups];
+        long[] max = new long[groups];
+        Arrays.fill(min, Long.MAX_VALUE);
+        Arrays.fill(max, Long.MIN_VALUE);
+        for (int row = 0; row < size; row++) {
+            int key = keys[row];
+            if (key < 0) {
+                continue;
+            }
+            int group = key - minKey;
+            long amount = amounts[row];
+            count[group]++;
+            sum[group] += amount;
+            min[group] = Math.min(min[group], amount);
+            max[group] = Math.max(max[group], amount);
+        }
+
+        List<SpendGroup> result = new ArrayList<>();
+        for (int group = 0; group < groups; group++) {
+            if (count[group] > 0) {
+                int key = group + minKey;
+                String label = periods ? periodLabel(groupBy, key - KEY_OFFSET) : String.valueOf(budgetIds[key]);
+                result.add(new SpendGroup(label, count[group], sum[group], min[group], max[group]));
+            }
+        }
+        if (!periods) {
+            result.sort((a, b) -> Long.compare(Long.parseLong(a.getKey()), Long.parseLong(b.getKey())));
+        }
+        return result;
+    }
+
+    /**
+     * Aggregates rows whose keys are too far apart for one accumulator per key, by sorting (key, row) pairs.
+     */
+    private List<SpendGroup> aggregateSparse(GroupBy groupBy, int[] keys, int matched) {
+        long[] pairs = new long[matched];
+        int next = 0;
+        for (int row = 0; row < size; row++) {
+            if (keys[row] >= 0) {
+                pairs[next++] = ((long) keys[row] << 32) | row;
+            }
+        }
+        Arrays.sort(pairs);
+        List<SpendGroup> result = new ArrayList<>();
+        int start = 0;
+        while (start < matched) {
+            int key = (int) (pairs[start] >>> 32);
+            long count = 0;
+            long sum = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            int end = start;
+            while (end < matched && (int) (pairs[end] >>> 32) == key) {
+                long amount = amounts[(int) pairs[end]];
+                count++;
+                sum += amount;
+                min = Math.min(min, amount);
+                max = Math.max(max, amount);
+                end++;
+            }
+            String label = groupBy == GroupBy.BUDGET ? String.valueOf(budgetIds[key]) : periodLabel(groupBy, key - KEY_OFFSET);
+            result.add(new SpendGroup(label, count, sum, min, max));
+            start = end;
+        }
+        return result;
+    }
+
+    private int rowOf(long id) {
+        for (int row = 0; row < size; row++) {
+            if (ids[row] == id) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private int ordinalOf(long budgetId) {
+        for (int i = 0; i < budgetCount; i++) {
+            if (budgetIds[i] == budgetId) {
+                return i;
+            }
+        }
+        if (budgetCount == budgetIds.length) {
+            budgetIds = Arrays.copyOf(budgetIds, budgetCount * 2);
+        }
+        budgetIds[budgetCount] = budgetId;
+        return budgetCount++;
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        budgetOrdinals = Arrays.copyOf(budgetOrdinals, capacity);
+    }
+
+    /**
+     * Maps a day to its group: the day itself, {@code year * 12 + month - 1} or the year.
+     */
+    static int periodKey(GroupBy groupBy, long epochDay) {
+        if (groupBy == GroupBy.DAY) {
+            return (int) epochDay;
+        }
+        // Civil date from the day count, without allocating (H. Hinnant, "chrono-Compatible Low-Level Date Algorithms")
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (groupBy == GroupBy.MONTH ? year * 12 + month - 1 : year);
+    }
+
+    private static String periodLabel(GroupBy groupBy, int key) {
+        return switch (groupBy) {
+            case DAY -> LocalDate.ofEpochDay(key).toString();
+            case MONTH -> YearMonth.of(Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1).toString();
+            default -> String.valueOf(key);
+        };
+    }
+}
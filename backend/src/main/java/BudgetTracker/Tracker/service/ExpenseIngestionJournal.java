@@ -0,0 +1,222 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Append-only journal backing the write-behind ingestion queue.
+ * Every accepted expense is appended before the client receives its 202 response and a commit record is appended
+ * once the writer has persisted it, so expenses that were still queued when the process stopped are replayed on restart.
+ * The file is truncated whenever no entry is pending, which keeps it from growing without bound.
+ */
+public class ExpenseIngestionJournal implements Closeable {
+
+    /**
+     * An accepted expense that has not been committed yet.
+     *
+     * @param trackingId The tracking ID handed to the client.
+     * @param expense    The expense to be persisted.
+     */
+    public record Entry(String trackingId, Expenses expense) {
+    }
+
+    private static final String ACCEPTED = "A";
+    private static final String COMMITTED = "C";
+
+    private final Path path;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+    private FileChannel channel;
+    private long pending;
+    // Completed entries whose commit record could not be written yet; recorded with the next commit
+    private final Set<String> unrecorded = new LinkedHashSet<>();
+
+    /**
+     * Creates a journal stored at the given path.
+     *
+     * @param path         The journal file; parent directories are created if missing.
+     * @param fsync        Whether every append is forced to the storage device rather than only to the OS cache.
+     * @param objectMapper The mapper used to encode journal records.
+     */
+    public ExpenseIngestionJournal(Path path, boolean fsync, ObjectMapper objectMapper) {
+        this.path = path;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads the journal left by a previous run and returns the entries that were accepted but never committed.
+     * The journal is rewritten to contain only those entries and is then opened for appending.
+     *
+     * @return The pending entries, in the order they were accepted.
+     */
+    public synchronized List<Entry> replay() {
+        Map<String, Entry> accepted = new LinkedHashMap<>();
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.exists(path)) {
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        JsonNode node;
+                        try {
+                            node = objectMapper.readTree(line);
+                        } catch (IOException e) {
+                            // A torn final line from a crash mid-append; the client never got a 202 for it
+                            continue;
+                        }
+                        String trackingId = node.path("id").asText();
+                        if (COMMITTED.equals(node.path("op").asText())) {
+                            accepted.remove(trackingId);
+                        } else {
+                            accepted.put(trackingId, new Entry(trackingId, decode(node)));
+                        }
+                    }
+                }
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            pending = 0;
+            for (Entry entry : accepted.values()) {
+                write(encode(entry.trackingId(), entry.expense()));
+            }
+            force();
+            return new ArrayList<>(accepted.values());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to replay ingestion journal " + path, e);
+        }
+    }
+
+    /**
+     * Records an accepted expense.
+     *
+     * @param trackingId The tracking ID handed to the client.
+     * @param expense    The validated expense.
+     */
+    public synchronized void append(String trackingId, Expenses expense) {
+        try {
+            write(encode(trackingId, expense));
+            force();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to append to ingestion journal " + path, e);
+        }
+    }
+
+    /**
+     * Records that the given entries no longer need to be replayed, either because they were persisted or because
+     * they failed permanently. When the record cannot be written, the entries are kept and recorded with the next
+     * commit, or when the journal is closed.
+     *
+     * @param trackingIds The tracking IDs of the completed entries.
+     * @throws UncheckedIOException If the commit record cannot be written.
+     */
+    public synchronized void commit(Collection<String> trackingIds) {
+        unrecorded.addAll(trackingIds);
+        if (unrecorded.isEmpty()) {
+            return;
+        }
+        try {
+            StringBuilder records = new StringBuilder();
+            for (String trackingId : unrecorded) {
+                records.append(objectMapper.createObjectNode().put("op", COMMITTED).put("id", trackingId)).append('\n');
+            }
+            if (pending - unrecorded.size() <= 0) {
+                // Nothing left to replay, so the history can be dropped
+                channel.truncate(0);
+            } else {
+                channel.write(ByteBuffer.wrap(records.toString().getBytes(StandardCharsets.UTF_8)));
+            }
+            force();
+            pending = Math.max(0, pending - unrecorded.size());
+            unrecorded.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to commit to ingestion journal " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            try {
+                // Last chance for commits that failed, or their entries are replayed as duplicates
+                commit(List.of());
+            } finally {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private void write(String record) throws IOException {
+        channel.write(ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8)));
+        pending++;
+    }
+
+    private void force() throws IOException {
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    private String encode(String trackingId, Expenses expense) {
+        ObjectNode node = objectMapper.createObjectNode()
+                .put("op", ACCEPTED)
+                .put("id", trackingId)
+                .put("description", expense.getExpensesDescription())
+                .put("amount", expense.getExpensesAmount())
+                .put("budgetId", expense.getBudget().getBudgetId());
+        if (expense.getExpensesDate() != null) {
+            node.put("date", expense.getExpensesDate().toString());
+        }
+        if (expense.getTags() != null && !expense.getTags().isEmpty()) {
+            expense.getTags().forEach(node.putArray("tags")::add);
+        }
+        return node.toString();
+    }
+
+    private Expenses decode(JsonNode node) {
+        Budget budget = new Budget();
+        budget.setBudgetId(node.path("budgetId").asLong());
+        Expenses expense = new Expenses();
+        expense.setExpensesDescription(node.path("description").asText());
+        expense.setExpensesAmount(node.path("amount").asInt());
+        expense.setBudget(budget);
+        if (node.hasNonNull("date")) {
+            expense.setExpensesDate(Instant.parse(node.get("date").asText()));
+        }
+        if (node.has("tags")) {
+            SortedSet<String> tags = new TreeSet<>();
+            node.get("tags").forEach(tag -> tags.add(tag.asText()));
+            expense.setTags(tags);
+        }
+        return expense;
+    }
+}
@@ -0,0 +1,317 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.config.BulkheadContext;
+import BudgetTracker.Tracker.config.ShardContext;
+import BudgetTracker.Tracker.dto.IngestionTicket;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.exceptions.IngestionQueueFullException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for expense creation.
+ * When enabled, {@code POST /expenses} validates the expense synchronously, appends it to a bounded ring buffer and
+ * returns a tracking ID right away, while a single writer thread drains the buffer in batches through
+ * {@link ExpensesService#saveValidatedExpenses(List)}. Optionally every accepted expense is also written to an
+ * append-only journal so that expenses still queued when the process stops are persisted after a restart.
+ */
+@Service
+public class ExpenseIngestionQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseIngestionQueue.class);
+
+    /**
+     * An expense waiting in the ring buffer together with its tracking ticket and the shard it is written to.
+     */
+    private record Pending(IngestionTicket ticket, Expenses expense, int shard) {
+    }
+
+    @Autowired
+    private ExpensesService expensesService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${tracker.ingestion.enabled:false}")
+    private boolean enabled;
+
+    @Value("${tracker.ingestion.capacity:10000}")
+    private int capacity;
+
+    @Value("${tracker.ingestion.batch-size:500}")
+    private int batchSize;
+
+    @Value("${tracker.ingestion.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${tracker.ingestion.status-retention:100000}")
+    private int statusRetention;
+
+    @Value("${tracker.ingestion.journal.enabled:false}")
+    private boolean journalEnabled;
+
+    @Value("${tracker.ingestion.journal.path:data/expense-ingestion.journal}")
+    private String journalPath;
+
+    @Value("${tracker.ingestion.journal.fsync:false}")
+    private boolean journalFsync;
+
+    @Value("${tracker.bulkheads.background:bulk}")
+    private String bulkhead;
+
+    private ArrayBlockingQueue<Pending> buffer;
+    private Semaphore freeSlots;
+    private ExpenseIngestionJournal journal;
+    private final Map<String, IngestionTicket> tickets = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> completedTickets = new ConcurrentLinkedQueue<>();
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Allocates the ring buffer, replays the journal when durability is enabled and starts the writer thread.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        buffer = new ArrayBlockingQueue<>(capacity);
+        freeSlots = new Semaphore(capacity);
+        if (journalEnabled) {
+            journal = new ExpenseIngestionJournal(Paths.get(journalPath), journalFsync, objectMapper);
+            List<ExpenseIngestionJournal.Entry> replayed = journal.replay();
+            if (!replayed.isEmpty()) {
+                log.info("Replaying {} queued expenses from ingestion journal {}", replayed.size(), journalPath);
+            }
+            // Persist the backlog before accepting new expenses so the buffer starts empty
+            List<Pending> batch = new ArrayList<>(batchSize);
+            for (ExpenseIngestionJournal.Entry entry : replayed) {
+                IngestionTicket ticket = new IngestionTicket(entry.trackingId(), Instant.now());
+                tickets.put(ticket.getTrackingId(), ticket);
+                int shard = shardRouter.shardOfBudget(entry.expense().getBudget().getBudgetId());
+                batch.add(new Pending(ticket, entry.expense(), shard));
+                if (batch.size() == batchSize) {
+                    persist(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                persist(batch);
+            }
+        }
+        running = true;
+        // Queued writes are bulk work, on the connections of its bulkhead
+        writer = new Thread(() -> BulkheadContext.runIn(bulkhead, this::drainLoop), "expense-ingestion-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops accepting expenses, persists whatever is still buffered and closes the journal.
+     * The writer is not interrupted: an interrupt landing while it writes the journal would close the journal's
+     * channel, so its commit records would be lost and saved expenses replayed on the next start. It notices the
+     * stop within the poll timeout instead.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Indicates whether {@code POST /expenses} should go through this queue.
+     *
+     * @return True if the write-behind mode is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Validates an expense and queues it for asynchronous persistence.
+     *
+     * @param expense The expense object to be created.
+     * @return The ticket to track the queued expense with.
+     * @throws IngestionQueueFullException If no slot frees up in the buffer within the configured offer timeout.
+     */
+    public IngestionTicket submit(Expenses expense) {
+        if (!running) {
+            throw new IngestionQueueFullException("Expense ingestion is not accepting new expenses.");
+        }
+        expensesService.validateNewExpense(expense);
+        try {
+            if (!freeSlots.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IngestionQueueFullException("Expense ingestion queue is full. Please retry later.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IngestionQueueFullException("Interrupted while waiting for a free ingestion slot.");
+        }
+        IngestionTicket ticket = new IngestionTicket(UUID.randomUUID().toString(), Instant.now());
+        try {
+            if (journal != null) {
+                journal.append(ticket.getTrackingId(), expense);
+            }
+        } catch (RuntimeException e) {
+            freeSlots.release();
+            throw e;
+        }
+        tickets.put(ticket.getTrackingId(), ticket);
+        // A free slot was reserved above, so the buffer always has room here
+        buffer.add(new Pending(ticket, expense, ShardContext.current()));
+        return ticket;
+    }
+
+    /**
+     * Looks up the ticket of a queued expense.
+     *
+     * @param trackingId The tracking ID returned when the expense was accepted.
+     * @return The ticket, or null if the ID is unknown or its status was already evicted.
+     */
+    public IngestionTicket getTicket(String trackingId) {
+        return tickets.get(trackingId);
+    }
+
+    /**
+     * Summarizes the state of the queue for the status endpoint.
+     *
+     * @return A map with the mode, the number of buffered expenses and the buffer capacity.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("durable", journal != null);
+        status.put("queued", buffer == null ? 0 : buffer.size());
+        status.put("capacity", enabled ? capacity : 0);
+        return status;
+    }
+
+    private void drainLoop() {
+        while (running || !buffer.isEmpty()) {
+            try {
+                if (running) {
+                    Pending first = buffer.poll(1, TimeUnit.SECONDS);
+                    if (first != null) {
+                        List<Pending> batch = new ArrayList<>(batchSize);
+                        batch.add(first);
+                        buffer.drainTo(batch, batchSize - 1);
+                        persistAndRelease(batch);
+                    }
+                } else {
+                    List<Pending> batch = new ArrayList<>(batchSize);
+                    buffer.drainTo(batch, batchSize);
+                    persistAndRelease(batch);
+                }
+            } catch (InterruptedException e) {
+                // Not interrupted by stop(); the loop condition still flushes what is left before the thread ends
+                Thread.interrupted();
+            } catch (RuntimeException e) {
+                log.error("Expense ingestion writer failed", e);
+            }
+        }
+    }
+
+    private void persistAndRelease(List<Pending> batch) {
+        try {
+            persist(batch);
+        } finally {
+            // The slots are free again however the batch ended, or the queue would fill up for good
+            freeSlots.release(batch.size());
+        }
+    }
+
+    private void persist(List<Pending> batch) {
+        // Each shard is written in its own transaction
+        Map<Integer, List<Pending>> byShard = new TreeMap<>();
+        for (Pending pending : batch) {
+            byShard.computeIfAbsent(pending.shard(), shard -> new ArrayList<>()).add(pending);
+        }
+        try {
+            byShard.forEach((shard, shardBatch) -> ShardContext.runOn(shard, () -> save(shardBatch)));
+        } finally {
+            List<String> trackingIds = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                if (pending.ticket().getStatus() == IngestionTicket.Status.QUEUED) {
+                    // Its shard failed before saving anything; the ticket and the journal both record the failure
+                    pending.ticket().markFailed("The expense could not be written.");
+                }
+                trackingIds.add(pending.ticket().getTrackingId());
+            }
+            if (journal != null) {
+                try {
+                    journal.commit(trackingIds);
+                } catch (UncheckedIOException e) {
+                    // The expenses are saved; the journal records them with its next commit, so they are not replayed
+                    log.error("Unable to record {} written expenses in the ingestion journal", trackingIds.size(), e);
+                }
+            }
+            retain(trackingIds);
+        }
+    }
+
+    private void save(List<Pending> batch) {
+        List<Expenses> expenses = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            expenses.add(pending.expense());
+        }
+        try {
+            List<Expenses> saved = expensesService.saveValidatedExpenses(expenses);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).ticket().markPersisted(saved.get(i).getExpensesId());
+            }
+        } catch (RuntimeException batchFailure) {
+            // Retry one by one so a single bad row does not fail the whole batch
+            for (Pending pending : batch) {
+                try {
+                    Expenses saved = expensesService.saveValidatedExpenses(List.of(pending.expense())).get(0);
+                    pending.ticket().markPersisted(saved.getExpensesId());
+                } catch (RuntimeException e) {
+                    log.warn("Unable to persist queued expense {}", pending.ticket().getTrackingId(), e);
+                    pending.ticket().markFailed(e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void retain(List<String> trackingIds) {
+        completedTickets.addAll(trackingIds);
+        while (tickets.size() > statusRetention) {
+            String oldest = completedTickets.poll();
+            if (oldest == null) {
+                break;
+            }
+            tickets.remove(oldest);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package BudgetTracker.Tracker.service;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memory-mapped file holding the expense columns of one user, so that they survive a restart.
+ * <p>
+ * The file holds a base image of the columns, the data version of each of the user's budgets at the time of the
+ * image, and a log of the expense writes applied since. Each write appends one fixed-size record and then advances
+ * the committed record count in the header, so a record cut off by a crash is simply not replayed. Writes reach the
+ * page cache right away and survive the process exiting without being forced to disk. Replaying a record of an
+ * expense write also advances its budget's version, which therefore matches {@code budgets.data_version} as long as
+ * the file saw every write. When the log is full the base image is rewritten from the columns in memory, into a new
+ * file that replaces the old one atomically.
+ * Not thread-safe; {@link ExpenseAnalyticsService} guards every instance with the monitor of its user.
+ */
+public final class ExpenseSnapshot {
+
+    static final byte PUT = 1;
+    static final byte REMOVE = 2;
+    static final byte ADD_BUDGET = 3;
+    static final byte REMOVE_BUDGET = 4;
+
+    private static final int MAGIC = 0x45585053;
+    private static final int FORMAT = 1;
+    // magic, format, user ID, budget count, row count, committed log records, log capacity
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 4 + 4;
+    private static final int LOG_RECORDS_OFFSET = 24;
+    private static final int BUDGET_BYTES = 8 + 8;
+    // ID, budget ID, amount and date
+    private static final int ROW_BYTES = 8 + 8 + 8 + 8;
+    // Operation, then the row fields
+    private static final int RECORD_BYTES = 1 + ROW_BYTES;
+
+    private final Path file;
+    private final long userId;
+    private final Map<Long, Long> versions;
+    private MappedByteBuffer buffer;
+    private int logStart;
+    private int logRecords;
+    private int logCapacity;
+
+    private ExpenseSnapshot(Path file, long userId, Map<Long, Long> versions) {
+        this.file = file;
+        this.userId = userId;
+        this.versions = versions;
+    }
+
+    /**
+     * Writes a new snapshot, replacing any existing file.
+     *
+     * @param file        The snapshot file.
+     * @param userId      The ID of the user.
+     * @param columns     The expenses of the user.
+     * @param versions    The data version of each budget of the user, read before the expenses.
+     * @param logCapacity The number of writes to log before the base image is rewritten.
+     * @return The snapshot, open for appending writes.
+     * @throws IOException If the file cannot be written.
+     */
+    static ExpenseSnapshot create(Path file, long userId, ExpenseColumns columns, Map<Long, Long> versions, int logCapacity) throws IOException {
+        ExpenseSnapshot snapshot = new ExpenseSnapshot(file, userId, new HashMap<>(versions));
+        snapshot.rewrite(columns, logCapacity);
+        return snapshot;
+    }
+
+    /**
+     * Maps an existing snapshot and replays its log.
+     *
+     * @param file   The snapshot file.
+     * @param userId The ID of the user the file must belong to.
+     * @param into   Receives the expenses of the snapshot; partly filled and to be discarded when null is returned.
+     * @return The snapshot, open for appending writes, or null if the file is missing or not a valid snapshot of the user.
+     * @throws IOException If the file cannot be read.
+     */
+    static ExpenseSnapshot open(Path file, long userId, ExpenseColumns into) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT || buffer.getLong(8) != userId) {
+                return null;
+            }
+            int budgetCount = buffer.getInt(16);
+            int rowCount = buffer.getInt(20);
+            int logRecords = buffer.getInt(LOG_RECORDS_OFFSET);
+            int logCapacity = buffer.getInt(28);
+            long logStart = HEADER_BYTES + (long) budgetCount * BUDGET_BYTES + (long) rowCount * ROW_BYTES;
+            if (budgetCount < 0 || rowCount < 0 || logRecords < 0 || logRecords > logCapacity
+                    || logStart + (long) logCapacity * RECORD_BYTES != buffer.capacity()) {
+                return null;
+            }
+
+            ExpenseSnapshot snapshot = new ExpenseSnapshot(file, userId, new HashMap<>());
+            buffer.position(HEADER_BYTES);
+            for (int i = 0; i < budgetCount; i++) {
+                snapshot.versions.put(buffer.getLong(), buffer.getLong());
+            }
+            for (int row = 0; row < rowCount; row++) {
+                long id = buffer.getLong();
+                long budgetId = buffer.getLong();
+                into.put(id, budgetId, buffer.getLong(), buffer.getLong());
+            }
+            for (int record = 0; record < logRecords; record++) {
+                byte op = buffer.get();
+                long id = buffer.getLong();
+                long budgetId = buffer.getLong();
+                long amount = buffer.getLong();
+                long date = buffer.getLong();
+                snapshot.apply(op, id, budgetId, amount, date, into);
+            }
+            snapshot.buffer = buffer;
+            snapshot.logStart = (int) logStart;
+            snapshot.logRecords = logRecords;
+            snapshot.logCapacity = logCapacity;
+            return snapshot;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The data version of each budget, as of the writes the snapshot has seen.
+     */
+    public Map<Long, Long> versions() {
+        return versions;
+    }
+
+    /**
+     * Records a write that was already applied to the columns in memory.
+     *
+     * @param op       One of {@link #PUT}, {@link #REMOVE}, {@link #ADD_BUDGET} or {@link #REMOVE_BUDGET}.
+     * @param id       The ID of the expense, or the budget ID for budget operations.
+     * @param budgetId The ID of the budget.
+     * @param amount   The amount of the expense.
+     * @param date     The date of the expense, or {@link ExpenseColumns#NO_DATE}.
+     * @param current  The columns in memory, written out as the new base image when the log is full.
+     * @throws IOException If the base image cannot be rewritten.
+     */
+    void append(byte op, long id, long budgetId, long amount, long date, ExpenseColumns current) throws IOException {
+        applyToVersions(op, budgetId);
+        if (logRecords == logCapacity) {
+            rewrite(current, logCapacity);
+            return;
+        }
+        buffer.position(logStart + logRecords * RECORD_BYTES);
+        buffer.put(op).putLong(id).putLong(budgetId).putLong(amount).putLong(date);
+        // Commits the record
+        buffer.putInt(LOG_RECORDS_OFFSET, ++logRecords);
+    }
+
+    private void apply(byte op, long id, long budgetId, long amount, long date, ExpenseColumns columns) {
+        switch (op) {
+            case PUT -> columns.put(id, budgetId, amount, date);
+            case REMOVE -> columns.remove(id);
+            case REMOVE_BUDGET -> columns.removeBudget(budgetId);
+            case ADD_BUDGET -> { }
+            default -> throw new IllegalArgumentException("Unknown snapshot operation " + op);
+        }
+        applyToVersions(op, budgetId);
+    }
+
+    private void applyToVersions(byte op, long budgetId) {
+        switch (op) {
+            case PUT, REMOVE -> versions.merge(budgetId, 1L, Long::sum);
+            case ADD_BUDGET -> versions.putIfAbsent(budgetId, 0L);
+            case REMOVE_BUDGET -> versions.remove(budgetId);
+            default -> throw new IllegalArgumentException("Unknown snapshot operation " + op);
+        }
+    }
+
+    private void rewrite(ExpenseColumns columns, int logCapacity) throws IOException {
+        int size = columns.size();
+        long base = HEADER_BYTES + (long) versions.size() * BUDGET_BYTES + (long) size * ROW_BYTES;
+        long length = base + (long) logCapacity * RECORD_BYTES;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of user " + userId + " would exceed 2 GB");
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+        mapped.putInt(MAGIC).putInt(FORMAT).putLong(userId).putInt(versions.size()).putInt(size).putInt(0).putInt(logCapacity);
+        versions.forEach((budgetId, version) -> mapped.putLong(budgetId).putLong(version));
+        for (int row = 0; row < size; row++) {
+            mapped.putLong(columns.idAt(row)).putLong(columns.budgetIdAt(row)).putLong(columns.amountAt(row)).putLong(columns.dateAt(row));
+        }
+        mapped.force();
+        // The mapping stays valid for the renamed file
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        buffer = mapped;
+        logStart = (int) base;
+        logRecords = 0;
+        this.logCapacity = logCapacity;
+    }
+}
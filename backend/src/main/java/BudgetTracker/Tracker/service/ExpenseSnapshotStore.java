@@ -0,0 +1,96 @@
+package BudgetTracker.Tracker.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Directory of {@link ExpenseSnapshot} files, one per user, so that a restarted node serves the analytics of
+ * recently active users without reading their expenses again. Disabled unless a directory is configured.
+ * A snapshot that cannot be read or written is deleted and the user's expenses are read from the database instead,
+ * so file errors never fail a request.
+ */
+@Service
+public class ExpenseSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseSnapshotStore.class);
+
+    @Value("${tracker.snapshots.dir:}")
+    private String dir;
+
+    @Value("${tracker.snapshots.log-capacity:4096}")
+    private int logCapacity;
+
+    /**
+     * @return True if snapshots are kept.
+     */
+    public boolean isEnabled() {
+        return !dir.isBlank();
+    }
+
+    /**
+     * Opens the snapshot of a user.
+     *
+     * @param userId The ID of the user.
+     * @param into   Receives the expenses of the snapshot; to be discarded when null is returned.
+     * @return The snapshot, or null if there is no valid one.
+     */
+    public ExpenseSnapshot open(Long userId, ExpenseColumns into) {
+        Path file = fileOf(userId);
+        try {
+            ExpenseSnapshot snapshot = ExpenseSnapshot.open(file, userId, into);
+            if (snapshot == null && Files.exists(file)) {
+                log.warn("Discarding invalid expense snapshot {}", file);
+                delete(userId);
+            }
+            return snapshot;
+        } catch (IOException e) {
+            log.warn("Could not read expense snapshot {}", file, e);
+            delete(userId);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a new snapshot of a user, replacing the previous one.
+     *
+     * @param userId   The ID of the user.
+     * @param columns  The expenses of the user.
+     * @param versions The data version of each budget of the user, read before the expenses.
+     * @return The snapshot, or null if it could not be written.
+     */
+    public ExpenseSnapshot write(Long userId, ExpenseColumns columns, Map<Long, Long> versions) {
+        Path file = fileOf(userId);
+        try {
+            Files.createDirectories(file.getParent());
+            return ExpenseSnapshot.create(file, userId, columns, versions, logCapacity);
+        } catch (IOException e) {
+            log.warn("Could not write expense snapshot {}", file, e);
+            delete(userId);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the snapshot of a user, if any.
+     *
+     * @param userId The ID of the user.
+     */
+    public void delete(Long userId) {
+        try {
+            Files.deleteIfExists(fileOf(userId));
+        } catch (IOException e) {
+            log.warn("Could not delete expense snapshot of user {}", userId, e);
+        }
+    }
+
+    private Path fileOf(Long userId) {
+        return Path.of(dir, "expenses-" + userId + ".snap");
+    }
+}
@@ -0,0 +1,318 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory per-user index of expense tags, answering multi-tag filters with compressed bitmap operations.
+ * <p>
+ * A user's expenses are numbered with dense ordinals, and every tag maps to a {@link RoaringBitmap} of the ordinals
+ * of the expenses carrying it, so "all of" and "any of" filters are bitmap intersections and unions instead of joins.
+ * A user's index is built from the database on its first use, or for every user at startup when enabled, and is
+ * then kept current by the committed expense changes published by {@link ExpensesService}. Like the analytics
+ * columns, the indexes are bounded in memory: the least recently queried users are evicted when the indexes of all
+ * users exceed the configured size, and users not queried for the idle time are evicted in the background.
+ */
+@Service
+public class ExpenseTagIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseTagIndex.class);
+
+    @Autowired
+    private ExpensesRepository expensesRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${tracker.tags.preload-on-startup:false}")
+    private boolean preloadOnStartup;
+
+    @Value("${tracker.tags.max-memory-mb:32}")
+    private long maxMemoryMb;
+
+    @Value("${tracker.tags.idle-eviction-ms:900000}")
+    private long idleEvictionMs;
+
+    private final Map<Long, UserTags> indexes = new ConcurrentHashMap<>();
+    private final AtomicLong memoryBytes = new AtomicLong();
+
+    /**
+     * Builds the index of every user once the application has started, when enabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (!preloadOnStartup) {
+            return;
+        }
+        shardRouter.forEachShard(() -> {
+            Map<Long, List<Object[]>> rowsByUser = new HashMap<>();
+            for (Object[] row : expensesRepository.findAllTags()) {
+                rowsByUser.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(new Object[]{row[1], row[2]});
+            }
+            rowsByUser.forEach((userId, rows) -> indexOf(userId).ensureLoaded(() -> rows));
+        });
+        evictOverLimit(null);
+    }
+
+    /**
+     * Finds the expenses of a user carrying the given tags.
+     *
+     * @param userId   The ID of the user whose expenses to search.
+     * @param tags     The normalized tags to look for.
+     * @param matchAll True to require every tag, false to require any of them.
+     * @return The IDs of the matching expenses, in ascending order.
+     */
+    public List<Long> findExpenseIds(Long userId, Collection<String> tags, boolean matchAll) {
+        UserTags index = indexOf(userId);
+        index.lastAccess = System.nanoTime();
+        if (index.ensureLoaded(() -> expensesRepository.findTagsByUserId(userId))) {
+            evictOverLimit(userId);
+        }
+        // An index evicted meanwhile is still complete, it is only no longer kept current
+        return index.find(tags, matchAll);
+    }
+
+    /**
+     * @return The number of users whose index is held in memory.
+     */
+    public int getIndexedUserCount() {
+        return indexes.size();
+    }
+
+    /**
+     * @return The approximate heap size of the indexes of all users.
+     */
+    public long getMemoryBytes() {
+        return memoryBytes.get();
+    }
+
+    /**
+     * Drops the indexes of users that have not been queried for longer than the configured idle time.
+     */
+    @Scheduled(fixedDelayString = "${tracker.tags.idle-eviction-ms:900000}")
+    public void evictIdleUsers() {
+        long idleSince = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+        indexes.forEach((userId, index) -> {
+            if (index.lastAccess - idleSince < 0) {
+                evict(userId, index);
+            }
+        });
+    }
+
+    /**
+     * Applies a committed expense change to the index of its owner. Deleting a budget removes many expenses at
+     * once, so the owner's index is dropped and rebuilt on its next use.
+     *
+     * @param event The committed change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (event.getUserId() == null) {
+            return;
+        }
+        if (event.getEntityType() == ChangeEvent.EntityType.BUDGET) {
+            if (event.getAction() == ChangeEvent.Action.DELETED) {
+                UserTags index = indexes.get(event.getUserId());
+                if (index != null) {
+                    evict(event.getUserId(), index);
+                }
+            }
+            return;
+        }
+        // Users without an index read every change from the database when it is built
+        UserTags index = indexes.get(event.getUserId());
+        if (index == null) {
+            return;
+        }
+        if (event.getAction() == ChangeEvent.Action.DELETED) {
+            index.remove(event.getEntityId());
+        } else if (event.getData() instanceof Expenses expense) {
+            index.put(event.getEntityId(), expense.getTags());
+        }
+    }
+
+    private UserTags indexOf(Long userId) {
+        return indexes.computeIfAbsent(userId, id -> new UserTags(memoryBytes));
+    }
+
+    /**
+     * Evicts the least recently queried users other than the given one until the memory limit is met.
+     */
+    private void evictOverLimit(Long keptUserId) {
+        long limit = maxMemoryMb * 1024 * 1024;
+        while (memoryBytes.get() > limit) {
+            Map.Entry<Long, UserTags> coldest = null;
+            for (Map.Entry<Long, UserTags> entry : indexes.entrySet()) {
+                if (!entry.getKey().equals(keptUserId)
+                        && (coldest == null || entry.getValue().lastAccess - coldest.getValue().lastAccess < 0)) {
+                    coldest = entry;
+                }
+            }
+            if (coldest == null) {
+                return;
+            }
+            log.debug("Evicting tag index of user {} to stay within {} MB", coldest.getKey(), maxMemoryMb);
+            evict(coldest.getKey(), coldest.getValue());
+        }
+    }
+
+    private void evict(Long userId, UserTags index) {
+        if (indexes.remove(userId, index)) {
+            index.release();
+        }
+    }
+
+    /**
+     * The tag bitmaps of one user. Changes applied while the index is loaded wait for the load to finish, and are
+     * then applied over the loaded rows, so a change is never lost to a concurrent load. The index adds its size to
+     * the shared memory counter after every change, until it is released.
+     */
+    private static final class UserTags {
+
+        // Per expense: the ordinal map entry with its boxed key and value, and the slot in the id list
+        private static final int EXPENSE_BYTES = 80;
+        // Per tag: the map entry, the string and the bitmap object
+        private static final int TAG_BYTES = 120;
+        private static final int OVERHEAD_BYTES = 256;
+
+        private final Map<String, RoaringBitmap> bitmaps = new HashMap<>();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final List<Long> expenseIds = new ArrayList<>();
+        // Ordinals of deleted expenses, handed out again so the ordinals stay dense
+        private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+        private final AtomicLong memoryBytes;
+        private long accountedBytes;
+        private boolean loaded;
+        private boolean released;
+        private volatile long lastAccess = System.nanoTime();
+
+        UserTags(AtomicLong memoryBytes) {
+            this.memoryBytes = memoryBytes;
+        }
+
+        /**
+         * @return True if the index was loaded by this call.
+         */
+        synchronized boolean ensureLoaded(Supplier<List<Object[]>> rows) {
+            if (loaded) {
+                return false;
+            }
+            for (Object[] row : rows.get()) {
+                bitmaps.computeIfAbsent((String) row[1], tag -> new RoaringBitmap()).add(ordinalOf((Long) row[0]));
+            }
+            bitmaps.values().forEach(RoaringBitmap::runOptimize);
+            loaded = true;
+            account();
+            return true;
+        }
+
+        synchronized void put(Long expenseId, Set<String> tags) {
+            removeOrdinal(expenseId);
+            if (tags != null && !tags.isEmpty()) {
+                int ordinal = ordinalOf(expenseId);
+                for (String tag : tags) {
+                    bitmaps.computeIfAbsent(tag, key -> new RoaringBitmap()).add(ordinal);
+                }
+            }
+            account();
+        }
+
+        synchronized void remove(Long expenseId) {
+            removeOrdinal(expenseId);
+            account();
+        }
+
+        /**
+         * Takes the index out of the memory count; it is no longer kept current.
+         */
+        synchronized void release() {
+            released = true;
+            memoryBytes.addAndGet(-accountedBytes);
+            accountedBytes = 0;
+        }
+
+        private void removeOrdinal(Long expenseId) {
+            Integer ordinal = ordinals.remove(expenseId);
+            if (ordinal == null) {
+                return;
+            }
+            bitmaps.values().removeIf(bitmap -> {
+                bitmap.remove(ordinal);
+                return bitmap.isEmpty();
+            });
+            expenseIds.set(ordinal, null);
+            freeOrdinals.push(ordinal);
+        }
+
+        private void account() {
+            if (released) {
+                return;
+            }
+            long bytes = OVERHEAD_BYTES + (long) expenseIds.size() * EXPENSE_BYTES;
+            for (Map.Entry<String, RoaringBitmap> entry : bitmaps.entrySet()) {
+                bytes += TAG_BYTES + entry.getKey().length() * 2L + entry.getValue().getSizeInBytes();
+            }
+            memoryBytes.addAndGet(bytes - accountedBytes);
+            accountedBytes = bytes;
+        }
+
+        synchronized List<Long> find(Collection<String> tags, boolean matchAll) {
+            List<RoaringBitmap> matched = new ArrayList<>(tags.size());
+            for (String tag : tags) {
+                RoaringBitmap bitmap = bitmaps.get(tag);
+                if (bitmap == null) {
+                    if (matchAll) {
+                        return List.of();
+                    }
+                    continue;
+                }
+                matched.add(bitmap);
+            }
+            if (matched.isEmpty()) {
+                return List.of();
+            }
+            RoaringBitmap result = matchAll ? FastAggregation.and(matched.iterator()) : FastAggregation.or(matched.iterator());
+            List<Long> ids = new ArrayList<>(result.getCardinality());
+            result.forEach((int ordinal) -> ids.add(expenseIds.get(ordinal)));
+            ids.sort(null);
+            return ids;
+        }
+
+        private int ordinalOf(Long expenseId) {
+            return ordinals.computeIfAbsent(expenseId, id -> {
+                if (!freeOrdinals.isEmpty()) {
+                    int ordinal = freeOrdinals.pop();
+                    expenseIds.set(ordinal, id);
+                    return ordinal;
+                }
+                expenseIds.add(id);
+                return expenseIds.size() - 1;
+            });
+        }
+    }
+}
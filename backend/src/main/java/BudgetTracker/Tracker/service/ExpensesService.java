@@ -1,7 +1,10 @@
 package BudgetTracker.Tracker.service;
 
+import BudgetTracker.Tracker.config.Deadline;
+import BudgetTracker.Tracker.dto.MultiGetResult;
 import BudgetTracker.Tracker.entity.Budget;
 import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.events.ChangeEvent;
 import BudgetTracker.Tracker.exceptions.BudgetNotFoundException;
 import BudgetTracker.Tracker.exceptions.DuplicateExpenseNameException;
 import BudgetTracker.Tracker.exceptions.ExpenseNotFoundException;
@@ -10,20 +13,48 @@ import BudgetTracker.Tracker.repository.BudgetRepository;
 import BudgetTracker.Tracker.repository.ExpensesRepository;
 import BudgetTracker.Tracker.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 /**
  * Service class for handling business logic related to expenses.
+ * Requests check their {@link Deadline} between steps, so that work stops once the client has given up.
  */
 @Service
 public class ExpensesService {
+
+    private static final int MAX_TAGS = 20;
+    // Upper bound on the IDs bound into one IN list
+    private static final int FETCH_CHUNK_SIZE = 1000;
+    // Upper bound on the IDs of one multi-get request
+    private static final int MAX_MULTI_GET_IDS = 10_000;
+
     @Autowired
     private ExpensesRepository expenseRepository;
     @Autowired
     private BudgetRepository budgetRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+    @Autowired
+    private ExpenseTagIndex expenseTagIndex;
 
     /**
      * Retrieves all expenses.
@@ -31,7 +62,7 @@ public class ExpensesService {
      * @return List of all expenses.
      */
     public List<Expenses> getAllExpenses() {
-        return expenseRepository.findAll();
+        return shardRouter.collectFromAllShards(expenseRepository::findAll);
     }
 
     /**
@@ -44,6 +75,22 @@ public class ExpensesService {
         return expenseRepository.findById(id).orElse(null);
     }
 
+    /**
+     * Retrieves several expenses by their IDs, with one IN query per chunk of IDs on every shard, since any shard may hold them.
+     *
+     * @param ids The IDs of the expenses to retrieve; duplicates are retrieved once.
+     * @return The expenses found in the order of their IDs, and the IDs no expense was found for.
+     * @throws InvalidInputException If more IDs are given than one request may look up.
+     */
+    public MultiGetResult<Expenses> getExpensesByIds(Collection<Long> ids) {
+        List<Long> expenseIds = ids.stream().distinct().toList();
+        if (expenseIds.size() > MAX_MULTI_GET_IDS) {
+            throw new InvalidInputException("too-many-ids", "At most " + MAX_MULTI_GET_IDS + " expense ids can be requested at once.");
+        }
+        List<Expenses> expenses = shardRouter.collectFromAllShards(() -> findByIds(expenseIds));
+        return MultiGetResult.inRequestOrder(expenseIds, expenses, Expenses::getExpensesId);
+    }
+
     /**
      * Retrieves expenses associated with a specific user.
      *
@@ -51,7 +98,46 @@ public class ExpensesService {
      * @return List of expenses associated with the specified user.
      */
     public List<Expenses> getExpensesByUserId(Long userId) {
-        return expenseRepository.findByBudget_User_Id(userId);
+        return requestCoalescer.coalesce("getExpensesByUserId", userId, () -> expenseRepository.findByBudget_User_Id(userId));
+    }
+
+    /**
+     * Retrieves the expenses of a user carrying the given tags, filtered on the user's in-memory tag index.
+     *
+     * @param userId   The ID of the user whose expenses to retrieve.
+     * @param tags     The tags to look for.
+     * @param matchAll True to return the expenses carrying every tag, false for those carrying any of them.
+     * @return List of matching expenses, ordered by ID.
+     * @throws InvalidInputException If no tag is given or a tag is invalid.
+     */
+    public List<Expenses> getExpensesByUserIdAndTags(Long userId, Collection<String> tags, boolean matchAll) {
+        SortedSet<String> normalizedTags = normalizeTags(tags);
+        if (normalizedTags.isEmpty()) {
+            throw new InvalidInputException("missing-tags", "At least one tag is required");
+        }
+        return findByIds(expenseTagIndex.findExpenseIds(userId, normalizedTags, matchAll));
+    }
+
+    // Looks up expenses on the current shard, one IN query per chunk of IDs
+    private List<Expenses> findByIds(List<Long> ids) {
+        List<Expenses> expenses = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += FETCH_CHUNK_SIZE) {
+            Deadline.check();
+            expenses.addAll(expenseRepository.findByExpensesIdIn(ids.subList(from, Math.min(from + FETCH_CHUNK_SIZE, ids.size()))));
+        }
+        return expenses;
+    }
+
+    /**
+     * Retrieves the expenses of several budgets with one query per shard.
+     *
+     * @param budgets The budgets whose expenses to retrieve.
+     * @return The expenses of the budgets, keyed by budget ID. Budgets without expenses are absent.
+     */
+    public Map<Long, List<Expenses>> getExpensesByBudgets(Collection<Budget> budgets) {
+        List<Expenses> expenses = shardRouter.collectByUserShard(budgets, budget -> budget.getUser().getId(),
+                shardBudgets -> expenseRepository.findByBudget_BudgetIdIn(shardBudgets.stream().map(Budget::getBudgetId).toList()));
+        return expenses.stream().collect(Collectors.groupingBy(expense -> expense.getBudget().getBudgetId()));
     }
 
     /**
@@ -64,30 +150,79 @@ public class ExpensesService {
      * @throws BudgetNotFoundException       If the budget associated with the expense is not found.
      * @throws DuplicateExpenseNameException If an expense with the same name already exists for the user.
      */
+    @Transactional
     public Expenses createExpense(Expenses expense) {
+        Budget budget = validateNewExpense(expense);
+        Deadline.check();
+        Expenses savedExpense = expenseRepository.save(expense);
+        budgetAlertService.applySpendDelta(budget, savedExpense.getExpensesAmount());
+        publishChange(ChangeEvent.Action.CREATED, budget, savedExpense.getExpensesId(), savedExpense);
+        return savedExpense;
+    }
+
+    /**
+     * Validates an expense that is about to be created without persisting it.
+     *
+     * @param expense The expense object to be validated.
+     * @return The budget the expense belongs to.
+     * @throws InvalidInputException         If the budget is not set in the expense, expenses description is not alphanumeric
+     *                                       or expenses amount is negative.
+     * @throws BudgetNotFoundException       If the budget associated with the expense is not found.
+     * @throws DuplicateExpenseNameException If an expense with the same name already exists for the user.
+     */
+    public Budget validateNewExpense(Expenses expense) {
         // Check if the budget is set
         if (expense.getBudget() == null || expense.getBudget().getBudgetId() == null) {
-            throw new InvalidInputException("Budget is not set in the expense");
+            throw new InvalidInputException("missing-budget", "Budget is not set in the expense");
         }
         // Validate expenses description to be alphanumeric
         if (!isAlphanumeric(expense.getExpensesDescription())) {
-            throw new InvalidInputException("ExpensesDescription must be alphanumeric");
+            throw new InvalidInputException("invalid-expense-description", "ExpensesDescription must be alphanumeric");
         }
         // Validate expenses amount to be non-negative numbers
         if (expense.getExpensesAmount() < 0) {
-            throw new InvalidInputException("expenses amount cannot be negative.");
+            throw new InvalidInputException("invalid-expense-amount", "expenses amount cannot be negative.");
+        }
+        if (expense.getTags() != null) {
+            expense.setTags(normalizeTags(expense.getTags()));
         }
         // Check if the budget exists
         Budget budget = budgetRepository.findById(expense.getBudget().getBudgetId())
                 .orElseThrow(() -> new BudgetNotFoundException("Budget with ID " + expense.getBudget().getBudgetId() + " not found"));
+        Deadline.check();
 
         // Check if the expense with the same description already exists for this budget
         boolean exists = expenseRepository.existsByExpensesDescriptionAndBudget_User_Id(expense.getExpensesDescription(), expense.getBudget().getBudgetId());
         if (exists) {
             throw new DuplicateExpenseNameException("An expense with the name \"" + expense.getExpensesDescription() + "\" already exists for this user.");
         }
+        return budget;
+    }
 
-        return expenseRepository.save(expense);
+    /**
+     * Persists a batch of expenses that were already validated by {@link #validateNewExpense(Expenses)}.
+     * Used by the write-behind ingestion queue to insert queued expenses in one transaction.
+     *
+     * @param expenses The validated expenses to be saved.
+     * @return The saved expenses, in the same order as given.
+     */
+    @Transactional
+    public List<Expenses> saveValidatedExpenses(List<Expenses> expenses) {
+        List<Expenses> savedExpenses = expenseRepository.saveAll(expenses);
+        // Queued expenses only reference their budget by ID, so load each budget once and adjust its total once per batch
+        Map<Long, Budget> budgets = new HashMap<>();
+        Map<Long, Long> deltas = new HashMap<>();
+        Map<Long, Integer> writes = new HashMap<>();
+        for (Expenses savedExpense : savedExpenses) {
+            Long budgetId = savedExpense.getBudget().getBudgetId();
+            Budget budget = budgets.computeIfAbsent(budgetId, id -> budgetRepository.findById(id)
+                    .orElseThrow(() -> new BudgetNotFoundException("Budget with ID " + id + " not found")));
+            deltas.merge(budgetId, (long) savedExpense.getExpensesAmount(), Long::sum);
+            writes.merge(budgetId, 1, Integer::sum);
+            publishChange(ChangeEvent.Action.CREATED, budget, savedExpense.getExpensesId(), savedExpense);
+        }
+        deltas.forEach((budgetId, delta) -> budgetAlertService.applySpendDelta(budgets.get(budgetId), delta, writes.get(budgetId)));
+        return savedExpenses;
     }
 
     /**
@@ -100,6 +235,28 @@ public class ExpensesService {
         return str.matches("^(?=.*[a-zA-Z])[a-zA-Z0-9 ]+$");
     }
 
+    /**
+     * Trims and lowercases tags, dropping duplicates.
+     *
+     * @param tags The tags to be normalized.
+     * @return The normalized tags, sorted.
+     * @throws InvalidInputException If there are too many tags or a tag is not a short alphanumeric word.
+     */
+    private SortedSet<String> normalizeTags(Collection<String> tags) {
+        SortedSet<String> normalized = new TreeSet<>();
+        for (String tag : tags) {
+            String value = tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT);
+            if (!value.matches("^[a-z0-9][a-z0-9-]{0,31}$")) {
+                throw new InvalidInputException("invalid-tag", "Tags must be alphanumeric words of at most 32 characters");
+            }
+            normalized.add(value);
+        }
+        if (normalized.size() > MAX_TAGS) {
+            throw new InvalidInputException("too-many-tags", "An expense can have at most " + MAX_TAGS + " tags");
+        }
+        return normalized;
+    }
+
     /**
      * Updates an existing expense with the given ID using the provided expense details.
      *
@@ -111,30 +268,34 @@ public class ExpensesService {
      * @throws BudgetNotFoundException       If the budget specified in the expense details is not found.
      * @throws DuplicateExpenseNameException If an expense with the same description already exists for the same budget.
      */
-
+    @Transactional
     public Expenses updateExpense(Long id, Expenses expenseDetails) {
         // Check if the expense with the given ID exists
         Expenses expenseToUpdate = expenseRepository.findById(id)
                 .orElseThrow(() -> new ExpenseNotFoundException("Expense with ID " + id + " not found"));
+        Deadline.check();
 
         // Check if the budget is set in the expense details
         if (expenseDetails.getBudget() == null || expenseDetails.getBudget().getBudgetId() == null) {
-            throw new InvalidInputException("Budget is not set in the expense");
+            throw new InvalidInputException("missing-budget", "Budget is not set in the expense");
         }
 
         // Validate expenses description to be alphanumeric
         if (!isAlphanumeric(expenseDetails.getExpensesDescription())) {
-            throw new InvalidInputException("ExpensesDescription must be alphanumeric");
+            throw new InvalidInputException("invalid-expense-description", "ExpensesDescription must be alphanumeric");
         }
 
         // Validate expenses amount to be non-negative numbers
         if (expenseDetails.getExpensesAmount() < 0) {
-            throw new InvalidInputException("Expenses amount cannot be negative.");
+            throw new InvalidInputException("invalid-expense-amount", "Expenses amount cannot be negative.");
         }
 
+        SortedSet<String> tags = expenseDetails.getTags() == null ? null : normalizeTags(expenseDetails.getTags());
+
         // Check if the budget exists
         Budget budget = budgetRepository.findById(expenseDetails.getBudget().getBudgetId())
                 .orElseThrow(() -> new BudgetNotFoundException("Budget with ID " + expenseDetails.getBudget().getBudgetId() + " not found"));
+        Deadline.check();
 
         // Check if the expense with the same description already exists for this budget
         boolean exists = expenseRepository.existsByExpensesDescriptionAndBudget_User_Id(expenseDetails.getExpensesDescription(), expenseDetails.getBudget().getBudgetId());
@@ -143,11 +304,22 @@ public class ExpensesService {
         }
 
         // Update the expense details
+        long delta = (long) expenseDetails.getExpensesAmount() - expenseToUpdate.getExpensesAmount();
         expenseToUpdate.setExpensesDescription(expenseDetails.getExpensesDescription());
         expenseToUpdate.setExpensesAmount(expenseDetails.getExpensesAmount());
+        if (tags != null) {
+            // Tags left out of the request are kept
+            expenseToUpdate.setTags(tags);
+        }
         // Update other fields as needed
 
-        return expenseRepository.save(expenseToUpdate);
+        Deadline.check();
+        Expenses savedExpense = expenseRepository.save(expenseToUpdate);
+        if (expenseToUpdate.getBudget() != null) {
+            budgetAlertService.applySpendDelta(expenseToUpdate.getBudget(), delta);
+        }
+        publishChange(ChangeEvent.Action.UPDATED, expenseToUpdate.getBudget(), id, savedExpense);
+        return savedExpense;
     }
 
 
@@ -158,16 +330,35 @@ public class ExpensesService {
      * @throws ExpenseNotFoundException If the expense with the specified ID is not found.
      * @throws RuntimeException        If an unexpected error occurs during the deletion process.
      */
+    @Transactional
     public void deleteExpense(Long id) {
-        if (!expenseRepository.existsById(id)) {
-            throw new ExpenseNotFoundException("Expense with ID " + id + " not found");
-        }
+        Expenses expense = expenseRepository.findById(id)
+                .orElseThrow(() -> new ExpenseNotFoundException("Expense with ID " + id + " not found"));
+        Deadline.check();
 
         try {
             expenseRepository.deleteById(id);
         } catch (Exception e) {
             throw new RuntimeException("Error occurred while deleting expense with ID " + id, e);
         }
+        if (expense.getBudget() != null) {
+            budgetAlertService.applySpendDelta(expense.getBudget(), -expense.getExpensesAmount());
+        }
+        publishChange(ChangeEvent.Action.DELETED, expense.getBudget(), id, null);
+    }
+
+    /**
+     * Publishes an expense change, delivered to the user's event stream once the transaction commits.
+     *
+     * @param action    The kind of change that was made.
+     * @param budget    The budget the expense belongs to.
+     * @param expenseId The ID of the changed expense.
+     * @param expense   The expense after the change, or null if it was deleted.
+     */
+    private void publishChange(ChangeEvent.Action action, Budget budget, Long expenseId, Expenses expense) {
+        Long budgetId = budget == null ? null : budget.getBudgetId();
+        Long userId = budget == null || budget.getUser() == null ? null : budget.getUser().getId();
+        eventPublisher.publishEvent(new ChangeEvent(userId, ChangeEvent.EntityType.EXPENSE, action, expenseId, budgetId, expense));
     }
 
 }
@@ -0,0 +1,301 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.config.BulkheadContext;
+import BudgetTracker.Tracker.config.ShardContext;
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * Generates the expenses of recurring expenses that have come due.
+ * <p>
+ * The work is partitioned by user id: a node handles the users with {@code user_id % shard-count == shard-index},
+ * and splits its share again between {@code workers} threads. Due definitions are read in chunks ordered by id, and
+ * each chunk is written in one transaction with JDBC batch statements: the next occurrence of every definition is
+ * advanced with a conditional update that only succeeds if no other worker advanced it first, and only the
+ * definitions that were claimed this way get their expenses inserted. Each inserted expense is published as a
+ * {@link ChangeEvent} that listeners receive when the chunk commits. Occurrences missed while the application was
+ * down are generated on the next run, up to {@code max-catch-up} per definition and run.
+ */
+@Service
+public class RecurringExpenseScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(RecurringExpenseScheduler.class);
+
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private static final String SELECT_DUE = "SELECT recurring_expense_id, budget_id, description, amount, recurrence_rule, "
+            + "next_occurrence, end_date FROM recurring_expenses WHERE next_occurrence <= ? AND MOD(user_id, ?) = ? "
+            + "AND recurring_expense_id > ? ORDER BY recurring_expense_id LIMIT ?";
+    private static final String CLAIM = "UPDATE recurring_expenses SET next_occurrence = ? "
+            + "WHERE recurring_expense_id = ? AND next_occurrence = ?";
+    private static final String INSERT_EXPENSE = "INSERT INTO expenses (expenses_description, expenses_amount, date, budget_id) "
+            + "VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${tracker.recurring.enabled:true}")
+    private boolean enabled;
+    @Value("${tracker.recurring.shard-count:1}")
+    private int shardCount;
+    @Value("${tracker.recurring.shard-index:0}")
+    private int shardIndex;
+    @Value("${tracker.recurring.workers:1}")
+    private int workers;
+    @Value("${tracker.recurring.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${tracker.recurring.max-catch-up:400}")
+    private int maxCatchUp;
+    @Value("${tracker.recurring.catch-up-on-startup:true}")
+    private boolean catchUpOnStartup;
+    @Value("${tracker.bulkheads.background:bulk}")
+    private String bulkhead;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService executor;
+
+    /**
+     * Generates the occurrences missed while the application was down, in the background once it has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        if (enabled && catchUpOnStartup) {
+            executor().submit(this::runScheduled);
+        }
+    }
+
+    /**
+     * Generates the occurrences due today, on the configured schedule.
+     */
+    @Scheduled(cron = "${tracker.recurring.cron:0 5 0 * * *}")
+    public void runScheduled() {
+        if (enabled) {
+            generateDueExpenses(LocalDate.now(ZoneOffset.UTC));
+        }
+    }
+
+    /**
+     * Generates the expenses of every occurrence on or before the given date in this node's share of the users.
+     * Does nothing if a run is already in progress on this node.
+     *
+     * @param today The last date for which occurrences are generated.
+     * @return The number of expenses generated.
+     */
+    public int generateDueExpenses(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Recurring expense generation is already running, skipping");
+            return 0;
+        }
+        try {
+            int partitions = shardCount * workers;
+            List<Future<Integer>> results = new ArrayList<>();
+            // Each database shard of user data is walked separately, with the same partitioning
+            for (int database = 0; database < shardRouter.getShardCount(); database++) {
+                int databaseShard = database;
+                for (int worker = 0; worker < workers; worker++) {
+                    int remainder = shardIndex + shardCount * worker;
+                    results.add(executor().submit(() -> ShardContext.callOn(databaseShard,
+                            () -> generatePartition(today, partitions, remainder))));
+                }
+            }
+            int generated = 0;
+            for (Future<Integer> result : results) {
+                generated += result.get();
+            }
+            log.info("Generated {} recurring expenses due by {}", generated, today);
+            return generated;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (Exception e) {
+            log.error("Recurring expense generation failed", e);
+            return 0;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Generates the due occurrences of the users whose id falls in one partition, one chunk per transaction.
+     */
+    int generatePartition(LocalDate today, int partitions, int remainder) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int generated = 0;
+        long lastId = 0;
+        while (true) {
+            List<Due> chunk = jdbcTemplate.query(SELECT_DUE, (rs, rowNum) -> new Due(
+                    rs.getLong("recurring_expense_id"),
+                    rs.getLong("budget_id"),
+                    rs.getString("description"),
+                    rs.getInt("amount"),
+                    rs.getString("recurrence_rule"),
+                    rs.getDate("next_occurrence").toLocalDate(),
+                    rs.getDate("end_date") == null ? null : rs.getDate("end_date").toLocalDate()
+            ), Date.valueOf(today), partitions, remainder, lastId, chunkSize);
+            if (chunk.isEmpty()) {
+                return generated;
+            }
+            Integer written = transaction.execute(status -> writeChunk(chunk, today));
+            generated += written == null ? 0 : written;
+            lastId = chunk.get(chunk.size() - 1).id();
+            if (chunk.size() < chunkSize) {
+                return generated;
+            }
+        }
+    }
+
+    private int writeChunk(List<Due> chunk, LocalDate today) {
+        List<Object[]> claims = new ArrayList<>(chunk.size());
+        List<List<LocalDate>> occurrences = new ArrayList<>(chunk.size());
+        for (Due due : chunk) {
+            CronExpression rule = RecurringExpenseService.parseRule(due.rule());
+            List<LocalDate> dates = new ArrayList<>();
+            LocalDate date = due.nextOccurrence();
+            while (RecurringExpenseService.isWithinEnd(date, due.endDate()) && !date.isAfter(today) && dates.size() < maxCatchUp) {
+                dates.add(date);
+                date = RecurringExpenseService.nextOccurrence(rule, date);
+            }
+            LocalDate next = RecurringExpenseService.isWithinEnd(date, due.endDate()) ? date : null;
+            claims.add(new Object[]{next == null ? null : Date.valueOf(next), due.id(), Date.valueOf(due.nextOccurrence())});
+            occurrences.add(dates);
+        }
+
+        // Claim first: a definition another worker has already advanced updates no row and is skipped
+        int[] claimed = jdbcTemplate.batchUpdate(CLAIM, claims);
+        Map<Long, Long> deltas = new HashMap<>();
+        Map<Long, Integer> writes = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (claimed[i] != 0 && !occurrences.get(i).isEmpty()) {
+                Due due = chunk.get(i);
+                deltas.merge(due.budgetId(), (long) due.amount() * occurrences.get(i).size(), Long::sum);
+                writes.merge(due.budgetId(), occurrences.get(i).size(), Integer::sum);
+            }
+        }
+        Map<Long, Budget> budgets = new HashMap<>();
+        budgetRepository.findAllById(deltas.keySet()).forEach(budget -> budgets.put(budget.getBudgetId(), budget));
+        List<Expenses> inserts = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Due due = chunk.get(i);
+            if (claimed[i] == 0 || !budgets.containsKey(due.budgetId())) {
+                continue;
+            }
+            for (LocalDate date : occurrences.get(i)) {
+                Expenses expense = new Expenses();
+                expense.setExpensesDescription(due.description() + " " + date.toString().replace("-", ""));
+                expense.setExpensesAmount(due.amount());
+                expense.setExpensesDate(date.atStartOfDay().toInstant(ZoneOffset.UTC));
+                expense.setTags(new TreeSet<>());
+                expense.setBudget(budgets.get(due.budgetId()));
+                inserts.add(expense);
+            }
+        }
+        for (int from = 0; from < inserts.size(); from += chunkSize) {
+            insert(inserts.subList(from, Math.min(from + chunkSize, inserts.size())));
+        }
+        // Listeners receive the events once the chunk commits, like those of expenses created through the API
+        for (Expenses expense : inserts) {
+            Budget budget = expense.getBudget();
+            eventPublisher.publishEvent(new ChangeEvent(budget.getUser() == null ? null : budget.getUser().getId(),
+                    ChangeEvent.EntityType.EXPENSE, ChangeEvent.Action.CREATED, expense.getExpensesId(), budget.getBudgetId(), expense));
+        }
+        budgets.forEach((budgetId, budget) -> budgetAlertService.applySpendDelta(budget, deltas.get(budgetId), writes.get(budgetId)));
+        return inserts.size();
+    }
+
+    /**
+     * Inserts expenses with one JDBC batch and sets the IDs generated for them.
+     */
+    private void insert(List<Expenses> expenses) {
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_EXPENSE, new String[]{"expenses_id"})) {
+                for (Expenses expense : expenses) {
+                    statement.setString(1, expense.getExpensesDescription());
+                    statement.setInt(2, expense.getExpensesAmount());
+                    statement.setObject(3, expense.getExpensesDate().atOffset(ZoneOffset.UTC));
+                    statement.setLong(4, expense.getBudget().getBudgetId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Expenses expense : expenses) {
+                        if (!keys.next()) {
+                            throw new SQLException("Missing generated key for a recurring expense");
+                        }
+                        expense.setExpensesId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            // Workers run within the trace of the run that started them
+            executor = ContextExecutorService.wrap(Executors.newFixedThreadPool(workers + 1, runnable -> {
+                // Generation is bulk work, on the connections of its bulkhead
+                Thread thread = new Thread(() -> BulkheadContext.runIn(bulkhead, runnable), "recurring-expenses-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }), CONTEXT_SNAPSHOTS::captureAll);
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Due(long id, long budgetId, String description, int amount, String rule,
+                       LocalDate nextOccurrence, LocalDate endDate) {
+    }
+}
@@ -0,0 +1,141 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.RecurringExpense;
+import BudgetTracker.Tracker.exceptions.BudgetNotFoundException;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.exceptions.RecurringExpenseNotFoundException;
+import BudgetTracker.Tracker.exceptions.UserNotFoundException;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.RecurringExpenseRepository;
+import BudgetTracker.Tracker.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+/**
+ * Service class for handling business logic related to recurring expenses.
+ * The expenses themselves are generated by the {@link RecurringExpenseScheduler}.
+ */
+@Service
+public class RecurringExpenseService {
+    @Autowired
+    private RecurringExpenseRepository recurringExpenseRepository;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Retrieves the recurring expenses of a user.
+     *
+     * @param userId The ID of the user.
+     * @return List of the user's recurring expenses.
+     * @throws UserNotFoundException If the user with the specified ID is not found.
+     */
+    public List<RecurringExpense> getRecurringExpensesByUserId(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("User with ID " + userId + " not found.");
+        }
+        return recurringExpenseRepository.findByUserIdOrderByRecurringExpenseId(userId);
+    }
+
+    /**
+     * Creates a new recurring expense. Its first occurrence is the first date on or after the start date
+     * (today if none is given) that matches the recurrence rule.
+     *
+     * @param recurringExpense The recurring expense to be created.
+     * @return The created recurring expense.
+     * @throws InvalidInputException   If the budget is not set, the description is not alphanumeric, the amount is
+     *                                 negative, the recurrence rule is invalid or the end date precedes the start date.
+     * @throws BudgetNotFoundException If the budget associated with the recurring expense is not found.
+     */
+    @Transactional
+    public RecurringExpense createRecurringExpense(RecurringExpense recurringExpense) {
+        if (recurringExpense.getBudget() == null || recurringExpense.getBudget().getBudgetId() == null) {
+            throw new InvalidInputException("missing-budget", "Budget is not set in the recurring expense");
+        }
+        if (recurringExpense.getDescription() == null || !recurringExpense.getDescription().matches("^(?=.*[a-zA-Z])[a-zA-Z0-9 ]+$")) {
+            throw new InvalidInputException("invalid-recurring-expense-description", "Description must be alphanumeric");
+        }
+        if (recurringExpense.getAmount() < 0) {
+            throw new InvalidInputException("invalid-recurring-expense-amount", "Amount cannot be negative.");
+        }
+        CronExpression rule = parseRule(recurringExpense.getRecurrenceRule());
+        if (recurringExpense.getStartDate() == null) {
+            recurringExpense.setStartDate(LocalDate.now());
+        }
+        if (recurringExpense.getEndDate() != null && recurringExpense.getEndDate().isBefore(recurringExpense.getStartDate())) {
+            throw new InvalidInputException("invalid-date-range", "End date cannot be before the start date.");
+        }
+        Budget budget = budgetRepository.findById(recurringExpense.getBudget().getBudgetId())
+                .orElseThrow(() -> new BudgetNotFoundException("Budget with ID " + recurringExpense.getBudget().getBudgetId() + " not found"));
+
+        recurringExpense.setRecurringExpenseId(null);
+        recurringExpense.setBudget(budget);
+        recurringExpense.setUserId(budget.getUser().getId());
+        LocalDate first = nextOccurrence(rule, recurringExpense.getStartDate().minusDays(1));
+        recurringExpense.setNextOccurrence(isWithinEnd(first, recurringExpense.getEndDate()) ? first : null);
+        return recurringExpenseRepository.save(recurringExpense);
+    }
+
+    /**
+     * Deletes a recurring expense. Expenses already generated from it are kept.
+     *
+     * @param id The ID of the recurring expense to be deleted.
+     * @throws RecurringExpenseNotFoundException If the recurring expense with the specified ID is not found.
+     */
+    @Transactional
+    public void deleteRecurringExpense(Long id) {
+        if (!recurringExpenseRepository.existsById(id)) {
+            throw new RecurringExpenseNotFoundException("Recurring expense with ID " + id + " not found");
+        }
+        recurringExpenseRepository.deleteById(id);
+    }
+
+    /**
+     * Parses a recurrence rule made of the day-of-month, month and day-of-week fields of a cron expression,
+     * or one of the {@code @daily}, {@code @weekly}, {@code @monthly} and {@code @yearly} macros.
+     *
+     * @param rule The recurrence rule.
+     * @return The rule as a cron expression firing at midnight of every matching date.
+     * @throws InvalidInputException If the rule is not valid.
+     */
+    static CronExpression parseRule(String rule) {
+        if (rule == null || rule.isBlank()) {
+            throw new InvalidInputException("missing-recurrence-rule", "Recurrence rule is not set");
+        }
+        String trimmed = rule.trim();
+        try {
+            if (trimmed.startsWith("@")) {
+                return CronExpression.parse(trimmed);
+            }
+            if (trimmed.split("\\s+").length != 3) {
+                throw new InvalidInputException("invalid-recurrence-rule", "Recurrence rule must have the fields day-of-month, month and day-of-week");
+            }
+            return CronExpression.parse("0 0 0 " + trimmed);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("invalid-recurrence-rule", "Invalid recurrence rule: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Computes the first date strictly after the given date that matches a recurrence rule.
+     *
+     * @param rule  The parsed recurrence rule.
+     * @param after The date to start searching after.
+     * @return The next matching date, or null if the rule never matches again.
+     */
+    static LocalDate nextOccurrence(CronExpression rule, LocalDate after) {
+        LocalDateTime next = rule.next(after.atStartOfDay());
+        return next == null ? null : next.toLocalDate();
+    }
+
+    static boolean isWithinEnd(LocalDate date, LocalDate endDate) {
+        return date != null && (endDate == null || !date.isAfter(endDate));
+    }
+}
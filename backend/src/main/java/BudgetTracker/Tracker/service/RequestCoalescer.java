@@ -0,0 +1,144 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.config.Deadline;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.exceptions.DeadlineExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical reads.
+ * <p>
+ * The first caller of a read for a given method and user runs it; callers arriving while it is in flight wait for
+ * and share its result instead of running the same query again. Nothing is cached once the call returns. A committed
+ * write of the user detaches the in-flight calls from new callers, so a read that starts after a write never receives
+ * a result computed before it. A call that fails because the deadline of its caller passed is not shared: the
+ * waiting callers that still have time run the read again within their own deadline. The outcome of every call is
+ * counted in {@code tracker.coalescer.calls}.
+ */
+@Service
+public class RequestCoalescer {
+
+    private record Key(String method, Long userId) {
+    }
+
+    /**
+     * A read in flight and the deadline of the caller running it.
+     */
+    private record Flight(CompletableFuture<Object> result, Deadline deadline) {
+    }
+
+    private final ConcurrentHashMap<Key, Flight> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gaugeMapSize("tracker.coalescer.in.flight", Tags.empty(), inFlight);
+    }
+
+    /**
+     * Runs a read of a user's data, or joins the identical read already in flight.
+     *
+     * @param method The name of the read, such as the service method.
+     * @param userId The ID of the user whose data is read.
+     * @param call   The read to run.
+     * @return The result of the read; shared with the other callers, so it must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T coalesce(String method, Long userId, Supplier<T> call) {
+        Key key = new Key(method, userId);
+        Flight own = new Flight(new CompletableFuture<>(), Deadline.current());
+        Flight running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            count(method, "coalesced");
+            try {
+                return (T) await(running.result());
+            } catch (DeadlineExceededException | QueryTimeoutException e) {
+                if (!ranOutOfTime(running)) {
+                    throw e;
+                }
+                // The leader ran out of its own time; this caller may still have some. The failed call is
+                // detached first, as the leader may not have removed it yet
+                inFlight.remove(key, running);
+                count(method, "retried");
+                return coalesce(method, userId, call);
+            }
+        }
+        count(method, "executed");
+        try {
+            T result = call.get();
+            own.result().complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * @return Whether a read failed only because the deadline of its caller passed, while the current thread has
+     * time left to run it again.
+     */
+    private static boolean ranOutOfTime(Flight flight) {
+        Deadline own = Deadline.current();
+        return flight.deadline() != null && flight.deadline() != own && flight.deadline().isExpired()
+                && (own == null || !own.isExpired());
+    }
+
+    /**
+     * Stops handing the in-flight reads of a user to new callers.
+     *
+     * @param userId The ID of the user whose data changed.
+     */
+    public void invalidate(Long userId) {
+        if (inFlight.keySet().removeIf(key -> key.userId().equals(userId))) {
+            count("any", "invalidated");
+        }
+    }
+
+    /**
+     * Invalidates the reads of the user owning a budget or expense once a change to it is committed.
+     *
+     * @param event The committed change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (event.getUserId() != null) {
+            invalidate(event.getUserId());
+        }
+    }
+
+    private Object await(CompletableFuture<Object> running) {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a coalesced read");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    private void count(String method, String outcome) {
+        meterRegistry.counter("tracker.coalescer.calls", "method", method, "outcome", outcome).increment();
+    }
+}
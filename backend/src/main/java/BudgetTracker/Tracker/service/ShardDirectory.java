@@ -0,0 +1,275 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.config.ShardRoutingDataSource;
+import BudgetTracker.Tracker.config.ShardSchemaInitializer;
+import BudgetTracker.Tracker.config.ShardingProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Directory mapping every user to the shard holding their data, kept in the {@code user_shards} table of shard 0.
+ * The table also holds the user's name and email, so users can log in without knowing their id, and its unique
+ * constraints keep names and emails unique across all shards. The mapping is cached in memory.
+ * <p>
+ * Users being moved are flagged in the table as well, so every node refuses their writes. Each change of a user's
+ * shard or flag increments the epoch in {@code user_shards_epoch} and stamps the row with it; every node polls the
+ * epoch every {@code directory-refresh-ms} and, when it has advanced, reloads the rows stamped since the last poll.
+ */
+@Service
+@ConditionalOnProperty(name = "tracker.sharding.enabled", havingValue = "true")
+public class ShardDirectory {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS user_shards ("
+            + "user_id BIGINT NOT NULL PRIMARY KEY, shard_index INT NOT NULL, user_name VARCHAR(255), user_email VARCHAR(255), "
+            + "moving BOOLEAN DEFAULT FALSE NOT NULL, version BIGINT DEFAULT 0 NOT NULL, "
+            + "CONSTRAINT uk_user_shards_name UNIQUE (user_name), CONSTRAINT uk_user_shards_email UNIQUE (user_email))";
+    // Added to directories created before moves were coordinated across nodes
+    private static final Map<String, String> ADDED_COLUMNS = Map.of(
+            "moving", "moving BOOLEAN DEFAULT FALSE NOT NULL",
+            "version", "version BIGINT DEFAULT 0 NOT NULL");
+    private static final String CREATE_EPOCH_TABLE = "CREATE TABLE IF NOT EXISTS user_shards_epoch ("
+            + "id INT NOT NULL PRIMARY KEY, epoch BIGINT NOT NULL)";
+
+    @Autowired
+    private ShardRoutingDataSource routingDataSource;
+
+    @Autowired
+    private ShardingProperties properties;
+
+    @Autowired
+    private ShardSchemaInitializer schemaInitializer;
+
+    // Injected so the mapping metadata is available before the shards are prepared
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private final Map<Long, Integer> shardsByUser = new ConcurrentHashMap<>();
+    private final Set<Long> movingUsers = ConcurrentHashMap.newKeySet();
+    private AtomicIntegerArray userCounts;
+    // The directory epoch this node's cache reflects
+    private volatile long knownEpoch;
+
+    /**
+     * Prepares the schema of the shards, creates the directory table if needed and loads it into memory.
+     */
+    @PostConstruct
+    public void init() {
+        if (properties.isUpdateSchema()) {
+            schemaInitializer.updateSchemas(routingDataSource);
+        }
+        schemaInitializer.interleaveIdentities(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(routingDataSource.getShard(0));
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(routingDataSource.getShard(0)));
+        jdbcTemplate.execute(CREATE_TABLE);
+        addMissingColumns();
+        jdbcTemplate.execute(CREATE_EPOCH_TABLE);
+        try {
+            jdbcTemplate.update("INSERT INTO user_shards_epoch (id, epoch) VALUES (0, 0)");
+        } catch (DuplicateKeyException e) {
+            // Created by an earlier start or by another node
+        }
+        userCounts = new AtomicIntegerArray(routingDataSource.getShardCount());
+        long epoch = readEpoch();
+        loadChangedSince(-1);
+        knownEpoch = epoch;
+    }
+
+    /**
+     * Reloads the users whose shard or move flag was changed by any node since the last refresh. Runs on a short
+     * fixed delay, so moves started or finished on another node take effect here within one delay.
+     */
+    @Scheduled(fixedDelayString = "${tracker.sharding.directory-refresh-ms:1000}")
+    public void refresh() {
+        long epoch = readEpoch();
+        if (epoch == knownEpoch) {
+            return;
+        }
+        // A row stamped after the epoch was read is picked up again on the next refresh
+        loadChangedSince(knownEpoch);
+        knownEpoch = epoch;
+    }
+
+    /**
+     * Finds the shard of a user, asking the database when the user was registered by another node.
+     *
+     * @param userId The ID of the user.
+     * @return The shard of the user, or empty if the user is unknown.
+     */
+    public Optional<Integer> findShard(Long userId) {
+        Integer shard = shardsByUser.get(userId);
+        if (shard != null) {
+            return Optional.of(shard);
+        }
+        List<Integer> shards = jdbcTemplate.query("SELECT shard_index, moving FROM user_shards WHERE user_id = ?", (rs, rowNum) -> {
+            cache(userId, rs.getInt("shard_index"), rs.getBoolean("moving"));
+            return rs.getInt("shard_index");
+        }, userId);
+        return shards.stream().findFirst();
+    }
+
+    /**
+     * @return Whether a move of the user, started by any node, is running.
+     */
+    public boolean isMoving(Long userId) {
+        return findShard(userId).isPresent() && movingUsers.contains(userId);
+    }
+
+    /**
+     * Finds a user by the credentials used to log in.
+     *
+     * @param name  The name of the user.
+     * @param email The email of the user.
+     * @return The ID of the user, or empty if no user has these credentials.
+     */
+    public Optional<Long> findUserId(String name, String email) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM user_shards WHERE user_name = ? AND user_email = ?",
+                Long.class, name, email).stream().findFirst();
+    }
+
+    /**
+     * @return The shard holding the fewest users, as counted by this node.
+     */
+    public int leastLoadedShard() {
+        int leastLoaded = 0;
+        for (int shard = 1; shard < userCounts.length(); shard++) {
+            if (userCounts.get(shard) < userCounts.get(leastLoaded)) {
+                leastLoaded = shard;
+            }
+        }
+        return leastLoaded;
+    }
+
+    /**
+     * Records the shard of a new user.
+     *
+     * @throws org.springframework.dao.DuplicateKeyException If another user already has the name or email.
+     */
+    public void register(Long userId, int shard, String name, String email) {
+        jdbcTemplate.update("INSERT INTO user_shards (user_id, shard_index, user_name, user_email) VALUES (?, ?, ?, ?)",
+                userId, shard, name, email);
+        shardsByUser.put(userId, shard);
+        userCounts.incrementAndGet(shard);
+    }
+
+    /**
+     * Flags a user as being moved, so that every node refuses requests changing their data until the move ends.
+     *
+     * @return False if a move of the user is already running on any node.
+     */
+    public boolean beginMove(Long userId) {
+        Boolean flagged = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update("UPDATE user_shards SET moving = TRUE, version = ? WHERE user_id = ? AND moving = FALSE",
+                    nextEpoch(), userId) == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        if (Boolean.TRUE.equals(flagged)) {
+            movingUsers.add(userId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Clears the move flag of a user.
+     */
+    public void endMove(Long userId) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE user_shards SET moving = FALSE, version = ? WHERE user_id = ?", nextEpoch(), userId));
+        movingUsers.remove(userId);
+    }
+
+    /**
+     * Points a user to the shard their data was moved to.
+     */
+    public void reassign(Long userId, int fromShard, int toShard) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE user_shards SET shard_index = ?, version = ? WHERE user_id = ?", toShard, nextEpoch(), userId));
+        if (!Integer.valueOf(toShard).equals(shardsByUser.put(userId, toShard))) {
+            userCounts.decrementAndGet(fromShard);
+            userCounts.incrementAndGet(toShard);
+        }
+    }
+
+    /**
+     * @return The number of users of every shard, as counted by this node.
+     */
+    public Map<Integer, Integer> getUserCounts() {
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        for (int shard = 0; shard < userCounts.length(); shard++) {
+            counts.put(shard, userCounts.get(shard));
+        }
+        return counts;
+    }
+
+    private void addMissingColumns() {
+        Set<String> columns = new HashSet<>();
+        jdbcTemplate.query("SELECT * FROM user_shards WHERE 1 = 0", rs -> {
+            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                columns.add(rs.getMetaData().getColumnName(i).toLowerCase(Locale.ROOT));
+            }
+            return null;
+        });
+        ADDED_COLUMNS.forEach((name, definition) -> {
+            if (!columns.contains(name)) {
+                jdbcTemplate.execute("ALTER TABLE user_shards ADD COLUMN " + definition);
+            }
+        });
+    }
+
+    /**
+     * Increments the directory epoch within the current transaction. The epoch row stays locked until the
+     * transaction commits, so a node that reads an epoch also sees every row stamped with it or an earlier one.
+     */
+    private long nextEpoch() {
+        jdbcTemplate.update("UPDATE user_shards_epoch SET epoch = epoch + 1 WHERE id = 0");
+        return readEpoch();
+    }
+
+    private long readEpoch() {
+        return jdbcTemplate.queryForObject("SELECT epoch FROM user_shards_epoch WHERE id = 0", Long.class);
+    }
+
+    private void loadChangedSince(long epoch) {
+        jdbcTemplate.query("SELECT user_id, shard_index, moving FROM user_shards WHERE version > ?", rs -> {
+            cache(rs.getLong("user_id"), rs.getInt("shard_index"), rs.getBoolean("moving"));
+        }, epoch);
+    }
+
+    private void cache(Long userId, int shard, boolean moving) {
+        Integer previous = shardsByUser.put(userId, shard);
+        if (previous == null || previous != shard) {
+            if (previous != null) {
+                userCounts.decrementAndGet(previous);
+            }
+            userCounts.incrementAndGet(shard);
+        }
+        if (moving) {
+            movingUsers.add(userId);
+        } else {
+            movingUsers.remove(userId);
+        }
+    }
+}
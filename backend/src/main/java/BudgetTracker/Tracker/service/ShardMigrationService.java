@@ -0,0 +1,141 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.exceptions.UserNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin operations on the user-keyed shards, such as moving a user to another shard.
+ */
+@Service
+public class ShardMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMigrationService.class);
+
+    /**
+     * A table holding data of a user, with the condition selecting the rows of one user.
+     */
+    private record UserTable(String name, String userFilter) {
+    }
+
+    private static final String USER_BUDGETS = "budget_id IN (SELECT budget_id FROM budgets WHERE user_id = ?)";
+
+    // In insertion order; rows are deleted in the reverse order
+    private static final List<UserTable> USER_TABLES = List.of(
+            new UserTable("app_users", "id = ?"),
+            new UserTable("budgets", "user_id = ?"),
+            new UserTable("budget_alerts", USER_BUDGETS),
+            new UserTable("expenses", USER_BUDGETS),
+            new UserTable("expense_tags", "expense_id IN (SELECT expenses_id FROM expenses WHERE " + USER_BUDGETS + ")"),
+            new UserTable("recurring_expenses", "user_id = ?"));
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired(required = false)
+    private ShardDirectory directory;
+
+    @Value("${tracker.sharding.move-drain-ms:500}")
+    private long moveDrainMs;
+
+    @Value("${tracker.sharding.directory-refresh-ms:1000}")
+    private long directoryRefreshMs;
+
+    /**
+     * @return The number of users on every shard.
+     * @throws InvalidInputException If sharding is not enabled.
+     */
+    public Map<Integer, Integer> getUserCounts() {
+        requireSharding();
+        return directory.getUserCounts();
+    }
+
+    /**
+     * Moves all data of a user to another shard. Rows keep their ids, which are unique across shards. Requests
+     * changing the user's data are refused on every node while the move runs; reads keep being served from the old
+     * shard until the directory points to the new one. The move waits one directory refresh before copying, so all
+     * nodes have seen the move flag, and another one before deleting the old rows, so no node reads them any more.
+     *
+     * @param userId      The ID of the user to move.
+     * @param targetShard The shard to move the user to.
+     * @return The number of rows moved.
+     * @throws InvalidInputException If sharding is not enabled, the shard does not exist or the user is already being moved.
+     * @throws UserNotFoundException If the user is not in the directory.
+     */
+    public int moveUser(Long userId, int targetShard) {
+        requireSharding();
+        if (targetShard < 0 || targetShard >= shardRouter.getShardCount()) {
+            throw new InvalidInputException("unknown-shard", "Shard " + targetShard + " does not exist.");
+        }
+        int sourceShard = directory.findShard(userId)
+                .orElseThrow(() -> new UserNotFoundException("User with ID " + userId + " not found."));
+        if (sourceShard == targetShard) {
+            return 0;
+        }
+        if (!shardRouter.beginMove(userId)) {
+            throw new InvalidInputException("user-move-in-progress", "User " + userId + " is already being moved.");
+        }
+        try {
+            // Let every node see the move and finish writes bound to the source shard before it
+            Thread.sleep(directoryRefreshMs + moveDrainMs);
+            JdbcTemplate source = shardRouter.shardTemplate(sourceShard);
+            JdbcTemplate target = shardRouter.shardTemplate(targetShard);
+            Integer moved = new TransactionTemplate(new DataSourceTransactionManager(shardRouter.shardDataSource(targetShard)))
+                    .execute(status -> copyRows(userId, source, target));
+            directory.reassign(userId, sourceShard, targetShard);
+            Thread.sleep(directoryRefreshMs);
+            new TransactionTemplate(new DataSourceTransactionManager(shardRouter.shardDataSource(sourceShard)))
+                    .executeWithoutResult(status -> {
+                        for (int i = USER_TABLES.size() - 1; i >= 0; i--) {
+                            UserTable table = USER_TABLES.get(i);
+                            source.update("DELETE FROM " + table.name() + " WHERE " + table.userFilter(), userId);
+                        }
+                    });
+            log.info("Moved user {} from shard {} to shard {} ({} rows)", userId, sourceShard, targetShard, moved);
+            return moved == null ? 0 : moved;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while moving user " + userId, e);
+        } finally {
+            shardRouter.endMove(userId);
+        }
+    }
+
+    private int copyRows(Long userId, JdbcTemplate source, JdbcTemplate target) {
+        int moved = 0;
+        for (UserTable table : USER_TABLES) {
+            List<Map<String, Object>> rows = source.queryForList("SELECT * FROM " + table.name() + " WHERE " + table.userFilter(), userId);
+            if (rows.isEmpty()) {
+                continue;
+            }
+            List<String> columns = new ArrayList<>(rows.get(0).keySet());
+            String sql = "INSERT INTO " + table.name() + " (" + String.join(", ", columns) + ") VALUES ("
+                    + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+            List<Object[]> values = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                values.add(columns.stream().map(row::get).toArray());
+            }
+            target.batchUpdate(sql, values);
+            moved += rows.size();
+        }
+        return moved;
+    }
+
+    private void requireSharding() {
+        if (!shardRouter.isEnabled()) {
+            throw new InvalidInputException("sharding-disabled", "Sharding is not enabled.");
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.config.ShardContext;
+import BudgetTracker.Tracker.config.ShardRoutingDataSource;
+import BudgetTracker.Tracker.entity.User;
+import BudgetTracker.Tracker.exceptions.DuplicateUserException;
+import BudgetTracker.Tracker.exceptions.ShardMoveInProgressException;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard the data of a user lives on and binds it to the current thread through {@link ShardContext}.
+ * When sharding is disabled there is a single shard, 0, and every method degrades to running on it.
+ */
+@Service
+public class ShardRouter {
+
+    @Autowired(required = false)
+    private ShardRoutingDataSource routingDataSource;
+
+    @Autowired(required = false)
+    private ShardDirectory directory;
+
+    @Autowired(required = false)
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<JdbcTemplate> shardTemplates = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return routingDataSource != null;
+    }
+
+    public int getShardCount() {
+        return isEnabled() ? routingDataSource.getShardCount() : 1;
+    }
+
+    /**
+     * Finds the shard holding the data of a user.
+     *
+     * @param userId The ID of the user.
+     * @return The shard of the user, or 0 if the user is unknown.
+     */
+    public int shardOfUser(Long userId) {
+        return isEnabled() ? directory.findShard(userId).orElse(0) : 0;
+    }
+
+    /**
+     * Binds the shard of a user to the current thread.
+     *
+     * @param userId The ID of the user.
+     * @param write  Whether the data of the user is going to be changed.
+     * @throws ShardMoveInProgressException If the data is changed while the user is being moved to another shard.
+     */
+    public void bindUser(Long userId, boolean write) {
+        if (write && isEnabled() && directory.isMoving(userId)) {
+            throw new ShardMoveInProgressException("User " + userId + " is being moved to another shard. Please retry shortly.");
+        }
+        ShardContext.set(shardOfUser(userId));
+    }
+
+    /**
+     * Runs an action on the shard of a user.
+     */
+    public <T> T callOnUser(Long userId, Supplier<T> action) {
+        return ShardContext.callOn(shardOfUser(userId), action);
+    }
+
+    /**
+     * Runs an action once on every shard.
+     */
+    public void forEachShard(Runnable action) {
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            onShard(shard, () -> {
+                action.run();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Runs a query on every shard and concatenates the results.
+     */
+    public <T> List<T> collectFromAllShards(Supplier<List<T>> query) {
+        if (!isEnabled()) {
+            return query.get();
+        }
+        List<T> results = new ArrayList<>();
+        forEachShard(() -> results.addAll(query.get()));
+        return results;
+    }
+
+    /**
+     * Runs a batch query once per shard, each time with the keys whose user lives on that shard, and concatenates the results.
+     *
+     * @param keys   The keys to look up.
+     * @param userOf Finds the user owning a key.
+     * @param query  Looks up a batch of keys on the shard bound while it runs.
+     * @return The results of all shards.
+     */
+    public <K, T> List<T> collectByUserShard(Collection<K> keys, Function<K, Long> userOf, Function<List<K>, List<T>> query) {
+        if (!isEnabled()) {
+            return query.apply(new ArrayList<>(keys));
+        }
+        Map<Integer, List<K>> keysByShard = new TreeMap<>();
+        for (K key : keys) {
+            keysByShard.computeIfAbsent(shardOfUser(userOf.apply(key)), shard -> new ArrayList<>()).add(key);
+        }
+        List<T> results = new ArrayList<>();
+        keysByShard.forEach((shard, shardKeys) -> results.addAll(onShard(shard, () -> query.apply(shardKeys))));
+        return results;
+    }
+
+    /**
+     * Saves a new user on the least-loaded shard and records the shard in the directory.
+     *
+     * @param user The user to be saved.
+     * @param save Saves the user on the shard bound while it runs.
+     * @return The saved user.
+     * @throws DuplicateUserException If another user registered the same name or email on any shard meanwhile.
+     */
+    public User saveNewUser(User user, Supplier<User> save) {
+        int shard = directory.leastLoadedShard();
+        User savedUser = ShardContext.callOn(shard, save);
+        try {
+            directory.register(savedUser.getId(), shard, savedUser.getName(), savedUser.getEmail());
+        } catch (DuplicateKeyException e) {
+            shardTemplate(shard).update("DELETE FROM app_users WHERE id = ?", savedUser.getId());
+            throw new DuplicateUserException("An account with these credentials already exists.");
+        }
+        return savedUser;
+    }
+
+    /**
+     * Finds a user by the credentials used to log in, across all shards.
+     */
+    public Optional<Long> findUserId(String name, String email) {
+        return directory.findUserId(name, email);
+    }
+
+    public Optional<Long> findOwnerOfBudget(Long budgetId) {
+        return findOwner(budgetId, "SELECT user_id FROM budgets WHERE budget_id = ?");
+    }
+
+    public Optional<Long> findOwnerOfExpense(Long expenseId) {
+        return findOwner(expenseId, "SELECT b.user_id FROM expenses e JOIN budgets b ON b.budget_id = e.budget_id WHERE e.expenses_id = ?");
+    }
+
+    public Optional<Long> findOwnerOfRecurringExpense(Long recurringExpenseId) {
+        return findOwner(recurringExpenseId, "SELECT user_id FROM recurring_expenses WHERE recurring_expense_id = ?");
+    }
+
+    /**
+     * Finds the shard holding a budget.
+     *
+     * @param budgetId The ID of the budget.
+     * @return The shard of the budget's owner, or 0 if the budget is unknown.
+     */
+    public int shardOfBudget(Long budgetId) {
+        return findOwnerOfBudget(budgetId).map(this::shardOfUser).orElse(0);
+    }
+
+    /**
+     * Marks a user as being moved, so that requests changing their data are refused on every node until the move ends.
+     *
+     * @return False if the user is already being moved.
+     */
+    boolean beginMove(Long userId) {
+        return directory.beginMove(userId);
+    }
+
+    void endMove(Long userId) {
+        directory.endMove(userId);
+    }
+
+    DataSource shardDataSource(int shard) {
+        return routingDataSource.getShard(shard);
+    }
+
+    synchronized JdbcTemplate shardTemplate(int shard) {
+        while (shardTemplates.size() <= shard) {
+            shardTemplates.add(new JdbcTemplate(routingDataSource.getShard(shardTemplates.size())));
+        }
+        return shardTemplates.get(shard);
+    }
+
+    /**
+     * Runs one of the per-shard steps of a request spanning several shards. The entity manager kept open for the
+     * request holds on to the connection of the first shard it queried, so outside of a transaction it is set aside
+     * while the step runs, and the repositories open one of their own on the bound shard.
+     */
+    private <T> T onShard(int shard, Supplier<T> action) {
+        Object requestEntityManager = entityManagerFactory != null && !TransactionSynchronizationManager.isActualTransactionActive()
+                ? TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory) : null;
+        try {
+            return ShardContext.callOn(shard, action);
+        } finally {
+            if (requestEntityManager != null) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, requestEntityManager);
+            }
+        }
+    }
+
+    private Optional<Long> findOwner(Long id, String sql) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        // Ids are interleaved, so the shard that generated the id is the likely home of the row
+        int shardCount = getShardCount();
+        int home = (int) Math.floorMod(id - 1, (long) shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            List<Long> owners = shardTemplate((home + i) % shardCount).queryForList(sql, Long.class, id);
+            if (!owners.isEmpty()) {
+                return Optional.of(owners.get(0));
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,179 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.config.ShardContext;
+import BudgetTracker.Tracker.dto.BudgetTotal;
+import BudgetTracker.Tracker.dto.ChangeNotification;
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.events.BudgetAlertEvent;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Service class for pushing committed budget and expense changes to users over Server-Sent Events.
+ * Changes are received as {@link ChangeEvent}s after the publishing transaction commits and are written to the
+ * user's open streams from a dedicated dispatcher thread, so slow clients never delay the writing request.
+ */
+@Service
+public class UserEventStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventStreamService.class);
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Value("${tracker.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final Map<Long, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    // Deliveries run within the trace of the change they deliver
+    private final ExecutorService dispatcher = ContextExecutorService.wrap(Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-event-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    }), CONTEXT_SNAPSHOTS::captureAll);
+
+    /**
+     * Opens a new event stream for a user.
+     *
+     * @param userId The ID of the user whose changes are streamed.
+     * @return The emitter bound to the HTTP response.
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        List<SseEmitter> userEmitters = emitters.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>());
+        userEmitters.add(emitter);
+        Runnable remove = () -> unsubscribe(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    /**
+     * Counts the open streams of a user.
+     *
+     * @param userId The ID of the user.
+     * @return The number of open streams.
+     */
+    public int getSubscriberCount(Long userId) {
+        List<SseEmitter> userEmitters = emitters.get(userId);
+        return userEmitters == null ? 0 : userEmitters.size();
+    }
+
+    /**
+     * Forwards a committed change to the streams of the owning user.
+     * Nothing is computed when the user has no open stream.
+     *
+     * @param event The committed change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (event.getUserId() == null || getSubscriberCount(event.getUserId()) == 0) {
+            return;
+        }
+        // The dispatcher reads the budget total, from the shard the change was written to
+        int shard = ShardContext.current();
+        dispatcher.execute(() -> ShardContext.runOn(shard, () -> deliver(event)));
+    }
+
+    /**
+     * Forwards a committed budget alert to the streams of the owning user as an {@code alert} event.
+     *
+     * @param event The raised alert.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlert(BudgetAlertEvent event) {
+        if (event.getUserId() == null || getSubscriberCount(event.getUserId()) == 0) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            for (SseEmitter emitter : emitters.getOrDefault(event.getUserId(), List.of())) {
+                send(event.getUserId(), emitter, SseEmitter.event().name("alert").data(event.getAlert()));
+            }
+        });
+    }
+
+    /**
+     * Sends a comment line to every open stream so that proxies keep idle connections open and
+     * disconnected clients are detected.
+     */
+    @Scheduled(fixedRateString = "${tracker.events.heartbeat-ms:30000}")
+    public void heartbeat() {
+        emitters.forEach((userId, userEmitters) -> dispatcher.execute(() -> {
+            for (SseEmitter emitter : userEmitters) {
+                send(userId, emitter, SseEmitter.event().comment("heartbeat"));
+            }
+        }));
+    }
+
+    /**
+     * Completes every open stream and stops the dispatcher.
+     */
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        emitters.values().forEach(userEmitters -> userEmitters.forEach(SseEmitter::complete));
+        emitters.clear();
+    }
+
+    private void deliver(ChangeEvent event) {
+        try {
+            ChangeNotification notification = new ChangeNotification(event.getEntityType(), event.getAction(),
+                    event.getEntityId(), event.getData(), totalOf(event.getBudgetId()));
+            for (SseEmitter emitter : emitters.getOrDefault(event.getUserId(), List.of())) {
+                send(event.getUserId(), emitter, SseEmitter.event().name("change").data(notification));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to deliver change event for user {}", event.getUserId(), e);
+        }
+    }
+
+    private BudgetTotal totalOf(Long budgetId) {
+        if (budgetId == null) {
+            return null;
+        }
+        Budget budget = budgetRepository.findById(budgetId).orElse(null);
+        if (budget == null) {
+            return null;
+        }
+        return new BudgetTotal(budgetId, budget.getBudgetAmount(), budget.getSpentAmount());
+    }
+
+    private void send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; drop the stream
+            unsubscribe(userId, emitter);
+        }
+    }
+
+    private void unsubscribe(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, userEmitters) -> {
+            userEmitters.remove(emitter);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+    }
+}
@@ -15,6 +15,8 @@ import java.util.Optional;
 public class UserService {
     @Autowired
     private  UserRepository userRepository;
+    @Autowired
+    private ShardRouter shardRouter;
     /**
      * Checks if a user exists by ID.
      *
@@ -24,6 +26,15 @@ public class UserService {
     public boolean existsById(Long userId) {
         return userRepository.existsById(userId);
     }
+    /**
+     * Retrieves a user by ID.
+     *
+     * @param userId The ID of the user to retrieve.
+     * @return The user with the specified ID, or null if not found.
+     */
+    public User getUserById(Long userId) {
+        return userRepository.findById(userId).orElse(null);
+    }
     /**
      * Creates a new user.
      *
@@ -35,17 +46,20 @@ public class UserService {
     public User createNewUser(User user) {
         // Validate alphanumeric name
         if (!isValidAlphanumeric(user.getName())) {
-            throw new InvalidInputException("Name must be alphanumeric");
+            throw new InvalidInputException("invalid-name", "Name must be alphanumeric");
         }
 
         // Validate email format
         if (!isValidEmailFormat(user.getEmail())) {
-            throw new InvalidInputException("Invalid email format");
+            throw new InvalidInputException("invalid-email", "Invalid email format");
         }
-        Optional<User> existingUser = userRepository.findByNameAndEmail(user.getName(), user.getEmail());
+        Optional<User> existingUser = findUserByNameAndEmail(user.getName(), user.getEmail());
         if (existingUser.isPresent()) {
             throw new DuplicateUserException("An account with these credentials already exists.");
         }
+        if (shardRouter.isEnabled()) {
+            return shardRouter.saveNewUser(user, () -> userRepository.save(user));
+        }
         return userRepository.save(user);
     }
     /**
@@ -56,6 +70,11 @@ public class UserService {
      * @return Optional containing the found user, or empty if not found.
      */
     public Optional<User> findUserByNameAndEmail(String name, String email) {
+        if (shardRouter.isEnabled()) {
+            // Only the directory knows which shard holds the user
+            return shardRouter.findUserId(name, email)
+                    .flatMap(userId -> shardRouter.callOnUser(userId, () -> userRepository.findByNameAndEmail(name, email)));
+        }
         return userRepository.findByNameAndEmail(name, email);
     }
 
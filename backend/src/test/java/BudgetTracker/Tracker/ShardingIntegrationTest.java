@@ -0,0 +1,152 @@
+package BudgetTracker.Tracker;
+
+import BudgetTracker.Tracker.config.ShardRoutingDataSource;
+import BudgetTracker.Tracker.service.ShardDirectory;
+import BudgetTracker.Tracker.service.ShardRouter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "tracker.sharding.enabled=true",
+        "tracker.sharding.move-drain-ms=0",
+        "tracker.sharding.directory-refresh-ms=20",
+        "tracker.sharding.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "tracker.sharding.shards[0].username=sa",
+        "tracker.sharding.shards[0].password=",
+        "tracker.sharding.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "tracker.sharding.shards[1].username=sa",
+        "tracker.sharding.shards[1].password=",
+        "tracker.recurring.catch-up-on-startup=false"
+})
+@AutoConfigureMockMvc
+public class ShardingIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShardRoutingDataSource dataSource;
+
+    @Autowired
+    private ShardDirectory directory;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void routesUsersToShardsAndMovesThem() throws Exception {
+        long alice = createUser("alice", "alice@example.com");
+        long bob = createUser("bob", "bob@example.com");
+        // Each new user goes to the least-loaded shard, and ids are interleaved across shards
+        assertEquals(1, countRows(0, "app_users"));
+        assertEquals(1, countRows(1, "app_users"));
+        assertNotEquals(alice % 2, bob % 2);
+
+        long budgetId = id(mockMvc.perform(post("/budgets").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"budgetDescription\":\"Food\",\"budgetAmount\":500,\"user\":{\"id\":" + bob + "}}"))
+                .andExpect(status().isCreated()).andReturn(), "budgetId");
+        long expenseId = id(mockMvc.perform(post("/expenses").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"expensesDescription\":\"Lunch\",\"expensesAmount\":20,\"tags\":[\"Work\"],\"budget\":{\"budgetId\":" + budgetId + "}}"))
+                .andExpect(status().isCreated()).andReturn(), "expensesId");
+        int bobShard = countRows(0, "budgets") == 1 ? 0 : 1;
+        assertEquals(1, countRows(bobShard, "expenses"));
+        assertEquals(0, countRows(1 - bobShard, "expenses"));
+
+        // Multi-gets look on every shard and answer in request order
+        long aliceBudgetId = id(mockMvc.perform(post("/budgets").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"budgetDescription\":\"Rent\",\"budgetAmount\":900,\"user\":{\"id\":" + alice + "}}"))
+                .andExpect(status().isCreated()).andReturn(), "budgetId");
+        mockMvc.perform(get("/budgets").param("ids", aliceBudgetId + ",999999," + budgetId)).andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].budgetId").value(aliceBudgetId))
+                .andExpect(jsonPath("$.items[1].budgetId").value(budgetId))
+                .andExpect(jsonPath("$.missingIds[0]").value(999999));
+        mockMvc.perform(get("/expenses").param("ids", "999999," + expenseId)).andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].expensesId").value(expenseId))
+                .andExpect(jsonPath("$.missingIds[0]").value(999999));
+
+        mockMvc.perform(get("/budgets/user/" + bob)).andExpect(status().isOk()).andExpect(jsonPath("$[0].budgetId").value(budgetId));
+        mockMvc.perform(get("/expenses/" + expenseId)).andExpect(status().isOk()).andExpect(jsonPath("$.expensesAmount").value(20));
+        mockMvc.perform(get("/users/find").param("name", "bob").param("email", "bob@example.com"))
+                .andExpect(status().isOk()).andExpect(jsonPath("$.id").value(bob));
+        // Names stay unique across shards
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"bob\",\"email\":\"other@example.com\"}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/admin/shards/users/" + bob + "/move").param("targetShard", String.valueOf(1 - bobShard)))
+                .andExpect(status().isOk());
+
+        assertEquals(0, countRows(bobShard, "expenses"));
+        assertEquals(1, countRows(1 - bobShard, "expenses"));
+        assertEquals(0, countRows(bobShard, "expense_tags"));
+        assertEquals(1, countRows(1 - bobShard, "expense_tags"));
+        mockMvc.perform(get("/expenses/user/" + bob).param("tags", "work")).andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].expensesId").value(expenseId));
+        mockMvc.perform(get("/budgets/user/" + bob)).andExpect(status().isOk()).andExpect(jsonPath("$[0].budgetId").value(budgetId));
+        mockMvc.perform(get("/expenses/" + expenseId)).andExpect(status().isOk()).andExpect(jsonPath("$.expensesAmount").value(20));
+        mockMvc.perform(get("/admin/shards")).andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + (1 - bobShard) + "']").value(2))
+                .andExpect(jsonPath("$['" + bobShard + "']").value(0));
+
+        // Another node starts moving alice: her writes are refused here as soon as the directory is refreshed
+        int aliceShard = shardRouter.shardOfUser(alice);
+        changeDirectory("UPDATE user_shards SET moving = TRUE, version = ? WHERE user_id = ?", alice);
+        directory.refresh();
+        mockMvc.perform(post("/budgets").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"budgetDescription\":\"Gym\",\"budgetAmount\":50,\"user\":{\"id\":" + alice + "}}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.code").value("shard-move-in-progress"));
+        mockMvc.perform(get("/budgets/user/" + alice)).andExpect(status().isOk()).andExpect(jsonPath("$[0].budgetId").value(aliceBudgetId));
+        // A move started elsewhere cannot be started again here
+        mockMvc.perform(post("/admin/shards/users/" + alice + "/move").param("targetShard", String.valueOf(1 - aliceShard)))
+                .andExpect(status().isBadRequest());
+
+        // The other node points alice to the other shard and ends the move
+        changeDirectory("UPDATE user_shards SET shard_index = " + (1 - aliceShard) + ", moving = FALSE, version = ? WHERE user_id = ?", alice);
+        directory.refresh();
+        assertEquals(1 - aliceShard, shardRouter.shardOfUser(alice));
+        assertFalse(directory.isMoving(alice));
+    }
+
+    private void changeDirectory(String update, long userId) {
+        JdbcTemplate directoryTemplate = new JdbcTemplate(dataSource.getShard(0));
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource.getShard(0))).executeWithoutResult(status -> {
+            directoryTemplate.update("UPDATE user_shards_epoch SET epoch = epoch + 1 WHERE id = 0");
+            long epoch = directoryTemplate.queryForObject("SELECT epoch FROM user_shards_epoch WHERE id = 0", Long.class);
+            directoryTemplate.update(update, epoch, userId);
+        });
+    }
+
+    private long createUser(String name, String email) throws Exception {
+        return id(mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"email\":\"" + email + "\"}"))
+                .andExpect(status().isCreated()).andReturn(), "id");
+    }
+
+    private long id(MvcResult result, String field) throws Exception {
+        JsonNode body = objectMapper.readTree(result.getResponse().getContentAsString());
+        return body.get(field).asLong();
+    }
+
+    private int countRows(int shard, String table) {
+        return new JdbcTemplate(dataSource.getShard(shard)).queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,105 @@
+package BudgetTracker.Tracker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "management.tracing.sampling.probability=1.0",
+        // Own database, so the rows of this test do not show up in others
+        "spring.datasource.url=jdbc:h2:mem:tracing",
+        "tracker.recurring.catch-up-on-startup=false"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+@ActiveProfiles("test")
+public class TracingIntegrationTest {
+
+    private static final AttributeKey<String> DB_STATEMENT = AttributeKey.stringKey("db.statement");
+    private static final AttributeKey<String> DB_ROWS = AttributeKey.stringKey("db.rows");
+    private static final AttributeKey<String> METHOD = AttributeKey.stringKey("method");
+
+    @TestConfiguration
+    static class InMemoryExporterConfig {
+
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InMemorySpanExporter exporter;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void tracesRequestDownToItsStatements() throws Exception {
+        long userId = objectMapper.readTree(mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"tracy\",\"email\":\"tracy@example.com\"}"))
+                .andExpect(status().isCreated()).andReturn().getResponse().getContentAsString()).get("id").asLong();
+        long budgetId = objectMapper.readTree(mockMvc.perform(post("/budgets").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"budgetDescription\":\"Food\",\"budgetAmount\":500,\"user\":{\"id\":" + userId + "}}"))
+                .andExpect(status().isCreated()).andReturn().getResponse().getContentAsString()).get("budgetId").asLong();
+        flush();
+        exporter.reset();
+
+        mockMvc.perform(post("/expenses").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"expensesDescription\":\"Lunch\",\"expensesAmount\":20,\"budget\":{\"budgetId\":" + budgetId + "}}"))
+                .andExpect(status().isCreated());
+        flush();
+
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        SpanData request = spans.stream().filter(span -> span.getKind() == SpanKind.SERVER).findFirst().orElseThrow();
+        assertTrue(spans.stream().allMatch(span -> span.getTraceId().equals(request.getTraceId())));
+        SpanData service = spans.stream().filter(span -> "ExpensesService.createExpense".equals(span.getAttributes().get(METHOD)))
+                .findFirst().orElseThrow();
+        assertEquals(request.getSpanId(), service.getParentSpanId());
+
+        SpanData insert = spans.stream()
+                .filter(span -> span.getName().equals("insert") && span.getAttributes().get(DB_STATEMENT).contains("expenses"))
+                .findFirst().orElseThrow();
+        assertEquals("1", insert.getAttributes().get(DB_ROWS));
+        SpanData select = spans.stream().filter(span -> span.getName().equals("select")).findFirst().orElseThrow();
+        assertNotNull(select.getAttributes().get(DB_ROWS));
+        // Statements hang below the service call that ran them
+        for (SpanData statement : List.of(insert, select)) {
+            SpanData parent = statement;
+            while (!parent.getSpanId().equals(service.getSpanId()) && parent.getParentSpanContext().isValid()) {
+                String parentId = parent.getParentSpanId();
+                parent = spans.stream().filter(span -> span.getSpanId().equals(parentId)).findFirst().orElseThrow();
+            }
+            assertEquals(service.getSpanId(), parent.getSpanId());
+        }
+    }
+
+    private void flush() {
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,109 @@
+package BudgetTracker.Tracker.benchmark;
+
+import BudgetTracker.Tracker.controller.BudgetController;
+import BudgetTracker.Tracker.exceptions.GlobalExceptionHandler;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.service.BudgetService;
+import BudgetTracker.Tracker.service.UserService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Throughput of requests failing validation, such as those of bots and broken clients.
+ * <ul>
+ *     <li>{@code stackless} and {@code stackCapturing} throw and catch a validation failure below {@code depth} frames,
+ *     with a domain exception and with an exception capturing its stack trace as they all did before; the depth of a
+ *     service call within a request is about 120 frames.</li>
+ *     <li>{@code invalidBudget} posts a budget failing validation through the controller, the service and the global
+ *     exception handler, answered with a problem detail.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvalidRequestBenchmark {
+
+    private static final String INVALID_BUDGET = "{\"budgetDescription\":\"!!!\",\"budgetAmount\":100,\"user\":{\"id\":1}}";
+
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() {
+        UserService userService = Mockito.mock(UserService.class);
+        Mockito.when(userService.existsById(anyLong())).thenReturn(true);
+        BudgetRepository budgetRepository = Mockito.mock(BudgetRepository.class);
+        Mockito.when(budgetRepository.existsByBudgetDescriptionAndUserId(any(), any())).thenReturn(false);
+        BudgetService budgetService = new BudgetService();
+        ReflectionTestUtils.setField(budgetService, "userService", userService);
+        ReflectionTestUtils.setField(budgetService, "budgetRepository", budgetRepository);
+        BudgetController controller = new BudgetController();
+        ReflectionTestUtils.setField(controller, "budgetService", budgetService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Stack {
+
+        @Param({"20", "120"})
+        int depth;
+    }
+
+    @Benchmark
+    public String stackless(Stack stack) {
+        try {
+            return validate(stack.depth, true);
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Benchmark
+    public String stackCapturing(Stack stack) {
+        try {
+            return validate(stack.depth, false);
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse invalidBudget() throws Exception {
+        return mockMvc.perform(post("/budgets").contentType(MediaType.APPLICATION_JSON).content(INVALID_BUDGET))
+                .andReturn().getResponse();
+    }
+
+    private static String validate(int depth, boolean stackless) {
+        if (depth > 0) {
+            return validate(depth - 1, stackless);
+        }
+        String message = "BudgetDescription must be alphanumeric";
+        throw stackless ? new InvalidInputException("invalid-budget-description", message) : new IllegalArgumentException(message);
+    }
+}
@@ -0,0 +1,78 @@
+package BudgetTracker.Tracker.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessLogFilterTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void recordsTheRequestWithTheSqlStatementsCountedFurtherDown() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/budgets/user/42");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("userId", "42"));
+        FilterChain chain = (req, res) -> new SqlStatsFilter(false, 50).doFilter(req, res, (inner, response) -> {
+            SqlStats.current().recordStatement("select * from budgets", 1_000);
+            SqlStats.current().recordStatement("select * from users", 1_000);
+            response.setContentLength(2);
+            response.getWriter().write("[]");
+        });
+
+        JsonNode line = perform(request, chain, true);
+
+        assertEquals("GET", line.get("method").asText());
+        assertEquals("/budgets/user/42", line.get("path").asText());
+        assertEquals(42, line.get("userId").asLong());
+        assertEquals(200, line.get("status").asInt());
+        assertEquals(2, line.get("sqlStatements").asInt());
+        assertEquals(2, line.get("responseBytes").asLong());
+        assertTrue(line.get("latencyMs").asDouble() >= 0);
+        assertNull(SqlStats.current());
+    }
+
+    @Test
+    void recordsFailedRequestsAsServerErrors() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/expenses");
+        request.addHeader(AccessLogFilter.USER_ID_HEADER, "7");
+        FilterChain chain = (req, res) -> {
+            throw new ServletException("boom");
+        };
+
+        JsonNode line = perform(request, chain, false);
+
+        assertEquals(7, line.get("userId").asLong());
+        assertEquals(500, line.get("status").asInt());
+        assertTrue(line.get("sqlStatements").isNull());
+        assertTrue(line.get("responseBytes").isNull());
+    }
+
+    private JsonNode perform(MockHttpServletRequest request, FilterChain chain, boolean sqlStats) throws IOException {
+        AccessLog accessLog = new AccessLog(dir, 8, 1024 * 1024, 1);
+        accessLog.start();
+        try {
+            new AccessLogFilter(accessLog, sqlStats).doFilter(request, new MockHttpServletResponse(), chain);
+        } catch (ServletException e) {
+            assertEquals("boom", e.getMessage());
+        } finally {
+            accessLog.stop();
+        }
+        return objectMapper.readTree(Files.readAllLines(dir.resolve(AccessLog.FILE_NAME)).get(0));
+    }
+}
@@ -0,0 +1,120 @@
+package BudgetTracker.Tracker.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesOneJsonLinePerEvent() throws IOException {
+        AccessLog accessLog = new AccessLog(dir, 8, 1024 * 1024, 2);
+        accessLog.start();
+        assertTrue(accessLog.record(1_700_000_000_123L, "POST", "/expenses", 7, 201, TimeUnit.MICROSECONDS.toNanos(12_345), 3, 120));
+        assertTrue(accessLog.record(1_700_000_000_500L, "GET", "/budgets/\"x\"", AccessLog.NO_USER, 404, 1_000, -1, -1));
+        accessLog.stop();
+
+        List<JsonNode> lines = read(dir.resolve(AccessLog.FILE_NAME));
+        assertEquals(2, lines.size());
+        JsonNode created = lines.get(0);
+        assertEquals("2023-11-14T22:13:20.123Z", created.get("time").asText());
+        assertEquals("POST", created.get("method").asText());
+        assertEquals("/expenses", created.get("path").asText());
+        assertEquals(7, created.get("userId").asLong());
+        assertEquals(201, created.get("status").asInt());
+        assertEquals(12.345, created.get("latencyMs").asDouble(), 1e-9);
+        assertEquals(3, created.get("sqlStatements").asInt());
+        assertEquals(120, created.get("responseBytes").asLong());
+        JsonNode missing = lines.get(1);
+        assertEquals("/budgets/\"x\"", missing.get("path").asText());
+        assertTrue(missing.get("userId").isNull());
+        assertTrue(missing.get("sqlStatements").isNull());
+        assertTrue(missing.get("responseBytes").isNull());
+    }
+
+    @Test
+    void dropsEventsWhileTheBufferIsFull() throws IOException {
+        // Capacity rounded up to 4; the writer is not started yet
+        AccessLog accessLog = new AccessLog(dir, 3, 1024 * 1024, 2);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(accessLog.record(0, "GET", "/budgets/" + i, i, 200, 0, 0, 0));
+        }
+        assertFalse(accessLog.record(0, "GET", "/budgets/4", 4, 200, 0, 0, 0));
+        assertEquals(1, accessLog.getDropped());
+        assertEquals(4, accessLog.getPending());
+
+        accessLog.start();
+        accessLog.stop();
+        assertEquals(0, accessLog.getPending());
+        assertEquals(List.of("/budgets/0", "/budgets/1", "/budgets/2", "/budgets/3"),
+                read(dir.resolve(AccessLog.FILE_NAME)).stream().map(line -> line.get("path").asText()).toList());
+    }
+
+    @Test
+    void keepsEveryEventOfConcurrentRequests() throws Exception {
+        AccessLog accessLog = new AccessLog(dir, 64, 1024 * 1024, 2);
+        accessLog.start();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    while (!accessLog.record(0, "GET", "/users/" + thread, thread, 200, i, 0, 0)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        accessLog.stop();
+
+        List<JsonNode> lines = read(dir.resolve(AccessLog.FILE_NAME));
+        assertEquals(2000, lines.size());
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            assertEquals(500, lines.stream().filter(line -> line.get("userId").asInt() == thread).count());
+        }
+    }
+
+    @Test
+    void rotatesTheFileAndKeepsTheConfiguredNumberOfOlderFiles() throws IOException {
+        // Every line is over 100 bytes, so each rotates the file
+        AccessLog accessLog = new AccessLog(dir, 8, 100, 2);
+        accessLog.start();
+        for (int i = 0; i < 4; i++) {
+            accessLog.record(0, "GET", "/budgets/" + i, i, 200, 0, 0, 0);
+        }
+        accessLog.stop();
+
+        assertFalse(Files.exists(dir.resolve(AccessLog.FILE_NAME)));
+        assertEquals(3, read(dir.resolve("access.1.jsonl")).get(0).get("userId").asInt());
+        assertEquals(2, read(dir.resolve("access.2.jsonl")).get(0).get("userId").asInt());
+        assertFalse(Files.exists(dir.resolve("access.3.jsonl")));
+    }
+
+    private List<JsonNode> read(Path file) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,92 @@
+package BudgetTracker.Tracker.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadFilterTest {
+
+    private Bulkhead interactive;
+    private Bulkhead bulk;
+    private BulkheadFilter filter;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @BeforeEach
+    void setUp() {
+        interactive = new Bulkhead("interactive", 10, 0);
+        bulk = new Bulkhead("bulk", 1, 0);
+        filter = new BulkheadFilter(Map.of("interactive", interactive, "bulk", bulk),
+                Map.of("bulk", List.of("GET /expenses?!ids", "post /admin/shards/users/{userId}/move")), "interactive", objectMapper);
+    }
+
+    @Test
+    void routesRequestsToTheirBulkheadAndBindsIt() throws Exception {
+        assertEquals("bulk", perform("GET", "/expenses").bound);
+        assertEquals("bulk", perform("POST", "/admin/shards/users/7/move").bound);
+        assertEquals("interactive", perform("GET", "/expenses/1").bound);
+        assertEquals("interactive", perform("POST", "/expenses").bound);
+        assertNull(BulkheadContext.current());
+        assertEquals(0, bulk.getActive());
+    }
+
+    @Test
+    void routesOnTheParametersOfTheRequest() throws Exception {
+        MockHttpServletRequest multiGet = new MockHttpServletRequest("GET", "/expenses");
+        multiGet.setParameter("ids", "1,2");
+        assertEquals("interactive", filter.bulkheadOf(multiGet).getName());
+        assertEquals("bulk", filter.bulkheadOf(new MockHttpServletRequest("GET", "/expenses")).getName());
+
+        Map<String, List<String>> routes = Map.of("bulk", List.of("GET /expenses?ids&!"));
+        assertThrows(IllegalStateException.class,
+                () -> new BulkheadFilter(Map.of("interactive", interactive, "bulk", bulk), routes, "interactive", objectMapper));
+    }
+
+    @Test
+    void fullBulkheadRejectsOnlyItsOwnRequests() throws Exception {
+        assertTrue(bulk.tryEnter());
+
+        Result rejected = perform("GET", "/expenses");
+        assertEquals(503, rejected.response.getStatus());
+        assertEquals("1", rejected.response.getHeader("Retry-After"));
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON_VALUE, rejected.response.getContentType());
+        JsonNode problem = objectMapper.readTree(rejected.response.getContentAsByteArray());
+        assertEquals("bulkhead-full", problem.get("code").asText());
+        assertEquals("/expenses", problem.get("instance").asText());
+        assertNull(rejected.bound);
+        assertEquals(1, bulk.getRejected());
+        // Interactive requests are not held up
+        assertEquals(200, perform("GET", "/dashboard/1").response.getStatus());
+
+        bulk.exit();
+        assertEquals(200, perform("GET", "/expenses").response.getStatus());
+    }
+
+    @Test
+    void rejectsRoutesToUnknownBulkheads() {
+        assertThrows(IllegalStateException.class, () -> new BulkheadFilter(Map.of("interactive", interactive),
+                Map.of("exports", List.of("GET /expenses")), "interactive", objectMapper));
+    }
+
+    private Result perform(String method, String path) throws Exception {
+        Result result = new Result();
+        FilterChain chain = (request, response) -> result.bound = BulkheadContext.current();
+        filter.doFilter(new MockHttpServletRequest(method, path), result.response, chain);
+        return result;
+    }
+
+    private static class Result {
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private String bound;
+    }
+}
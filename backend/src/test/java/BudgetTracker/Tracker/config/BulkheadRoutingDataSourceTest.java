@@ -0,0 +1,61 @@
+package BudgetTracker.Tracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadRoutingDataSourceTest {
+
+    private BulkheadRoutingDataSource dataSource;
+
+    @AfterEach
+    void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    void givesEveryBulkheadItsOwnPoolWithTheSameSettings() throws SQLException {
+        HikariDataSource primary = new HikariDataSource();
+        primary.setJdbcUrl("jdbc:h2:mem:bulkheads;DB_CLOSE_DELAY=-1");
+        primary.setUsername("sa");
+        primary.setPoolName("main");
+        primary.setMaximumPoolSize(8);
+        BulkheadProperties properties = new BulkheadProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        dataSource = BulkheadRoutingDataSource.partition(primary, properties, meterRegistry);
+
+        HikariDataSource bulkPool = dataSource.getPool("bulk");
+        assertSame(primary, dataSource.getPool("interactive"));
+        assertEquals("main-bulk", bulkPool.getPoolName());
+        assertEquals(3, bulkPool.getMaximumPoolSize());
+        assertEquals(8, primary.getMaximumPoolSize());
+        assertEquals(primary.getJdbcUrl(), bulkPool.getJdbcUrl());
+
+        try (Connection connection = BulkheadContext.callIn("bulk", () -> connect(dataSource))) {
+            assertEquals(1, bulkPool.getHikariPoolMXBean().getActiveConnections());
+            assertNull(primary.getHikariPoolMXBean());
+        }
+        // Unbound threads and unknown bulkheads use the default pool
+        try (Connection connection = connect(dataSource); Connection other = BulkheadContext.callIn("exports", () -> connect(dataSource))) {
+            assertEquals(2, primary.getHikariPoolMXBean().getActiveConnections());
+        }
+        assertEquals(0.0, meterRegistry.get("hikaricp.connections.active").tag("pool", "main-bulk").gauge().value());
+    }
+
+    private static Connection connect(BulkheadRoutingDataSource dataSource) {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package BudgetTracker.Tracker.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitFilterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private ConcurrencyLimitProperties properties;
+    private AdaptiveConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(4);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(50);
+        properties.setWriteReserve(0.5);
+        limiter = new AdaptiveConcurrencyLimiter(properties);
+    }
+
+    @Test
+    void requestsOverTheLimitAreRejectedWithRetryAfterAndReadsFirst() throws Exception {
+        // Two reads take the share of the limit reads may use
+        assertEquals(1, limiter.tryAcquire(false));
+        assertEquals(2, limiter.tryAcquire(false));
+
+        MockHttpServletResponse read = perform("GET", new MockFilterChain());
+        assertEquals(503, read.getStatus());
+        assertEquals("1", read.getHeader("Retry-After"));
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON_VALUE, read.getContentType());
+        assertEquals("overloaded", objectMapper.readTree(read.getContentAsByteArray()).get("code").asText());
+        // Writes still get through, up to the whole limit
+        assertEquals(200, perform("POST", new MockFilterChain()).getStatus());
+        assertEquals(3, limiter.tryAcquire(true));
+        assertEquals(4, limiter.tryAcquire(true));
+        assertEquals(503, perform("POST", new MockFilterChain()).getStatus());
+        assertEquals(1, limiter.getRejectedReads());
+        assertEquals(1, limiter.getRejectedWrites());
+
+        limiter.release();
+        assertEquals(200, perform("POST", new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void releasesTheSlotWhenTheRequestFails() {
+        FilterChain failing = (request, response) -> {
+            throw new IllegalStateException("boom");
+        };
+
+        assertThrows(IllegalStateException.class, () -> perform("POST", failing));
+
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void limitGrowsWhileLatencyHoldsAndFallsWhenItRises() {
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(10 * MS, (int) limiter.getLimit());
+        }
+        double grown = limiter.getLimit();
+        assertTrue(grown > 20, "limit grew to " + grown);
+        // Samples from a mostly idle server leave it alone
+        limiter.onSample(500 * MS, 1);
+        assertEquals(grown, limiter.getLimit());
+
+        // Requests start queueing for connections
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(100 * MS, (int) limiter.getLimit());
+        }
+        assertTrue(limiter.getLimit() < grown / 2, "limit fell to " + limiter.getLimit());
+        // Down to the queue it allows for, the square root of the limit
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(1000 * MS, (int) limiter.getLimit());
+        }
+        assertTrue(limiter.getLimit() < 5, "limit fell to " + limiter.getLimit());
+    }
+
+    private MockHttpServletResponse perform(String method, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/expenses");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ConcurrencyLimitFilter(limiter, objectMapper).doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,59 @@
+package BudgetTracker.Tracker.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeadlineFilterTest {
+
+    private final DeadlineFilter filter = new DeadlineFilter(List.of("GET /expenses?!ids=30000", "POST /admin/shards/users/{userId}/move=60000"), 10_000, 45_000);
+
+    @Test
+    void takesTheTimeoutOfTheClientUpToTheMaximum() {
+        assertEquals(2_500, filter.timeoutOf(request("GET", "/expenses", "2500")));
+        assertEquals(45_000, filter.timeoutOf(request("GET", "/expenses", "90000")));
+    }
+
+    @Test
+    void otherwiseTakesTheDeadlineOfTheEndpoint() {
+        assertEquals(30_000, filter.timeoutOf(request("GET", "/expenses", null)));
+        assertEquals(60_000, filter.timeoutOf(request("POST", "/admin/shards/users/7/move", null)));
+        assertEquals(10_000, filter.timeoutOf(request("POST", "/expenses", null)));
+        // A multi-get of a few expenses is not an export
+        assertEquals(10_000, filter.timeoutOf(withIds(request("GET", "/expenses", null))));
+        assertEquals(10_000, filter.timeoutOf(request("GET", "/budgets/user/7", "soon")));
+        assertEquals(10_000, filter.timeoutOf(request("GET", "/budgets/user/7", "-1")));
+    }
+
+    @Test
+    void bindsTheDeadlineForTheRequestOnly() throws Exception {
+        Deadline[] bound = new Deadline[1];
+        filter.doFilter(request("GET", "/budgets/user/7", "2500"), new MockHttpServletResponse(), (request, response) -> bound[0] = Deadline.current());
+
+        assertEquals(2_500, bound[0].getTimeoutMillis());
+        assertFalse(bound[0].isExpired());
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    void rejectsRoutesWithoutATimeout() {
+        assertThrows(IllegalStateException.class, () -> new DeadlineFilter(List.of("GET /expenses"), 10_000, 45_000));
+    }
+
+    private static MockHttpServletRequest withIds(MockHttpServletRequest request) {
+        request.setParameter("ids", "1,2");
+        return request;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String timeout) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (timeout != null) {
+            request.addHeader(DeadlineFilter.TIMEOUT_HEADER, timeout);
+        }
+        return request;
+    }
+}
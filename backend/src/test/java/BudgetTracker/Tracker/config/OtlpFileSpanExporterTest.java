@@ -0,0 +1,51 @@
+package BudgetTracker.Tracker.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtlpFileSpanExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendsOneOtlpJsonRequestPerExport() throws IOException {
+        Path file = dir.resolve("traces/spans.jsonl");
+        SdkTracerProvider provider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new OtlpFileSpanExporter(file)))
+                .build();
+        Tracer tracer = provider.get("test");
+        Span request = tracer.spanBuilder("http post /expenses").startSpan();
+        try (Scope ignored = request.makeCurrent()) {
+            tracer.spanBuilder("insert").setAttribute("db.statement", "insert into expenses values (?)").startSpan().end();
+        } finally {
+            request.end();
+        }
+        provider.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode insert = objectMapper.readTree(lines.get(0)).at("/resourceSpans/0/scopeSpans/0/spans/0");
+        JsonNode parent = objectMapper.readTree(lines.get(1)).at("/resourceSpans/0/scopeSpans/0/spans/0");
+        assertEquals("insert", insert.get("name").asText());
+        assertEquals("db.statement", insert.at("/attributes/0/key").asText());
+        assertEquals("insert into expenses values (?)", insert.at("/attributes/0/value/stringValue").asText());
+        assertEquals(parent.get("traceId").asText(), insert.get("traceId").asText());
+        assertEquals(parent.get("spanId").asText(), insert.get("parentSpanId").asText());
+    }
+}
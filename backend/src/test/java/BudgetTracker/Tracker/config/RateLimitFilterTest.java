@@ -0,0 +1,103 @@
+package BudgetTracker.Tracker.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitFilterTest {
+
+    private RateLimitProperties properties;
+    private TokenBucketRateLimiter limiter;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setUserWrite(new RateLimitProperties.Limit(1, 3));
+        properties.setUserRead(new RateLimitProperties.Limit(1, 5));
+        properties.setIpWrite(new RateLimitProperties.Limit(1, 100));
+        properties.setIpRead(new RateLimitProperties.Limit(1, 100));
+        limiter = new TokenBucketRateLimiter(4);
+        filter = new RateLimitFilter(limiter, properties);
+    }
+
+    @Test
+    void writesOverTheBurstAreRejectedWithRetryAfter() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, perform("POST", "/expenses", "7").getStatus());
+        }
+
+        MockHttpServletResponse rejected = perform("POST", "/expenses", "7");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        // Reads and other users have their own buckets
+        assertEquals(200, perform("GET", "/expenses/user/7", null).getStatus());
+        assertEquals(200, perform("POST", "/expenses", "8").getStatus());
+    }
+
+    @Test
+    void userIdHeadersDoNotSelectTheBucket() throws Exception {
+        properties.setIpWrite(new RateLimitProperties.Limit(1, 2));
+
+        for (String userId : new String[]{"1", "2"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/expenses");
+            request.addHeader(AccessLogFilter.USER_ID_HEADER, userId);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+
+        // Naming a third user does not open a new bucket: the address is still the only key
+        assertEquals(429, perform("POST", "/expenses/user/3", null).getStatus());
+    }
+
+    @Test
+    void nonPositiveLimitsFailTheStartup() {
+        ApplicationContextRunner runner = new ApplicationContextRunner().withUserConfiguration(RateLimitConfig.class);
+
+        runner.withPropertyValues("tracker.rate-limit.user-write.per-second=0.5")
+                .run(context -> assertThat(context).hasNotFailed());
+        runner.withPropertyValues("tracker.rate-limit.user-write.per-second=0")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @Test
+    void clientAddressIsLimitedWithoutUser() throws Exception {
+        properties.setIpWrite(new RateLimitProperties.Limit(1, 2));
+
+        assertEquals(200, perform("POST", "/users", null).getStatus());
+        assertEquals(200, perform("POST", "/users", null).getStatus());
+        assertEquals(429, perform("POST", "/users", null).getStatus());
+    }
+
+    @Test
+    void bucketRefillsAndIdleBucketsAreEvicted() {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit(10, 1);
+        long start = 1_000_000_000L;
+
+        assertEquals(0, limiter.tryAcquire("k", limit, start));
+        assertEquals(100_000_000L, limiter.tryAcquire("k", limit, start));
+        assertEquals(0, limiter.tryAcquire("k", limit, start + 100_000_000L));
+
+        assertEquals(0, limiter.evictIdle(start));
+        assertEquals(1, limiter.evictIdle(start + 1_000_000_000L));
+        assertEquals(0, limiter.size());
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String userId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (userId != null) {
+            request.setUserPrincipal(() -> userId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,75 @@
+package BudgetTracker.Tracker.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Assertions on the SQL statements sent by the test thread, for catching a query per row before it reaches production.
+ * The data source must be wrapped by {@link SqlStatsConfig}, which {@code @DataJpaTest} slices have to import.
+ * <pre>
+ * SqlCountAssertions.reset();
+ * expensesRepository.findByExpensesIdIn(ids).forEach(expense -> expense.getBudget().getUser().getName());
+ * SqlCountAssertions.assertSqlCount(select(2));
+ * </pre>
+ */
+public final class SqlCountAssertions {
+
+    private SqlCountAssertions() {
+    }
+
+    /**
+     * Starts counting the statements of the test thread from zero.
+     */
+    public static void reset() {
+        SqlStats.start();
+    }
+
+    /**
+     * Asserts the statements sent since {@link #reset()}; kinds left out must not have been sent at all.
+     *
+     * @param expected The expected number of statements of each kind, such as {@code select(2), insert(1)}.
+     */
+    public static void assertSqlCount(Expected... expected) {
+        SqlStats stats = SqlStats.current();
+        if (stats == null) {
+            throw new IllegalStateException("SqlCountAssertions.reset() was not called on this thread");
+        }
+        int selects = 0, inserts = 0, updates = 0, deletes = 0;
+        for (Expected count : expected) {
+            switch (count.kind) {
+                case SELECT -> selects = count.count;
+                case INSERT -> inserts = count.count;
+                case UPDATE -> updates = count.count;
+                case DELETE -> deletes = count.count;
+            }
+        }
+        String actual = stats.toString();
+        assertEquals(selects, stats.getSelects(), () -> "select statements, sent " + actual);
+        assertEquals(inserts, stats.getInserts(), () -> "insert statements, sent " + actual);
+        assertEquals(updates, stats.getUpdates(), () -> "update statements, sent " + actual);
+        assertEquals(deletes, stats.getDeletes(), () -> "delete statements, sent " + actual);
+    }
+
+    public static Expected select(int count) {
+        return new Expected(Kind.SELECT, count);
+    }
+
+    public static Expected insert(int count) {
+        return new Expected(Kind.INSERT, count);
+    }
+
+    public static Expected update(int count) {
+        return new Expected(Kind.UPDATE, count);
+    }
+
+    public static Expected delete(int count) {
+        return new Expected(Kind.DELETE, count);
+    }
+
+    private enum Kind { SELECT, INSERT, UPDATE, DELETE }
+
+    /**
+     * The expected number of statements of one kind.
+     */
+    public record Expected(Kind kind, int count) {
+    }
+}
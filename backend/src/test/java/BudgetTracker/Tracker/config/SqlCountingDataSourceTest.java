@@ -0,0 +1,157 @@
+package BudgetTracker.Tracker.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static BudgetTracker.Tracker.config.SqlCountAssertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlCountingDataSourceTest {
+
+    private SqlCountingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:sqlcount;DB_CLOSE_DELAY=-1");
+        dataSource = new SqlCountingDataSource(h2);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS item (id BIGINT PRIMARY KEY, name VARCHAR(20))");
+            statement.execute("DELETE FROM item");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlStats.clear();
+        Deadline.clear();
+    }
+
+    @Test
+    void givesStatementsTheTimeLeftBeforeTheDeadline() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(1);
+            Deadline.start(5_500);
+            statement.executeQuery("SELECT * FROM item").close();
+            // A shorter timeout of the caller is kept
+            assertEquals(1, statement.getQueryTimeout());
+            statement.setQueryTimeout(0);
+            statement.executeQuery("SELECT * FROM item").close();
+            assertEquals(6, statement.getQueryTimeout());
+
+            Deadline.start(0);
+            assertThrows(SQLTimeoutException.class, () -> statement.executeUpdate("DELETE FROM item"));
+        }
+    }
+
+    @Test
+    void countsStatementsRowsAndTimeByKind() throws SQLException {
+        reset();
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement insert = connection.prepareStatement("insert into item values (?, ?)")) {
+                for (int id = 1; id <= 3; id++) {
+                    insert.setLong(1, id);
+                    insert.setString(2, "item" + id);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("/* rename */ UPDATE item SET name = 'x' WHERE id = 1");
+                try (ResultSet rows = statement.executeQuery("(SELECT * FROM item)")) {
+                    while (rows.next()) {
+                        assertSame(connection, statement.getConnection());
+                    }
+                }
+            }
+        }
+
+        assertSqlCount(select(1), insert(1), update(1));
+        SqlStats stats = SqlStats.current();
+        assertEquals(3, stats.getRows());
+        assertTrue(stats.getNanos() > 0);
+        assertEquals(0, stats.getOthers());
+    }
+
+    @Test
+    void countsNothingWithoutBoundStats() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT 1").close();
+        }
+
+        assertNull(SqlStats.current());
+    }
+
+    @Test
+    void failsOnUnexpectedStatements() throws SQLException {
+        reset();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT 1").close();
+            statement.executeQuery("SELECT 2").close();
+        }
+
+        assertThrows(AssertionError.class, () -> assertSqlCount(select(1)));
+        assertThrows(AssertionError.class, () -> assertSqlCount(select(2), delete(1)));
+        assertSqlCount(select(2));
+    }
+
+    @Test
+    void observesStatementsWithinAnObservation() throws SQLException {
+        List<Observation.Context> stopped = new ArrayList<>();
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+        SqlCountingDataSource traced = new SqlCountingDataSource(dataSource.getTargetDataSource(), () -> registry);
+        try (Connection connection = traced.getConnection()) {
+            // Outside an observation
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("insert into item values (9, 'outside')");
+            }
+            Observation.createNotStarted("request", registry).observeChecked(() -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("insert into item values (1, 'a')");
+                    statement.executeUpdate("insert into item values (2, 'b')");
+                    // Left open: closing the statement ends the query observation
+                    ResultSet rows = statement.executeQuery("SELECT * FROM item WHERE id < 9");
+                    while (rows.next()) {
+                        assertEquals(2, stopped.size());
+                    }
+                }
+                return null;
+            });
+        }
+
+        assertEquals(List.of("jdbc.insert", "jdbc.insert", "jdbc.select", "request"), stopped.stream()
+                .map(context -> context.getName().equals(SqlCountingDataSource.OBSERVATION_NAME)
+                        ? "jdbc." + context.getLowCardinalityKeyValue("db.operation").getValue() : context.getName())
+                .toList());
+        Observation.Context query = stopped.get(2);
+        assertEquals("SELECT * FROM item WHERE id < 9", query.getHighCardinalityKeyValue("db.statement").getValue());
+        assertEquals("2", query.getHighCardinalityKeyValue("db.rows").getValue());
+        assertEquals("1", stopped.get(0).getHighCardinalityKeyValue("db.rows").getValue());
+        assertSame(stopped.get(3), query.getParentObservation().getContextView());
+    }
+}
@@ -0,0 +1,49 @@
+package BudgetTracker.Tracker.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlStatsFilterTest {
+
+    // Two selects, the second one while the body is being written, as lazy loads during serialization do
+    private final FilterChain chain = (request, response) -> {
+        SqlStats.current().recordStatement("select * from budgets", 1_000_000);
+        response.getWriter().write("[]");
+        SqlStats.current().recordStatement("select * from users", 500_000);
+        SqlStats.current().recordRow();
+    };
+
+    @Test
+    void returnsTheStatsOfTheRequestAsHeaders() throws Exception {
+        MockHttpServletResponse response = perform(new SqlStatsFilter(true, 50), null);
+
+        assertEquals("select=2, insert=0, update=0, delete=0, other=0", response.getHeader(SqlStatsFilter.COUNT_HEADER));
+        assertEquals("1", response.getHeader(SqlStatsFilter.ROWS_HEADER));
+        assertEquals("1.5", response.getHeader(SqlStatsFilter.TIME_HEADER));
+        assertEquals("[]", response.getContentAsString());
+        assertNull(SqlStats.current());
+    }
+
+    @Test
+    void leavesOutHeadersUnlessEnabledAndForEventStreams() throws Exception {
+        assertNull(perform(new SqlStatsFilter(false, 50), null).getHeader(SqlStatsFilter.COUNT_HEADER));
+
+        MockHttpServletResponse stream = perform(new SqlStatsFilter(true, 50), "text/event-stream");
+        assertNull(stream.getHeader(SqlStatsFilter.COUNT_HEADER));
+        assertEquals("[]", stream.getContentAsString());
+    }
+
+    private MockHttpServletResponse perform(SqlStatsFilter filter, String accept) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/budgets/user/1");
+        if (accept != null) {
+            request.addHeader("Accept", accept);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,71 @@
+package BudgetTracker.Tracker.controller;
+
+import BudgetTracker.Tracker.dto.SpendGroup;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.service.ExpenseAnalyticsService;
+import BudgetTracker.Tracker.service.ExpenseColumns;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(AnalyticsController.class)
+class AnalyticsControllerTest {
+
+    @MockBean
+    private ExpenseAnalyticsService expenseAnalyticsService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void aggregateByMonthWithFilters() throws Exception {
+        given(expenseAnalyticsService.aggregate(1L, ExpenseColumns.GroupBy.MONTH, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31),
+                List.of(5L, 6L), 10L, null))
+                .willReturn(List.of(new SpendGroup("2024-02", 3, 120, 10, 70)));
+
+        mockMvc.perform(get("/analytics/user/1").param("groupBy", "month").param("from", "2024-01-01").param("to", "2024-03-31")
+                        .param("budgetId", "5", "6").param("minAmount", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].key").value("2024-02"))
+                .andExpect(jsonPath("$[0].count").value(3))
+                .andExpect(jsonPath("$[0].total").value(120))
+                .andExpect(jsonPath("$[0].max").value(70));
+    }
+
+    @Test
+    void aggregateRejectsUnknownGrouping() throws Exception {
+        mockMvc.perform(get("/analytics/user/1").param("groupBy", "week"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("invalid-group-by"))
+                .andExpect(jsonPath("$.detail").value(containsString("groupBy")));
+        verifyNoInteractions(expenseAnalyticsService);
+    }
+
+    @Test
+    void aggregateRejectsInvalidRange() throws Exception {
+        given(expenseAnalyticsService.aggregate(any(), any(), any(), any(), any(), any(), any()))
+                .willThrow(new InvalidInputException("invalid-date-range", "from must not be after to."));
+
+        mockMvc.perform(get("/analytics/user/1").param("from", "2024-03-01").param("to", "2024-02-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("invalid-date-range"))
+                .andExpect(jsonPath("$.detail").value("from must not be after to."));
+    }
+}
@@ -3,8 +3,19 @@ package BudgetTracker.Tracker.controller;
 import BudgetTracker.Tracker.entity.Budget;
 import BudgetTracker.Tracker.entity.User;
 import BudgetTracker.Tracker.exceptions.*;
+import BudgetTracker.Tracker.dto.BudgetForecast;
+import BudgetTracker.Tracker.dto.BudgetStats;
+import BudgetTracker.Tracker.dto.MultiGetResult;
+import BudgetTracker.Tracker.dto.SpendStats;
+import BudgetTracker.Tracker.service.BudgetForecastService;
 import BudgetTracker.Tracker.service.BudgetService;
+import BudgetTracker.Tracker.service.BudgetStatsService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,6 +29,9 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.willDoNothing;
@@ -25,6 +39,7 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.mockito.BDDMockito.given;
 
@@ -35,6 +50,12 @@ class BudgetControllerTest {
     @MockBean // Use @MockBean instead of @Mock for Spring Boot's context
     private BudgetService budgetService;
 
+    @MockBean
+    private BudgetStatsService budgetStatsService;
+
+    @MockBean
+    private BudgetForecastService budgetForecastService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -83,6 +104,26 @@ class BudgetControllerTest {
 
     }
 
+    @Test
+    void createBudgetAnswersValidationFailuresWithAProblemDetail() throws Exception {
+        InvalidInputException invalid = new InvalidInputException("invalid-budget-amount", "Budget amount cannot be negative or zero.");
+        // Validation failures are expected, so they skip capturing a stack trace
+        assertEquals(0, invalid.getStackTrace().length);
+        given(budgetService.createBudget(any(Budget.class))).willThrow(invalid);
+
+        mockMvc.perform(post("/budgets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"budgetDescription\":\"Holiday\",\"budgetAmount\":\"-500\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.type").value("urn:expenditrack:problem:invalid-budget-amount"))
+                .andExpect(jsonPath("$.title").value("Bad Request"))
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.detail").value("Budget amount cannot be negative or zero."))
+                .andExpect(jsonPath("$.instance").value("/budgets"))
+                .andExpect(jsonPath("$.code").value("invalid-budget-amount"));
+    }
+
     @Test
     void createBudgetThrowsInvalidInputException() throws Exception {
         given(budgetService.createBudget(any(Budget.class))).willThrow(new InvalidInputException("Invalid input"));
@@ -185,4 +226,156 @@ class BudgetControllerTest {
                 .andExpect(status().isNotFound());
     }
 
- }
+    @Test
+    void deleteBudgetsSuccess() throws Exception {
+        mockMvc.perform(delete("/budgets").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Budgets deleted successfully!"));
+        verify(budgetService).deleteBudgets(List.of(1L, 2L));
+    }
+
+    @Test
+    void deleteBudgetsThrowsBudgetNotFoundException() throws Exception {
+        doThrow(new BudgetNotFoundException("Budgets with IDs [2] not found."))
+                .when(budgetService).deleteBudgets(List.of(1L, 2L));
+        mockMvc.perform(delete("/budgets").param("ids", "1,2"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(containsString("[2]")));
+    }
+
+    @Test
+    void getBudgetsByIdsAnswersInRequestOrderWithTheMissingIds() throws Exception {
+        Budget first = new Budget();
+        first.setBudgetId(3L);
+        Budget second = new Budget();
+        second.setBudgetId(1L);
+        when(budgetService.getBudgetsByIds(List.of(3L, 2L, 1L)))
+                .thenReturn(new MultiGetResult<>(List.of(first, second), List.of(2L)));
+
+        mockMvc.perform(get("/budgets").param("ids", "3,2,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].budgetId").value(3))
+                .andExpect(jsonPath("$.items[1].budgetId").value(1))
+                .andExpect(jsonPath("$.missingIds[0]").value(2));
+
+        mockMvc.perform(get("/budgets").param("ids", ""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("missing-ids"));
+    }
+
+    @Test
+    void getForecastsByUserIdSuccess() throws Exception {
+        when(budgetForecastService.getForecastsByUserId(1L))
+                .thenReturn(List.of(new BudgetForecast(5L, 1000, 400, 30.0, 1300, 0.85)));
+
+        mockMvc.perform(get("/budgets/user/{userId}/forecast", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].budgetId").value(5))
+                .andExpect(jsonPath("$[0].projectedSpend").value(1300))
+                .andExpect(jsonPath("$[0].overrunProbability").value(0.85));
+    }
+
+    @Test
+    void getBudgetStatsSuccess() throws Exception {
+        SpendStats march = new SpendStats("2024-03", 3, 20.0, 20.0, 29.0, 30.0, 30);
+        SpendStats year = new SpendStats("2024", 3, 20.0, 20.0, 29.0, 30.0, 30);
+        when(budgetStatsService.getStats(5L, 2024)).thenReturn(new BudgetStats(5L, List.of(march), List.of(year)));
+
+        mockMvc.perform(get("/budgets/{id}/stats", 5L).param("year", "2024"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.months[0].period").value("2024-03"))
+                .andExpect(jsonPath("$.years[0].p90").value(29.0))
+                .andExpect(jsonPath("$.years[0].max").value(30));
+    }
+
+    @Test
+    void getBudgetStatsThrowsBudgetNotFoundException() throws Exception {
+        when(budgetStatsService.getStats(9L, null)).thenThrow(new BudgetNotFoundException("Budget with ID 9 not found"));
+
+        mockMvc.perform(get("/budgets/{id}/stats", 9L))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(containsString("Budget with ID 9 not found")));
+    }
+
+    @Test
+    void getBudgetsByUserId_DefaultsToJson() throws Exception {
+        budget.setBudgetId(5L);
+        when(budgetService.getBudgetsByUserId(1L)).thenReturn(List.of(budget));
+
+        mockMvc.perform(get("/budgets/user/1").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void getBudgetsByUserId_Cbor() throws Exception {
+        budget.setBudgetId(5L);
+        when(budgetService.getBudgetsByUserId(1L)).thenReturn(List.of(budget));
+
+        byte[] body = mockMvc.perform(get("/budgets/user/1").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode budgets = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertEquals("Holiday", budgets.get(0).get("budgetDescription").asText());
+        assertEquals(1000, budgets.get(0).get("budgetAmount").asInt());
+    }
+
+    @Test
+    void getBudgetsByUserId_Smile() throws Exception {
+        when(budgetService.getBudgetsByUserId(1L)).thenReturn(List.of(budget));
+
+        byte[] body = mockMvc.perform(get("/budgets/user/1").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode budgets = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertEquals("Holiday", budgets.get(0).get("budgetDescription").asText());
+    }
+
+    @Test
+    void getBudgetsByUserId_Protobuf() throws Exception {
+        budget.setBudgetId(5L);
+        budget.setAlertThresholds(List.of(50, 100));
+        when(budgetService.getBudgetsByUserId(1L)).thenReturn(List.of(budget));
+
+        byte[] body = mockMvc.perform(get("/budgets/user/1").accept("application/x-protobuf"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // BudgetList { repeated Budget budgets = 1; }
+        CodedInputStream list = CodedInputStream.newInstance(body);
+        assertEquals(tag(1, WireFormat.WIRETYPE_LENGTH_DELIMITED), list.readTag());
+        CodedInputStream message = CodedInputStream.newInstance(list.readByteArray());
+        assertTrue(list.isAtEnd());
+        assertEquals(tag(1, WireFormat.WIRETYPE_VARINT), message.readTag());
+        assertEquals(5L, message.readInt64());
+        assertEquals(tag(2, WireFormat.WIRETYPE_LENGTH_DELIMITED), message.readTag());
+        assertEquals("Holiday", message.readString());
+        assertEquals(tag(3, WireFormat.WIRETYPE_VARINT), message.readTag());
+        assertEquals(1000, message.readInt32());
+        assertEquals(tag(4, WireFormat.WIRETYPE_VARINT), message.readTag());
+        assertEquals(1L, message.readInt64());
+        assertEquals(tag(6, WireFormat.WIRETYPE_LENGTH_DELIMITED), message.readTag());
+        CodedInputStream thresholds = CodedInputStream.newInstance(message.readByteArray());
+        assertEquals(50, thresholds.readInt32());
+        assertEquals(100, thresholds.readInt32());
+        assertTrue(message.isAtEnd());
+    }
+
+    @Test
+    void createBudget_NotAvailableAsProtobuf() throws Exception {
+        when(budgetService.createBudget(any(Budget.class))).thenReturn(budget);
+
+        mockMvc.perform(post("/budgets").contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/x-protobuf")
+                        .content(new ObjectMapper().writeValueAsString(budget)))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    private static int tag(int field, int wireType) {
+        return field << 3 | wireType;
+    }
+}
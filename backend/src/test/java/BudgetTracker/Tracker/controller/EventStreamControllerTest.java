@@ -0,0 +1,50 @@
+package BudgetTracker.Tracker.controller;
+
+import BudgetTracker.Tracker.service.UserEventStreamService;
+import BudgetTracker.Tracker.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(EventStreamController.class)
+public class EventStreamControllerTest {
+
+    @MockBean
+    private UserEventStreamService eventStreamService;
+
+    @MockBean
+    private UserService userService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void streamUserEvents_OpensStream() throws Exception {
+        when(userService.existsById(1L)).thenReturn(true);
+        when(eventStreamService.subscribe(1L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/events/user/{userId}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        verify(eventStreamService).subscribe(1L);
+    }
+
+    @Test
+    void streamUserEvents_UserNotFound() throws Exception {
+        when(userService.existsById(99L)).thenReturn(false);
+
+        mockMvc.perform(get("/events/user/{userId}", 99L))
+                .andExpect(status().isNotFound());
+
+        verify(eventStreamService, never()).subscribe(anyLong());
+    }
+}
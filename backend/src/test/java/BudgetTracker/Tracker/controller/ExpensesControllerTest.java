@@ -1,14 +1,19 @@
 package BudgetTracker.Tracker.controller;
 
+import BudgetTracker.Tracker.dto.IngestionTicket;
 import BudgetTracker.Tracker.entity.Budget;
 import BudgetTracker.Tracker.entity.Expenses;
 import BudgetTracker.Tracker.entity.User;
 import BudgetTracker.Tracker.exceptions.BudgetNotFoundException;
 import BudgetTracker.Tracker.exceptions.ExpenseNotFoundException;
 import BudgetTracker.Tracker.exceptions.InvalidDAteException;
+import BudgetTracker.Tracker.exceptions.IngestionQueueFullException;
 import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.service.ExpenseIngestionQueue;
 import BudgetTracker.Tracker.service.ExpensesService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -27,6 +32,8 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -38,6 +45,7 @@ import static org.springframework.test.web.client.match.MockRestRequestMatchers.
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ExpensesController.class)
@@ -46,6 +54,9 @@ public class ExpensesControllerTest {
     @MockBean
     private ExpensesService expensesService;
 
+    @MockBean
+    private ExpenseIngestionQueue ingestionQueue;
+
     @Autowired
     private MockMvc mockMvc;
     @InjectMocks
@@ -202,7 +213,8 @@ public class ExpensesControllerTest {
                         .content("{\"expensesDescription\":\"Walmart\",\"expensesAmount\":\"-500\"," +
                                 " \"expensesDate\": \"2020-01-01T00:00:00Z\"}"))
                 .andExpect(status().isBadRequest())
-                .andExpect(content().string(containsString("Invalid input: Budget not found")));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.code").value("budget-not-found"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("Budget not found"));
     }
 
     @Test
@@ -219,7 +231,8 @@ public class ExpensesControllerTest {
                         .content(new ObjectMapper().writeValueAsString(expenseDetails)))
                 // Verify the response
                 .andExpect(MockMvcResultMatchers.status().isNotFound())
-                .andExpect(MockMvcResultMatchers.content().string("An expense with ID = " + expenseId + " is not found"));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.code").value("expense-not-found"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("Expense with ID " + expenseId + " not found"));
 
         // Verify that the service method was called with the correct arguments
         verify(expensesService).updateExpense(eq(expenseId), any(Expenses.class));
@@ -240,7 +253,8 @@ public class ExpensesControllerTest {
                         .content(new ObjectMapper().writeValueAsString(expenseDetails)))
                 // Verify the response
                 .andExpect(MockMvcResultMatchers.status().isBadRequest())
-                .andExpect(MockMvcResultMatchers.content().string("Invalid input: Invalid input message"));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.code").value("invalid-input"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("Invalid input message"));
 
         // Verify that the service method was called with the correct arguments
         verify(expensesService).updateExpense(eq(expenseId), any(Expenses.class));
@@ -263,7 +277,8 @@ public class ExpensesControllerTest {
                         .content(new ObjectMapper().writeValueAsString(expenseDetails)))
                 // Verify the response
                 .andExpect(MockMvcResultMatchers.status().isInternalServerError())
-                .andExpect(MockMvcResultMatchers.content().string("An unexpected error occurred. Please try again later."));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.code").value("internal-error"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("An unexpected error occurred. Please try again later."));
 
         // Verify that the service method was called with the correct arguments
         verify(expensesService).updateExpense(eq(expenseId), any(Expenses.class));
@@ -276,17 +291,97 @@ public class ExpensesControllerTest {
 
         mockMvc.perform(delete("/expenses/{id}", expenseId))
                 .andExpect(status().isNotFound())
-                .andExpect(content().string("Expense with ID 1 not found"));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.code").value("expense-not-found"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("Expense with ID 1 not found"));
 
         verify(expensesService).deleteExpense(expenseId);
     }
 
+    @Test
+    @DisplayName("Should queue the expense and return a tracking id when ingestion is asynchronous")
+    void createExpense_Queued() throws Exception {
+        when(ingestionQueue.isEnabled()).thenReturn(true);
+        when(ingestionQueue.submit(any(Expenses.class))).thenReturn(new IngestionTicket("abc-123", Instant.now()));
+
+        mockMvc.perform(post("/expenses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"expensesDescription\":\"Walmart\",\"expensesAmount\":\"50\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.trackingId").value("abc-123"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("QUEUED"));
+
+        verify(expensesService, never()).createExpense(any(Expenses.class));
     }
 
+    @Test
+    void createExpense_QueueFull() throws Exception {
+        when(ingestionQueue.isEnabled()).thenReturn(true);
+        when(ingestionQueue.submit(any(Expenses.class))).thenThrow(new IngestionQueueFullException("Expense ingestion queue is full. Please retry later."));
+
+        mockMvc.perform(post("/expenses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"expensesDescription\":\"Walmart\",\"expensesAmount\":\"50\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
 
+    @Test
+    void getIngestionTicket_NotFound() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/expenses/ingestion/{trackingId}", "missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.code").value("ingestion-ticket-not-found"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("No queued expense with tracking ID missing"));
+    }
 
+    @Test
+    @DisplayName("Should encode the expenses of a user as a Protobuf ExpenseList")
+    void getExpensesByUserIdProtobufTest() throws Exception {
+        expense2.setExpensesDate(expense1.getExpensesDate());
+        when(expensesService.getExpensesByUserId(1L)).thenReturn(List.of(expense1, expense2));
 
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/expenses/user/1").accept("application/x-protobuf"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        CodedInputStream list = CodedInputStream.newInstance(body);
+        List<String> descriptions = new ArrayList<>();
+        while (!list.isAtEnd()) {
+            assertEquals(1, WireFormat.getTagFieldNumber(list.readTag()));
+            CodedInputStream message = CodedInputStream.newInstance(list.readByteArray());
+            while (!message.isAtEnd()) {
+                int tag = message.readTag();
+                switch (WireFormat.getTagFieldNumber(tag)) {
+                    case 2 -> descriptions.add(message.readString());
+                    case 4 -> assertEquals(expense1.getExpensesDate().toEpochMilli(), message.readInt64());
+                    case 5 -> assertEquals(1L, message.readInt64());
+                    default -> message.skipField(tag);
+                }
+            }
+        }
+        assertEquals(List.of("Groceries", "Utilities"), descriptions);
+    }
 
+    @Test
+    void getExpensesByUserIdAndTags_Success() throws Exception {
+        Expenses tagged = new Expenses();
+        tagged.setExpensesId(3L);
+        tagged.setTags(new TreeSet<>(Set.of("work")));
+        when(expensesService.getExpensesByUserIdAndTags(1L, List.of("work", "travel"), false)).thenReturn(List.of(tagged));
 
+        mockMvc.perform(MockMvcRequestBuilders.get("/expenses/user/{userId}", 1L).param("tags", "work,travel").param("mode", "any"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].expensesId").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].tags[0]").value("work"));
+    }
 
+    @Test
+    void getExpensesByUserIdAndTags_InvalidMode() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/expenses/user/{userId}", 1L).param("tags", "work").param("mode", "some"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.code").value("invalid-tag-mode"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value(containsString("mode")));
+        verifyNoInteractions(expensesService);
+    }
 
+}
@@ -0,0 +1,105 @@
+package BudgetTracker.Tracker.controller;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.entity.User;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import BudgetTracker.Tracker.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "tracker.graphql.max-depth=4")
+@AutoConfigureGraphQlTester
+@ActiveProfiles("test")
+class GraphQlControllerTest {
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+    @Autowired
+    private UserRepository userRepository;
+    @SpyBean
+    private BudgetRepository budgetRepository;
+    @SpyBean
+    private ExpensesRepository expensesRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setName("GraphQl");
+        user.setEmail("graphql@example.com");
+        user = userRepository.save(user);
+        for (String description : List.of("Rent", "Food", "Travel")) {
+            Budget budget = new Budget();
+            budget.setBudgetDescription(description);
+            budget.setBudgetAmount(1000);
+            budget.setUser(user);
+            budget = budgetRepository.save(budget);
+            for (int i = 1; i <= 2; i++) {
+                Expenses expense = new Expenses();
+                expense.setExpensesDescription(description + " " + i);
+                expense.setExpensesAmount(10 * i);
+                expense.setExpensesDate(Instant.now());
+                expense.setBudget(budget);
+                expensesRepository.save(expense);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        expensesRepository.deleteAll();
+        budgetRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void nestedSelectionIsLoadedWithOneQueryPerLevel() {
+        List<String> descriptions = graphQlTester.document("""
+                        query($id: ID!) {
+                          user(id: $id) {
+                            name
+                            budgets { budgetDescription expenses { expensesDescription expensesAmount } }
+                          }
+                        }""")
+                .variable("id", user.getId())
+                .execute()
+                .path("user.name").entity(String.class).isEqualTo("GraphQl")
+                .path("user.budgets[*].budgetDescription").entityList(String.class).containsExactly("Rent", "Food", "Travel")
+                .path("user.budgets[1].expenses[*].expensesDescription").entityList(String.class).get();
+
+        assertEquals(List.of("Food 1", "Food 2"), descriptions);
+        verify(budgetRepository, times(1)).findByUserIdIn(anyCollection());
+        verify(expensesRepository, times(1)).findByBudget_BudgetIdIn(anyCollection());
+    }
+
+    @Test
+    void queriesDeeperThanTheLimitAreRejected() {
+        graphQlTester.document("""
+                        query($id: ID!) {
+                          user(id: $id) { budgets { expenses { budget { user { name } } } } }
+                        }""")
+                .variable("id", user.getId())
+                .execute()
+                .errors()
+                .satisfy(errors -> assertFalse(errors.isEmpty()))
+                .path("user").pathDoesNotExist();
+    }
+}
@@ -87,7 +87,8 @@ public class UserControllerTest {
                         .param("email", "john.doe@example.com")
                 .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
-                .andExpect((content().string("User not found")));
+                .andExpect(jsonPath("$.code").value("user-not-found"))
+                .andExpect(jsonPath("$.detail").value("User not found"));
 
     }
 
@@ -100,7 +101,9 @@ public class UserControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"name\":\"testUser\",\"email\":\"test@example.com\"}")) // Example user JSON
                 .andExpect(status().isBadRequest())
-                .andExpect(content().string("An account with these credentials already exists."));
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.code").value("duplicate-user"))
+                .andExpect(jsonPath("$.detail").value("An account with these credentials already exists."));
     }
 
 }
@@ -1,5 +1,6 @@
 package BudgetTracker.Tracker.repository;
 
+import BudgetTracker.Tracker.dto.DashboardTotals;
 import BudgetTracker.Tracker.entity.Budget;
 import BudgetTracker.Tracker.entity.Expenses;
 import BudgetTracker.Tracker.entity.User;
@@ -130,4 +131,84 @@ public class BudgetRepositoryTest {
 
 
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Should adjust the running spend total of a budget")
+    public void testAddToSpentAmount() {
+        Budget savedBudget = budgetRepository.save(budget);
+
+        budgetRepository.addToSpentAmount(savedBudget.getBudgetId(), 300, 1);
+        budgetRepository.addToSpentAmount(savedBudget.getBudgetId(), -100, 1);
+
+        assertEquals(200L, budgetRepository.findSpentAmountByBudgetId(savedBudget.getBudgetId()));
+    }
+
+    @Test
+    @DisplayName("Should count the expense writes of a budget as its data version")
+    public void testFindDataVersionsByUserId() {
+        Budget savedBudget = budgetRepository.save(budget);
+
+        budgetRepository.addToSpentAmount(savedBudget.getBudgetId(), 300, 4);
+        budgetRepository.addToSpentAmount(savedBudget.getBudgetId(), 0, 1);
+
+        List<Object[]> versions = budgetRepository.findDataVersionsByUserId(user.getId());
+        assertEquals(1, versions.size());
+        assertEquals(savedBudget.getBudgetId(), versions.get(0)[0]);
+        assertEquals(5L, versions.get(0)[1]);
+        assertTrue(budgetRepository.findDataVersionsByUserId(user.getId() + 1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should sum the budgets of a user and their running totals")
+    public void testFindTotalsByUserId() {
+        Budget savedBudget = budgetRepository.save(budget);
+        Budget otherBudget = new Budget();
+        otherBudget.setBudgetDescription("Rent");
+        otherBudget.setBudgetAmount(500);
+        otherBudget.setUser(user);
+        budgetRepository.save(otherBudget);
+        budgetRepository.addToSpentAmount(savedBudget.getBudgetId(), 300, 1);
+
+        DashboardTotals totals = budgetRepository.findTotalsByUserId(user.getId());
+
+        assertEquals(2, totals.getBudgetCount());
+        assertEquals(1500, totals.getBudgetAmount());
+        assertEquals(300, totals.getSpentAmount());
+        assertEquals(0, budgetRepository.findTotalsByUserId(user.getId() + 1).getBudgetCount());
+    }
+
+    @Test
+    @DisplayName("Should delete budgets and their expenses with set-based statements")
+    public void testDeleteByBudgetIdIn() {
+        Budget savedBudget = budgetRepository.save(budget);
+        expenses.setBudget(savedBudget);
+        expensesRepository.save(expenses);
+
+        assertEquals(1, budgetRepository.findOwnersByBudgetIdIn(List.of(savedBudget.getBudgetId())).size());
+        assertEquals(1, expensesRepository.deleteByBudgetIdIn(List.of(savedBudget.getBudgetId())));
+        assertEquals(1, budgetRepository.deleteByBudgetIdIn(List.of(savedBudget.getBudgetId())));
+
+        assertTrue(budgetRepository.findById(savedBudget.getBudgetId()).isEmpty());
+        assertTrue(expensesRepository.findByBudget_User_Id(user.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep the daily spend rate of a budget")
+    public void testSpendRate() {
+        Budget savedBudget = budgetRepository.save(budget);
+        Long budgetId = savedBudget.getBudgetId();
+
+        BudgetRepository.SpendRate initial = budgetRepository.findSpendRateForUpdate(budgetId).orElseThrow();
+        assertNull(initial.getRateDay());
+        assertEquals(0, budgetRepository.addToSpendDayAmount(budgetId, 19800L, 10L));
+
+        budgetRepository.updateSpendRate(budgetId, 19800L, 10L, 25.0, 4.0);
+        assertEquals(1, budgetRepository.addToSpendDayAmount(budgetId, 19800L, 5L));
+
+        BudgetRepository.SpendRate rate = budgetRepository.findSpendRateForUpdate(budgetId).orElseThrow();
+        assertEquals(19800L, rate.getRateDay());
+        assertEquals(15L, rate.getDayAmount());
+        assertEquals(25.0, rate.getRate());
+        assertEquals(4.0, rate.getVariance());
+    }
+
+}
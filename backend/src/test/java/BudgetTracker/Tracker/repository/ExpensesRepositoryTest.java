@@ -1,5 +1,8 @@
 package BudgetTracker.Tracker.repository;
 
+import BudgetTracker.Tracker.config.SqlStats;
+import BudgetTracker.Tracker.config.SqlStatsConfig;
+import BudgetTracker.Tracker.entity.Budget;
 import BudgetTracker.Tracker.entity.Expenses;
 import BudgetTracker.Tracker.entity.User;
 import org.junit.jupiter.api.AfterEach;
@@ -8,15 +11,20 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.TestPropertySource;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.TreeSet;
 
+import static BudgetTracker.Tracker.config.SqlCountAssertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
+@Import(SqlStatsConfig.class)
 @TestPropertySource(properties = {
         "spring.datasource.url=jdbc:h2:mem:testdb",
         "spring.datasource.driver-class-name=org.h2.Driver",
@@ -31,6 +39,12 @@ public class ExpensesRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     private User user;
 
     private Expenses expenses;
@@ -53,6 +67,7 @@ public class ExpensesRepositoryTest {
 
     @AfterEach
     void tearDown() {
+        SqlStats.clear();
         // Delete all user records from the repository after each test
         userRepository.deleteAll();
     }
@@ -118,4 +133,55 @@ public class ExpensesRepositoryTest {
         assertFalse(existingExpensesOptional.isPresent());
     }
 
+    @Test
+    @DisplayName("Should return the tags of a user's expenses and delete them with their budget")
+    public void testTags() {
+        Budget budget = new Budget();
+        budget.setBudgetDescription("Study");
+        budget.setBudgetAmount(1000);
+        budget.setUser(user);
+        budget = budgetRepository.save(budget);
+        expenses.setBudget(budget);
+        expenses.setTags(new TreeSet<>(List.of("school", "work")));
+        Expenses savedExpenses = expensesRepository.saveAndFlush(expenses);
+
+        List<Object[]> rows = expensesRepository.findTagsByUserId(user.getId());
+        assertEquals(2, rows.size());
+        assertTrue(rows.stream().allMatch(row -> savedExpenses.getExpensesId().equals(row[0])));
+        assertEquals(List.of(savedExpenses.getExpensesId()),
+                expensesRepository.findByExpensesIdIn(List.of(savedExpenses.getExpensesId())).stream().map(Expenses::getExpensesId).toList());
+
+        assertEquals(2, expensesRepository.deleteTagsByBudgetIdIn(List.of(budget.getBudgetId())));
+        assertEquals(1, expensesRepository.deleteByBudgetIdIn(List.of(budget.getBudgetId())));
+        assertTrue(expensesRepository.findTagsByUserId(user.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should load expenses with their budget, user and tags in a fixed number of statements")
+    public void testFindByExpensesIdInStatementCount() {
+        Budget budget = new Budget();
+        budget.setBudgetDescription("Study");
+        budget.setBudgetAmount(1000);
+        budget.setUser(user);
+        budget = budgetRepository.save(budget);
+        List<Long> ids = new java.util.ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Expenses expense = new Expenses();
+            expense.setExpensesDescription("Books" + i);
+            expense.setExpensesAmount(10 + i);
+            expense.setBudget(budget);
+            expense.setTags(new TreeSet<>(List.of("school")));
+            ids.add(expensesRepository.save(expense).getExpensesId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        reset();
+        List<Expenses> loaded = expensesRepository.findByExpensesIdIn(ids);
+        loaded.forEach(expense -> assertEquals("Seif", expense.getBudget().getUser().getName()));
+        loaded.forEach(expense -> assertEquals(1, expense.getTags().size()));
+
+        // One query for the expenses with their budget and user, one batch for the tags; none per expense
+        assertSqlCount(select(2));
+    }
 }
@@ -0,0 +1,134 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.BudgetAlert;
+import BudgetTracker.Tracker.entity.DataMigration;
+import BudgetTracker.Tracker.entity.User;
+import BudgetTracker.Tracker.events.BudgetAlertEvent;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.repository.BudgetAlertRepository;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.DataMigrationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BudgetAlertServiceTest {
+
+    @Mock
+    private BudgetRepository budgetRepository;
+    @Mock
+    private BudgetAlertRepository budgetAlertRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BudgetForecastService budgetForecastService;
+    @Mock
+    private DataMigrationRepository dataMigrationRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private BudgetAlertService budgetAlertService;
+
+    private Budget budget;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(budgetAlertService, "defaultThresholds", List.of(50, 80, 100));
+        User user = new User();
+        user.setId(1L);
+        budget = new Budget();
+        budget.setBudgetId(10L);
+        budget.setBudgetAmount(1000);
+        budget.setUser(user);
+    }
+
+    @Test
+    void backfillsTheRunningTotalsOnceAndRecordsIt() {
+        // Sharding disabled: the single database is backfilled
+        ReflectionTestUtils.setField(budgetAlertService, "shardRouter", new ShardRouter());
+        when(dataMigrationRepository.existsById(BudgetAlertService.SPENT_AMOUNT_BACKFILL)).thenReturn(false, true);
+
+        budgetAlertService.recalculateSpentAmounts();
+        budgetAlertService.recalculateSpentAmounts();
+
+        verify(budgetRepository, times(1)).recalculateSpentAmounts();
+        ArgumentCaptor<DataMigration> migration = ArgumentCaptor.forClass(DataMigration.class);
+        verify(dataMigrationRepository).save(migration.capture());
+        assertEquals(BudgetAlertService.SPENT_AMOUNT_BACKFILL, migration.getValue().getName());
+    }
+
+    @Test
+    void crossingThresholdsRaisesEachOnce() {
+        when(budgetRepository.findSpentAmountByBudgetId(10L)).thenReturn(850L);
+        when(budgetAlertRepository.findThresholdPercentsByBudgetId(10L)).thenReturn(List.of());
+        when(budgetAlertRepository.save(any(BudgetAlert.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        long total = budgetAlertService.applySpendDelta(budget, 400);
+
+        assertEquals(850L, total);
+        verify(budgetRepository).addToSpentAmount(10L, 400, 1);
+        ArgumentCaptor<BudgetAlert> saved = ArgumentCaptor.forClass(BudgetAlert.class);
+        verify(budgetAlertRepository, times(2)).save(saved.capture());
+        assertEquals(List.of(50, 80), saved.getAllValues().stream().map(BudgetAlert::getThresholdPercent).toList());
+        verify(eventPublisher, times(2)).publishEvent(any(BudgetAlertEvent.class));
+    }
+
+    @Test
+    void writeThatCrossesNoThresholdDoesNotTouchAlerts() {
+        when(budgetRepository.findSpentAmountByBudgetId(10L)).thenReturn(600L);
+
+        budgetAlertService.applySpendDelta(budget, 50);
+
+        verifyNoInteractions(budgetAlertRepository, eventPublisher);
+    }
+
+    @Test
+    void fallingBelowThresholdRearmsIt() {
+        budget.setAlertThresholds(List.of(75));
+        when(budgetRepository.findSpentAmountByBudgetId(10L)).thenReturn(700L);
+
+        budgetAlertService.applySpendDelta(budget, -100);
+
+        verify(budgetAlertRepository).deleteByBudgetIdAndThresholdPercentIn(10L, List.of(75));
+        verify(budgetAlertRepository, never()).save(any(BudgetAlert.class));
+    }
+
+    @Test
+    void reevaluateRaisesMissingAndDropsStaleAlerts() {
+        when(budgetRepository.findSpentAmountByBudgetId(10L)).thenReturn(600L);
+        when(budgetAlertRepository.findThresholdPercentsByBudgetId(10L)).thenReturn(List.of(80));
+        when(budgetAlertRepository.save(any(BudgetAlert.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        budgetAlertService.reevaluate(budget);
+
+        verify(budgetAlertRepository).deleteByBudgetIdAndThresholdPercentIn(eq(10L), anyCollection());
+        ArgumentCaptor<BudgetAlert> saved = ArgumentCaptor.forClass(BudgetAlert.class);
+        verify(budgetAlertRepository).save(saved.capture());
+        assertEquals(50, saved.getValue().getThresholdPercent());
+    }
+
+    @Test
+    void updateThresholdsRejectsInvalidPercentages() {
+        when(budgetRepository.findById(10L)).thenReturn(Optional.of(budget));
+
+        assertThrows(InvalidInputException.class, () -> budgetAlertService.updateThresholds(10L, List.of(50, 0)));
+        verify(budgetRepository, never()).save(any(Budget.class));
+    }
+}
@@ -0,0 +1,115 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.dto.BudgetForecast;
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BudgetForecastServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 4, 20);
+
+    @Mock
+    private BudgetRepository budgetRepository;
+    @InjectMocks
+    private BudgetForecastService budgetForecastService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(budgetForecastService, "alpha", 0.5);
+    }
+
+    @Test
+    void recordSpendAddsToTheCurrentDay() {
+        when(budgetRepository.addToSpendDayAmount(5L, TODAY.toEpochDay(), 30L)).thenReturn(1);
+
+        budgetForecastService.recordSpend(5L, 30L, TODAY);
+
+        verify(budgetRepository, never()).findSpendRateForUpdate(anyLong());
+    }
+
+    @Test
+    void recordSpendFoldsFinishedAndIdleDaysOnANewDay() {
+        when(budgetRepository.addToSpendDayAmount(5L, TODAY.toEpochDay(), 30L)).thenReturn(0);
+        BudgetRepository.SpendRate stored = mock(BudgetRepository.SpendRate.class);
+        when(stored.getRateDay()).thenReturn(TODAY.toEpochDay() - 2);
+        when(stored.getDayAmount()).thenReturn(100L);
+        when(stored.getRate()).thenReturn(60.0);
+        when(stored.getVariance()).thenReturn(0.0);
+        when(budgetRepository.findSpendRateForUpdate(5L)).thenReturn(Optional.of(stored));
+
+        budgetForecastService.recordSpend(5L, 30L, TODAY);
+
+        // 60 -> 80 after the finished day of 100, -> 40 after one idle day
+        verify(budgetRepository).updateSpendRate(eq(5L), eq(TODAY.toEpochDay()), eq(30L), eq(40.0), anyDouble());
+    }
+
+    @Test
+    void forecastProjectsTheRateToTheEndOfTheMonth() {
+        Budget budget = budget(1000, 400);
+        budget.setSpendRateDay(TODAY.toEpochDay());
+        budget.setSpendDayAmount(0);
+        budget.setSpendRate(20.0);
+        budget.setSpendRateVariance(0);
+
+        BudgetForecast forecast = budgetForecastService.forecast(budget, TODAY);
+
+        // 20 more today and on each of the 10 days left in April
+        assertEquals(400 + 20 * 11, forecast.getProjectedSpend());
+        assertEquals(20.0, forecast.getDailySpendRate());
+        assertEquals(0, forecast.getOverrunProbability());
+    }
+
+    @Test
+    void forecastGivesAnOverrunProbability() {
+        Budget budget = budget(1000, 780);
+        budget.setSpendRateDay(TODAY.toEpochDay());
+        budget.setSpendRate(20.0);
+        budget.setSpendRateVariance(100);
+
+        BudgetForecast forecast = budgetForecastService.forecast(budget, TODAY);
+
+        // Projected right at the budget amount
+        assertEquals(1000, forecast.getProjectedSpend());
+        assertEquals(0.5, forecast.getOverrunProbability(), 1e-6);
+        assertEquals(1.0, budgetForecastService.forecast(budget(1000, 1200), TODAY).getOverrunProbability());
+    }
+
+    @Test
+    void forecastWithoutHistoryKeepsTheSpentAmount() {
+        BudgetForecast forecast = budgetForecastService.forecast(budget(1000, 0), TODAY);
+
+        assertEquals(0, forecast.getProjectedSpend());
+        assertEquals(0, forecast.getOverrunProbability());
+    }
+
+    @Test
+    void normalCdf() {
+        assertEquals(0.5, BudgetForecastService.normalCdf(0), 1e-7);
+        assertEquals(0.975, BudgetForecastService.normalCdf(1.96), 1e-4);
+        assertEquals(0.025, BudgetForecastService.normalCdf(-1.96), 1e-4);
+    }
+
+    private static Budget budget(int amount, long spent) {
+        Budget budget = new Budget();
+        budget.setBudgetId(5L);
+        budget.setBudgetAmount(amount);
+        budget.setSpentAmount(spent);
+        return budget;
+    }
+}
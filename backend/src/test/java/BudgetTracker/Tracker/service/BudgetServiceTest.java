@@ -3,20 +3,28 @@ package BudgetTracker.Tracker.service;
 import BudgetTracker.Tracker.entity.Budget;
 import BudgetTracker.Tracker.entity.Expenses;
 import BudgetTracker.Tracker.entity.User;
+import BudgetTracker.Tracker.events.ChangeEvent;
 import BudgetTracker.Tracker.exceptions.BudgetNotFoundException;
 import BudgetTracker.Tracker.exceptions.DuplicateBudgetNameException;
 import BudgetTracker.Tracker.exceptions.InvalidInputException;
 import BudgetTracker.Tracker.exceptions.UserNotFoundException;
 import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import BudgetTracker.Tracker.repository.RecurringExpenseRepository;
 import BudgetTracker.Tracker.repository.BudgetRepositoryTest;
 import BudgetTracker.Tracker.repository.UserRepository;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Arrays;
 import java.util.List;
@@ -43,6 +51,22 @@ public class BudgetServiceTest {
     private UserRepository userRepository;
     @Mock
     private UserService userService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BudgetAlertService budgetAlertService;
+    @Mock
+    private RecurringExpenseRepository recurringExpenseRepository;
+    @Mock
+    private ExpensesRepository expensesRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+    @Spy
+    private RequestCoalescer requestCoalescer = new RequestCoalescer(new SimpleMeterRegistry());
+    @Mock
+    private BudgetForecastService budgetForecastService;
     @InjectMocks
     private BudgetService budgetService;
 
@@ -159,10 +183,50 @@ public class BudgetServiceTest {
 
     @Test
     void deleteBudgetSuccess() {
-        given(budgetRepository.existsById(budget1.getBudgetId())).willReturn(true);
-        willDoNothing().given(budgetRepository).deleteById(budget1.getBudgetId());
+        given(budgetRepository.findUserIdByBudgetId(budget1.getBudgetId())).willReturn(Optional.of(user.getId()));
         budgetService.deleteBudget(budget1.getBudgetId());
-        verify(budgetRepository, times(1)).deleteById(budget1.getBudgetId());
+        verify(expensesRepository, times(1)).deleteByBudgetIdIn(List.of(budget1.getBudgetId()));
+        verify(budgetRepository, times(1)).deleteByBudgetIdIn(List.of(budget1.getBudgetId()));
+    }
+
+    @Test
+    void deleteBudgetsDeletesDependentRowsSetBased() {
+        when(budgetRepository.findOwnersByBudgetIdIn(List.of(1L, 2L))).thenReturn(List.of(owner(1L, 1L), owner(2L, 1L)));
+
+        budgetService.deleteBudgets(List.of(1L, 2L, 1L));
+
+        InOrder inOrder = inOrder(budgetAlertService, recurringExpenseRepository, expensesRepository, budgetRepository);
+        inOrder.verify(budgetAlertService).deleteAlerts(List.of(1L, 2L));
+        inOrder.verify(recurringExpenseRepository).deleteByBudgetIdIn(List.of(1L, 2L));
+        inOrder.verify(expensesRepository).deleteByBudgetIdIn(List.of(1L, 2L));
+        inOrder.verify(budgetRepository).deleteByBudgetIdIn(List.of(1L, 2L));
+        verify(eventPublisher, times(2)).publishEvent(any(ChangeEvent.class));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void deleteBudgetsDeletesNothingWhenABudgetIsMissing() {
+        when(budgetRepository.findOwnersByBudgetIdIn(List.of(1L, 999L))).thenReturn(List.of(owner(1L, 1L)));
+
+        assertThatThrownBy(() -> budgetService.deleteBudgets(List.of(1L, 999L)))
+                .isInstanceOf(BudgetNotFoundException.class)
+                .hasMessageContaining("[999]");
+        verify(expensesRepository, never()).deleteByBudgetIdIn(any());
+        verify(budgetRepository, never()).deleteByBudgetIdIn(any());
+    }
+
+    private static BudgetRepository.BudgetOwner owner(Long budgetId, Long userId) {
+        return new BudgetRepository.BudgetOwner() {
+            @Override
+            public Long getBudgetId() {
+                return budgetId;
+            }
+
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+        };
     }
 
     @Test
@@ -218,7 +282,7 @@ public class BudgetServiceTest {
     @Test
     void deleteBudgetThrowsInvalidIdExceptionForNonExistentBudget() {
         Long invalidBudgetId = 999L;
-        when(budgetRepository.existsById(invalidBudgetId)).thenReturn(false);
+        when(budgetRepository.findUserIdByBudgetId(invalidBudgetId)).thenReturn(Optional.empty());
         assertThrows(BudgetNotFoundException.class, () -> budgetService.deleteBudget(invalidBudgetId),
                 "Expected deleteBudget to throw, but it didn't");
     }
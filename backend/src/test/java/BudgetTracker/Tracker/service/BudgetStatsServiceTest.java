@@ -0,0 +1,155 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.dto.BudgetStats;
+import BudgetTracker.Tracker.dto.SpendStats;
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.exceptions.BudgetNotFoundException;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BudgetStatsServiceTest {
+
+    @Mock
+    private BudgetRepository budgetRepository;
+    @Mock
+    private ExpensesRepository expensesRepository;
+    @InjectMocks
+    private BudgetStatsService budgetStatsService;
+
+    private Budget budget;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(budgetStatsService, "compression", 100.0);
+        budget = new Budget();
+        budget.setBudgetId(5L);
+        long id = 0;
+        // 1..1000 in March 2024, and a single expense in December 2023
+        for (int amount = 1; amount <= 1000; amount++) {
+            rows.add(new Object[]{++id, amount, Instant.parse("2024-03-10T12:00:00Z")});
+        }
+        rows.add(new Object[]{++id, 40, Instant.parse("2023-12-31T23:00:00Z")});
+        budget.setSpentAmount(500500 + 40);
+    }
+
+    @Test
+    void reportsMonthsAndMergedYears() {
+        when(budgetRepository.findById(5L)).thenReturn(Optional.of(budget));
+        when(expensesRepository.findAmountsByBudgetId(5L)).thenReturn(rows);
+
+        BudgetStats stats = budgetStatsService.getStats(5L, null);
+
+        assertEquals(List.of("2023-12", "2024-03"), stats.getMonths().stream().map(SpendStats::getPeriod).toList());
+        assertEquals(List.of("2023", "2024"), stats.getYears().stream().map(SpendStats::getPeriod).toList());
+        SpendStats march = stats.getMonths().get(1);
+        assertEquals(1000, march.getCount());
+        assertEquals(500.5, march.getMean(), 1e-9);
+        assertEquals(1000, march.getMax());
+        assertEquals(500, march.getMedian(), 10);
+        assertEquals(900, march.getP90(), 10);
+        assertEquals(990, march.getP99(), 10);
+        assertEquals(40, stats.getYears().get(0).getMax());
+
+        assertEquals(List.of("2024-03"), budgetStatsService.getStats(5L, 2024).getMonths().stream().map(SpendStats::getPeriod).toList());
+        // The sketches are built once
+        verify(expensesRepository, times(1)).findAmountsByBudgetId(5L);
+    }
+
+    @Test
+    void addsCreatedExpensesIncrementally() {
+        when(budgetRepository.findById(5L)).thenReturn(Optional.of(budget));
+        when(expensesRepository.findAmountsByBudgetId(5L)).thenReturn(rows);
+        budgetStatsService.getStats(5L, null);
+
+        Expenses expense = new Expenses();
+        expense.setExpensesId(5000L);
+        expense.setExpensesAmount(7000);
+        expense.setExpensesDate(Instant.parse("2024-04-01T00:00:00Z"));
+        budgetStatsService.onChange(new ChangeEvent(1L, ChangeEvent.EntityType.EXPENSE, ChangeEvent.Action.CREATED, 5000L, 5L, expense));
+        budget.setSpentAmount(budget.getSpentAmount() + 7000);
+
+        BudgetStats stats = budgetStatsService.getStats(5L, 2024);
+
+        assertEquals(7000, stats.getMonths().get(1).getMax());
+        assertEquals(1001, stats.getYears().get(0).getCount());
+        assertEquals(7000, stats.getYears().get(0).getMax());
+        verify(expensesRepository, times(1)).findAmountsByBudgetId(5L);
+    }
+
+    @Test
+    void rebuildsWhenTheSpentAmountDiffers() {
+        when(budgetRepository.findById(5L)).thenReturn(Optional.of(budget));
+        when(expensesRepository.findAmountsByBudgetId(5L)).thenReturn(rows);
+        budgetStatsService.getStats(5L, null);
+
+        // An expense written without a change event, such as one inserted straight into the database
+        rows.add(new Object[]{2000L, 60, Instant.parse("2023-12-01T00:00:00Z")});
+        budget.setSpentAmount(budget.getSpentAmount() + 60);
+
+        assertEquals(2, budgetStatsService.getStats(5L, 2023).getMonths().get(0).getCount());
+        verify(expensesRepository, times(2)).findAmountsByBudgetId(5L);
+    }
+
+    @Test
+    void evictsColdBudgetsOverTheMemoryLimit() {
+        ReflectionTestUtils.setField(budgetStatsService, "maxMemoryMb", 0L);
+        Budget other = new Budget();
+        other.setBudgetId(6L);
+        other.setSpentAmount(40);
+        when(budgetRepository.findById(5L)).thenReturn(Optional.of(budget));
+        when(budgetRepository.findById(6L)).thenReturn(Optional.of(other));
+        when(expensesRepository.findAmountsByBudgetId(5L)).thenReturn(rows);
+        when(expensesRepository.findAmountsByBudgetId(6L)).thenReturn(List.<Object[]>of(new Object[]{3000L, 40, Instant.parse("2024-01-01T00:00:00Z")}));
+
+        budgetStatsService.getStats(5L, null);
+        long twoMonths = budgetStatsService.getMemoryBytes();
+        budgetStatsService.getStats(6L, null);
+
+        // The budget just queried is kept even over the limit
+        assertEquals(1, budgetStatsService.getSketchedBudgetCount());
+        assertTrue(budgetStatsService.getMemoryBytes() < twoMonths);
+        budgetStatsService.getStats(5L, null);
+        assertEquals(twoMonths, budgetStatsService.getMemoryBytes());
+        verify(expensesRepository, times(2)).findAmountsByBudgetId(5L);
+    }
+
+    @Test
+    void evictsIdleBudgets() {
+        when(budgetRepository.findById(5L)).thenReturn(Optional.of(budget));
+        when(expensesRepository.findAmountsByBudgetId(5L)).thenReturn(rows);
+        budgetStatsService.getStats(5L, null);
+
+        ReflectionTestUtils.setField(budgetStatsService, "idleEvictionMs", -1L);
+        budgetStatsService.evictIdleBudgets();
+
+        assertEquals(0, budgetStatsService.getSketchedBudgetCount());
+        assertEquals(0, budgetStatsService.getMemoryBytes());
+    }
+
+    @Test
+    void throwsForUnknownBudget() {
+        when(budgetRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThrows(BudgetNotFoundException.class, () -> budgetStatsService.getStats(9L, null));
+        assertEquals(0, budgetStatsService.getSketchedBudgetCount());
+    }
+}
@@ -0,0 +1,161 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.config.BulkheadContext;
+import BudgetTracker.Tracker.config.Deadline;
+import BudgetTracker.Tracker.dto.BudgetExpenses;
+import BudgetTracker.Tracker.dto.Dashboard;
+import BudgetTracker.Tracker.dto.DashboardTotals;
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.entity.User;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.exceptions.UserNotFoundException;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import BudgetTracker.Tracker.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DashboardServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private BudgetRepository budgetRepository;
+    @Mock
+    private ExpensesRepository expensesRepository;
+    @Mock
+    private BudgetForecastService budgetForecastService;
+    @InjectMocks
+    private DashboardService dashboardService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dashboardService, "threads", 4);
+        ReflectionTestUtils.setField(dashboardService, "queueCapacity", 8);
+        ReflectionTestUtils.setField(dashboardService, "timeoutMs", 5000L);
+        ReflectionTestUtils.setField(dashboardService, "maxPageSize", 500);
+
+        user = new User();
+        user.setId(1L);
+        user.setName("Seif");
+    }
+
+    @AfterEach
+    void tearDown() {
+        dashboardService.shutdown();
+    }
+
+    @Test
+    void getDashboard_GroupsExpensesUnderTheirBudget() {
+        Budget rent = budget(10L, "Rent", 1000);
+        Budget food = budget(20L, "Food", 300);
+        Budget travel = budget(30L, "Travel", 500);
+        Expenses groceries = expense(1L, food, 50);
+        Expenses april = expense(2L, rent, 1000);
+        Expenses takeout = expense(3L, food, 20);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(budgetRepository.findByUserId(1L)).thenReturn(List.of(rent, food, travel));
+        when(expensesRepository.findByBudget_User_Id(eq(1L), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(groceries, april, takeout), PageRequest.of(0, 3), 7));
+        when(budgetRepository.findTotalsByUserId(1L)).thenReturn(new DashboardTotals(3L, 1800L, 1070L));
+
+        Dashboard dashboard = dashboardService.getDashboard(1L, 0, 3);
+
+        assertSame(user, dashboard.getUser());
+        List<BudgetExpenses> budgets = dashboard.getBudgets();
+        assertEquals(List.of(rent, food, travel), budgets.stream().map(BudgetExpenses::getBudget).toList());
+        assertEquals(List.of(april), budgets.get(0).getExpenses());
+        assertEquals(List.of(groceries, takeout), budgets.get(1).getExpenses());
+        assertTrue(budgets.get(2).getExpenses().isEmpty());
+        assertEquals(1070, dashboard.getTotals().getSpentAmount());
+        assertEquals(7, dashboard.getExpenseCount());
+    }
+
+    @Test
+    void getDashboard_UnknownUser() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        lenient().when(budgetRepository.findByUserId(2L)).thenReturn(List.of());
+        lenient().when(expensesRepository.findByBudget_User_Id(eq(2L), any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+        lenient().when(budgetRepository.findTotalsByUserId(2L)).thenReturn(new DashboardTotals(0L, null, null));
+
+        assertThrows(UserNotFoundException.class, () -> dashboardService.getDashboard(2L, 0, 100));
+    }
+
+    @Test
+    void getDashboard_QueriesRunWithinTheDeadlineAndBulkheadOfTheRequest() {
+        Deadline deadline = Deadline.start(5000);
+        BulkheadContext.set("interactive");
+        try {
+            Set<Deadline> deadlines = ConcurrentHashMap.newKeySet();
+            Set<String> bulkheads = ConcurrentHashMap.newKeySet();
+            when(userRepository.findById(1L)).thenAnswer(invocation -> {
+                deadlines.add(Deadline.current());
+                bulkheads.add(BulkheadContext.current());
+                return Optional.of(user);
+            });
+            when(budgetRepository.findByUserId(1L)).thenAnswer(invocation -> {
+                deadlines.add(Deadline.current());
+                bulkheads.add(BulkheadContext.current());
+                return List.of();
+            });
+            when(expensesRepository.findByBudget_User_Id(eq(1L), any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+            when(budgetRepository.findTotalsByUserId(1L)).thenReturn(new DashboardTotals(0L, null, null));
+
+            dashboardService.getDashboard(1L, 0, 100);
+
+            assertEquals(Set.of(deadline), deadlines);
+            assertEquals(Set.of("interactive"), bulkheads);
+        } finally {
+            Deadline.clear();
+            BulkheadContext.clear();
+        }
+    }
+
+    @Test
+    void getDashboard_InvalidPage() {
+        assertEquals("invalid-page",
+                assertThrows(InvalidInputException.class, () -> dashboardService.getDashboard(1L, -1, 100)).getCode());
+        assertEquals("invalid-page-size",
+                assertThrows(InvalidInputException.class, () -> dashboardService.getDashboard(1L, 0, 501)).getCode());
+        verifyNoInteractions(userRepository, budgetRepository, expensesRepository);
+    }
+
+    private static Budget budget(Long id, String description, int amount) {
+        Budget budget = new Budget();
+        budget.setBudgetId(id);
+        budget.setBudgetDescription(description);
+        budget.setBudgetAmount(amount);
+        return budget;
+    }
+
+    private static Expenses expense(Long id, Budget budget, int amount) {
+        Expenses expense = new Expenses();
+        expense.setExpensesId(id);
+        expense.setBudget(budget);
+        expense.setExpensesAmount(amount);
+        return expense;
+    }
+}
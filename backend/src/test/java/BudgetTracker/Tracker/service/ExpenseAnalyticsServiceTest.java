@@ -0,0 +1,204 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.dto.DashboardTotals;
+import BudgetTracker.Tracker.dto.SpendGroup;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExpenseAnalyticsServiceTest {
+
+    @Mock
+    private ExpensesRepository expensesRepository;
+    @Mock
+    private BudgetRepository budgetRepository;
+
+    private ExpenseAnalyticsService expenseAnalyticsService;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @TempDir
+    Path snapshotDir;
+
+    @BeforeEach
+    void setUp() {
+        expenseAnalyticsService = newService("");
+        rows.add(new Object[]{1L, 5L, 100, Instant.parse("2024-03-01T10:00:00Z")});
+        rows.add(new Object[]{2L, 5L, 20, Instant.parse("2024-04-02T10:00:00Z")});
+        rows.add(new Object[]{3L, 6L, 7, null});
+    }
+
+    @Test
+    void loadsOnceAndAggregates() {
+        spent(1L, 127);
+        when(expensesRepository.findColumnsByUserId(1L)).thenReturn(rows);
+
+        assertEquals(List.of("5:120", "6:7"), describe(aggregate(ExpenseColumns.GroupBy.BUDGET, null, null)));
+        assertEquals(List.of("2024-03:100"), describe(aggregate(ExpenseColumns.GroupBy.MONTH, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31))));
+        // The last day of the range is included
+        assertEquals(List.of("2024-04:20"), describe(aggregate(ExpenseColumns.GroupBy.MONTH, LocalDate.of(2024, 4, 2), LocalDate.of(2024, 4, 2))));
+
+        verify(expensesRepository, times(1)).findColumnsByUserId(1L);
+        assertEquals(1, expenseAnalyticsService.getUserCount());
+        assertTrue(expenseAnalyticsService.getMemoryBytes() > 0);
+    }
+
+    @Test
+    void appliesCommittedChanges() {
+        spent(1L, 127);
+        when(expensesRepository.findColumnsByUserId(1L)).thenReturn(rows);
+        aggregate(ExpenseColumns.GroupBy.BUDGET, null, null);
+
+        Expenses expense = new Expenses();
+        expense.setExpensesAmount(30);
+        expense.setExpensesDate(Instant.parse("2024-04-03T10:00:00Z"));
+        expenseAnalyticsService.onChange(new ChangeEvent(1L, ChangeEvent.EntityType.EXPENSE, ChangeEvent.Action.CREATED, 4L, 6L, expense));
+        expenseAnalyticsService.onChange(new ChangeEvent(1L, ChangeEvent.EntityType.EXPENSE, ChangeEvent.Action.DELETED, 1L, 5L, null));
+        spent(1L, 57);
+
+        assertEquals(List.of("5:20", "6:37"), describe(aggregate(ExpenseColumns.GroupBy.BUDGET, null, null)));
+
+        expenseAnalyticsService.onChange(new ChangeEvent(1L, ChangeEvent.EntityType.BUDGET, ChangeEvent.Action.DELETED, 6L, 6L, null));
+        spent(1L, 20);
+
+        assertEquals(List.of("5:20"), describe(aggregate(ExpenseColumns.GroupBy.BUDGET, null, null)));
+        verify(expensesRepository, times(1)).findColumnsByUserId(1L);
+    }
+
+    @Test
+    void reloadsWhenTheSpentAmountDiffers() {
+        spent(1L, 127);
+        when(expensesRepository.findColumnsByUserId(1L)).thenReturn(rows);
+        aggregate(ExpenseColumns.GroupBy.BUDGET, null, null);
+
+        // An expense written without a change event, such as a generated recurring expense
+        rows.add(new Object[]{9L, 6L, 3, Instant.parse("2024-04-05T10:00:00Z")});
+        spent(1L, 130);
+
+        assertEquals(List.of("5:120", "6:10"), describe(aggregate(ExpenseColumns.GroupBy.BUDGET, null, null)));
+        verify(expensesRepository, times(2)).findColumnsByUserId(1L);
+    }
+
+    @Test
+    void evictsColdUsersOverTheMemoryLimit() {
+        ReflectionTestUtils.setField(expenseAnalyticsService, "maxMemoryMb", 0L);
+        spent(1L, 127);
+        spent(2L, 127);
+        when(expensesRepository.findColumnsByUserId(anyLong())).thenReturn(rows);
+
+        aggregate(ExpenseColumns.GroupBy.BUDGET, null, null);
+        expenseAnalyticsService.aggregate(2L, ExpenseColumns.GroupBy.BUDGET, null, null, null, null, null);
+
+        // The user just queried is kept even over the limit
+        assertEquals(1, expenseAnalyticsService.getUserCount());
+        long oneUser = expenseAnalyticsService.getMemoryBytes();
+        aggregate(ExpenseColumns.GroupBy.BUDGET, null, null);
+        assertEquals(oneUser, expenseAnalyticsService.getMemoryBytes());
+        verify(expensesRepository, times(2)).findColumnsByUserId(1L);
+    }
+
+    @Test
+    void evictsIdleUsers() {
+        spent(1L, 127);
+        when(expensesRepository.findColumnsByUserId(1L)).thenReturn(rows);
+        aggregate(ExpenseColumns.GroupBy.BUDGET, null, null);
+
+        ReflectionTestUtils.setField(expenseAnalyticsService, "idleEvictionMs", -1L);
+        expenseAnalyticsService.evictIdleUsers();
+
+        assertEquals(0, expenseAnalyticsService.getUserCount());
+        assertEquals(0, expenseAnalyticsService.getMemoryBytes());
+    }
+
+    @Test
+    void rejectsEmptyRanges() {
+        assertEquals("invalid-date-range", assertThrows(InvalidInputException.class,
+                () -> aggregate(ExpenseColumns.GroupBy.DAY, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 1))).getCode());
+        assertThrows(InvalidInputException.class,
+                () -> expenseAnalyticsService.aggregate(1L, ExpenseColumns.GroupBy.BUDGET, null, null, null, 50L, 10L));
+        verifyNoInteractions(expensesRepository, budgetRepository);
+    }
+
+    @Test
+    void restartsFromTheSnapshot() {
+        spent(1L, 127);
+        versions(1L, 4L);
+        when(expensesRepository.findColumnsByUserId(1L)).thenReturn(rows);
+        expenseAnalyticsService = newService(snapshotDir.toString());
+        aggregate(ExpenseColumns.GroupBy.BUDGET, null, null);
+        expenseAnalyticsService.onChange(new ChangeEvent(1L, ChangeEvent.EntityType.EXPENSE, ChangeEvent.Action.DELETED, 1L, 5L, null));
+
+        // A restarted node whose budgets saw exactly the writes in the snapshot
+        spent(1L, 27);
+        versions(1L, 5L);
+        expenseAnalyticsService = newService(snapshotDir.toString());
+
+        assertEquals(List.of("5:20", "6:7"), describe(aggregate(ExpenseColumns.GroupBy.BUDGET, null, null)));
+        verify(expensesRepository, times(1)).findColumnsByUserId(1L);
+    }
+
+    @Test
+    void ignoresASnapshotBehindTheDataVersions() {
+        spent(1L, 127);
+        versions(1L, 4L);
+        when(expensesRepository.findColumnsByUserId(1L)).thenReturn(rows);
+        expenseAnalyticsService = newService(snapshotDir.toString());
+        aggregate(ExpenseColumns.GroupBy.BUDGET, null, null);
+
+        // An amount changed on another node while this one was down
+        versions(1L, 5L);
+        expenseAnalyticsService = newService(snapshotDir.toString());
+        aggregate(ExpenseColumns.GroupBy.BUDGET, null, null);
+
+        verify(expensesRepository, times(2)).findColumnsByUserId(1L);
+    }
+
+    private ExpenseAnalyticsService newService(String snapshotDir) {
+        ExpenseSnapshotStore store = new ExpenseSnapshotStore();
+        ReflectionTestUtils.setField(store, "dir", snapshotDir);
+        ReflectionTestUtils.setField(store, "logCapacity", 16);
+        ExpenseAnalyticsService service = new ExpenseAnalyticsService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "expensesRepository", expensesRepository);
+        ReflectionTestUtils.setField(service, "budgetRepository", budgetRepository);
+        ReflectionTestUtils.setField(service, "expenseSnapshotStore", store);
+        ReflectionTestUtils.setField(service, "maxMemoryMb", 64L);
+        ReflectionTestUtils.setField(service, "idleEvictionMs", 900000L);
+        return service;
+    }
+
+    private void versions(Long userId, long budget5) {
+        List<Object[]> versions = List.of(new Object[]{5L, budget5}, new Object[]{6L, 1L});
+        when(budgetRepository.findDataVersionsByUserId(userId)).thenReturn(versions);
+    }
+
+    private List<SpendGroup> aggregate(ExpenseColumns.GroupBy groupBy, LocalDate from, LocalDate to) {
+        return expenseAnalyticsService.aggregate(1L, groupBy, from, to, null, null, null);
+    }
+
+    private void spent(Long userId, long spent) {
+        lenient().when(budgetRepository.findTotalsByUserId(userId)).thenReturn(new DashboardTotals(1L, 0L, spent));
+    }
+
+    private static List<String> describe(List<SpendGroup> groups) {
+        return groups.stream().map(group -> group.getKey() + ":" + group.getTotal()).toList();
+    }
+}
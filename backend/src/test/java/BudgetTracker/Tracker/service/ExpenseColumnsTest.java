@@ -0,0 +1,113 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.dto.SpendGroup;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseColumnsTest {
+
+    private static final long ALL_FROM = Long.MIN_VALUE;
+    private static final long ALL_TO = Long.MAX_VALUE;
+
+    @Test
+    void putReplacesAndRemoveMovesTheLastRow() {
+        ExpenseColumns columns = new ExpenseColumns(0);
+        columns.put(1, 10, 100, millis("2024-03-01"));
+        columns.put(2, 10, 50, millis("2024-03-02"));
+        columns.put(3, 20, 25, ExpenseColumns.NO_DATE);
+        columns.put(2, 20, 60, millis("2024-03-02"));
+
+        assertEquals(3, columns.size());
+        assertEquals(185, columns.total());
+        assertTrue(columns.remove(1));
+        assertFalse(columns.remove(1));
+        assertEquals(2, columns.size());
+        assertEquals(85, columns.total());
+        assertEquals(List.of("20:2:85"), describe(columns.aggregate(ExpenseColumns.GroupBy.BUDGET, ALL_FROM, ALL_TO, null, Long.MIN_VALUE, Long.MAX_VALUE)));
+    }
+
+    @Test
+    void removeBudgetDropsItsExpenses() {
+        ExpenseColumns columns = new ExpenseColumns(4);
+        for (int id = 1; id <= 40; id++) {
+            columns.put(id, id % 2 == 0 ? 10 : 20, id, millis("2024-01-01"));
+        }
+
+        assertEquals(20, columns.removeBudget(10));
+        assertEquals(0, columns.removeBudget(99));
+        assertEquals(20, columns.size());
+        assertEquals(400, columns.total());
+    }
+
+    @Test
+    void groupsByBudgetInIdOrderWithFilters() {
+        ExpenseColumns columns = new ExpenseColumns(8);
+        columns.put(1, 30, 100, millis("2024-03-01"));
+        columns.put(2, 7, 10, millis("2024-03-05"));
+        columns.put(3, 30, 40, millis("2024-04-01"));
+        columns.put(4, 7, 5, ExpenseColumns.NO_DATE);
+        columns.put(5, 12, 70, millis("2024-03-31"));
+
+        assertEquals(List.of("7:2:15", "12:1:70", "30:2:140"),
+                describe(columns.aggregate(ExpenseColumns.GroupBy.BUDGET, ALL_FROM, ALL_TO, null, Long.MIN_VALUE, Long.MAX_VALUE)));
+        // March only, which leaves out the undated expense
+        assertEquals(List.of("7:1:10", "12:1:70", "30:1:100"),
+                describe(columns.aggregate(ExpenseColumns.GroupBy.BUDGET, millis("2024-03-01"), millis("2024-04-01"), null, Long.MIN_VALUE, Long.MAX_VALUE)));
+        assertEquals(List.of("30:2:140"),
+                describe(columns.aggregate(ExpenseColumns.GroupBy.BUDGET, ALL_FROM, ALL_TO, List.of(30L), Long.MIN_VALUE, Long.MAX_VALUE)));
+        assertEquals(List.of("12:1:70", "30:1:40"),
+                describe(columns.aggregate(ExpenseColumns.GroupBy.BUDGET, ALL_FROM, ALL_TO, null, 20, 80)));
+        assertEquals(List.of(), columns.aggregate(ExpenseColumns.GroupBy.BUDGET, ALL_FROM, ALL_TO, List.of(99L), Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void groupsByPeriod() {
+        ExpenseColumns columns = new ExpenseColumns(8);
+        columns.put(1, 1, 100, millis("2023-12-31"));
+        columns.put(2, 1, 10, millis("2024-01-01"));
+        columns.put(3, 2, 40, millis("2024-01-20"));
+        columns.put(4, 2, 5, ExpenseColumns.NO_DATE);
+        columns.put(5, 1, 70, millis("1969-07-20"));
+
+        List<SpendGroup> months = columns.aggregate(ExpenseColumns.GroupBy.MONTH, ALL_FROM, ALL_TO, null, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(List.of("1969-07:1:70", "2023-12:1:100", "2024-01:2:50"), describe(months));
+        assertEquals(10, months.get(2).getMin());
+        assertEquals(40, months.get(2).getMax());
+        assertEquals(List.of("1969:1:70", "2023:1:100", "2024:2:50"),
+                describe(columns.aggregate(ExpenseColumns.GroupBy.YEAR, ALL_FROM, ALL_TO, null, Long.MIN_VALUE, Long.MAX_VALUE)));
+        assertEquals(List.of("2024-01-01:1:10", "2024-01-20:1:40"),
+                describe(columns.aggregate(ExpenseColumns.GroupBy.DAY, millis("2024-01-01"), ALL_TO, null, Long.MIN_VALUE, Long.MAX_VALUE)));
+    }
+
+    @Test
+    void groupsDaysFarApartBySorting() {
+        ExpenseColumns columns = new ExpenseColumns(8);
+        columns.put(1, 1, 10, millis("1990-05-01"));
+        columns.put(2, 1, 20, millis("2024-05-01"));
+        columns.put(3, 1, 30, millis("1990-05-01"));
+
+        assertEquals(List.of("1990-05-01:2:40", "2024-05-01:1:20"),
+                describe(columns.aggregate(ExpenseColumns.GroupBy.DAY, ALL_FROM, ALL_TO, null, Long.MIN_VALUE, Long.MAX_VALUE)));
+    }
+
+    @Test
+    void periodKeyMatchesTheCalendar() {
+        for (LocalDate day = LocalDate.of(1895, 1, 1); day.isBefore(LocalDate.of(2105, 1, 1)); day = day.plusDays(13)) {
+            assertEquals(day.getYear(), ExpenseColumns.periodKey(ExpenseColumns.GroupBy.YEAR, day.toEpochDay()), day.toString());
+            assertEquals(day.getYear() * 12 + day.getMonthValue() - 1, ExpenseColumns.periodKey(ExpenseColumns.GroupBy.MONTH, day.toEpochDay()), day.toString());
+        }
+    }
+
+    private static long millis(String day) {
+        return Instant.parse(day + "T10:00:00Z").toEpochMilli();
+    }
+
+    private static List<String> describe(List<SpendGroup> groups) {
+        return groups.stream().map(group -> group.getKey() + ":" + group.getCount() + ":" + group.getTotal()).toList();
+    }
+}
@@ -0,0 +1,237 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.dto.IngestionTicket;
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.exceptions.IngestionQueueFullException;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class ExpenseIngestionQueueTest {
+
+    @Mock
+    private ExpensesService expensesService;
+
+    @TempDir
+    Path tempDir;
+
+    private ExpenseIngestionQueue queue;
+    private Expenses expense;
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(expensesService.saveValidatedExpenses(anyList())).thenAnswer(invocation -> {
+            List<Expenses> saved = new ArrayList<>();
+            for (Expenses e : invocation.<List<Expenses>>getArgument(0)) {
+                e.setExpensesId(nextId++);
+                saved.add(e);
+            }
+            return saved;
+        });
+
+        Budget budget = new Budget();
+        budget.setBudgetId(1L);
+        expense = new Expenses();
+        expense.setExpensesDescription("Groceries");
+        expense.setExpensesAmount(50);
+        expense.setExpensesDate(Instant.parse("2024-03-01T00:00:00Z"));
+        expense.setBudget(budget);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    private ExpenseIngestionQueue newQueue(int capacity, boolean journal) {
+        ExpenseIngestionQueue q = new ExpenseIngestionQueue();
+        ReflectionTestUtils.setField(q, "expensesService", expensesService);
+        ReflectionTestUtils.setField(q, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(q, "shardRouter", new ShardRouter());
+        ReflectionTestUtils.setField(q, "enabled", true);
+        ReflectionTestUtils.setField(q, "capacity", capacity);
+        ReflectionTestUtils.setField(q, "batchSize", 10);
+        ReflectionTestUtils.setField(q, "offerTimeoutMs", 10L);
+        ReflectionTestUtils.setField(q, "statusRetention", 100);
+        ReflectionTestUtils.setField(q, "journalEnabled", journal);
+        ReflectionTestUtils.setField(q, "journalPath", tempDir.resolve("ingestion.journal").toString());
+        return q;
+    }
+
+    private void awaitStatus(IngestionTicket ticket, IngestionTicket.Status status) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ticket.getStatus() != status && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(status, ticket.getStatus());
+    }
+
+    @Test
+    void submittedExpenseIsPersistedByWriter() throws Exception {
+        queue = newQueue(10, false);
+        queue.start();
+
+        IngestionTicket ticket = queue.submit(expense);
+
+        awaitStatus(ticket, IngestionTicket.Status.PERSISTED);
+        assertNotNull(ticket.getExpensesId());
+        assertSame(ticket, queue.getTicket(ticket.getTrackingId()));
+        verify(expensesService).validateNewExpense(expense);
+    }
+
+    @Test
+    void invalidExpenseIsRejectedSynchronously() {
+        queue = newQueue(10, false);
+        queue.start();
+        doThrow(new InvalidInputException("invalid-expense-amount", "expenses amount cannot be negative.")).when(expensesService).validateNewExpense(any(Expenses.class));
+
+        assertThrows(InvalidInputException.class, () -> queue.submit(expense));
+        verify(expensesService, never()).saveValidatedExpenses(anyList());
+    }
+
+    @Test
+    void fullQueueAppliesBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(expensesService.saveValidatedExpenses(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        queue = newQueue(1, false);
+        queue.start();
+
+        queue.submit(expense);
+
+        assertThrows(IngestionQueueFullException.class, () -> queue.submit(expense));
+        release.countDown();
+    }
+
+    @Test
+    void journaledExpensesAreReplayedOnRestart() throws Exception {
+        Path journalFile = tempDir.resolve("ingestion.journal");
+        ExpenseIngestionJournal journal = new ExpenseIngestionJournal(journalFile, false, new ObjectMapper());
+        journal.replay();
+        journal.append("pending-1", expense);
+        journal.append("done-1", expense);
+        journal.commit(List.of("done-1"));
+        journal.close();
+
+        queue = newQueue(10, true);
+        queue.start();
+
+        IngestionTicket replayed = queue.getTicket("pending-1");
+        assertNotNull(replayed);
+        assertEquals(IngestionTicket.Status.PERSISTED, replayed.getStatus());
+        assertNull(queue.getTicket("done-1"));
+        verify(expensesService, times(1)).saveValidatedExpenses(anyList());
+        assertEquals(0, Files.size(journalFile));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedJournalCommitStillFreesTheSlotsAndIsRecordedLater() throws Exception {
+        queue = newQueue(1, true);
+        queue.start();
+        ExpenseIngestionJournal journal = spy((ExpenseIngestionJournal) ReflectionTestUtils.getField(queue, "journal"));
+        // The first commit fails to write its record, as a full disk would
+        doAnswer(invocation -> {
+            ((Set<String>) ReflectionTestUtils.getField(journal, "unrecorded")).addAll(invocation.getArgument(0));
+            throw new UncheckedIOException(new IOException("disk full"));
+        }).doCallRealMethod().when(journal).commit(anyCollection());
+        ReflectionTestUtils.setField(queue, "journal", journal);
+
+        IngestionTicket first = queue.submit(expense);
+        awaitStatus(first, IngestionTicket.Status.PERSISTED);
+        // The only slot is freed although its commit record could not be written
+        Semaphore freeSlots = (Semaphore) ReflectionTestUtils.getField(queue, "freeSlots");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (freeSlots.availablePermits() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        IngestionTicket second = queue.submit(expense);
+        awaitStatus(second, IngestionTicket.Status.PERSISTED);
+        queue.stop();
+        queue = null;
+
+        ExpenseIngestionJournal reopened = new ExpenseIngestionJournal(tempDir.resolve("ingestion.journal"), false, new ObjectMapper());
+        assertEquals(List.of(), reopened.replay());
+        reopened.close();
+    }
+
+    @Test
+    void stoppingDuringAWriteStillCommitsTheJournal() throws Exception {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(expensesService.saveValidatedExpenses(anyList())).thenAnswer(invocation -> {
+            saving.countDown();
+            // Wait out the stop like a JDBC driver would, keeping any interrupt for the journal write that follows
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            List<Expenses> saved = invocation.getArgument(0);
+            saved.forEach(e -> e.setExpensesId(nextId++));
+            return saved;
+        });
+        queue = newQueue(10, true);
+        queue.start();
+
+        IngestionTicket ticket = queue.submit(expense);
+        assertTrue(saving.await(5, TimeUnit.SECONDS));
+        Thread stopper = new Thread(() -> {
+            try {
+                queue.stop();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        stopper.start();
+        // Let stop() reach the join before the write finishes
+        Thread.sleep(100);
+        release.countDown();
+        stopper.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(stopper.isAlive());
+        queue = null;
+
+        assertEquals(IngestionTicket.Status.PERSISTED, ticket.getStatus());
+        ExpenseIngestionJournal reopened = new ExpenseIngestionJournal(tempDir.resolve("ingestion.journal"), false, new ObjectMapper());
+        assertEquals(List.of(), reopened.replay());
+        reopened.close();
+    }
+}
@@ -0,0 +1,109 @@
+package BudgetTracker.Tracker.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopensTheBaseImageAndReplaysTheLog() throws IOException {
+        Path file = dir.resolve("expenses-1.snap");
+        ExpenseColumns columns = columns();
+        ExpenseSnapshot snapshot = ExpenseSnapshot.create(file, 1L, columns, Map.of(5L, 3L, 6L, 1L), 8);
+
+        columns.put(4, 6, 40, 2000);
+        snapshot.append(ExpenseSnapshot.PUT, 4, 6, 40, 2000, columns);
+        columns.remove(1);
+        snapshot.append(ExpenseSnapshot.REMOVE, 1, 5, 0, 0, columns);
+        snapshot.append(ExpenseSnapshot.ADD_BUDGET, 7, 7, 0, 0, columns);
+
+        ExpenseColumns restored = new ExpenseColumns(0);
+        ExpenseSnapshot reopened = ExpenseSnapshot.open(file, 1L, restored);
+
+        assertNotNull(reopened);
+        assertEquals(Map.of(5L, 4L, 6L, 2L, 7L, 0L), reopened.versions());
+        assertEquals(columns.size(), restored.size());
+        assertEquals(columns.total(), restored.total());
+        assertEquals(describe(columns), describe(restored));
+    }
+
+    @Test
+    void rewritesTheBaseImageWhenTheLogIsFull() throws IOException {
+        Path file = dir.resolve("expenses-1.snap");
+        ExpenseColumns columns = columns();
+        ExpenseSnapshot snapshot = ExpenseSnapshot.create(file, 1L, columns, Map.of(5L, 3L, 6L, 1L), 2);
+        long emptyLog = Files.size(file);
+
+        for (long id = 10; id < 15; id++) {
+            columns.put(id, 5, id, 3000);
+            snapshot.append(ExpenseSnapshot.PUT, id, 5, id, 3000, columns);
+        }
+        columns.removeBudget(6);
+        snapshot.append(ExpenseSnapshot.REMOVE_BUDGET, 6, 6, 0, 0, columns);
+
+        assertTrue(Files.size(file) > emptyLog);
+        ExpenseColumns restored = new ExpenseColumns(0);
+        ExpenseSnapshot reopened = ExpenseSnapshot.open(file, 1L, restored);
+        assertEquals(Map.of(5L, 8L), reopened.versions());
+        assertEquals(describe(columns), describe(restored));
+        assertFalse(Files.exists(dir.resolve("expenses-1.snap.tmp")));
+    }
+
+    @Test
+    void ignoresUncommittedRecords() throws IOException {
+        Path file = dir.resolve("expenses-1.snap");
+        ExpenseColumns columns = columns();
+        ExpenseSnapshot snapshot = ExpenseSnapshot.create(file, 1L, columns, Map.of(5L, 3L, 6L, 1L), 8);
+        snapshot.append(ExpenseSnapshot.PUT, 4, 6, 40, 2000, columns);
+        // As if the process stopped after writing the record but before committing it
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 0), 24);
+        }
+
+        ExpenseColumns restored = new ExpenseColumns(0);
+        ExpenseSnapshot reopened = ExpenseSnapshot.open(file, 1L, restored);
+
+        assertEquals(Map.of(5L, 3L, 6L, 1L), reopened.versions());
+        assertEquals(3, restored.size());
+    }
+
+    @Test
+    void rejectsMissingForeignAndDamagedFiles() throws IOException {
+        Path file = dir.resolve("expenses-1.snap");
+        assertNull(ExpenseSnapshot.open(file, 1L, new ExpenseColumns(0)));
+
+        ExpenseSnapshot.create(file, 1L, columns(), Map.of(5L, 3L), 8);
+        assertNull(ExpenseSnapshot.open(file, 2L, new ExpenseColumns(0)));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 1);
+        }
+        assertNull(ExpenseSnapshot.open(file, 1L, new ExpenseColumns(0)));
+    }
+
+    private static ExpenseColumns columns() {
+        ExpenseColumns columns = new ExpenseColumns(0);
+        columns.put(1, 5, 100, 1000);
+        columns.put(2, 5, 20, ExpenseColumns.NO_DATE);
+        columns.put(3, 6, 7, 1500);
+        return columns;
+    }
+
+    private static String describe(ExpenseColumns columns) {
+        return columns.aggregate(ExpenseColumns.GroupBy.BUDGET, Long.MIN_VALUE, Long.MAX_VALUE, null, Long.MIN_VALUE, Long.MAX_VALUE)
+                .stream().map(group -> group.getKey() + ":" + group.getCount() + ":" + group.getTotal()).toList().toString();
+    }
+}
@@ -0,0 +1,119 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExpenseTagIndexTest {
+
+    @Mock
+    private ExpensesRepository expensesRepository;
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+    @InjectMocks
+    private ExpenseTagIndex expenseTagIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(expensesRepository.findTagsByUserId(1L)).thenReturn(List.of(
+                new Object[]{10L, "groceries"},
+                new Object[]{10L, "reimbursable"},
+                new Object[]{11L, "groceries"},
+                new Object[]{12L, "work"},
+                new Object[]{12L, "reimbursable"}));
+    }
+
+    @Test
+    void matchesAllOrAnyOfTheTags() {
+        assertEquals(List.of(10L), expenseTagIndex.findExpenseIds(1L, List.of("groceries", "reimbursable"), true));
+        assertEquals(List.of(10L, 11L, 12L), expenseTagIndex.findExpenseIds(1L, List.of("groceries", "work"), false));
+        assertEquals(List.of(), expenseTagIndex.findExpenseIds(1L, List.of("groceries", "travel"), true));
+        assertEquals(List.of(10L, 11L), expenseTagIndex.findExpenseIds(1L, List.of("groceries", "travel"), false));
+        // The index is built once
+        verify(expensesRepository, times(1)).findTagsByUserId(1L);
+    }
+
+    @Test
+    void appliesCommittedChanges() {
+        expenseTagIndex.findExpenseIds(1L, List.of("work"), true);
+
+        expenseTagIndex.onChange(expenseChange(ChangeEvent.Action.DELETED, 10L, null));
+        expenseTagIndex.onChange(expenseChange(ChangeEvent.Action.UPDATED, 11L, Set.of("work")));
+        expenseTagIndex.onChange(expenseChange(ChangeEvent.Action.CREATED, 13L, Set.of("work", "groceries")));
+
+        assertEquals(List.of(11L, 12L, 13L), expenseTagIndex.findExpenseIds(1L, List.of("work"), true));
+        assertEquals(List.of(13L), expenseTagIndex.findExpenseIds(1L, List.of("groceries"), true));
+        assertEquals(List.of(12L), expenseTagIndex.findExpenseIds(1L, List.of("reimbursable"), false));
+    }
+
+    @Test
+    void rebuildsTheIndexOfAUserWhoseBudgetIsDeleted() {
+        expenseTagIndex.findExpenseIds(1L, List.of("work"), true);
+        assertEquals(1, expenseTagIndex.getIndexedUserCount());
+
+        expenseTagIndex.onChange(new ChangeEvent(1L, ChangeEvent.EntityType.BUDGET, ChangeEvent.Action.DELETED, 5L, 5L, null));
+
+        assertEquals(0, expenseTagIndex.getIndexedUserCount());
+        assertEquals(List.of(12L), expenseTagIndex.findExpenseIds(1L, List.of("work"), true));
+        verify(expensesRepository, times(2)).findTagsByUserId(1L);
+    }
+
+    @Test
+    void evictsColdUsersOverTheMemoryLimit() {
+        ReflectionTestUtils.setField(expenseTagIndex, "maxMemoryMb", 0L);
+        when(expensesRepository.findTagsByUserId(2L)).thenReturn(List.<Object[]>of(new Object[]{20L, "travel"}));
+
+        expenseTagIndex.findExpenseIds(1L, List.of("work"), true);
+        long firstUser = expenseTagIndex.getMemoryBytes();
+        assertTrue(firstUser > 0);
+        assertEquals(List.of(20L), expenseTagIndex.findExpenseIds(2L, List.of("travel"), true));
+
+        // The user just queried is kept even over the limit
+        assertEquals(1, expenseTagIndex.getIndexedUserCount());
+        assertEquals(List.of(12L), expenseTagIndex.findExpenseIds(1L, List.of("work"), true));
+        assertEquals(1, expenseTagIndex.getIndexedUserCount());
+        assertEquals(firstUser, expenseTagIndex.getMemoryBytes());
+        verify(expensesRepository, times(2)).findTagsByUserId(1L);
+    }
+
+    @Test
+    void evictsIdleUsers() {
+        expenseTagIndex.findExpenseIds(1L, List.of("work"), true);
+        expenseTagIndex.onChange(expenseChange(ChangeEvent.Action.CREATED, 13L, Set.of("travel")));
+
+        ReflectionTestUtils.setField(expenseTagIndex, "idleEvictionMs", -1L);
+        expenseTagIndex.evictIdleUsers();
+
+        assertEquals(0, expenseTagIndex.getIndexedUserCount());
+        assertEquals(0, expenseTagIndex.getMemoryBytes());
+    }
+
+    private static ChangeEvent expenseChange(ChangeEvent.Action action, Long expenseId, Set<String> tags) {
+        Expenses expense = null;
+        if (tags != null) {
+            expense = new Expenses();
+            expense.setExpensesId(expenseId);
+            expense.setTags(new TreeSet<>(tags));
+        }
+        return new ChangeEvent(1L, ChangeEvent.EntityType.EXPENSE, action, expenseId, 5L, expense);
+    }
+}
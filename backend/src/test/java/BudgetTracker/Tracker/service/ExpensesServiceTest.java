@@ -1,25 +1,38 @@
 package BudgetTracker.Tracker.service;
 
+import BudgetTracker.Tracker.config.Deadline;
+import BudgetTracker.Tracker.dto.MultiGetResult;
 import BudgetTracker.Tracker.entity.Budget;
 import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.entity.User;
+import BudgetTracker.Tracker.events.ChangeEvent;
 import BudgetTracker.Tracker.exceptions.BudgetNotFoundException;
+import BudgetTracker.Tracker.exceptions.DeadlineExceededException;
 import BudgetTracker.Tracker.exceptions.ExpenseNotFoundException;
 import BudgetTracker.Tracker.exceptions.InvalidInputException;
 import BudgetTracker.Tracker.repository.BudgetRepository;
 import BudgetTracker.Tracker.repository.ExpensesRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,6 +48,12 @@ public class ExpensesServiceTest{
 
     @Mock
     private BudgetRepository budgetRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BudgetAlertService budgetAlertService;
+    @Mock
+    private ExpenseTagIndex expenseTagIndex;
     private Budget budget;
     private Expenses expense;
 
@@ -45,6 +64,10 @@ public class ExpensesServiceTest{
 
         // Inject the mocked ExpensesRepository into your service
         ReflectionTestUtils.setField(expensesService, "expenseRepository", expensesRepository);
+        // Sharding disabled: queries run on the single database
+        ReflectionTestUtils.setField(expensesService, "shardRouter", new ShardRouter());
+        ReflectionTestUtils.setField(expensesService, "requestCoalescer", new RequestCoalescer(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(expensesService, "expenseTagIndex", expenseTagIndex);
 
         expense = new Expenses();
         expense.setExpensesDescription("tuition fees");
@@ -109,11 +132,27 @@ public class ExpensesServiceTest{
         assertEquals(expenseToUpdate.getExpensesDescription(), updatedExpense.getExpensesDescription());
         assertEquals(expenseToUpdate.getExpensesAmount(), updatedExpense.getExpensesAmount());
     }
+    @Test
+    void updateExpense_StopsOnceTheDeadlineHasPassed() {
+        Expenses expenseToUpdate = new Expenses();
+        expenseToUpdate.setExpensesDescription("Updated Expense Description");
+        when(expensesRepository.findById(1L)).thenReturn(Optional.of(expenseToUpdate));
+        Deadline.start(0);
+        try {
+            assertThrows(DeadlineExceededException.class, () -> expensesService.updateExpense(1L, expenseToUpdate));
+        } finally {
+            Deadline.clear();
+        }
+
+        verifyNoInteractions(budgetRepository);
+        verify(expensesRepository, never()).save(any(Expenses.class));
+    }
+
     @Test
     void deleteExpense_ExistingExpense() {
         // Given
         Long expenseId = 1L;
-        when(expensesRepository.existsById(expenseId)).thenReturn(true);
+        when(expensesRepository.findById(expenseId)).thenReturn(Optional.of(expense));
 
         // When
         expensesService.deleteExpense(expenseId);
@@ -219,11 +258,29 @@ public class ExpensesServiceTest{
         assertThrows(BudgetNotFoundException.class, () -> expensesService.updateExpense(expenseId, expenseToUpdate));
     }
 
+    @Test
+    void deleteExpense_PublishesDeletedEvent() {
+        User user = new User();
+        user.setId(7L);
+        budget.setUser(user);
+        expense.setBudget(budget);
+        when(expensesRepository.findById(1L)).thenReturn(Optional.of(expense));
+
+        expensesService.deleteExpense(1L);
+
+        ArgumentCaptor<ChangeEvent> captor = ArgumentCaptor.forClass(ChangeEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(7L, captor.getValue().getUserId());
+        assertEquals(budget.getBudgetId(), captor.getValue().getBudgetId());
+        assertEquals(ChangeEvent.Action.DELETED, captor.getValue().getAction());
+        assertNull(captor.getValue().getData());
+    }
+
     @Test
     void deleteExpense_NonExistingExpense() {
         // Given
         Long expenseId = 1L;
-        when(expensesRepository.existsById(expenseId)).thenReturn(false);
+        when(expensesRepository.findById(expenseId)).thenReturn(Optional.empty());
 
         // When/Then
         assertThrows(ExpenseNotFoundException.class, () -> expensesService.deleteExpense(expenseId));
@@ -234,12 +291,79 @@ public class ExpensesServiceTest{
     void deleteExpense_ExceptionDuringDeletion() {
         // Given
         Long expenseId = 1L;
-        when(expensesRepository.existsById(expenseId)).thenReturn(true);
+        when(expensesRepository.findById(expenseId)).thenReturn(Optional.of(expense));
         doThrow(RuntimeException.class).when(expensesRepository).deleteById(expenseId);
 
         // When/Then
         assertThrows(RuntimeException.class, () -> expensesService.deleteExpense(expenseId));
     }
 
+    @Test
+    void getExpensesByUserIdAndTags_FiltersOnTheNormalizedTags() {
+        expense.setExpensesId(4L);
+        when(expenseTagIndex.findExpenseIds(7L, new TreeSet<>(Set.of("groceries", "work")), true)).thenReturn(List.of(4L));
+        when(expensesRepository.findByExpensesIdIn(List.of(4L))).thenReturn(List.of(expense));
+
+        List<Expenses> result = expensesService.getExpensesByUserIdAndTags(7L, List.of(" Work", "groceries", "work"), true);
+
+        assertEquals(List.of(expense), result);
+    }
+
+    @Test
+    void getExpensesByIds_ReturnsTheExpensesInRequestOrderWithTheMissingIds() {
+        // 1500 ids take two IN queries; the repository answers each chunk ordered by id
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 1500).boxed().toList());
+        Collections.reverse(ids);
+        ids.add(1500L);
+        when(expensesRepository.findByExpensesIdIn(any())).thenAnswer(invocation -> {
+            Collection<Long> chunk = invocation.getArgument(0);
+            return chunk.stream().filter(id -> id % 500 != 0).sorted().map(id -> {
+                Expenses found = new Expenses();
+                found.setExpensesId(id);
+                return found;
+            }).toList();
+        });
+
+        MultiGetResult<Expenses> result = expensesService.getExpensesByIds(ids);
+
+        verify(expensesRepository, times(2)).findByExpensesIdIn(any());
+        assertEquals(1497, result.getItems().size());
+        assertEquals(1499L, result.getItems().get(0).getExpensesId());
+        assertEquals(1L, result.getItems().get(1496).getExpensesId());
+        assertEquals(List.of(1500L, 1000L, 500L), result.getMissingIds());
+    }
+
+    @Test
+    void getExpensesByIds_RejectsTooManyIds() {
+        List<Long> ids = LongStream.rangeClosed(1, 10_001).boxed().toList();
+
+        InvalidInputException ex = assertThrows(InvalidInputException.class, () -> expensesService.getExpensesByIds(ids));
+
+        assertEquals("too-many-ids", ex.getCode());
+        verifyNoInteractions(expensesRepository);
+    }
+
+    @Test
+    void getExpensesByUserIdAndTags_RejectsInvalidTags() {
+        assertEquals("invalid-tag", assertThrows(InvalidInputException.class,
+                () -> expensesService.getExpensesByUserIdAndTags(7L, List.of("no spaces"), false)).getCode());
+        assertEquals("missing-tags", assertThrows(InvalidInputException.class,
+                () -> expensesService.getExpensesByUserIdAndTags(7L, List.of(), false)).getCode());
+        verifyNoInteractions(expenseTagIndex);
+    }
+
+    @Test
+    void createExpense_NormalizesTags() {
+        budget.setBudgetId(1L);
+        expense.setExpensesAmount(10);
+        expense.setBudget(budget);
+        expense.setTags(new TreeSet<>(Set.of("Reimbursable ", "WORK")));
+        when(budgetRepository.findById(1L)).thenReturn(Optional.of(budget));
+        when(expensesRepository.save(any(Expenses.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Expenses saved = expensesService.createExpense(expense);
+
+        assertEquals(List.of("reimbursable", "work"), List.copyOf(saved.getTags()));
+    }
 
 }
@@ -0,0 +1,174 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.Expenses;
+import BudgetTracker.Tracker.entity.RecurringExpense;
+import BudgetTracker.Tracker.entity.User;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.repository.BudgetAlertRepository;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.ExpensesRepository;
+import BudgetTracker.Tracker.repository.RecurringExpenseRepository;
+import BudgetTracker.Tracker.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "tracker.recurring.catch-up-on-startup=false",
+        "tracker.recurring.workers=2",
+        "tracker.recurring.chunk-size=2"
+})
+@ActiveProfiles("test")
+public class RecurringExpenseSchedulerTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ChangeEventRecorder changeEventRecorder() {
+            return new ChangeEventRecorder();
+        }
+    }
+
+    static class ChangeEventRecorder {
+        final Queue<ChangeEvent> committed = new ConcurrentLinkedQueue<>();
+
+        @TransactionalEventListener(fallbackExecution = true)
+        public void onChange(ChangeEvent event) {
+            committed.add(event);
+        }
+    }
+
+    @Autowired
+    private RecurringExpenseScheduler scheduler;
+    @Autowired
+    private RecurringExpenseService recurringExpenseService;
+    @Autowired
+    private RecurringExpenseRepository recurringExpenseRepository;
+    @Autowired
+    private ExpensesRepository expensesRepository;
+    @Autowired
+    private BudgetAlertRepository budgetAlertRepository;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ChangeEventRecorder changeEventRecorder;
+
+    private Budget budget;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Recurring");
+        user.setEmail("recurring@example.com");
+        user = userRepository.save(user);
+        budget = new Budget();
+        budget.setBudgetDescription("Housing");
+        budget.setBudgetAmount(100000);
+        budget.setUser(user);
+        budget = budgetRepository.save(budget);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recurringExpenseRepository.deleteAll();
+        expensesRepository.deleteAll();
+        budgetAlertRepository.deleteAll();
+        budgetRepository.deleteAll();
+        userRepository.deleteAll();
+        changeEventRecorder.committed.clear();
+    }
+
+    @Test
+    void generatesMissedOccurrencesOnceAndAdvancesTheRule() {
+        RecurringExpense rent = create("Rent", 1200, "1 * *", LocalDate.of(2026, 1, 1));
+        create("Music", 10, "15 * *", LocalDate.of(2026, 1, 1));
+        create("Gym", 30, "* * MON", LocalDate.of(2026, 3, 1));
+
+        int generated = scheduler.generateDueExpenses(LocalDate.of(2026, 3, 10));
+
+        // Rent on Jan 1, Feb 1, Mar 1; music on Jan 15, Feb 15; gym on Mar 2, Mar 9
+        assertEquals(7, generated);
+        List<Expenses> expenses = expensesRepository.findByBudget_User_Id(budget.getUser().getId());
+        assertEquals(7, expenses.size());
+        assertTrue(expenses.stream().anyMatch(e -> e.getExpensesDescription().equals("Rent 20260201")));
+        assertEquals(LocalDate.of(2026, 4, 1), recurringExpenseRepository.findById(rent.getRecurringExpenseId()).get().getNextOccurrence());
+        assertEquals(3 * 1200 + 2 * 10 + 2 * 30, budgetRepository.findSpentAmountByBudgetId(budget.getBudgetId()));
+        // One write per occurrence, so snapshots keyed on the data version see every generated expense
+        assertEquals(7L, budgetRepository.findDataVersionsByUserId(budget.getUser().getId()).get(0)[1]);
+
+        assertEquals(0, scheduler.generateDueExpenses(LocalDate.of(2026, 3, 10)));
+        assertEquals(7, expensesRepository.count());
+    }
+
+    @Test
+    void publishesACommittedChangeForEveryGeneratedExpense() {
+        create("Rent", 1200, "1 * *", LocalDate.of(2026, 1, 1));
+        changeEventRecorder.committed.clear();
+
+        scheduler.generateDueExpenses(LocalDate.of(2026, 2, 10));
+
+        List<Long> ids = expensesRepository.findByBudget_User_Id(budget.getUser().getId()).stream()
+                .map(Expenses::getExpensesId).sorted().toList();
+        List<ChangeEvent> events = List.copyOf(changeEventRecorder.committed);
+        assertEquals(2, events.size());
+        assertEquals(ids, events.stream().map(ChangeEvent::getEntityId).sorted().toList());
+        for (ChangeEvent event : events) {
+            assertEquals(ChangeEvent.Action.CREATED, event.getAction());
+            assertEquals(ChangeEvent.EntityType.EXPENSE, event.getEntityType());
+            assertEquals(budget.getUser().getId(), event.getUserId());
+            assertEquals(budget.getBudgetId(), event.getBudgetId());
+            assertEquals(1200, ((Expenses) event.getData()).getExpensesAmount());
+        }
+    }
+
+    @Test
+    void stopsAfterTheEndDate() {
+        RecurringExpense trial = create("Trial", 5, "@daily", LocalDate.of(2026, 1, 1));
+        trial.setEndDate(LocalDate.of(2026, 1, 3));
+        recurringExpenseRepository.save(trial);
+
+        assertEquals(3, scheduler.generateDueExpenses(LocalDate.of(2026, 2, 1)));
+        assertNull(recurringExpenseRepository.findById(trial.getRecurringExpenseId()).get().getNextOccurrence());
+    }
+
+    @Test
+    void partitionsSplitUsersWithoutOverlap() {
+        create("Rent", 1200, "1 * *", LocalDate.of(2026, 1, 1));
+        long userId = budget.getUser().getId();
+        LocalDate today = LocalDate.of(2026, 1, 31);
+
+        int otherPartition = scheduler.generatePartition(today, 2, (int) ((userId + 1) % 2));
+        int ownPartition = scheduler.generatePartition(today, 2, (int) (userId % 2));
+        int again = scheduler.generatePartition(today, 2, (int) (userId % 2));
+
+        assertEquals(0, otherPartition);
+        assertEquals(1, ownPartition);
+        assertEquals(0, again);
+    }
+
+    private RecurringExpense create(String description, int amount, String rule, LocalDate startDate) {
+        RecurringExpense recurringExpense = new RecurringExpense();
+        recurringExpense.setDescription(description);
+        recurringExpense.setAmount(amount);
+        recurringExpense.setRecurrenceRule(rule);
+        recurringExpense.setStartDate(startDate);
+        recurringExpense.setBudget(budget);
+        return recurringExpenseService.createRecurringExpense(recurringExpense);
+    }
+}
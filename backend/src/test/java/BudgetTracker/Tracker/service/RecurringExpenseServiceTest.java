@@ -0,0 +1,80 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.entity.RecurringExpense;
+import BudgetTracker.Tracker.entity.User;
+import BudgetTracker.Tracker.exceptions.InvalidInputException;
+import BudgetTracker.Tracker.exceptions.RecurringExpenseNotFoundException;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import BudgetTracker.Tracker.repository.RecurringExpenseRepository;
+import BudgetTracker.Tracker.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RecurringExpenseServiceTest {
+
+    @Mock
+    private RecurringExpenseRepository recurringExpenseRepository;
+    @Mock
+    private BudgetRepository budgetRepository;
+    @Mock
+    private UserRepository userRepository;
+    @InjectMocks
+    private RecurringExpenseService recurringExpenseService;
+
+    private Budget budget;
+    private RecurringExpense recurringExpense;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(7L);
+        budget = new Budget();
+        budget.setBudgetId(3L);
+        budget.setUser(user);
+        recurringExpense = new RecurringExpense();
+        recurringExpense.setDescription("Rent");
+        recurringExpense.setAmount(1200);
+        recurringExpense.setRecurrenceRule("1 * *");
+        recurringExpense.setStartDate(LocalDate.of(2026, 1, 2));
+        recurringExpense.setBudget(budget);
+    }
+
+    @Test
+    void createRecurringExpense_SchedulesFirstMatchingDate() {
+        when(budgetRepository.findById(3L)).thenReturn(Optional.of(budget));
+        when(recurringExpenseRepository.save(any(RecurringExpense.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        RecurringExpense created = recurringExpenseService.createRecurringExpense(recurringExpense);
+
+        assertEquals(LocalDate.of(2026, 2, 1), created.getNextOccurrence());
+        assertEquals(7L, created.getUserId());
+    }
+
+    @Test
+    void createRecurringExpense_RejectsInvalidRule() {
+        recurringExpense.setRecurrenceRule("0 0 1 * *");
+
+        assertThrows(InvalidInputException.class, () -> recurringExpenseService.createRecurringExpense(recurringExpense));
+        verify(recurringExpenseRepository, never()).save(any(RecurringExpense.class));
+    }
+
+    @Test
+    void deleteRecurringExpense_NotFound() {
+        when(recurringExpenseRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(RecurringExpenseNotFoundException.class, () -> recurringExpenseService.deleteRecurringExpense(1L));
+    }
+}
@@ -0,0 +1,153 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.config.Deadline;
+import BudgetTracker.Tracker.exceptions.DeadlineExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestCoalescerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescer coalescer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer(meterRegistry);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalReadsShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Future<String> leader = executor.submit(() -> coalescer.coalesce("read", 1L, () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "result";
+        }));
+        waitForInFlight(1);
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(executor.submit(() -> coalescer.coalesce("read", 1L, () -> "unexpected")));
+        }
+        waitForCount("coalesced", 3);
+        release.countDown();
+
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.counter("tracker.coalescer.calls", "method", "read", "outcome", "executed").count());
+    }
+
+    @Test
+    void writeDetachesInFlightReadFromNewCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stale = executor.submit(() -> coalescer.coalesce("read", 1L, () -> {
+            await(release);
+            return "before write";
+        }));
+        waitForInFlight(1);
+
+        coalescer.invalidate(1L);
+
+        assertEquals("after write", coalescer.coalesce("read", 1L, () -> "after write"));
+        release.countDown();
+        assertEquals("before write", stale.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failureIsSharedAndNotRetained() {
+        assertThrows(IllegalStateException.class, () -> coalescer.coalesce("read", 1L, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals("ok", coalescer.coalesce("read", 1L, () -> "ok"));
+    }
+
+    @Test
+    void followersRerunAReadWhoseLeaderRanOutOfTime() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> {
+            Deadline.start(50);
+            try {
+                return coalescer.coalesce("read", 1L, () -> {
+                    await(release);
+                    Deadline.check();
+                    return "too late";
+                });
+            } finally {
+                Deadline.clear();
+            }
+        });
+        waitForInFlight(1);
+        Future<String> follower = executor.submit(() -> coalescer.coalesce("read", 1L, () -> "own result"));
+        waitForCount("coalesced", 1);
+        Future<String> expiredFollower = executor.submit(() -> {
+            Deadline.start(0);
+            try {
+                return coalescer.coalesce("read", 1L, () -> "unexpected");
+            } finally {
+                Deadline.clear();
+            }
+        });
+        waitForCount("coalesced", 2);
+        Thread.sleep(60);
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DeadlineExceededException.class, leaderFailure.getCause());
+        assertEquals("own result", follower.get(5, TimeUnit.SECONDS));
+        // A follower out of time itself shares the failure
+        ExecutionException expiredFailure = assertThrows(ExecutionException.class, () -> expiredFollower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DeadlineExceededException.class, expiredFailure.getCause());
+        assertEquals(1.0, meterRegistry.counter("tracker.coalescer.calls", "method", "read", "outcome", "retried").count());
+    }
+
+    private void waitForInFlight(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("tracker.coalescer.in.flight").gauge().value() < expected) {
+            assertTrue(System.currentTimeMillis() < deadline, "read did not start");
+            Thread.sleep(5);
+        }
+    }
+
+    private void waitForCount(String outcome, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.counter("tracker.coalescer.calls", "method", "read", "outcome", outcome).count() < expected) {
+            assertTrue(System.currentTimeMillis() < deadline, "callers did not join");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package BudgetTracker.Tracker.service;
+
+import BudgetTracker.Tracker.entity.Budget;
+import BudgetTracker.Tracker.events.ChangeEvent;
+import BudgetTracker.Tracker.repository.BudgetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserEventStreamServiceTest {
+
+    @Mock
+    private BudgetRepository budgetRepository;
+    @InjectMocks
+    private UserEventStreamService eventStreamService;
+
+    @AfterEach
+    void tearDown() {
+        eventStreamService.shutdown();
+    }
+
+    @Test
+    void changeForUserWithoutStreamDoesNoWork() {
+        eventStreamService.onChange(new ChangeEvent(1L, ChangeEvent.EntityType.EXPENSE, ChangeEvent.Action.CREATED, 10L, 5L, null));
+
+        verifyNoInteractions(budgetRepository);
+    }
+
+    @Test
+    void changeForSubscribedUserComputesBudgetTotal() {
+        Budget budget = new Budget();
+        budget.setBudgetId(5L);
+        budget.setBudgetAmount(1000);
+        budget.setSpentAmount(250);
+        when(budgetRepository.findById(5L)).thenReturn(Optional.of(budget));
+        eventStreamService.subscribe(1L);
+
+        eventStreamService.onChange(new ChangeEvent(1L, ChangeEvent.EntityType.EXPENSE, ChangeEvent.Action.CREATED, 10L, 5L, null));
+
+        verify(budgetRepository, timeout(2000)).findById(5L);
+    }
+
+    @Test
+    void shutdownClosesAllStreams() {
+        eventStreamService.subscribe(1L);
+        eventStreamService.subscribe(1L);
+        eventStreamService.subscribe(2L);
+        assertEquals(2, eventStreamService.getSubscriberCount(1L));
+
+        eventStreamService.shutdown();
+
+        assertEquals(0, eventStreamService.getSubscriberCount(1L));
+        assertEquals(0, eventStreamService.getSubscriberCount(2L));
+    }
+}
@@ -26,6 +26,8 @@ import static org.mockito.Mockito.when;
 public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ShardRouter shardRouter;
     @InjectMocks
     private UserService underTest;
 
@@ -11,12 +11,12 @@ import ExpenseList from "./ExpenseList";
 
 const BudgetItem = ({ budget }) => {
     const { user } = useUserContext();
-    const { expenses, resetExpError } = useExpenseContext();
+    const { expensesByBudget, resetExpError } = useExpenseContext();
     const { removeBudget, fetchBudgets, resetError, budgets } = useBudgetContext();
     const { t, i18n} = useTranslation();
 
-    // Filter expenses for the current budget
-    const expensesForCurrentBudget = expenses.filter(expense => expense.budget.budgetId === budget.budgetId);
+    // Expenses of the current budget, grouped by the expense context
+    const expensesForCurrentBudget = expensesByBudget?.get(budget.budgetId) || [];
 
 
     useEffect(() => {
@@ -29,7 +29,7 @@ const BudgetItem = ({ budget }) => {
     const [showDeleteWarning, setShowDeleteWarning] = useState(false); // Added state for delete warning modal
 
     // No need to keep track of totalSpent, remaining, and percentSpent in state if they're derived directly from props and context
-    const totalSpent = calculateTotalSpent(expenses, budget.budgetId);
+    const totalSpent = calculateTotalSpent(expensesForCurrentBudget, budget.budgetId);
     const remaining = budget.budgetAmount - totalSpent;
     const percentSpent = Math.min((totalSpent / budget.budgetAmount) * 100, 100);
 
@@ -82,10 +82,7 @@ const BudgetItem = ({ budget }) => {
 
     const handleDeleteClick = () => {
         resetError();
-        // Perform the check for associated expenses directly within this handler
-        const linkedExpenses = expenses.some(exp => String(exp.budget.budgetId) === String(budget.budgetId));
-
-        if (linkedExpenses) {
+        if (expensesForCurrentBudget.length > 0) {
             setShowDeleteWarning(true); // Show warning modal if there are linked expenses
         } else {
             setShowDeleteConfirmation(true); // Otherwise, show confirmation modal
@@ -5,6 +5,7 @@ import BudgetItem from '../BudgetItem';
 import { UserContext } from '../../contexts/UserContext';
 import { ExpenseContext } from '../../contexts/ExpenseContext';
 import { useBudgetContext } from "../../contexts/BudgetContext";
+import { groupExpensesByBudget } from "../../helpers/HelperFunctions";
 import userEvent from "@testing-library/user-event";
 import i18next from "i18next";
 import en from "../../translations/en/common.json";
@@ -96,7 +97,7 @@ const renderWithProviders = (ui, { user = mockUser, expenses = mockExpenses, bud
     return render(
         <MemoryRouter>
             <UserContext.Provider value={{ user }}>
-                <ExpenseContext.Provider value={{ expenses }}>
+                <ExpenseContext.Provider value={{ expenses, expensesByBudget: groupExpensesByBudget(expenses) }}>
                     {ui}
                 </ExpenseContext.Provider>
             </UserContext.Provider>
@@ -1,5 +1,6 @@
 import React, { createContext, useContext, useState, useEffect, useMemo, useCallback } from 'react';
 import {getBudgetsByUserId, createBudget, deleteBudget, updateBudget} from '../services/BudgetService';
+import { subscribeToUserEvents } from '../services/EventService';
 import { useUserContext } from "./UserContext";
 import {useTranslation} from "react-i18next";
 
@@ -20,10 +21,10 @@ export const BudgetProvider = ({ children }) => {
 
     const [dynamicErrorContent, setDynamicErrorContent] = useState({});
 
+    // Keyed by the code of the problem detail answered by the backend
     const errorMapping = useMemo(() => ({
-        "Invalid input: Budget amount cannot be negative or zero.": "app.invalidBudgetInput",
-        "Invalid input: BudgetDescription must be alphanumeric": "app.budgetDescriptionError",
-        "unexpectedError": "app.unexpectedError",
+        "invalid-budget-amount": "app.invalidBudgetInput",
+        "invalid-budget-description": "app.budgetDescriptionError",
     }), []);
 
     useEffect(() => {
@@ -70,11 +71,25 @@ export const BudgetProvider = ({ children }) => {
     }, []);
 
 
+    // Apply budget changes pushed by the backend instead of refetching the whole list
     useEffect(() => {
-        if (userId) {
-            fetchBudgets(userId);
-        }
-    }, [userId, fetchBudgets]);
+        if (!userId) return undefined;
+        const unsubscribe = subscribeToUserEvents(userId, (change) => {
+            if (change.type !== 'BUDGET') return;
+            setBudgets(prevBudgets => {
+                if (change.action === 'DELETED') {
+                    return prevBudgets.filter(budget => budget.budgetId !== change.id);
+                }
+                const exists = prevBudgets.some(budget => budget.budgetId === change.id);
+                return exists
+                    ? prevBudgets.map(budget => budget.budgetId === change.id ? { ...budget, ...change.data } : budget)
+                    : [...prevBudgets, change.data];
+            });
+        });
+        return () => {
+            if (unsubscribe) unsubscribe();
+        };
+    }, [userId]);
 
     const addNewBudget = useCallback(async (budgetData) => {
         try {
@@ -82,11 +97,12 @@ export const BudgetProvider = ({ children }) => {
                 ...budgetData,
                 userId: userId,
             });
-            setBudgets(prevBudgets => [...prevBudgets, response]);
+            // The change stream may have delivered the new budget already
+            setBudgets(prevBudgets => [...prevBudgets.filter(budget => budget.budgetId !== response?.budgetId), response]);
             setError('');
 
         } catch (error) {
-            if (error.message.startsWith("A budget with the name")) {
+            if (error.code === "duplicate-budget-name") {
                 // Extract the dynamic budget name from the error message
                 const budgetNameMatch = error.message.match(/"([^"]+)"/);
                 const budgetName = budgetNameMatch ? budgetNameMatch[1] : "Unknown";
@@ -97,7 +113,7 @@ export const BudgetProvider = ({ children }) => {
                 setError(t("app.budgetExistsError", { name: budgetName }));
             } else {
                 // Handle other errors as before
-                const key = errorMapping[error.message] || "app.unexpectedError";
+                const key = errorMapping[error.code] || "app.unexpectedError";
                 setErrorKey(key);
                 setError(t(key));
             }
@@ -117,7 +133,7 @@ export const BudgetProvider = ({ children }) => {
             );
             setError('');
         } catch (error) {
-            if (error.message.startsWith("A budget with the name")) {
+            if (error.code === "duplicate-budget-name") {
                 // Extract the dynamic budget name from the error message
                 const budgetNameMatch = error.message.match(/"([^"]+)"/);
                 const budgetName = budgetNameMatch ? budgetNameMatch[1] : "Unknown";
@@ -128,7 +144,7 @@ export const BudgetProvider = ({ children }) => {
                 setError(t("app.budgetExistsError", { name: budgetName }));
             } else {
                 // Handle other errors as before
-                const key = errorMapping[error.message] || "app.unexpectedError";
+                const key = errorMapping[error.code] || "app.unexpectedError";
                 setErrorKey(key);
                 setError(t(key));
             }
@@ -153,6 +169,7 @@ export const BudgetProvider = ({ children }) => {
 
     const providerValue = useMemo(() => ({
         budgets,
+        setBudgets,
         addNewBudget,
         updateExistingBudget,
         shouldPopulateForm,
@@ -1,5 +1,7 @@
-import React, { createContext, useContext, useState, useEffect, useCallback, useMemo } from 'react';
+import React, { createContext, useContext, useState, useEffect, useCallback, useMemo, useRef } from 'react';
 import { getUserExpenses, createExpense, updateExpense, deleteExpense } from '../services/ExpenseService';
+import { subscribeToUserEvents } from '../services/EventService';
+import { groupExpensesByBudget } from '../helpers/HelperFunctions';
 import { useUserContext } from "./UserContext";
 import {useTranslation} from "react-i18next";
 
@@ -20,10 +22,10 @@ export const ExpenseProvider = ({ children }) => {
     const [errorKey, setErrorKey] = useState('');
     const [dynamicErrorContent, setDynamicErrorContent] = useState({});
 
+    // Keyed by the code of the problem detail answered by the backend
     const errorMapping = useMemo(() => ({
-        "invalid input: expenses amount cannot be negative.": "app.invalidExpenseInput",
-        "invalid input: expensesdescription must be alphanumeric": "app.expenseDescriptionError",
-        "unexpectederror": "app.unexpectedError",
+        "invalid-expense-amount": "app.invalidExpenseInput",
+        "invalid-expense-description": "app.expenseDescriptionError",
     }), []);
 
 
@@ -55,11 +57,29 @@ export const ExpenseProvider = ({ children }) => {
         }
     }, []); // Empty dependencies array since it's intended to be a generic fetch function
 
+    // Apply expense changes pushed by the backend instead of refetching the whole list
+    const streamOpen = useRef(false);
     useEffect(() => {
-        if (userId) {
-            fetchExpenses(userId);
-        }
-    }, [userId, fetchExpenses]);
+        if (!userId) return undefined;
+        const unsubscribe = subscribeToUserEvents(userId, (change) => {
+            if (change.type !== 'EXPENSE') return;
+            setExpenses(prevExpenses => {
+                const current = Array.isArray(prevExpenses) ? prevExpenses : [];
+                if (change.action === 'DELETED') {
+                    return current.filter(expense => expense.expensesId !== change.id);
+                }
+                const exists = current.some(expense => expense.expensesId === change.id);
+                return exists
+                    ? current.map(expense => expense.expensesId === change.id ? change.data : expense)
+                    : [...current, change.data];
+            });
+        });
+        streamOpen.current = Boolean(unsubscribe);
+        return () => {
+            streamOpen.current = false;
+            if (unsubscribe) unsubscribe();
+        };
+    }, [userId]);
 
     // Use useCallback to memoize addNewExpense to keep it stable across renders
     const addNewExpense = useCallback(async (expenseData) => {
@@ -71,10 +91,13 @@ export const ExpenseProvider = ({ children }) => {
                 ...expenseData,
                 userId: userId,
             });
-            setExpenses(prevExpenses => Array.isArray(prevExpenses) ? [...prevExpenses, response] : [response]);
+            // The change stream may have delivered the new expense already
+            setExpenses(prevExpenses => Array.isArray(prevExpenses)
+                ? [...prevExpenses.filter(expense => expense.expensesId !== response?.expensesId), response]
+                : [response]);
             setError('');
         } catch (error) {
-            if (error.message.startsWith("An expense with the name")) {
+            if (error.code === "duplicate-expense-name") {
                 const expenseNameMatch = error.message.match(/"([^"]+)"/);
                 const expenseName = expenseNameMatch ? expenseNameMatch[1] : "Unknown";
 
@@ -83,8 +106,7 @@ export const ExpenseProvider = ({ children }) => {
                 setError(t("app.expenseExistsError", { name: expenseName }));
 
             } else {
-                const normalizedErrorMessage = error.message.toLowerCase();
-                const key = errorMapping[normalizedErrorMessage] || "app.unexpectedError";
+                const key = errorMapping[error.code] || "app.unexpectedError";
                 setErrorKey(key);
                 setError(t(key));
             }
@@ -101,7 +123,7 @@ export const ExpenseProvider = ({ children }) => {
             setError('');
         } catch (error) {
 
-            if (error.message.startsWith("An expense with the name")) {
+            if (error.code === "duplicate-expense-name") {
                 const expenseNameMatch = error.message.match(/"([^"]+)"/);
                 const expenseName = expenseNameMatch ? expenseNameMatch[1] : "Unknown";
 
@@ -110,8 +132,7 @@ export const ExpenseProvider = ({ children }) => {
                 setError(t("app.expenseExistsError", { name: expenseName }));
 
             } else {
-                const normalizedErrorMessage = error.message.toLowerCase();
-                const key = errorMapping[normalizedErrorMessage] || "app.unexpectedError";
+                const key = errorMapping[error.code] || "app.unexpectedError";
                 setErrorKey(key);
                 setError(t(key));
             }
@@ -128,7 +149,9 @@ export const ExpenseProvider = ({ children }) => {
                 prevExpenses.filter(expense => expense.expensesId !== expenseId)
             );
             setError('');
-            await fetchExpenses(userId); // Fetch expenses again to update UI
+            if (!streamOpen.current) {
+                await fetchExpenses(userId); // Fetch expenses again to update UI when no change stream is open
+            }
         } catch (error) {
             const errorMessage = error.message || 'An unexpected error occurred';
             setError(errorMessage);
@@ -137,12 +160,17 @@ export const ExpenseProvider = ({ children }) => {
 
     const resetError = useCallback(() => setError(''), []); // Wrap resetError in useCallback
 
+    // Grouped once per change of the list, so every budget item looks up its own expenses
+    const expensesByBudget = useMemo(() => groupExpensesByBudget(expenses), [expenses]);
+
     const resetExpError = useCallback(() => setError(''), []); // Wrap resetError in useCallback
 
 
     // Use useMemo to memoize the context value to prevent unnecessary re-renders
     const providerValue = useMemo(() => ({
         expenses,
+        expensesByBudget,
+        setExpenses,
         addNewExpense,
         updateExistingExpense,
         removeExpense,
@@ -151,7 +179,7 @@ export const ExpenseProvider = ({ children }) => {
         resetError, // Now stable across renders
         resetExpError,
         setError
-    }), [expenses, addNewExpense, updateExistingExpense, removeExpense, fetchExpenses, error, resetError, resetExpError]);
+    }), [expenses, expensesByBudget, addNewExpense, updateExistingExpense, removeExpense, fetchExpenses, error, resetError, resetExpError]);
 
     return (
         <ExpenseContext.Provider value={providerValue}>
@@ -76,11 +76,14 @@ describe('BudgetContext Integration Tests', () => {
         jest.resetAllMocks();
     });
 
-    it('fetches and updates budgets when the user changes', async () => {
+    it('fetches and updates the budgets of a user', async () => {
         BudgetService.getBudgetsByUserId.mockResolvedValueOnce(initialBudgets);
 
         const TestComponent = () => {
-            const { budgets } = useBudgetContext();
+            const { budgets, fetchBudgets } = useBudgetContext();
+            useEffect(() => {
+                fetchBudgets(user.id);
+            }, [fetchBudgets]);
             return (
                 <>
                     {budgets.map((budget) => (
@@ -149,7 +152,10 @@ describe('BudgetContext Integration Tests', () => {
 
         let testError;
         const TestComponent = () => {
-            const { error } = useBudgetContext();
+            const { error, fetchBudgets } = useBudgetContext();
+            useEffect(() => {
+                fetchBudgets(user.id);
+            }, [fetchBudgets]);
             testError = error;
             return null;
         };
@@ -63,11 +63,14 @@ describe('ExpenseContext Integration Tests', () => {
         console.error = originalConsoleError; // Restore original console.error
     });
 
-    it('fetches and displays user-specific expenses upon user change', async () => {
+    it('fetches and displays the expenses of a user', async () => {
         ExpenseService.getUserExpenses.mockResolvedValueOnce(initialExpenses);
 
         const TestComponent = () => {
-            const { expenses } = useExpenseContext();
+            const { expenses, fetchExpenses } = useExpenseContext();
+            useEffect(() => {
+                fetchExpenses(mockUser.id);
+            }, [fetchExpenses]);
             return (
                 <div>
                     {expenses.map(expense => (
@@ -143,7 +146,10 @@ describe('ExpenseContext Integration Tests', () => {
         ExpenseService.getUserExpenses.mockRejectedValueOnce(new Error(errorMessage));
 
         const TestComponent = () => {
-            const { error } = useExpenseContext();
+            const { error, fetchExpenses } = useExpenseContext();
+            useEffect(() => {
+                fetchExpenses(mockUser.id);
+            }, [fetchExpenses]);
             return <div>{error}</div>;
         };
 
@@ -175,7 +181,10 @@ describe('ExpenseContext Integration Tests', () => {
         ExpenseService.updateExpense.mockResolvedValueOnce(updatedExpense);
 
         const TestComponent = () => {
-            const { expenses, updateExistingExpense } = useExpenseContext();
+            const { expenses, updateExistingExpense, fetchExpenses } = useExpenseContext();
+            useEffect(() => {
+                fetchExpenses(mockUser.id);
+            }, [fetchExpenses]);
             return (
                 <>
                     {expenses.map(expense => (
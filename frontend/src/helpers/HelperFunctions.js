@@ -6,6 +6,21 @@ export const calculateTotalSpent = (expenses, budgetId) => {
         .reduce((total, expense) => total + parseFloat(expense.expensesAmount || 0), 0);
 };
 
+// Grouping expenses under their budget in one pass, keeping their order
+export const groupExpensesByBudget = (expenses) => {
+    const expensesByBudget = new Map();
+    if (!Array.isArray(expenses)) return expensesByBudget;
+    expenses.forEach(expense => {
+        const budgetId = expense?.budget?.budgetId;
+        if (budgetId === undefined) return;
+        if (!expensesByBudget.has(budgetId)) {
+            expensesByBudget.set(budgetId, []);
+        }
+        expensesByBudget.get(budgetId).push(expense);
+    });
+    return expensesByBudget;
+};
+
 // Formatting Currency
 export const formatCurrency = (amount) => {
     return amount.toLocaleString('en-US', { style: 'currency', currency: 'USD' });
@@ -1,7 +1,27 @@
 // HelperFunctions.test.js
-import { calculateTotalSpent, formatCurrency, formatPercentage } from '../HelperFunctions';
+import { calculateTotalSpent, formatCurrency, formatPercentage, groupExpensesByBudget } from '../HelperFunctions';
 
 describe('HelperFunctions', () => {
+    describe('groupExpensesByBudget', () => {
+        // Group Expenses Under Their Budget in Order
+        it('groups the expenses of every budget in their original order', () => {
+            const expenses = [
+                { expensesId: 1, budget: { budgetId: 1 } },
+                { expensesId: 2, budget: { budgetId: 2 } },
+                { expensesId: 3, budget: { budgetId: 1 } }
+            ];
+            const expensesByBudget = groupExpensesByBudget(expenses);
+            expect(expensesByBudget.get(1).map(expense => expense.expensesId)).toEqual([1, 3]);
+            expect(expensesByBudget.get(2).map(expense => expense.expensesId)).toEqual([2]);
+            expect(expensesByBudget.has(3)).toBe(false);
+        });
+
+        // Group Without a List of Expenses
+        it('returns no groups when there are no expenses', () => {
+            expect(groupExpensesByBudget(undefined).size).toBe(0);
+        });
+    });
+
     describe('calculateTotalSpent', () => {
         //  Calculate Total Spent for a Specific Budget
         it('calculates the total expenses amount for a given budget ID', () => {
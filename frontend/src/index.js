@@ -1,10 +1,16 @@
 import React from 'react';
 import ReactDOM from 'react-dom/client';
+import axios from 'axios';
 import App from './App';
 import './styles/index.css';
 
 import './i18n';
 
+// Give up on API calls after this long, and tell the backend so it stops working on them too
+const REQUEST_TIMEOUT_MS = 10000;
+axios.defaults.timeout = REQUEST_TIMEOUT_MS;
+axios.defaults.headers.common['X-Request-Timeout-Ms'] = String(REQUEST_TIMEOUT_MS);
+
 const root = ReactDOM.createRoot(document.getElementById('root'));
 root.render(
     <React.StrictMode>
@@ -4,24 +4,37 @@ import { useBudgetContext } from "../contexts/BudgetContext";
 import BudgetList from "../components/BudgetList";
 import AddBudgetForm from "../components/AddBudgetForm";
 import {useExpenseContext} from "../contexts/ExpenseContext";
+import { getDashboard, DASHBOARD_PAGE_SIZE } from "../services/DashboardService";
 import '../styles/Dashboard.css';
 import {useTranslation} from "react-i18next";
 
 const Dashboard = () => {
     const { user } = useUserContext();
-    const { budgets, fetchBudgets } = useBudgetContext();
-    const { fetchExpenses } = useExpenseContext();
+    const { budgets, setBudgets, setError } = useBudgetContext();
+    const { setExpenses, fetchExpenses } = useExpenseContext();
     const { t, i18n } = useTranslation();
 
     useEffect(() => {
     }, [i18n.language]);
 
+    // Load the budgets and their expenses, grouped by the server, in one request
     useEffect(() => {
-        if (user && user.id) {
-            fetchBudgets(user.id);
-            fetchExpenses(user.id);
-        }
-    }, [user, fetchBudgets, fetchExpenses]);
+        if (!user || !user.id) return;
+        getDashboard(user.id, 0, DASHBOARD_PAGE_SIZE)
+            .then(dashboard => {
+                const dashboardBudgets = dashboard.budgets || [];
+                setBudgets(dashboardBudgets.map(({ expenses, ...budget }) => budget));
+                // The server leaves the budget out of its expenses; keep the reference the expense views rely on
+                const dashboardExpenses = dashboardBudgets.flatMap(({ expenses, ...budget }) =>
+                    (expenses || []).map(expense => ({ ...expense, budget: { ...budget } })));
+                setExpenses(dashboardExpenses);
+                if (dashboard.expenseCount > dashboardExpenses.length) {
+                    // More expenses than one dashboard page holds
+                    fetchExpenses(user.id);
+                }
+            })
+            .catch(error => setError(error.message || 'An unexpected error occurred'));
+    }, [user, setBudgets, setExpenses, fetchExpenses, setError]);
 
     return (
         <div className="container" data-testid="dashboard">
@@ -16,10 +16,10 @@ const SignUp = () => {
     // Update to hold the error message key instead of the translated message
     const [errorKey] = useState('');
 
+    // Keyed by the code of the problem detail answered by the backend
     const errorMapping = {
-        "Invalid input: Invalid email format": "app.creationFailed",
-        "An account with these credentials already exists.": "app.userExist",
-        "An error occurred during the signup process. Please try again later.": "app.signupError",
+        "invalid-email": "app.creationFailed",
+        "duplicate-user": "app.userExist",
     };
 
     useEffect(() => {
@@ -49,7 +49,8 @@ const SignUp = () => {
             setUser(user); // Set the user in context
             navigate('/dashboard'); // Navigate to the Dashboard upon successful creation
         } catch (error) {
-            const key = errorMapping[error.message] || "app.unexpectedError"; // Fallback to a generic error message
+            // Errors without a response, such as network failures, keep the generic signup error
+            const key = errorMapping[error.code] || (error.status ? "app.unexpectedError" : "app.signupError");
             setError(t(key));
         }
     };
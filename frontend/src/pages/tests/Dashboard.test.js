@@ -55,25 +55,41 @@ describe('Dashboard Component', () => {
         budget: mockBudget
     };
 
+    const mockDashboard = {
+        user: mockUser,
+        budgets: [{ ...mockBudget, expenses: [{ expensesId: 2, expensesDescription: "Coffee", expensesAmount: 5, expensesDate: "2024-02-06T10:00:00Z" }] }],
+        totals: { budgetCount: 1, budgetAmount: 500, spentAmount: 5 },
+        page: 0,
+        size: 500,
+        expenseCount: 1
+    };
+
+    const setBudgets = jest.fn();
+    const setExpenses = jest.fn();
+    const fetchExpenses = jest.fn();
+
     beforeEach(() => {
         // Setup initial context values and mock API responses
-        axios.get.mockResolvedValueOnce({ data: [mockExpense] }); // Mock fetching expenses
+        jest.clearAllMocks();
+        axios.get.mockResolvedValueOnce({ data: mockDashboard }); // Mock loading the dashboard
     });
 
-    it('renders user budgets data correctly', async () => {
-        render(
+    const renderDashboard = () => render(
             <Router>
                 <I18nextProvider i18n={i18next}>
                     <UserContext.Provider value={{ user: mockUser }}>
-                        <BudgetContext.Provider value={{ budgets: [mockBudget], fetchBudgets: jest.fn() }}>
-                            <ExpenseContext.Provider value={{ expenses: [mockExpense], fetchExpenses: jest.fn() }}>
+                        <BudgetContext.Provider value={{ budgets: [mockBudget], setBudgets, setError: jest.fn() }}>
+                            <ExpenseContext.Provider value={{ expenses: [mockExpense], setExpenses, fetchExpenses }}>
                                 <Dashboard />
                             </ExpenseContext.Provider>
                         </BudgetContext.Provider>
                     </UserContext.Provider>
                 </I18nextProvider>
             </Router>
-        );
+    );
+
+    it('renders user budgets data correctly', async () => {
+        renderDashboard();
 
         // Wait for the component to receive the mocked response and update the UI
         await waitFor(() => {
@@ -85,4 +101,17 @@ describe('Dashboard Component', () => {
         // Validate if the user's name is rendered
         expect(screen.getByText(`Welcome, Harmeet!`)).toBeInTheDocument();
     });
+
+    it('loads the budgets and their expenses in one request', async () => {
+        renderDashboard();
+
+        await waitFor(() => {
+            expect(setBudgets).toHaveBeenCalledWith([mockBudget]);
+        });
+        expect(axios.get).toHaveBeenCalledTimes(1);
+        expect(axios.get).toHaveBeenCalledWith(expect.stringContaining('/dashboard/1'), { params: { page: 0, size: 500 } });
+        expect(setExpenses).toHaveBeenCalledWith([{ ...mockExpense, budget: mockBudget }]);
+        // The page held every expense, so they are not fetched again
+        expect(fetchExpenses).not.toHaveBeenCalled();
+    });
 });
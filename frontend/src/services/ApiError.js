@@ -0,0 +1,11 @@
+// Build the Error thrown by the services from a failed request.
+// The backend answers errors with a problem detail ({ code, detail, ... }): the message is its detail and the
+// stable code is kept on the error, so callers can pick a translation without matching the message text.
+export const toApiError = (error, fallbackMessage) => {
+    const data = error.response?.data;
+    const message = (typeof data === 'string' ? data : data?.detail) || fallbackMessage;
+    const apiError = new Error(message);
+    apiError.code = data?.code;
+    apiError.status = error.response?.status;
+    return apiError;
+};
@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { toApiError } from './ApiError';
 
 
 // Use the environment variable for the API base URL
@@ -9,7 +10,7 @@ export const createBudget = (budgetData) => {
         .then(response => response.data)
         .catch(error => {
             // Throw an error directly with either the specific error message or a generic one
-            throw new Error(error.response?.data|| 'An error occurred while creating the budget. Please try again later.');
+            throw toApiError(error, 'An error occurred while creating the budget. Please try again later.');
         });
 };
 
@@ -18,7 +19,7 @@ export const getBudgetsByUserId = (userId) => {
         .then(response => response.data)
         .catch(error => {
             // Throw an error directly for consistency with createBudget
-            throw new Error(error.response?.data || 'Failed to load budgets. Please refresh the page to try again.');
+            throw toApiError(error, 'Failed to load budgets. Please refresh the page to try again.');
         });
 };
 
@@ -27,7 +28,7 @@ export const updateBudget = (budgetId, budgetData) => {
     return axios.put(`${API_URL}/${budgetId}`, budgetData)
         .then(response => response.data)
         .catch(error => {
-            throw new Error(error.response?.data || 'An error occurred while updating the budget. Please try again later.');
+            throw toApiError(error, 'An error occurred while updating the budget. Please try again later.');
         });
 };
 
@@ -36,6 +37,6 @@ export const deleteBudget = (budgetId) => {
     return axios.delete(`${API_URL}/${budgetId}`)
         .then(response => response.data)
         .catch(error => {
-            throw new Error(error.response?.data || 'An error occurred while deleting the budget. Please try again later.');
+            throw toApiError(error, 'An error occurred while deleting the budget. Please try again later.');
         });
 };
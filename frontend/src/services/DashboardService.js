@@ -0,0 +1,18 @@
+import axios from 'axios';
+import { toApiError } from './ApiError';
+
+
+// Use the environment variable for the API base URL
+const API_URL = `${process.env.REACT_APP_API_URL || 'http://localhost:8080'}/dashboard`;
+
+// The largest page of expenses the backend answers by default (tracker.dashboard.max-page-size)
+export const DASHBOARD_PAGE_SIZE = 500;
+
+// Load the user, their budgets with the expenses grouped under each budget, and the totals in one request
+export const getDashboard = (userId, page = 0, size = 100) => {
+    return axios.get(`${API_URL}/${userId}`, { params: { page, size } })
+        .then(response => response.data)
+        .catch(error => {
+            throw toApiError(error, 'Failed to load the dashboard. Please refresh the page to try again.');
+        });
+};
@@ -0,0 +1,19 @@
+// Use the environment variable for the API base URL
+const API_URL = `${process.env.REACT_APP_API_URL || 'http://localhost:8080'}/events`;
+
+// Subscribe to the budget and expense changes of a user pushed by the backend.
+// Returns a function that closes the stream, or null when the browser has no EventSource support.
+export const subscribeToUserEvents = (userId, onChange) => {
+    if (typeof EventSource === 'undefined') {
+        return null;
+    }
+    const source = new EventSource(`${API_URL}/user/${userId}`);
+    source.addEventListener('change', (event) => {
+        try {
+            onChange(JSON.parse(event.data));
+        } catch (error) {
+            // Ignore malformed events; the next full fetch will resync the state
+        }
+    });
+    return () => source.close();
+};
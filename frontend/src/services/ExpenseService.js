@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { toApiError } from './ApiError';
 
 
 const API_URL = `${process.env.REACT_APP_API_URL || 'http://localhost:8080'}/expenses`;
@@ -7,7 +8,7 @@ export const getUserExpenses = ( userId ) => {
     return axios.get( `${API_URL}/user/${userId}` )
         .then( response => response.data )
         .catch( error => {
-            throw new Error(error.response?.data || 'Failed to load expenses. Please refresh the page to try again.');
+            throw toApiError(error, 'Failed to load expenses. Please refresh the page to try again.');
         });
 };
 
@@ -24,7 +25,7 @@ export const createExpense = (expenseData) => {
     return axios.post( API_URL, formattedData )
         .then(response  =>  response.data)
         .catch(error  =>  {
-            throw new Error(error.response?.data || 'An error occurred while creating an expense. Please try again later.');
+            throw toApiError(error, 'An error occurred while creating an expense. Please try again later.');
         });
 };
 
@@ -41,7 +42,7 @@ export const updateExpense = (expenseId, expenseData) => {
     return axios.put(`${API_URL}/${expenseId}`, formattedData)
         .then(response => response.data)
         .catch(error => {
-            throw new Error(error.response?.data || 'An error occurred while updating the expense. Please try again later.');
+            throw toApiError(error, 'An error occurred while updating the expense. Please try again later.');
         });
 };
 
@@ -50,6 +51,6 @@ export const deleteExpense = (expenseId) => {
     return axios.delete(`${API_URL}/${expenseId}`)
         .then(response => response.data)
         .catch(error => {
-            throw new Error(error.response?.data || 'An error occurred while deleting the expense. Please try again later.');
+            throw toApiError(error, 'An error occurred while deleting the expense. Please try again later.');
         });
 };
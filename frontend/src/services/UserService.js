@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { toApiError } from './ApiError';
 
 // Use the environment variable for the API base URL
 const API_URL = `${process.env.REACT_APP_API_URL || 'http://localhost:8080'}/users`;
@@ -7,9 +8,8 @@ const API_URL = `${process.env.REACT_APP_API_URL || 'http://localhost:8080'}/use
 export const createUser = (userData) => axios.post(API_URL, userData)
     .then(response => response.data)
     .catch((error) => {
-        // Assuming the error message is directly in error.response.data
         const signupError = "An error occurred during the signup process. Please try again later."
-        throw new Error(error.response.data || signupError);
+        throw toApiError(error, signupError);
     });
 
 
@@ -21,6 +21,6 @@ export const findUser = async (name, email) => {
     } catch (error) {
         const serverError = "Server error occurred. Please try again later."
         // Adjusted to throw an error for consistency with createUser
-        throw new Error(error.response?.data || serverError);
+        throw toApiError(error, serverError);
     }
 };
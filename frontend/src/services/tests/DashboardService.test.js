@@ -0,0 +1,29 @@
+jest.mock('axios');
+import axios from 'axios';
+import {getDashboard} from '../DashboardService';
+
+describe('DashboardService', () => {
+    // Verify the dashboard is loaded with the default page
+    it('should load the dashboard of a user', async () => {
+        const dashboard = {
+            user: {id: 1, name: "Seif"},
+            budgets: [{budgetId: 1, budgetDescription: "Rent", budgetAmount: 1000, expenses: [{expensesId: 2, expensesAmount: 900}]}],
+            totals: {budgetCount: 1, budgetAmount: 1000, spentAmount: 900},
+            page: 0,
+            size: 100,
+            expenseCount: 1
+        };
+        axios.get.mockResolvedValue({data: dashboard});
+
+        await expect(getDashboard(1)).resolves.toEqual(dashboard);
+        expect(axios.get).toHaveBeenCalledWith(expect.stringContaining('/dashboard/1'), {params: {page: 0, size: 100}});
+    });
+
+    // Verify the error message of the server is passed on
+    it('should handle a non-existent user', async () => {
+        const errorMessage = 'Invalid input: User with ID 999 not found.';
+        axios.get.mockRejectedValue({response: {status: 404, data: errorMessage}});
+
+        await expect(getDashboard(999)).rejects.toThrow(errorMessage);
+    });
+});
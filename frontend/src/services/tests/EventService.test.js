@@ -0,0 +1,33 @@
+import { subscribeToUserEvents } from '../EventService';
+
+describe('EventService', () => {
+    const originalEventSource = global.EventSource;
+
+    afterEach(() => {
+        global.EventSource = originalEventSource;
+    });
+
+    it('should return null when EventSource is not supported', () => {
+        delete global.EventSource;
+
+        expect(subscribeToUserEvents(1, jest.fn())).toBeNull();
+    });
+
+    it('should forward parsed change events and close the stream on unsubscribe', () => {
+        const listeners = {};
+        const close = jest.fn();
+        global.EventSource = jest.fn().mockImplementation(() => ({
+            addEventListener: (name, listener) => { listeners[name] = listener; },
+            close,
+        }));
+        const onChange = jest.fn();
+
+        const unsubscribe = subscribeToUserEvents(1, onChange);
+        listeners.change({ data: JSON.stringify({ type: 'EXPENSE', action: 'DELETED', id: 3 }) });
+        unsubscribe();
+
+        expect(global.EventSource).toHaveBeenCalledWith('http://localhost:8080/events/user/1');
+        expect(onChange).toHaveBeenCalledWith({ type: 'EXPENSE', action: 'DELETED', id: 3 });
+        expect(close).toHaveBeenCalled();
+    });
+});